@@ -0,0 +1,75 @@
+package com.example.calltrack.Config;
+
+import com.example.calltrack.Service.ReadYourWrites;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primary plus read replicas, active when {@code calltrack.replicas.urls} is set. Replaces the
+ * auto-configured pool: the primary is built from {@code spring.datasource.*}, every replica gets
+ * its own pool with the same credentials unless {@code calltrack.replicas.username/password} say
+ * otherwise.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "calltrack.replicas", name = "urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties, ReadYourWrites readYourWrites, ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${calltrack.replicas.urls}") List<String> urls,
+            @Value("${calltrack.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${calltrack.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${calltrack.replicas.pool-size:10}") int poolSize,
+            @Value("${calltrack.replicas.max-lag:PT5S}") Duration maxLag,
+            @Value("${calltrack.replicas.health-interval:PT2S}") Duration healthInterval) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        meterRegistry.ifAvailable(primary::setMetricRegistry);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(urls.get(i).trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // A replica that stops answering must not hold a read for long before it falls back
+            replica.setConnectionTimeout(1_000);
+            replica.setInitializationFailTimeout(-1);
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primary, replicas, ReplicaRoutingDataSource::postgresLag, maxLag, readYourWrites);
+        routing.start(healthInterval);
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.calltrack.Config;
+
+import com.example.calltrack.DTO.TokenClaimsDTO;
+import com.example.calltrack.Service.ReplicaRead;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Marks the thread as running a {@link ReplicaRead} method for {@link ReplicaRoutingDataSource},
+ * together with the client whose data it reads. Nested replica reads keep the outermost scope.
+ */
+@Aspect
+@Component
+public class ReplicaReadAspect {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    /** The replica read running on this thread; {@code clientId} is {@code null} when unknown. */
+    record Scope(Long clientId) {
+    }
+
+    /** Scope of the replica read on this thread, or {@code null} outside one. */
+    static Scope current() {
+        return CURRENT.get();
+    }
+
+    @Around("@annotation(replicaRead)")
+    public Object route(ProceedingJoinPoint joinPoint, ReplicaRead replicaRead) throws Throwable {
+        if (CURRENT.get() != null) {
+            return joinPoint.proceed();
+        }
+        CURRENT.set(new Scope(clientOf(joinPoint, replicaRead.client())));
+        try {
+            return joinPoint.proceed();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    private static Long clientOf(ProceedingJoinPoint joinPoint, String parameter) {
+        if (!parameter.isEmpty()) {
+            String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+            Object[] args = joinPoint.getArgs();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(parameter) && args[i] instanceof Long clientId) {
+                    return clientId;
+                }
+            }
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof TokenClaimsDTO claims
+                ? claims.getClientId()
+                : null;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.calltrack.Config;
+
+import com.example.calltrack.Service.ReadYourWrites;
+import com.example.calltrack.Service.ReplicaRead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the connections of read-only transactions opened by {@link ReplicaRead} methods to a read
+ * replica and everything else to the primary. A replica is used only while its last health check
+ * succeeded and it was no further behind than {@code maxLag}; clients pinned by
+ * {@link ReadYourWrites} read from the primary. When no replica qualifies, or the chosen one refuses
+ * a connection, the read falls back to the primary. Meant to sit behind a
+ * {@link LazyConnectionDataSourceProxy}, so the choice is made at the first statement, once the
+ * transaction's read-only flag is set.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String PRIMARY = "primary";
+
+    /** Replication lag as seen by a replica: zero when it has replayed everything it received. */
+    private static final String LAG = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)::bigint
+                   END
+            """;
+
+    /** Measures how far a replica is behind the primary; throws when it cannot be reached. */
+    @FunctionalInterface
+    public interface LagProbe {
+        Duration lag(DataSource replica) throws Exception;
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        /** Lag at the last health check, or -1 when the replica was unreachable. */
+        private volatile long lagMillis = -1;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final LagProbe lagProbe;
+    private final long maxLagMillis;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "replica-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Map<String, Counter> reads = Map.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, LagProbe lagProbe,
+                                    Duration maxLag, ReadYourWrites readYourWrites) {
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.lagProbe = lagProbe;
+        this.maxLagMillis = maxLag.toMillis();
+        this.readYourWrites = readYourWrites;
+    }
+
+    /** Checks the replicas now and then every {@code interval}. */
+    public void start(Duration interval) {
+        checkReplicas();
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkReplicas, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Measures the lag of every replica; an unreachable replica is left out until it answers again. */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            long previous = replica.lagMillis;
+            try {
+                replica.lagMillis = lagProbe.lag(replica.dataSource).toMillis();
+            } catch (Exception e) {
+                replica.lagMillis = -1;
+                if (previous >= 0) {
+                    log.warn("Replica {} is unreachable, reading from the primary", replica.name, e);
+                }
+                continue;
+            }
+            if (previous >= 0 && previous <= maxLagMillis && replica.lagMillis > maxLagMillis) {
+                log.warn("Replica {} is {} ms behind, over the {} ms budget", replica.name, replica.lagMillis, maxLagMillis);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = route();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            count(replica.name);
+            return connection;
+        } catch (SQLException e) {
+            replica.lagMillis = -1;
+            log.warn("Replica {} refused a connection, reading from the primary", replica.name, e);
+            count(PRIMARY);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /** Replica for the connection being opened, or {@code null} for the primary. */
+    private Replica route() {
+        ReplicaReadAspect.Scope scope = ReplicaReadAspect.current();
+        if (scope == null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        if (!readYourWrites.isPinned(scope.clientId())) {
+            int size = replicas.size();
+            int start = Math.floorMod(next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                long lag = replica.lagMillis;
+                if (lag >= 0 && lag <= maxLagMillis) {
+                    return replica;
+                }
+            }
+        }
+        count(PRIMARY);
+        return null;
+    }
+
+    private void count(String target) {
+        Counter counter = reads.get(target);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /** Lag of a PostgreSQL standby; a server that is not in recovery counts as up to date. */
+    public static Duration postgresLag(DataSource replica) {
+        Long millis = new JdbcTemplate(replica).queryForObject(LAG, Long.class);
+        return Duration.ofMillis(millis == null ? 0 : millis);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<String, Counter> counters = new HashMap<>();
+        counters.put(PRIMARY, readCounter(registry, PRIMARY));
+        for (Replica replica : replicas) {
+            counters.put(replica.name, readCounter(registry, replica.name));
+            Gauge.builder("calltrack.datasource.replica.lag", replica, r -> r.lagMillis < 0 ? Double.NaN : r.lagMillis / 1000.0)
+                    .description("Replication lag at the last health check; NaN while unreachable")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+        reads = counters;
+    }
+
+    private static Counter readCounter(MeterRegistry registry, String target) {
+        return Counter.builder("calltrack.datasource.replica.reads")
+                .description("Connections opened for replica reads, by the server that served them")
+                .tag("target", target)
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        scheduler.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
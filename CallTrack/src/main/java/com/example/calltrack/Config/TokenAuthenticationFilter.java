@@ -0,0 +1,45 @@
+package com.example.calltrack.Config;
+
+import com.example.calltrack.DTO.TokenClaimsDTO;
+import com.example.calltrack.Service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/** Authenticates requests carrying a valid {@code Authorization: Bearer} token issued at login. */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+    private static final String BEARER = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public TokenAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            tokenService.verify(header.substring(BEARER.length()).trim()).ifPresent(claims -> authenticate(claims));
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static void authenticate(TokenClaimsDTO claims) {
+        List<SimpleGrantedAuthority> authorities = claims.getStatus() == null
+                ? List.of()
+                : List.of(new SimpleGrantedAuthority("ROLE_" + claims.getStatus()));
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(claims, null, authorities));
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.calltrack.Controller;
+
+import com.example.calltrack.DTO.BillingCycleDTO;
+import com.example.calltrack.DTO.InvoiceDTO;
+import com.example.calltrack.Service.BillingCycleService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1")
+public class BillingController {
+    private final BillingCycleService billingCycleService;
+
+    public BillingController(BillingCycleService billingCycleService) {
+        this.billingCycleService = billingCycleService;
+    }
+
+    /** Starts billing a month (yyyy-MM) in the background, or resumes it; poll the GET for progress. */
+    @PostMapping("/billing/cycles/{period}")
+    public ResponseEntity<BillingCycleDTO> startCycle(@PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth period) {
+        return ResponseEntity.accepted().body(billingCycleService.start(period));
+    }
+
+    @GetMapping("/billing/cycles/{period}")
+    public BillingCycleDTO getCycle(@PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth period) {
+        return billingCycleService.status(period);
+    }
+
+    @GetMapping("/clients/{id}/invoices")
+    public List<InvoiceDTO> getInvoices(@PathVariable Long id) {
+        return billingCycleService.invoicesOf(id);
+    }
+}
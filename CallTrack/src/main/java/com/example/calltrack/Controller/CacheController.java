@@ -0,0 +1,34 @@
+package com.example.calltrack.Controller;
+
+import com.example.calltrack.DTO.CacheStatsDTO;
+import com.example.calltrack.Service.ClientSummaryService;
+import com.example.calltrack.Service.RatingCache;
+import com.example.calltrack.Service.SecondLevelCacheStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1")
+public class CacheController {
+    private final RatingCache ratingCache;
+    private final ClientSummaryService clientSummaryService;
+    private final SecondLevelCacheStats secondLevelCacheStats;
+
+    public CacheController(RatingCache ratingCache, ClientSummaryService clientSummaryService,
+                           SecondLevelCacheStats secondLevelCacheStats) {
+        this.ratingCache = ratingCache;
+        this.clientSummaryService = clientSummaryService;
+        this.secondLevelCacheStats = secondLevelCacheStats;
+    }
+
+    @GetMapping("/cache/stats")
+    public List<CacheStatsDTO> getCacheStats() {
+        List<CacheStatsDTO> stats = new ArrayList<>(List.of(ratingCache.getStats(), clientSummaryService.getStats()));
+        stats.addAll(secondLevelCacheStats.getStats());
+        return stats;
+    }
+}
@@ -1,29 +1,91 @@
 package com.example.calltrack.Controller;
 
+import com.example.calltrack.DTO.CallBatchResultDTO;
+import com.example.calltrack.DTO.CallFilterDTO;
+import com.example.calltrack.DTO.CallPartitionsDTO;
 import com.example.calltrack.DTO.CallRequestDTO;
-import com.example.calltrack.Entity.Call;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.DTO.IngestQueueStatsDTO;
+import com.example.calltrack.Service.CallIngestQueue;
+import com.example.calltrack.Service.CallPartitionService;
 import com.example.calltrack.Service.CallService;
+import com.example.calltrack.Service.ExportFormat;
+import com.example.calltrack.Service.ExportService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1")
 public class CallController {
     private final CallService callService;
+    private final ExportService exportService;
+    private final ObjectMapper objectMapper;
+    private final CallPartitionService callPartitionService;
+    private final CallIngestQueue callIngestQueue;
 
-    public CallController(CallService callService) {
+    public CallController(CallService callService, ExportService exportService, ObjectMapper objectMapper,
+                          CallPartitionService callPartitionService, CallIngestQueue callIngestQueue) {
         this.callService = callService;
+        this.exportService = exportService;
+        this.objectMapper = objectMapper;
+        this.callPartitionService = callPartitionService;
+        this.callIngestQueue = callIngestQueue;
     }
 
     @GetMapping("/calls")
-    public ResponseEntity<List<Call>> getCalls() {
-        return callService.getCalls().isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(callService.getCalls());
+    public ResponseEntity<List<CallResponseDTO>> getCalls(@ModelAttribute CallFilterDTO filter) {
+        return callService.getCalls(filter);
     }
 
+    @GetMapping("/calls/export")
+    public void exportCalls(@ModelAttribute CallFilterDTO filter,
+                            @RequestParam(defaultValue = "csv") String format,
+                            @RequestParam(defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException {
+        exportService.exportCalls(filter, ExportFormat.of(format), gzip, response);
+    }
+
+    /** Creates upcoming monthly partitions of the call log and archives expired ones right away. */
+    @PostMapping("/calls/partitions/maintain")
+    public CallPartitionsDTO maintainPartitions() {
+        return callPartitionService.maintain();
+    }
+
+    /** Queued for the ingestion writers; the request thread is released meanwhile. 429 when overloaded. */
     @PostMapping("/reg/call")
-    public ResponseEntity<Call> addCall(@RequestBody CallRequestDTO call) {
-        return callService.addCall(call);
+    public CompletableFuture<ResponseEntity<CallResponseDTO>> addCall(@RequestBody CallRequestDTO call) {
+        return callIngestQueue.addCall(call);
+    }
+
+    @PostMapping(value = "/reg/calls", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CallBatchResultDTO> addCalls(@RequestBody List<CallRequestDTO> calls) {
+        return callIngestQueue.addCalls(calls.iterator());
+    }
+
+    @PostMapping(value = "/reg/calls", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<CallBatchResultDTO> addCallsStream(HttpServletRequest request) throws IOException {
+        try (MappingIterator<CallRequestDTO> calls = objectMapper.readerFor(CallRequestDTO.class)
+                .readValues(request.getInputStream())) {
+            return callIngestQueue.addCalls(calls);
+        } catch (RuntimeJsonMappingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed call record", e);
+        }
+    }
+
+    @GetMapping("/reg/stats")
+    public IngestQueueStatsDTO getIngestQueueStats() {
+        return callIngestQueue.getStats();
     }
 }
@@ -1,24 +1,43 @@
 package com.example.calltrack.Controller;
 
 import com.example.calltrack.DTO.ClientRequestDTO;
-import com.example.calltrack.Entity.Client;
-import com.example.calltrack.Entity.Payment;
+import com.example.calltrack.DTO.ClientSummaryDTO;
+import com.example.calltrack.DTO.DebtorDTO;
+import com.example.calltrack.DTO.ExecutorStatsDTO;
+import com.example.calltrack.DTO.PaymentViewDTO;
+import com.example.calltrack.DTO.TokenClaimsDTO;
+import com.example.calltrack.Service.BalanceEventBroker;
 import com.example.calltrack.Service.ClientService;
+import com.example.calltrack.Service.ClientSummaryService;
+import com.example.calltrack.Service.PasswordHasher;
 import com.example.calltrack.Service.PaymentService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1")
 public class ClientController {
     private final ClientService clientService;
     private final PaymentService paymentService;
+    private final PasswordHasher passwordHasher;
+    private final ClientSummaryService clientSummaryService;
+    private final BalanceEventBroker balanceEventBroker;
 
-    public ClientController(ClientService clientService, PaymentService paymentService) {
+    public ClientController(ClientService clientService, PaymentService paymentService, PasswordHasher passwordHasher,
+                            ClientSummaryService clientSummaryService, BalanceEventBroker balanceEventBroker) {
         this.clientService = clientService;
         this.paymentService = paymentService;
+        this.passwordHasher = passwordHasher;
+        this.clientSummaryService = clientSummaryService;
+        this.balanceEventBroker = balanceEventBroker;
     }
 
     @PostMapping("/auth/register")
@@ -27,23 +46,49 @@ public class ClientController {
     }
 
     @PostMapping("/auth/login")
-    public ResponseEntity<?> loginClient(@RequestBody ClientRequestDTO clientRequestDTO) {
+    public CompletableFuture<ResponseEntity<?>> loginClient(@RequestBody ClientRequestDTO clientRequestDTO) {
         return  clientService.loginClient(clientRequestDTO);
     }
 
+    /** The caller's identity from its bearer token, without touching the database. */
+    @GetMapping("/auth/me")
+    public ResponseEntity<TokenClaimsDTO> currentClient(@AuthenticationPrincipal TokenClaimsDTO claims) {
+        return claims == null ? ResponseEntity.status(HttpStatus.UNAUTHORIZED).build() : ResponseEntity.ok(claims);
+    }
+
+    @GetMapping("/auth/stats")
+    public ExecutorStatsDTO getPasswordPoolStats() {
+        return passwordHasher.getStats();
+    }
+
     @GetMapping("/clients/payments/recent")
-    public ResponseEntity<List<Payment>> getAllPayments() {
-        return ResponseEntity.ok(paymentService.getAllPayments());
+    public ResponseEntity<List<PaymentViewDTO>> getAllPayments(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(paymentService.getRecentPayments(Math.min(Math.max(limit, 1), 1000)));
     }
 
     @GetMapping("/clients/{id}/payments/recent")
-    public ResponseEntity<List<Payment>> getRecentPayments(@PathVariable Long id) {
-        return ResponseEntity.ok(paymentService.getPaymentsByClientId(id));
+    public ResponseEntity<List<PaymentViewDTO>> getRecentPayments(@PathVariable Long id,
+                                                                  @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(paymentService.getPaymentsByClientId(id, Math.min(Math.max(limit, 1), 1000)));
+    }
+
+    /** Balances, numbers, latest payments and calls and this month's usage of the client in one response. */
+    @GetMapping("/clients/{id}/summary")
+    public CompletableFuture<ClientSummaryDTO> getSummary(@PathVariable Long id) {
+        return clientSummaryService.getSummary(id);
+    }
+
+    /** Server-Sent Events with the client's balance changes and debt transitions, current balance first. */
+    @GetMapping(value = "/clients/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@PathVariable Long id) {
+        return balanceEventBroker.subscribe(id, () -> clientService.getBalanceAfter(id));
     }
 
     @GetMapping("/clients/debts")
-    public List<Client> getRecentPayments() {
-        return clientService.getDebtsClients();
+    public List<DebtorDTO> getDebtors(@RequestParam(defaultValue = "0") BigDecimal minDebt,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "50") int size) {
+        return clientService.getDebtsClients(minDebt, Math.max(page, 0), Math.min(Math.max(size, 1), 500));
     }
 
     @GetMapping("/clients/{id}/debt")
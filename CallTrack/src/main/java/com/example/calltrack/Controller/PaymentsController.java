@@ -1,22 +1,38 @@
 package com.example.calltrack.Controller;
 
+import com.example.calltrack.DTO.PaymentFilterDTO;
 import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.Service.ExportFormat;
+import com.example.calltrack.Service.ExportService;
 import com.example.calltrack.Service.PaymentService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/v1")
 public class PaymentsController {
     public final PaymentService paymentService;
+    private final ExportService exportService;
 
-    public PaymentsController(PaymentService paymentService) {
+    public PaymentsController(PaymentService paymentService, ExportService exportService) {
         this.paymentService = paymentService;
+        this.exportService = exportService;
     }
 
     @PostMapping("/payments")
     public ResponseEntity<String> addPaymentsOnPhone(@RequestBody PaymentRequestDTO paymentRequestDTO) {
         return paymentService.addPaymentsOnNumber(paymentRequestDTO);
     }
+
+    @GetMapping("/payments/export")
+    public void exportPayments(@ModelAttribute PaymentFilterDTO filter,
+                               @RequestParam(defaultValue = "csv") String format,
+                               @RequestParam(defaultValue = "false") boolean gzip,
+                               HttpServletResponse response) throws IOException {
+        exportService.exportPayments(filter, ExportFormat.of(format), gzip, response);
+    }
 }
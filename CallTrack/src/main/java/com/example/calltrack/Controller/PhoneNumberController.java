@@ -1,7 +1,7 @@
 package com.example.calltrack.Controller;
 
 import com.example.calltrack.DTO.PhoneNumberRequestDTO;
-import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.DTO.PhoneNumberViewDTO;
 import com.example.calltrack.Service.PhoneNumberService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,8 +27,13 @@ public class PhoneNumberController {
         return phoneNumberService.deletePhoneNumber(id);
     }
 
+    @PutMapping("/phone/{id}/tariff")
+    public ResponseEntity<String> changeTariff(@PathVariable Long id, @RequestParam Long tariffId) {
+        return phoneNumberService.changeTarif(id, tariffId);
+    }
+
     @GetMapping("/phoneNumber/{id}")
-    public ResponseEntity<List<PhoneNumber>> getPhoneNumber(@PathVariable Long id) {
+    public ResponseEntity<List<PhoneNumberViewDTO>> getPhoneNumber(@PathVariable Long id) {
         return phoneNumberService.getByClientId(id);
     }
 
@@ -0,0 +1,38 @@
+package com.example.calltrack.Controller;
+
+import com.example.calltrack.DTO.DiscrepancyDTO;
+import com.example.calltrack.DTO.ReconciliationReportDTO;
+import com.example.calltrack.Service.ReconciliationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1")
+public class ReconciliationController {
+    private final ReconciliationService reconciliationService;
+
+    public ReconciliationController(ReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    /** Starts a balance reconciliation in the background; poll the GET for progress. */
+    @PostMapping("/reconciliation")
+    public ResponseEntity<ReconciliationReportDTO> startReconciliation() {
+        return ResponseEntity.accepted().body(reconciliationService.start());
+    }
+
+    @GetMapping("/reconciliation")
+    public ReconciliationReportDTO getReconciliation() {
+        return reconciliationService.report();
+    }
+
+    /** The latest report's rows, page by page: pass the last client id seen as {@code after}. */
+    @GetMapping("/reconciliation/discrepancies")
+    public List<DiscrepancyDTO> getDiscrepancies(@RequestParam(required = false) String kind,
+                                                 @RequestParam(required = false) Long after,
+                                                 @RequestParam(defaultValue = "100") int limit) {
+        return reconciliationService.discrepancies(kind, after, Math.min(Math.max(limit, 1), 1000));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.calltrack.Controller;
+
+import com.example.calltrack.DTO.MonthlyUsageDTO;
+import com.example.calltrack.DTO.PaymentReportDTO;
+import com.example.calltrack.DTO.ReportFilterDTO;
+import com.example.calltrack.DTO.RollupRebuildDTO;
+import com.example.calltrack.DTO.UsageReportDTO;
+import com.example.calltrack.Service.ReportService;
+import com.example.calltrack.Service.RollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1")
+public class ReportController {
+    private final ReportService reportService;
+    private final RollupService rollupService;
+
+    public ReportController(ReportService reportService, RollupService rollupService) {
+        this.reportService = reportService;
+        this.rollupService = rollupService;
+    }
+
+    @GetMapping("/reports/usage/daily")
+    public List<UsageReportDTO> getDailyUsage(@ModelAttribute ReportFilterDTO filter) {
+        return reportService.usageByDay(filter);
+    }
+
+    @GetMapping("/reports/usage/call-types")
+    public List<UsageReportDTO> getUsageByCallType(@ModelAttribute ReportFilterDTO filter) {
+        return reportService.usageByCallType(filter);
+    }
+
+    /** Totals per number, month and call type, including months archived out of the database. */
+    @GetMapping("/reports/usage/monthly")
+    public List<MonthlyUsageDTO> getMonthlyUsage(@ModelAttribute ReportFilterDTO filter) {
+        return reportService.usageByMonth(filter);
+    }
+
+    @GetMapping("/reports/payments/daily")
+    public List<PaymentReportDTO> getDailyPayments(@ModelAttribute ReportFilterDTO filter) {
+        return reportService.paymentsByDay(filter);
+    }
+
+    @PostMapping("/reports/rollups/rebuild")
+    public RollupRebuildDTO rebuildRollups(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return rollupService.rebuild(from, to);
+    }
+}
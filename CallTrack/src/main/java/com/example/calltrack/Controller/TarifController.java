@@ -1,25 +1,41 @@
 package com.example.calltrack.Controller;
 
-import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Service.TariffCatalog;
 import com.example.calltrack.Service.TarifService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/v1")
 public class TarifController {
 
     private final TarifService tarifService;
+    private final CacheControl cacheControl;
 
-    public TarifController(TarifService tarifRepository) {
+    public TarifController(TarifService tarifRepository,
+                           @Value("${calltrack.tariffs.max-age:PT1M}") Duration maxAge) {
         this.tarifService = tarifRepository;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().mustRevalidate();
     }
 
+    /**
+     * The catalogue as pre-serialized JSON. With a matching {@code If-None-Match} Spring answers
+     * 304 from the ETag alone, so a revalidation costs neither a query nor serialization.
+     */
     @GetMapping("/tariffs")
-    public List<Tarif> getTarif() {
-        return tarifService.findAll();
+    public ResponseEntity<byte[]> getTarif() {
+        TariffCatalog.Snapshot catalogue = tarifService.catalogue();
+        return ResponseEntity.ok()
+                .eTag(catalogue.etag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogue.json());
     }
 }
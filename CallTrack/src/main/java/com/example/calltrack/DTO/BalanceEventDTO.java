@@ -0,0 +1,21 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceEventDTO {
+    private Long clientId;
+    private BigDecimal balance;
+    private BigDecimal debt;
+    private boolean inDebt;
+    private LocalDateTime at;
+}
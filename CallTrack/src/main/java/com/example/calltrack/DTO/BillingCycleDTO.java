@@ -0,0 +1,34 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a billing cycle. {@code clientsBilled}, {@code elapsedMillis} and
+ * {@code clientsPerSecond} describe this node's latest run of it; the other counts the whole cycle.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BillingCycleDTO {
+    private Long cycleId;
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+    /** RUNNING on this node, COMPLETED, or INTERRUPTED until it is started again. */
+    private String status;
+    private int partitions;
+    private int partitionsCompleted;
+    private long invoices;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private long clientsBilled;
+    private long elapsedMillis;
+    private double clientsPerSecond;
+    private String error;
+}
@@ -0,0 +1,27 @@
+package com.example.calltrack.DTO;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Outcome of a bulk CDR upload: counts plus the first {@value #MAX_ERRORS} rejection reasons. */
+@Data
+public class CallBatchResultDTO {
+    private static final int MAX_ERRORS = 100;
+
+    private int accepted;
+    private int rejected;
+    private List<String> errors = new ArrayList<>();
+
+    public void accept(int count) {
+        accepted += count;
+    }
+
+    public void reject(String reason) {
+        rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(reason);
+        }
+    }
+}
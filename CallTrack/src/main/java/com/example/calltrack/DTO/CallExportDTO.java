@@ -0,0 +1,21 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Flat call row read straight from the export cursor, without hydrating the entity graph. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CallExportDTO {
+    private Long callId;
+    private LocalDateTime startedAt;
+    private String phoneNumber;
+    private String callType;
+    private Integer durationMinutes;
+    private BigDecimal cost;
+}
@@ -0,0 +1,28 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Query parameters of the call log: optional filters plus a keyset cursor.
+ * {@code cursor} is the opaque value returned in the {@code X-Next-Cursor} header of the previous page.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CallFilterDTO {
+    private String phone;
+    private String callType;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+    private String cursor;
+    private Integer limit;
+}
@@ -0,0 +1,21 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CallPartitionsDTO {
+    private boolean partitioned;
+    private LocalDate retainedFrom;
+    private List<String> created;
+    private List<String> archived;
+    private List<String> exported;
+}
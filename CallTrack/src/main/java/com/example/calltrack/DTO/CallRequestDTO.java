@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Builder
 @Data
@@ -15,6 +16,10 @@ public class CallRequestDTO {
     String phoneNumber;
     String callType;
     Integer durationMinutes;
+    /** Exact duration for per-second billing; takes precedence over {@code durationMinutes}. */
+    Integer durationSeconds;
     LocalDate startDate;
+    /** Exact start time for time-of-day rating; takes precedence over {@code startDate}. */
+    LocalDateTime startedAt;
     String comment;
 }
@@ -0,0 +1,24 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CallResponseDTO {
+    private Long callId;
+    private String phoneNumber;
+    private LocalDateTime startedAt;
+    private String callType;
+    private Long tariffId;
+    private BigDecimal cost;
+    private Integer durationMinutes;
+    private Integer durationSeconds;
+}
@@ -0,0 +1,32 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Everything the client dashboard shows, assembled in one request. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClientSummaryDTO {
+    private Long clientId;
+    private String fullName;
+    private String email;
+    private String status;
+    private BigDecimal balance;
+    private BigDecimal debt;
+    private Integer allowedCreditMinutes;
+    private List<PhoneNumberViewDTO> numbers;
+    private List<PaymentViewDTO> recentPayments;
+    private List<CallResponseDTO> recentCalls;
+    private LocalDate month;
+    private List<UsageReportDTO> monthUsage;
+    private LocalDateTime generatedAt;
+}
@@ -0,0 +1,19 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/** A client with a negative balance; {@code debt} is the owed amount as a positive number. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DebtorDTO {
+    private Long clientId;
+    private String fullName;
+    private String email;
+    private BigDecimal debt;
+    private Integer allowedCreditMinutes;
+}
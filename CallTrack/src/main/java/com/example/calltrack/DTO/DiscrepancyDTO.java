@@ -0,0 +1,29 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A client whose balances disagree. {@code difference} is the client balance minus what the other
+ * source says it should be: the sum of its number balances (NUMBERS) or its payments less its call
+ * charges (LEDGER). Numbers, payments or charges of a client id that does not exist are reported as
+ * UNKNOWN_CLIENT, without a difference.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DiscrepancyDTO {
+    private Long clientId;
+    private String kind;
+    private BigDecimal clientBalance;
+    private long numbers;
+    private BigDecimal numberBalance;
+    private BigDecimal payments;
+    private BigDecimal charges;
+    private BigDecimal difference;
+}
@@ -0,0 +1,22 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IngestQueueStatsDTO {
+    private int writers;
+    private int limit;
+    private int inFlight;
+    private long queued;
+    private long threshold;
+    private long queueCapacity;
+    private long written;
+    private long shed;
+    private long expired;
+}
@@ -0,0 +1,27 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InvoiceDTO {
+    private Long invoiceId;
+    private Long clientId;
+    private LocalDate periodStart;
+    private LocalDate periodEnd;
+    private BigDecimal openingBalance;
+    private BigDecimal charges;
+    private BigDecimal payments;
+    private BigDecimal closingBalance;
+    private long callCount;
+    private LocalDateTime issuedAt;
+}
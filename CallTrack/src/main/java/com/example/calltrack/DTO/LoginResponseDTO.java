@@ -0,0 +1,24 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** The logged-in client and the bearer token to send as {@code Authorization: Bearer <token>}. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoginResponseDTO {
+    private Long clientId;
+    private String fullName;
+    private String email;
+    private BigDecimal balance;
+    private String status;
+    private String token;
+    private Instant expiresAt;
+}
@@ -0,0 +1,29 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Call totals of one number for one month (its first day) and call type. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthlyUsageDTO {
+    private Long numberId;
+    private LocalDate month;
+    private String callType;
+    private long calls;
+    private long durationMinutes;
+    private long durationSeconds;
+    private BigDecimal cost;
+
+    public MonthlyUsageDTO(Long numberId, Integer year, Integer month, String callType,
+                           Long calls, Long durationMinutes, Long durationSeconds, BigDecimal cost) {
+        this(numberId, LocalDate.of(year, month, 1), callType, calls, durationMinutes, durationSeconds, cost);
+    }
+}
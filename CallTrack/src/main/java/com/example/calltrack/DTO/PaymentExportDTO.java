@@ -0,0 +1,22 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Flat payment row read straight from the export cursor, without hydrating the entity graph. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentExportDTO {
+    private Long paymentId;
+    private Long clientId;
+    private String phoneNumber;
+    private BigDecimal amount;
+    private String paymentMethod;
+    private BigDecimal balanceAfter;
+    private LocalDateTime createdAt;
+}
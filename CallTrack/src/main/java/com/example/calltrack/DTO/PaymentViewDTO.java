@@ -0,0 +1,26 @@
+package com.example.calltrack.DTO;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** A payment as the payment lists return it; field names match the former entity JSON. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaymentViewDTO {
+    private Long id;
+    private Long clientId;
+    @JsonProperty("phone_number")
+    private String phoneNumber;
+    private BigDecimal amount;
+    private String paymentMethod;
+    private BigDecimal balanceAfter;
+    private LocalDateTime createdAt;
+}
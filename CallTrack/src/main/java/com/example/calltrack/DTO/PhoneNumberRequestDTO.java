@@ -12,4 +12,5 @@ public class PhoneNumberRequestDTO {
     private Long clientId;
     private String numberName;
     private String phone;
+    private Long tariffId;
 }
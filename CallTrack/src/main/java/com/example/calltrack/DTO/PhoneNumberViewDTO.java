@@ -0,0 +1,26 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** A number with its tariff name, read in one query for the client's number list. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PhoneNumberViewDTO {
+    private Long numberId;
+    private Long clientId;
+    private String numberName;
+    private String phone;
+    private LocalDateTime activatedAt;
+    private Boolean isPrimary;
+    private BigDecimal numberBalance;
+    private Long tariffId;
+    private String tariffName;
+}
@@ -0,0 +1,16 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** What rating a call needs to know about a number: its id, its owner and the tariff it is billed on. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PhoneRatingDTO {
+    private String phone;
+    private Long numberId;
+    private Long clientId;
+    private Long tariffId;
+}
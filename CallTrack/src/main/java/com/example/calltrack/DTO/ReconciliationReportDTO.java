@@ -0,0 +1,35 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Outcome of a balance reconciliation run. {@code flagged} disagreements were found by the scan;
+ * {@code discrepancies} of them still disagreed when re-read afterwards, {@code byKind} counts those.
+ * Past the report's row limit further findings are only counted and {@code truncated} is set.
+ */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationReportDTO {
+    /** RUNNING, COMPLETED or FAILED. */
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private int shards;
+    private int shardsCompleted;
+    private long clientsScanned;
+    private long elapsedMillis;
+    private double clientsPerSecond;
+    private long flagged;
+    private long discrepancies;
+    private Map<String, Long> byKind;
+    private boolean truncated;
+    private String error;
+}
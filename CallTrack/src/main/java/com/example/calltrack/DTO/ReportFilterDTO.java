@@ -0,0 +1,23 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/** Filter of the aggregate reports; {@code from} and {@code to} are inclusive days. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReportFilterDTO {
+    private Long clientId;
+    private String phone;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+}
@@ -0,0 +1,21 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupRebuildDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private int days;
+    private long usageRows;
+    private long paymentRows;
+    private long elapsedMillis;
+}
@@ -0,0 +1,18 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenClaimsDTO {
+    private Long clientId;
+    private String status;
+    private Instant expiresAt;
+}
@@ -0,0 +1,31 @@
+package com.example.calltrack.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/** Call totals of one report row; either {@code day} or {@code callType} is set, depending on the grouping. */
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UsageReportDTO {
+    private LocalDate day;
+    private String callType;
+    private long calls;
+    private long durationMinutes;
+    private long durationSeconds;
+    private BigDecimal cost;
+
+    public UsageReportDTO(LocalDate day, Long calls, Long durationMinutes, Long durationSeconds, BigDecimal cost) {
+        this(day, null, calls, durationMinutes, durationSeconds, cost);
+    }
+
+    public UsageReportDTO(String callType, Long calls, Long durationMinutes, Long durationSeconds, BigDecimal cost) {
+        this(null, callType, calls, durationMinutes, durationSeconds, cost);
+    }
+}
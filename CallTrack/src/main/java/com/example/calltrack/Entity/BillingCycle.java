@@ -0,0 +1,39 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** One month of invoicing. {@code completedAt} is set once every partition has been billed. */
+@Entity
+@Table(name = "billing_cycle",
+        uniqueConstraints = @UniqueConstraint(name = "uk_billing_cycle_period", columnNames = "period_start"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillingCycle {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "cycle_id")
+    private Long cycleId;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    /** Last day of the period, inclusive. */
+    @Column(name = "period_end", nullable = false)
+    private LocalDate periodEnd;
+
+    @Column(name = "partitions", nullable = false)
+    private int partitions;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
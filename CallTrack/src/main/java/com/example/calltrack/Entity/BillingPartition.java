@@ -0,0 +1,37 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A range of client ids of a billing cycle and its checkpoint: clients below {@code nextClientId}
+ * have their invoices, written in the same transaction that moved the checkpoint past them.
+ */
+@Entity
+@Table(name = "billing_partition")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BillingPartition {
+
+    @EmbeddedId
+    private BillingPartitionId id;
+
+    @Column(name = "first_client_id", nullable = false)
+    private long firstClientId;
+
+    @Column(name = "last_client_id", nullable = false)
+    private long lastClientId;
+
+    @Column(name = "next_client_id", nullable = false)
+    private long nextClientId;
+
+    @Column(name = "invoices", nullable = false)
+    private long invoices;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,22 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillingPartitionId implements Serializable {
+
+    @Column(name = "cycle_id")
+    private Long cycleId;
+
+    @Column(name = "partition_no")
+    private int partitionNo;
+}
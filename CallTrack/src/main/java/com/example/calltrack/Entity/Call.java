@@ -14,24 +14,29 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "call_record")
+@Table(name = "call_record", indexes = {
+        @Index(name = "idx_call_record_started_at", columnList = "started_at DESC, call_id DESC"),
+        @Index(name = "idx_call_record_number_started_at", columnList = "number_id, started_at DESC, call_id DESC"),
+        @Index(name = "idx_call_record_type_started_at", columnList = "call_type, started_at DESC, call_id DESC")
+})
 public class Call {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "call_record_seq")
+    @SequenceGenerator(name = "call_record_seq", sequenceName = "call_record_seq", allocationSize = 50)
     @Column(name = "call_id")
     private Long callId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "number_id", nullable = false)
     private PhoneNumber phoneNumber;
 
-    @Column(name = "started_at")
+    @Column(name = "started_at", nullable = false)
     private LocalDateTime startedAt;
 
     @Column(name = "call_type")
     private String callType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tariff_id")
     private Tarif tarif;
 
@@ -40,4 +45,7 @@ public class Call {
 
     @Column(name = "duration_minutes")
     private Integer durationMinutes;
+
+    @Column(name = "duration_seconds")
+    private Integer durationSeconds;
 }
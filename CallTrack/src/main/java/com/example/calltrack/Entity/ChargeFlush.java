@@ -0,0 +1,27 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a charge journal segment as applied to the balances. It is written in the same transaction
+ * as the balance updates, so a segment left on disk after a crash is replayed only if its charges
+ * never reached the database.
+ */
+@Entity
+@Table(name = "charge_flush")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChargeFlush {
+
+    @Id
+    @Column(name = "segment", length = 100)
+    private String segment;
+
+    @Column(name = "flushed_at", nullable = false)
+    private LocalDateTime flushedAt;
+}
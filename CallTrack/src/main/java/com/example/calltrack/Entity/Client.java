@@ -1,10 +1,15 @@
 package com.example.calltrack.Entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -16,7 +21,10 @@ import java.util.function.BiFunction;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "client")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "client")
+@NaturalIdCache(region = "client-by-email")
+@Table(name = "client", indexes = @Index(name = "idx_client_balance", columnList = "balance, client_id"))
 public class Client{
 
     @Id
@@ -30,9 +38,11 @@ public class Client{
     @Column(name = "birth_date")
     private LocalDate birthDate;
 
+    @NaturalId
     @Column(name = "email", unique = true)
     private String email;
 
+    @JsonIgnore
     @Column(name = "password", unique = true)
     private String password;
 
@@ -0,0 +1,58 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A client's statement for one billing cycle: the balance at the start and end of the period and
+ * the call charges and payments between them, so {@code closing = opening + payments - charges}.
+ */
+@Entity
+@Table(name = "invoice",
+        uniqueConstraints = @UniqueConstraint(name = "uk_invoice_cycle_client", columnNames = {"cycle_id", "client_id"}),
+        indexes = @Index(name = "idx_invoice_client", columnList = "client_id, period_start"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Invoice {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "invoice_id")
+    private Long invoiceId;
+
+    @Column(name = "cycle_id", nullable = false)
+    private Long cycleId;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "period_end", nullable = false)
+    private LocalDate periodEnd;
+
+    @Column(name = "opening_balance", nullable = false)
+    private BigDecimal openingBalance;
+
+    @Column(name = "charges", nullable = false)
+    private BigDecimal charges;
+
+    @Column(name = "payments", nullable = false)
+    private BigDecimal payments;
+
+    @Column(name = "closing_balance", nullable = false)
+    private BigDecimal closingBalance;
+
+    @Column(name = "call_count", nullable = false)
+    private long callCount;
+
+    @Column(name = "issued_at", nullable = false)
+    private LocalDateTime issuedAt;
+}
@@ -0,0 +1,28 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/** Payment totals of one client and number for one day, kept current as payments are made. */
+@Entity
+@Table(name = "payment_daily", indexes = {
+        @Index(name = "idx_payment_daily_date", columnList = "payment_date"),
+        @Index(name = "idx_payment_daily_client_date", columnList = "client_id, payment_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentDaily {
+
+    @EmbeddedId
+    private PaymentDailyId id;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+}
@@ -0,0 +1,26 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentDailyId implements Serializable {
+
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @Column(name = "phone")
+    private String phone;
+
+    @Column(name = "payment_date")
+    private LocalDate paymentDate;
+}
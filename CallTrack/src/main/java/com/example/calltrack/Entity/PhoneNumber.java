@@ -5,6 +5,10 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,7 +17,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "phone_number")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "phone-number")
+@NaturalIdCache(region = "phone-number-by-phone")
+@Table(name = "phone_number", indexes = @Index(name = "idx_phone_number_client", columnList = "client_id"))
 @Builder
 public class PhoneNumber {
 
@@ -22,13 +29,14 @@ public class PhoneNumber {
     @Column(name = "number_id")
     private Long numberId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
     private Client client;
 
     @Column(name = "number_name")
     private String numberName;
 
+    @NaturalId
     @Column(name = "phone", nullable = false, unique = true)
     private String phone;
 
@@ -41,7 +49,7 @@ public class PhoneNumber {
     @Column(name = "number_balance")
     private BigDecimal numberBalance;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tarif_id")
     private Tarif tarif;
 }
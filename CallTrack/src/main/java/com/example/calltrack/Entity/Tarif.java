@@ -3,13 +3,21 @@ package com.example.calltrack.Entity;
 import jakarta.persistence.*;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
+import java.time.LocalTime;
 
+/** Read-only to the application; edits made in the database reach it through {@code TariffCatalog}. */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "tariff")
 @Data
+@Builder
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PUBLIC)
 @Table(name = "tariff")
@@ -25,9 +33,24 @@ public class Tarif {
     @Column(name = "tariff_type")
     private String tariffType;
 
+    /** Peak rate, and the only rate when no peak window is set. */
     @Column(name = "price_per_minute")
     private BigDecimal pricePerMinute;
 
+    /** Rate outside the peak window; falls back to {@link #pricePerMinute}. */
+    @Column(name = "off_peak_price_per_minute")
+    private BigDecimal offPeakPricePerMinute;
+
+    @Column(name = "peak_start")
+    private LocalTime peakStart;
+
+    @Column(name = "peak_end")
+    private LocalTime peakEnd;
+
+    /** Calls are billed in whole increments of this many seconds; 60 (per-minute) when empty. */
+    @Column(name = "billing_increment_seconds")
+    private Integer billingIncrementSeconds;
+
     @Column(name = "currency")
     private String currency;
 
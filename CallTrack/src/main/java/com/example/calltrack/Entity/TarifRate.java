@@ -0,0 +1,36 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/** Call-type specific rate of a tariff, overriding the tariff's own prices for that call type. */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "tariff_rate", uniqueConstraints = @UniqueConstraint(columnNames = {"tariff_id", "call_type"}))
+public class TarifRate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rate_id")
+    private Long rateId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tariff_id", nullable = false)
+    private Tarif tarif;
+
+    @Column(name = "call_type", nullable = false)
+    private String callType;
+
+    @Column(name = "price_per_minute", nullable = false)
+    private BigDecimal pricePerMinute;
+
+    @Column(name = "off_peak_price_per_minute")
+    private BigDecimal offPeakPricePerMinute;
+}
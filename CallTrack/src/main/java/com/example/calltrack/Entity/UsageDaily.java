@@ -0,0 +1,37 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/** Call totals of one number for one day and call type, kept current as calls are recorded. */
+@Entity
+@Table(name = "usage_daily", indexes = {
+        @Index(name = "idx_usage_daily_client_date", columnList = "client_id, usage_date"),
+        @Index(name = "idx_usage_daily_date", columnList = "usage_date")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UsageDaily {
+
+    @EmbeddedId
+    private UsageDailyId id;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    @Column(name = "call_count", nullable = false)
+    private long callCount;
+
+    @Column(name = "duration_seconds", nullable = false)
+    private long durationSeconds;
+
+    @Column(name = "duration_minutes", nullable = false)
+    private long durationMinutes;
+
+    @Column(name = "cost", nullable = false)
+    private BigDecimal cost;
+}
@@ -0,0 +1,27 @@
+package com.example.calltrack.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageDailyId implements Serializable {
+
+    @Column(name = "number_id")
+    private Long numberId;
+
+    @Column(name = "usage_date")
+    private LocalDate usageDate;
+
+    /** Empty for calls recorded without a type. */
+    @Column(name = "call_type")
+    private String callType;
+}
@@ -0,0 +1,93 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Balance mutations as single atomic statements: the database adds the amount to the current value
+ * under its own row lock and hands back the result, so concurrent payments to one account neither
+ * lose updates nor hold a lock across a read-modify-write round trip.
+ * <p>
+ * PostgreSQL uses {@code UPDATE ... RETURNING}; H2 (tests) expresses the same thing as a select from
+ * the {@code FINAL TABLE} of the update.
+ * <p>
+ * The statements bypass Hibernate, so the changed clients and numbers are evicted from the
+ * second-level cache here: right away, and again once the transaction has completed, since a reader
+ * could otherwise cache the previous committed row in between.
+ */
+@Repository
+public class BalanceRepository {
+    private static final String ADD_TO_CLIENT =
+            "UPDATE client SET balance = COALESCE(balance, 0) + ? WHERE client_id = ?";
+    private static final String ADD_TO_PHONE_NUMBER =
+            "UPDATE phone_number SET number_balance = COALESCE(number_balance, 0) + ? WHERE number_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final String addToClient;
+    private final String addToPhoneNumber;
+
+    public BalanceRepository(JdbcTemplate jdbcTemplate, DataSource dataSource, EntityManagerFactory entityManagerFactory)
+            throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        boolean postgres = Databases.isPostgres(dataSource);
+        this.addToClient = returning(postgres, ADD_TO_CLIENT, "balance");
+        this.addToPhoneNumber = returning(postgres, ADD_TO_PHONE_NUMBER, "phone");
+    }
+
+    private static String returning(boolean postgres, String update, String column) {
+        return postgres
+                ? update + " RETURNING " + column
+                : "SELECT " + column + " FROM FINAL TABLE (" + update + ")";
+    }
+
+    /** Adds {@code amount} to the client balance and returns the new balance; empty if there is no such client. */
+    public Optional<BigDecimal> addToClient(Long clientId, BigDecimal amount) {
+        Optional<BigDecimal> balance = jdbcTemplate.queryForList(addToClient, BigDecimal.class, amount, clientId).stream().findFirst();
+        evict(Client.class, List.of(clientId));
+        return balance;
+    }
+
+    /** Adds {@code amount} to the number balance and returns the phone number; empty if there is no such number. */
+    public Optional<String> addToPhoneNumber(Long numberId, BigDecimal amount) {
+        Optional<String> phone = jdbcTemplate.queryForList(addToPhoneNumber, String.class, amount, numberId).stream().findFirst();
+        evict(PhoneNumber.class, List.of(numberId));
+        return phone;
+    }
+
+    /** Adds every amount to its number balance in one JDBC batch; unknown numbers are skipped. */
+    public void addToPhoneNumbers(Map<Long, BigDecimal> amounts) {
+        List<Object[]> args = new ArrayList<>(amounts.size());
+        amounts.forEach((numberId, amount) -> args.add(new Object[]{amount, numberId}));
+        jdbcTemplate.batchUpdate(ADD_TO_PHONE_NUMBER, args);
+        evict(PhoneNumber.class, List.copyOf(amounts.keySet()));
+    }
+
+    private void evict(Class<?> entity, List<Long> ids) {
+        Cache cache = entityManagerFactory.getCache();
+        ids.forEach(id -> cache.evict(entity, id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(id -> cache.evict(entity, id));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.BillingCycle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BillingCycleRepository extends JpaRepository<BillingCycle, Long> {
+
+    Optional<BillingCycle> findByPeriodStart(LocalDate periodStart);
+
+    List<BillingCycle> findAllByCompletedAtIsNull();
+}
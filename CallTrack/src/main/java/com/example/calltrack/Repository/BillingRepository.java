@@ -0,0 +1,165 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.BillingPartition;
+import com.example.calltrack.Entity.BillingPartitionId;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partitions, checkpoints and invoices of the billing cycles. Invoices of a range of clients are
+ * written by one set-based {@code INSERT ... SELECT} over the {@code usage_daily} and
+ * {@code payment_daily} rollups, so a chunk costs a few index range scans whatever its calls.
+ */
+@Repository
+public class BillingRepository {
+    private static final String PARTITION_COLUMNS =
+            "cycle_id, partition_no, first_client_id, last_client_id, next_client_id, invoices, completed_at";
+
+    /*
+     * The closing balance is the current balance with the charges and payments made after the
+     * period taken back out; the opening balance takes the period's own out as well. One statement
+     * reads the balances and the rollups, so they are seen as of the same moment; charges not yet
+     * flushed to the balances are taken off afterwards by deductUnflushed.
+     */
+    private static final String BILL_CLIENTS = """
+            INSERT INTO invoice (cycle_id, client_id, period_start, period_end, opening_balance, charges, payments,
+                                 closing_balance, call_count, issued_at)
+            SELECT CAST(? AS BIGINT), t.client_id, CAST(? AS DATE), CAST(? AS DATE),
+                   t.closing_balance - t.payments + t.charges, t.charges, t.payments, t.closing_balance, t.call_count,
+                   CAST(? AS TIMESTAMP)
+            FROM (
+                SELECT c.client_id,
+                       COALESCE(c.balance, 0) + COALESCE(u.later_charges, 0) - COALESCE(p.later_payments, 0) AS closing_balance,
+                       COALESCE(u.charges, 0) AS charges,
+                       COALESCE(p.payments, 0) AS payments,
+                       COALESCE(u.call_count, 0) AS call_count
+                FROM client c
+                LEFT JOIN (
+                    SELECT client_id,
+                           SUM(CASE WHEN usage_date < ? THEN cost ELSE 0 END) AS charges,
+                           SUM(CASE WHEN usage_date >= ? THEN cost ELSE 0 END) AS later_charges,
+                           SUM(CASE WHEN usage_date < ? THEN call_count ELSE 0 END) AS call_count
+                    FROM usage_daily
+                    WHERE client_id BETWEEN ? AND ? AND usage_date >= ?
+                    GROUP BY client_id
+                ) u ON u.client_id = c.client_id
+                LEFT JOIN (
+                    SELECT client_id,
+                           SUM(CASE WHEN payment_date < ? THEN amount ELSE 0 END) AS payments,
+                           SUM(CASE WHEN payment_date >= ? THEN amount ELSE 0 END) AS later_payments
+                    FROM payment_daily
+                    WHERE client_id BETWEEN ? AND ? AND payment_date >= ?
+                    GROUP BY client_id
+                ) p ON p.client_id = c.client_id
+                WHERE c.client_id BETWEEN ? AND ? AND (c.created_at IS NULL OR c.created_at < ?)
+            ) t
+            """;
+
+    private static final RowMapper<BillingPartition> PARTITION = (rs, rowNum) -> {
+        Timestamp completedAt = rs.getTimestamp("completed_at");
+        return BillingPartition.builder()
+                .id(new BillingPartitionId(rs.getLong("cycle_id"), rs.getInt("partition_no")))
+                .firstClientId(rs.getLong("first_client_id"))
+                .lastClientId(rs.getLong("last_client_id"))
+                .nextClientId(rs.getLong("next_client_id"))
+                .invoices(rs.getLong("invoices"))
+                .completedAt(completedAt == null ? null : completedAt.toLocalDateTime())
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BillingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Lowest and highest client id, or {@code null} without clients. */
+    public long[] clientIdRange() {
+        return jdbcTemplate.queryForObject("SELECT MIN(client_id), MAX(client_id) FROM client", (rs, rowNum) -> {
+            long first = rs.getLong(1);
+            return rs.wasNull() ? null : new long[]{first, rs.getLong(2)};
+        });
+    }
+
+    public void createPartitions(List<BillingPartition> partitions) {
+        List<Object[]> args = new ArrayList<>(partitions.size());
+        for (BillingPartition partition : partitions) {
+            args.add(new Object[]{partition.getId().getCycleId(), partition.getId().getPartitionNo(),
+                    partition.getFirstClientId(), partition.getLastClientId(), partition.getNextClientId(), 0L, null});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO billing_partition (" + PARTITION_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)", args);
+    }
+
+    public List<BillingPartition> partitions(long cycleId) {
+        return jdbcTemplate.query("SELECT " + PARTITION_COLUMNS + " FROM billing_partition WHERE cycle_id = ? ORDER BY partition_no",
+                PARTITION, cycleId);
+    }
+
+    /**
+     * Reads the partition's checkpoint and locks it until the transaction ends, so a partition
+     * worked on by two nodes at once is billed chunk by chunk in turn rather than twice.
+     */
+    public BillingPartition lockPartition(long cycleId, int partitionNo) {
+        return jdbcTemplate.queryForObject(
+                "SELECT " + PARTITION_COLUMNS + " FROM billing_partition WHERE cycle_id = ? AND partition_no = ? FOR UPDATE",
+                PARTITION, cycleId, partitionNo);
+    }
+
+    /**
+     * Writes the invoices of clients {@code firstClientId..lastClientId} that existed by the end of
+     * the period {@code periodStart..periodEnd} (inclusive), or have no creation time, and returns how
+     * many there were.
+     */
+    public int billClients(long cycleId, LocalDate periodStart, LocalDate periodEnd, long firstClientId, long lastClientId,
+                           LocalDateTime issuedAt) {
+        Date start = Date.valueOf(periodStart);
+        Date after = Date.valueOf(periodEnd.plusDays(1));
+        return jdbcTemplate.update(BILL_CLIENTS,
+                cycleId, start, Date.valueOf(periodEnd), Timestamp.valueOf(issuedAt),
+                after, after, after, firstClientId, lastClientId, start,
+                after, after, firstClientId, lastClientId, start,
+                firstClientId, lastClientId, Timestamp.valueOf(periodEnd.plusDays(1).atStartOfDay()));
+    }
+
+    /** Runs a first statement, which is when a repeatable-read transaction takes its snapshot. */
+    public void takeSnapshot() {
+        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+    }
+
+    /** Takes charges not yet in the balances off the opening and closing balances of the cycle's invoices. */
+    public void deductUnflushed(long cycleId, Map<Long, BigDecimal> byClient) {
+        List<Object[]> rows = new ArrayList<>(byClient.size());
+        byClient.forEach((clientId, amount) -> rows.add(new Object[]{amount, amount, cycleId, clientId}));
+        jdbcTemplate.batchUpdate("""
+                UPDATE invoice SET opening_balance = opening_balance - ?, closing_balance = closing_balance - ?
+                WHERE cycle_id = ? AND client_id = ?
+                """, rows);
+    }
+
+    /** Moves the checkpoint past a billed chunk; {@code completedAt} is set with the last chunk. */
+    public void checkpoint(long cycleId, int partitionNo, long nextClientId, int invoices, LocalDateTime completedAt) {
+        jdbcTemplate.update("""
+                UPDATE billing_partition SET next_client_id = ?, invoices = invoices + ?, completed_at = ?
+                WHERE cycle_id = ? AND partition_no = ?
+                """, nextClientId, invoices, completedAt == null ? null : Timestamp.valueOf(completedAt), cycleId, partitionNo);
+    }
+
+    /** Marks the cycle complete once none of its partitions is left; returns whether it was. */
+    public boolean completeCycle(long cycleId, LocalDateTime completedAt) {
+        return jdbcTemplate.update("""
+                UPDATE billing_cycle SET completed_at = ?
+                WHERE cycle_id = ? AND completed_at IS NULL
+                  AND NOT EXISTS (SELECT 1 FROM billing_partition WHERE cycle_id = ? AND completed_at IS NULL)
+                """, Timestamp.valueOf(completedAt), cycleId, cycleId) > 0;
+    }
+}
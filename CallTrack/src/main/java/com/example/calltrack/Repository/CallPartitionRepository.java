@@ -0,0 +1,135 @@
+package com.example.calltrack.Repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL for the monthly partitions of {@code call_record} ({@code call_record_pYYYYMM}, PostgreSQL
+ * only). The H2 test database keeps a plain table, for which {@link #isPartitioned()} is false.
+ */
+@Repository
+public class CallPartitionRepository {
+    public static final String ARCHIVE_SCHEMA = "call_archive";
+
+    private static final String PREFIX = "call_record_p";
+    private static final Pattern NAME = Pattern.compile(PREFIX + "(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PARTITIONS = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'call_record'::regclass
+            ORDER BY c.relname
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    public CallPartitionRepository(JdbcTemplate jdbcTemplate, DataSource dataSource) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgres = Databases.isPostgres(dataSource);
+    }
+
+    public boolean isPartitioned() {
+        return postgres && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('call_record'))",
+                Boolean.class));
+    }
+
+    /** Months of the monthly partitions currently attached, oldest first. */
+    public List<YearMonth> attachedMonths() {
+        return jdbcTemplate.queryForList(PARTITIONS, String.class).stream()
+                .map(CallPartitionRepository::monthOf)
+                .flatMap(Optional::stream)
+                .sorted()
+                .toList();
+    }
+
+    /** Months of the partitions moved to the {@value #ARCHIVE_SCHEMA} schema, oldest first. */
+    public List<YearMonth> archivedMonths() {
+        return jdbcTemplate.queryForList("SELECT tablename FROM pg_tables WHERE schemaname = ?", String.class, ARCHIVE_SCHEMA)
+                .stream()
+                .map(CallPartitionRepository::monthOf)
+                .flatMap(Optional::stream)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Creates the partition of {@code month} and attaches it. Calls of that month already sitting in
+     * the default partition are moved into it first, since the attach would fail otherwise. Attaching
+     * a separately created table only takes a share lock on {@code call_record}, so inserts keep
+     * running; call within a transaction.
+     */
+    public void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE call_record INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("""
+                WITH moved AS (DELETE FROM call_record_default WHERE started_at >= ? AND started_at < ? RETURNING *)
+                INSERT INTO %s SELECT * FROM moved
+                """.formatted(name), from, to);
+        jdbcTemplate.execute("ALTER TABLE call_record ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    /** Detaches the partition of {@code month} and moves it to the {@value #ARCHIVE_SCHEMA} schema. */
+    public String archivePartition(YearMonth month) {
+        String name = partitionName(month);
+        jdbcTemplate.execute("ALTER TABLE call_record DETACH PARTITION " + name);
+        jdbcTemplate.execute("ALTER TABLE " + name + " SET SCHEMA " + ARCHIVE_SCHEMA);
+        return ARCHIVE_SCHEMA + "." + name;
+    }
+
+    /**
+     * Streams the calls of an archived month with the client owning the number, ordered by number
+     * and start time. Call within a transaction, so the driver reads through a cursor.
+     */
+    public void streamArchived(YearMonth month, RowCallbackHandler handler) {
+        String sql = """
+                SELECT c.number_id, p.client_id, c.started_at, c.call_type, c.duration_seconds, c.duration_minutes, c.cost
+                FROM %s.%s c
+                JOIN phone_number p ON p.number_id = c.number_id
+                ORDER BY c.number_id, c.started_at
+                """.formatted(ARCHIVE_SCHEMA, partitionName(month));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(10_000);
+            return statement;
+        }, handler);
+    }
+
+    public long countArchived(YearMonth month) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM " + ARCHIVE_SCHEMA + "." + partitionName(month), Long.class);
+        return count == null ? 0 : count;
+    }
+
+    public void dropArchived(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE " + ARCHIVE_SCHEMA + "." + partitionName(month));
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PREFIX + month.format(SUFFIX);
+    }
+
+    private static Optional<YearMonth> monthOf(String partitionName) {
+        Matcher matcher = NAME.matcher(partitionName);
+        return matcher.matches() ? Optional.of(YearMonth.parse(matcher.group(1), SUFFIX)) : Optional.empty();
+    }
+}
@@ -1,7 +1,29 @@
 package com.example.calltrack.Repository;
 
+import com.example.calltrack.DTO.CallResponseDTO;
 import com.example.calltrack.Entity.Call;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface CallRepository extends JpaRepository<Call, Long> {
+import java.util.Collection;
+import java.util.List;
+
+public interface CallRepository extends JpaRepository<Call, Long>, JpaSpecificationExecutor<Call>, CallRepositoryCustom {
+
+    /** The latest calls of all the client's numbers, newest first. */
+    @Query("""
+            select new com.example.calltrack.DTO.CallResponseDTO(c.callId, p.phone, c.startedAt, c.callType, c.tarif.tariffId,
+                   c.cost, c.durationMinutes, c.durationSeconds)
+            from Call c join c.phoneNumber p
+            where p.client.clientId = :clientId
+            order by c.startedAt desc, c.callId desc
+            """)
+    List<CallResponseDTO> findRecentViewsByClientId(@Param("clientId") Long clientId, Pageable pageable);
+
+    /** Those of the given call ids that are recorded. */
+    @Query("select c.callId from Call c where c.callId in :callIds")
+    List<Long> findExistingIds(@Param("callIds") Collection<Long> callIds);
 }
@@ -0,0 +1,25 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.DTO.CallExportDTO;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.Entity.Call;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface CallRepositoryCustom {
+
+    /**
+     * Up to {@code limit} calls matching {@code spec} in {@code (started_at DESC, call_id DESC)}
+     * order, projected straight into {@link CallResponseDTO} by one query joining the number.
+     */
+    List<CallResponseDTO> findViews(Specification<Call> spec, int limit);
+
+    /**
+     * Forward-only cursor over the calls matching the filters that are set, in
+     * {@code (started_at, call_id)} order; must be consumed inside a transaction and closed.
+     */
+    Stream<CallExportDTO> streamForExport(Long numberId, String callType, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,84 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.DTO.CallExportDTO;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.PhoneNumber;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.example.calltrack.Repository.CallSpecifications.*;
+
+public class CallRepositoryImpl implements CallRepositoryCustom {
+    private final EntityManager entityManager;
+
+    public CallRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<CallResponseDTO> findViews(Specification<Call> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CallResponseDTO> query = cb.createQuery(CallResponseDTO.class);
+        Root<Call> call = query.from(Call.class);
+        Join<Call, PhoneNumber> phone = call.join("phoneNumber");
+
+        query.select(cb.construct(CallResponseDTO.class,
+                call.get("callId"),
+                phone.get("phone"),
+                call.get("startedAt"),
+                call.get("callType"),
+                call.get("tarif").get("tariffId"),
+                call.get("cost"),
+                call.get("durationMinutes"),
+                call.get("durationSeconds")));
+
+        Predicate predicate = spec.toPredicate(call, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.desc(call.get("startedAt")), cb.desc(call.get("callId")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<CallExportDTO> streamForExport(Long numberId, String callType, LocalDateTime from, LocalDateTime to) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CallExportDTO> query = cb.createQuery(CallExportDTO.class);
+        Root<Call> call = query.from(Call.class);
+        Join<Call, PhoneNumber> phone = call.join("phoneNumber");
+
+        query.select(cb.construct(CallExportDTO.class,
+                call.get("callId"),
+                call.get("startedAt"),
+                phone.get("phone"),
+                call.get("callType"),
+                call.get("durationMinutes"),
+                call.get("cost")));
+
+        Specification<Call> spec = Specification.allOf(numberId(numberId), callType(callType), startedFrom(from), startedBefore(to));
+        Predicate predicate = spec.toPredicate(call, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(call.get("startedAt")), cb.asc(call.get("callId")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
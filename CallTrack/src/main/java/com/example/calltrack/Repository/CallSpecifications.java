@@ -0,0 +1,44 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.Call;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Predicates of the call log. Every filter maps onto a column covered by the
+ * {@code call_record} indexes, so ordering and limits stay in SQL. Unset filters yield no predicate,
+ * as in {@link FilterSpecifications}.
+ */
+public final class CallSpecifications {
+
+    private CallSpecifications() {
+    }
+
+    public static Specification<Call> numberId(Long numberId) {
+        return FilterSpecifications.equal("phoneNumber.numberId", numberId);
+    }
+
+    public static Specification<Call> callType(String callType) {
+        return (root, query, cb) -> callType == null || callType.isBlank() ? null
+                : cb.equal(root.get("callType"), callType);
+    }
+
+    public static Specification<Call> startedFrom(LocalDateTime from) {
+        return FilterSpecifications.atLeast("startedAt", from);
+    }
+
+    public static Specification<Call> startedBefore(LocalDateTime to) {
+        return FilterSpecifications.before("startedAt", to);
+    }
+
+    /** Rows strictly after the cursor in {@code (started_at DESC, call_id DESC)} order. */
+    public static Specification<Call> after(LocalDateTime startedAt, Long callId) {
+        return (root, query, cb) -> startedAt == null ? null
+                : cb.or(
+                        cb.lessThan(root.get("startedAt"), startedAt),
+                        cb.and(
+                                cb.equal(root.get("startedAt"), startedAt),
+                                cb.lessThan(root.get("callId"), callId)));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.ChargeFlush;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChargeFlushRepository extends JpaRepository<ChargeFlush, String> {
+}
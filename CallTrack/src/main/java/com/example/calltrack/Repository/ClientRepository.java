@@ -1,13 +1,50 @@
 package com.example.calltrack.Repository;
 
+import com.example.calltrack.DTO.DebtorDTO;
 import com.example.calltrack.Entity.Client;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ClientRepository extends JpaRepository<Client, Long> {
-    Client findByEmail(String email);
+public interface ClientRepository extends JpaRepository<Client, Long>, ClientRepositoryCustom {
+
+    /** Debtors with a balance at or below {@code maxBalance}, largest debt first; served by the balance index. */
+    @Query("""
+            select new com.example.calltrack.DTO.DebtorDTO(c.clientId, c.fullName, c.email, -c.balance, c.allowedCreditMinutes)
+            from Client c
+            where c.balance < 0 and c.balance <= :maxBalance
+            order by c.balance, c.clientId
+            """)
+    List<DebtorDTO> findDebtors(@Param("maxBalance") BigDecimal maxBalance, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.example.calltrack.DTO.DebtorDTO(c.clientId, c.fullName, c.email, -c.balance, c.allowedCreditMinutes)
+            from Client c
+            where c.balance < 0
+            """)
+    Stream<DebtorDTO> streamDebtors();
+
+    /** Current balances of the clients as {@link DebtorDTO}s, whatever their sign. */
+    @Query("""
+            select new com.example.calltrack.DTO.DebtorDTO(c.clientId, c.fullName, c.email, -c.balance, c.allowedCreditMinutes)
+            from Client c
+            where c.clientId in :clientIds
+            """)
+    List<DebtorDTO> findDebtorsByIdIn(@Param("clientIds") Collection<Long> clientIds);
 }
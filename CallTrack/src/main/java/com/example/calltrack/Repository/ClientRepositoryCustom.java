@@ -0,0 +1,12 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.Client;
+
+public interface ClientRepositoryCustom {
+
+    /**
+     * The client with this email, resolved through the natural-id cache, so repeated lookups of
+     * the same email (logins, registration checks) are served without a query.
+     */
+    Client findByEmail(String email);
+}
@@ -0,0 +1,23 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.Client;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+public class ClientRepositoryImpl implements ClientRepositoryCustom {
+    private final EntityManager entityManager;
+
+    public ClientRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Client findByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Client.class).load(email);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.calltrack.Repository;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/** Picks between PostgreSQL syntax and the standard SQL the H2 test database understands. */
+final class Databases {
+
+    private Databases() {
+    }
+
+    static boolean isPostgres(DataSource dataSource) throws MetaDataAccessException {
+        return "PostgreSQL".equals(
+                JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.calltrack.Repository;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Optional filters of the exports and reports. A filter whose value is not set yields no predicate
+ * and is left out of the query by {@link Specification#allOf}; queries with optional filters are
+ * built this way, with Criteria, because JPQL written as {@code (:param is null or ...)} leaves
+ * PostgreSQL unable to infer the type of a null parameter. Attributes may be dotted paths such as
+ * {@code id.usageDate}.
+ */
+public final class FilterSpecifications {
+
+    private FilterSpecifications() {
+    }
+
+    public static <T> Specification<T> equal(String attribute, Object value) {
+        return (root, query, cb) -> value == null ? null : cb.equal(path(root, attribute), value);
+    }
+
+    public static <T, Y extends Comparable<? super Y>> Specification<T> atLeast(String attribute, Y value) {
+        return (root, query, cb) -> value == null ? null : cb.greaterThanOrEqualTo(path(root, attribute), value);
+    }
+
+    public static <T, Y extends Comparable<? super Y>> Specification<T> atMost(String attribute, Y value) {
+        return (root, query, cb) -> value == null ? null : cb.lessThanOrEqualTo(path(root, attribute), value);
+    }
+
+    public static <T, Y extends Comparable<? super Y>> Specification<T> before(String attribute, Y value) {
+        return (root, query, cb) -> value == null ? null : cb.lessThan(path(root, attribute), value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Y> Path<Y> path(Root<?> root, String attribute) {
+        Path<?> path = root;
+        for (String name : attribute.split("\\.")) {
+            path = path.get(name);
+        }
+        return (Path<Y>) path;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.calltrack.Repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * PostgreSQL {@code LISTEN/NOTIFY} channel for messages between the application nodes sharing a
+ * database. Listening holds one pooled connection for as long as the application runs. The H2 test
+ * database has no such channel; there {@link #isAvailable()} is false and nothing is sent.
+ */
+@Repository
+public class InvalidationChannel implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(InvalidationChannel.class);
+
+    static final String CHANNEL = "calltrack_invalidation";
+    /** PostgreSQL rejects payloads of 8000 bytes or more. */
+    public static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private static final int POLL_MILLIS = 500;
+    private static final long KEEPALIVE_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long RETRY_MILLIS = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final boolean postgres;
+    private volatile boolean running;
+    private Thread listener;
+
+    public InvalidationChannel(JdbcTemplate jdbcTemplate, DataSource dataSource) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.postgres = Databases.isPostgres(dataSource);
+    }
+
+    public boolean isAvailable() {
+        return postgres;
+    }
+
+    /** Sends every payload as its own notification, all in one statement. */
+    public void publish(List<String> payloads) {
+        if (!postgres || payloads.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, payload) FROM unnest(?) AS payload");
+            statement.setString(1, CHANNEL);
+            statement.setArray(2, connection.createArrayOf("text", payloads.toArray()));
+            return statement;
+        }, resultSet -> null);
+    }
+
+    /**
+     * Hands every payload received on the channel, including the node's own, to {@code onMessage}
+     * on a daemon thread. A lost connection is re-established, and {@code onReconnect} runs once the
+     * channel listens again, since notifications sent in between are gone.
+     */
+    public synchronized void listen(Consumer<String> onMessage, Runnable onReconnect) {
+        if (!postgres || listener != null) {
+            return;
+        }
+        running = true;
+        listener = new Thread(() -> receive(onMessage, onReconnect), "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    private void receive(Consumer<String> onMessage, Runnable onReconnect) {
+        boolean listenedBefore = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                if (listenedBefore) {
+                    log.info("Listening on {} again", CHANNEL);
+                    onReconnect.run();
+                }
+                listenedBefore = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                long checked = System.nanoTime();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(onMessage, notification.getParameter());
+                        }
+                    }
+                    // A connection dropped without a FIN only shows up when something is sent on it
+                    if (System.nanoTime() - checked > KEEPALIVE_NANOS) {
+                        statement.execute("SELECT 1");
+                        checked = System.nanoTime();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Lost the {} channel, reconnecting", CHANNEL, e);
+                    sleep();
+                }
+            }
+        }
+    }
+
+    private static void deliver(Consumer<String> onMessage, String payload) {
+        try {
+            onMessage.accept(payload);
+        } catch (RuntimeException e) {
+            log.warn("Could not apply message from {}", CHANNEL, e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(RETRY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        Thread current;
+        synchronized (this) {
+            current = listener;
+        }
+        if (current != null) {
+            current.join(2L * POLL_MILLIS);
+        }
+    }
+}
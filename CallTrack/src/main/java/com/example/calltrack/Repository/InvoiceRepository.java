@@ -0,0 +1,15 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.Invoice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+
+    List<Invoice> findAllByClientIdOrderByPeriodStartDesc(Long clientId);
+
+    List<Invoice> findAllByCycleIdOrderByClientId(Long cycleId);
+}
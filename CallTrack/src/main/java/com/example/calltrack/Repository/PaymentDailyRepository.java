@@ -0,0 +1,10 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.PaymentDaily;
+import com.example.calltrack.Entity.PaymentDailyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PaymentDailyRepository extends JpaRepository<PaymentDaily, PaymentDailyId>, PaymentDailyRepositoryCustom {
+}
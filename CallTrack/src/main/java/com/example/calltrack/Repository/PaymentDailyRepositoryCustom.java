@@ -0,0 +1,12 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.DTO.PaymentReportDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/** Payment rollup totals; every filter is optional and a {@code null} one is left out of the query. */
+public interface PaymentDailyRepositoryCustom {
+
+    List<PaymentReportDTO> totalsByDay(Long clientId, String phone, LocalDate from, LocalDate to);
+}
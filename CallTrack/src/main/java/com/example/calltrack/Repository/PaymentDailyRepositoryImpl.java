@@ -0,0 +1,46 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.DTO.PaymentReportDTO;
+import com.example.calltrack.Entity.PaymentDaily;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.example.calltrack.Repository.FilterSpecifications.*;
+
+public class PaymentDailyRepositoryImpl implements PaymentDailyRepositoryCustom {
+    private final EntityManager entityManager;
+
+    public PaymentDailyRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<PaymentReportDTO> totalsByDay(Long clientId, String phone, LocalDate from, LocalDate to) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PaymentReportDTO> query = cb.createQuery(PaymentReportDTO.class);
+        Root<PaymentDaily> payment = query.from(PaymentDaily.class);
+        Path<LocalDate> day = payment.get("id").get("paymentDate");
+
+        query.select(cb.construct(PaymentReportDTO.class, day,
+                cb.sum(payment.<Long>get("paymentCount")), cb.sum(payment.<BigDecimal>get("amount"))));
+        Specification<PaymentDaily> spec = Specification.allOf(
+                equal("id.clientId", clientId), equal("id.phone", phone), atLeast("id.paymentDate", from), atMost("id.paymentDate", to));
+        Predicate predicate = spec.toPredicate(payment, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.groupBy(day);
+        query.orderBy(cb.asc(day));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -1,14 +1,34 @@
 package com.example.calltrack.Repository;
 
+import com.example.calltrack.DTO.PaymentViewDTO;
 import com.example.calltrack.Entity.Payment;
-import com.example.calltrack.Entity.PhoneNumber;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface PaymentsRepository extends JpaRepository<Payment, Long> {
+public interface PaymentsRepository extends JpaRepository<Payment, Long>, PaymentsRepositoryCustom {
     //String addPayment(Payment payment);
     List<Payment> findAllByClient_ClientId(Long clientId);
+
+    @Query("""
+            select new com.example.calltrack.DTO.PaymentViewDTO(p.id, p.client.clientId, p.phone_number, p.amount,
+                   p.paymentMethod, p.balanceAfter, p.createdAt)
+            from Payment p
+            where p.client.clientId = :clientId
+            order by p.createdAt desc, p.id desc
+            """)
+    List<PaymentViewDTO> findViewsByClientId(@Param("clientId") Long clientId, Pageable pageable);
+
+    @Query("""
+            select new com.example.calltrack.DTO.PaymentViewDTO(p.id, p.client.clientId, p.phone_number, p.amount,
+                   p.paymentMethod, p.balanceAfter, p.createdAt)
+            from Payment p
+            order by p.createdAt desc, p.id desc
+            """)
+    List<PaymentViewDTO> findRecentViews(Pageable pageable);
 }
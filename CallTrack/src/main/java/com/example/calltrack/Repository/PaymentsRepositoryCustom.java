@@ -0,0 +1,15 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.DTO.PaymentExportDTO;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface PaymentsRepositoryCustom {
+
+    /**
+     * Forward-only cursor over the payments matching the filters that are set, in
+     * {@code (created_at, payment_id)} order; must be consumed inside a transaction and closed.
+     */
+    Stream<PaymentExportDTO> streamForExport(Long clientId, String phone, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,53 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.DTO.PaymentExportDTO;
+import com.example.calltrack.Entity.Payment;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static com.example.calltrack.Repository.FilterSpecifications.*;
+
+public class PaymentsRepositoryImpl implements PaymentsRepositoryCustom {
+    private final EntityManager entityManager;
+
+    public PaymentsRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Stream<PaymentExportDTO> streamForExport(Long clientId, String phone, LocalDateTime from, LocalDateTime to) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PaymentExportDTO> query = cb.createQuery(PaymentExportDTO.class);
+        Root<Payment> payment = query.from(Payment.class);
+
+        query.select(cb.construct(PaymentExportDTO.class,
+                payment.get("id"),
+                payment.get("client").get("clientId"),
+                payment.get("phone_number"),
+                payment.get("amount"),
+                payment.get("paymentMethod"),
+                payment.get("balanceAfter"),
+                payment.get("createdAt")));
+
+        Specification<Payment> spec = Specification.allOf(
+                equal("client.clientId", clientId), equal("phone_number", phone), atLeast("createdAt", from), before("createdAt", to));
+        Predicate predicate = spec.toPredicate(payment, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(payment.get("createdAt")), cb.asc(payment.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -1,17 +1,55 @@
 package com.example.calltrack.Repository;
 
+import com.example.calltrack.DTO.PhoneNumberViewDTO;
+import com.example.calltrack.DTO.PhoneRatingDTO;
 import com.example.calltrack.Entity.Client;
 import com.example.calltrack.Entity.PhoneNumber;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PhoneNumberRepository extends JpaRepository<PhoneNumber, Long> {
+public interface PhoneNumberRepository extends JpaRepository<PhoneNumber, Long>, PhoneNumberRepositoryCustom {
+    String NUMBERS_BY_CLIENT_REGION = "phone-numbers-by-client";
+
     List<PhoneNumber> findAllByClient(Client client);
+
+    /** Ids of the client's numbers come from the query cache; the numbers themselves from the entity cache. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = NUMBERS_BY_CLIENT_REGION)
+    })
     List<PhoneNumber> findAllByClient_ClientId(Long clientId);
-    Optional<PhoneNumber> findByPhone(String phone);
+
+    @Query("""
+            select new com.example.calltrack.DTO.PhoneNumberViewDTO(p.numberId, p.client.clientId, p.numberName, p.phone,
+                   p.activatedAt, p.isPrimary, p.numberBalance, t.tariffId, t.tariffName)
+            from PhoneNumber p left join p.tarif t
+            where p.client.clientId = :clientId
+            order by p.numberId
+            """)
+    List<PhoneNumberViewDTO> findViewsByClientId(@Param("clientId") Long clientId);
+
+    @Query("""
+            select new com.example.calltrack.DTO.PhoneRatingDTO(p.phone, p.numberId, p.client.clientId, t.tariffId)
+            from PhoneNumber p left join p.tarif t
+            where p.phone = :phone
+            """)
+    Optional<PhoneRatingDTO> findRatingByPhone(@Param("phone") String phone);
+
+    @Query("""
+            select new com.example.calltrack.DTO.PhoneRatingDTO(p.phone, p.numberId, p.client.clientId, t.tariffId)
+            from PhoneNumber p left join p.tarif t
+            where p.phone in :phones
+            """)
+    List<PhoneRatingDTO> findRatingsByPhoneIn(@Param("phones") Collection<? extends String> phones);
 }
@@ -0,0 +1,11 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.PhoneNumber;
+
+import java.util.Optional;
+
+public interface PhoneNumberRepositoryCustom {
+
+    /** The number with this phone, resolved through the natural-id cache. */
+    Optional<PhoneNumber> findByPhone(String phone);
+}
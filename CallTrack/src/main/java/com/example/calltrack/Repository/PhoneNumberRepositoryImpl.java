@@ -0,0 +1,25 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.PhoneNumber;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public class PhoneNumberRepositoryImpl implements PhoneNumberRepositoryCustom {
+    private final EntityManager entityManager;
+
+    public PhoneNumberRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PhoneNumber> findByPhone(String phone) {
+        if (phone == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(PhoneNumber.class).loadOptional(phone);
+    }
+}
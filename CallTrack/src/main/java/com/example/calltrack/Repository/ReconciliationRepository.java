@@ -0,0 +1,139 @@
+package com.example.calltrack.Repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the client balances, number balances, payments and call charges of a range of clients as
+ * four cursors ordered by {@code client_id} and merge-joins them into one {@link Ledger} per client,
+ * holding a single row of each source at a time. Call within a transaction, so the driver fetches
+ * through server-side cursors; a repeatable-read one sees all four sources as of the same moment.
+ */
+@Repository
+public class ReconciliationRepository {
+    private static final String CLIENTS =
+            "SELECT client_id, COALESCE(balance, 0) FROM client WHERE %s ORDER BY client_id";
+    private static final String NUMBERS = """
+            SELECT client_id, COUNT(*), SUM(COALESCE(number_balance, 0)) FROM phone_number WHERE %s
+            GROUP BY client_id ORDER BY client_id
+            """;
+    private static final String PAYMENTS =
+            "SELECT client_id, SUM(amount) FROM payment WHERE %s GROUP BY client_id ORDER BY client_id";
+    private static final String CHARGES =
+            "SELECT client_id, SUM(cost) FROM usage_daily WHERE %s GROUP BY client_id ORDER BY client_id";
+
+    /**
+     * What the sources hold for one client. {@code clientExists} is false for numbers, payments or
+     * charges of a client id missing from {@code client}.
+     */
+    public record Ledger(long clientId, boolean clientExists, BigDecimal balance, long numbers,
+                         BigDecimal numberBalance, BigDecimal payments, BigDecimal charges) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReconciliationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Passes the ledger of every client id in {@code firstClientId..lastClientId} found in any source. */
+    public long scan(long firstClientId, long lastClientId, int fetchSize, Consumer<Ledger> consumer) {
+        return merge("client_id BETWEEN ? AND ?", List.of(firstClientId, lastClientId), fetchSize, consumer);
+    }
+
+    /** Passes the ledgers of the given clients, as far as any source has them. */
+    public long scan(Collection<Long> clientIds, Consumer<Ledger> consumer) {
+        if (clientIds.isEmpty()) {
+            return 0;
+        }
+        String in = "client_id IN (" + String.join(", ", Collections.nCopies(clientIds.size(), "?")) + ")";
+        return merge(in, List.copyOf(clientIds), clientIds.size(), consumer);
+    }
+
+    private long merge(String where, List<Long> params, int fetchSize, Consumer<Ledger> consumer) {
+        Long count = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            List<Cursor> cursors = new ArrayList<>(4);
+            try {
+                Cursor clients = open(connection, CLIENTS, where, params, fetchSize, cursors);
+                Cursor numbers = open(connection, NUMBERS, where, params, fetchSize, cursors);
+                Cursor payments = open(connection, PAYMENTS, where, params, fetchSize, cursors);
+                Cursor charges = open(connection, CHARGES, where, params, fetchSize, cursors);
+
+                long merged = 0;
+                while (true) {
+                    long clientId = Math.min(Math.min(clients.key, numbers.key), Math.min(payments.key, charges.key));
+                    if (clientId == Cursor.END) {
+                        return merged;
+                    }
+                    boolean exists = clients.key == clientId;
+                    BigDecimal balance = exists ? clients.amount(2) : BigDecimal.ZERO;
+                    boolean hasNumbers = numbers.key == clientId;
+                    long numberCount = hasNumbers ? numbers.rows.getLong(2) : 0;
+                    BigDecimal numberBalance = hasNumbers ? numbers.amount(3) : BigDecimal.ZERO;
+                    BigDecimal paid = payments.key == clientId ? payments.amount(2) : BigDecimal.ZERO;
+                    BigDecimal charged = charges.key == clientId ? charges.amount(2) : BigDecimal.ZERO;
+                    consumer.accept(new Ledger(clientId, exists, balance, numberCount, numberBalance, paid, charged));
+                    merged++;
+                    for (Cursor cursor : cursors) {
+                        if (cursor.key == clientId) {
+                            cursor.next();
+                        }
+                    }
+                }
+            } finally {
+                for (Cursor cursor : cursors) {
+                    cursor.statement.close();
+                }
+            }
+        });
+        return count == null ? 0 : count;
+    }
+
+    private static Cursor open(Connection connection, String sql, String where, List<Long> params, int fetchSize,
+                               List<Cursor> cursors) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql.formatted(where));
+        Cursor cursor = new Cursor(statement);
+        cursors.add(cursor);
+        statement.setFetchSize(fetchSize);
+        for (int i = 0; i < params.size(); i++) {
+            statement.setLong(i + 1, params.get(i));
+        }
+        cursor.rows = statement.executeQuery();
+        cursor.next();
+        return cursor;
+    }
+
+    /** One source, positioned on its current row; {@code key} is {@link #END} past the last. */
+    private static final class Cursor {
+        static final long END = Long.MAX_VALUE;
+
+        final PreparedStatement statement;
+        ResultSet rows;
+        long key;
+
+        Cursor(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        void next() throws SQLException {
+            key = rows.next() ? rows.getLong(1) : END;
+        }
+
+        BigDecimal amount(int column) throws SQLException {
+            BigDecimal amount = rows.getBigDecimal(column);
+            return amount == null ? BigDecimal.ZERO : amount;
+        }
+    }
+}
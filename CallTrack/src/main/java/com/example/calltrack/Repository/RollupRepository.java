@@ -0,0 +1,133 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.UsageDaily;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes of the daily rollup tables. Increments are upserts that add to the stored totals in the
+ * database, so concurrent writers of the same day never overwrite each other; rebuilds regenerate a
+ * date range from {@code call_record} and {@code payment} with set-based {@code INSERT ... SELECT}.
+ * <p>
+ * PostgreSQL uses {@code INSERT ... ON CONFLICT DO UPDATE}; H2 (tests) the standard {@code MERGE}.
+ */
+@Repository
+public class RollupRepository {
+    private static final String USAGE_COLUMNS =
+            "number_id, usage_date, call_type, client_id, call_count, duration_seconds, duration_minutes, cost";
+    private static final String PAYMENT_COLUMNS = "client_id, phone, payment_date, payment_count, amount";
+
+    private static final String UPSERT_USAGE_POSTGRES = """
+            INSERT INTO usage_daily (%s) VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (number_id, usage_date, call_type) DO UPDATE SET
+                call_count = usage_daily.call_count + EXCLUDED.call_count,
+                duration_seconds = usage_daily.duration_seconds + EXCLUDED.duration_seconds,
+                duration_minutes = usage_daily.duration_minutes + EXCLUDED.duration_minutes,
+                cost = usage_daily.cost + EXCLUDED.cost
+            """.formatted(USAGE_COLUMNS);
+    private static final String UPSERT_USAGE_STANDARD = """
+            MERGE INTO usage_daily u
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS VARCHAR(255)), CAST(? AS BIGINT),
+                           CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS NUMERIC(38, 2))))
+                AS d (%s)
+            ON u.number_id = d.number_id AND u.usage_date = d.usage_date AND u.call_type = d.call_type
+            WHEN MATCHED THEN UPDATE SET
+                call_count = u.call_count + d.call_count,
+                duration_seconds = u.duration_seconds + d.duration_seconds,
+                duration_minutes = u.duration_minutes + d.duration_minutes,
+                cost = u.cost + d.cost
+            WHEN NOT MATCHED THEN INSERT (%s) VALUES (d.number_id, d.usage_date, d.call_type, d.client_id,
+                d.call_count, d.duration_seconds, d.duration_minutes, d.cost)
+            """.formatted(USAGE_COLUMNS, USAGE_COLUMNS);
+
+    private static final String UPSERT_PAYMENT_POSTGRES = """
+            INSERT INTO payment_daily (%s) VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (client_id, phone, payment_date) DO UPDATE SET
+                payment_count = payment_daily.payment_count + EXCLUDED.payment_count,
+                amount = payment_daily.amount + EXCLUDED.amount
+            """.formatted(PAYMENT_COLUMNS);
+    private static final String UPSERT_PAYMENT_STANDARD = """
+            MERGE INTO payment_daily p
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS VARCHAR(255)), CAST(? AS DATE), CAST(? AS BIGINT),
+                           CAST(? AS NUMERIC(38, 2))))
+                AS d (%s)
+            ON p.client_id = d.client_id AND p.phone = d.phone AND p.payment_date = d.payment_date
+            WHEN MATCHED THEN UPDATE SET
+                payment_count = p.payment_count + d.payment_count,
+                amount = p.amount + d.amount
+            WHEN NOT MATCHED THEN INSERT (%s) VALUES (d.client_id, d.phone, d.payment_date, d.payment_count, d.amount)
+            """.formatted(PAYMENT_COLUMNS, PAYMENT_COLUMNS);
+
+    private static final String REBUILD_USAGE = """
+            INSERT INTO usage_daily (%s)
+            SELECT c.number_id, CAST(c.started_at AS DATE), COALESCE(c.call_type, ''), p.client_id, COUNT(*),
+                   SUM(COALESCE(c.duration_seconds, c.duration_minutes * 60, 0)),
+                   SUM(COALESCE(c.duration_minutes, 0)),
+                   SUM(COALESCE(c.cost, 0))
+            FROM call_record c
+            JOIN phone_number p ON p.number_id = c.number_id
+            WHERE c.started_at >= ? AND c.started_at < ?
+            GROUP BY c.number_id, CAST(c.started_at AS DATE), COALESCE(c.call_type, ''), p.client_id
+            """.formatted(USAGE_COLUMNS);
+    private static final String REBUILD_PAYMENTS = """
+            INSERT INTO payment_daily (%s)
+            SELECT client_id, phone_number, CAST(created_at AS DATE), COUNT(*), SUM(amount)
+            FROM payment
+            WHERE created_at >= ? AND created_at < ?
+            GROUP BY client_id, phone_number, CAST(created_at AS DATE)
+            """.formatted(PAYMENT_COLUMNS);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsertUsage;
+    private final String upsertPayment;
+
+    public RollupRepository(JdbcTemplate jdbcTemplate, DataSource dataSource) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        boolean postgres = Databases.isPostgres(dataSource);
+        this.upsertUsage = postgres ? UPSERT_USAGE_POSTGRES : UPSERT_USAGE_STANDARD;
+        this.upsertPayment = postgres ? UPSERT_PAYMENT_POSTGRES : UPSERT_PAYMENT_STANDARD;
+    }
+
+    /** Adds the totals to their rows in one batch; callers pass rows in key order to avoid lock cycles. */
+    public void addUsage(Collection<UsageDaily> usage) {
+        List<Object[]> args = new ArrayList<>(usage.size());
+        for (UsageDaily row : usage) {
+            args.add(new Object[]{row.getId().getNumberId(), Date.valueOf(row.getId().getUsageDate()),
+                    row.getId().getCallType(), row.getClientId(), row.getCallCount(), row.getDurationSeconds(),
+                    row.getDurationMinutes(), row.getCost()});
+        }
+        jdbcTemplate.batchUpdate(upsertUsage, args);
+    }
+
+    public void addPayment(Long clientId, String phone, LocalDate day, BigDecimal amount) {
+        jdbcTemplate.update(upsertPayment, clientId, phone, Date.valueOf(day), 1L, amount);
+    }
+
+    public void deleteUsage(LocalDate from, LocalDate to) {
+        jdbcTemplate.update("DELETE FROM usage_daily WHERE usage_date >= ? AND usage_date < ?",
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    /** Replaces the call rollups of {@code [from, to)} with totals recomputed from the call log. */
+    public int rebuildUsage(LocalDate from, LocalDate to) {
+        deleteUsage(from, to);
+        return jdbcTemplate.update(REBUILD_USAGE, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()));
+    }
+
+    /** Replaces the payment rollups of {@code [from, to)} with totals recomputed from the payments. */
+    public int rebuildPayments(LocalDate from, LocalDate to) {
+        jdbcTemplate.update("DELETE FROM payment_daily WHERE payment_date >= ? AND payment_date < ?",
+                Date.valueOf(from), Date.valueOf(to));
+        return jdbcTemplate.update(REBUILD_PAYMENTS, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()));
+    }
+}
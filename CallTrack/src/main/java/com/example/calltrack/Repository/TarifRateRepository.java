@@ -0,0 +1,12 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.TarifRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TarifRateRepository extends JpaRepository<TarifRate, Long> {
+    List<TarifRate> findAllByTarif_TariffId(Long tariffId);
+}
@@ -1,7 +1,11 @@
 package com.example.calltrack.Repository;
 
 import com.example.calltrack.Entity.Tarif;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +13,9 @@ import java.util.List;
 @Repository
 public interface TarifRepository extends JpaRepository<Tarif, Long>{
     public List<Tarif> findAll();
+
+    /** Every tariff as stored in the table, ignoring the read-only second-level cache. */
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    @Query("select t from Tarif t")
+    List<Tarif> findAllFromTable();
 }
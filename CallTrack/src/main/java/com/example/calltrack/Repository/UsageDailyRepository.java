@@ -0,0 +1,10 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.Entity.UsageDaily;
+import com.example.calltrack.Entity.UsageDailyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UsageDailyRepository extends JpaRepository<UsageDaily, UsageDailyId>, UsageDailyRepositoryCustom {
+}
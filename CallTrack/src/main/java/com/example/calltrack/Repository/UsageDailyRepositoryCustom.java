@@ -0,0 +1,17 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.DTO.MonthlyUsageDTO;
+import com.example.calltrack.DTO.UsageReportDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/** Usage rollup totals; every filter is optional and a {@code null} one is left out of the query. */
+public interface UsageDailyRepositoryCustom {
+
+    List<UsageReportDTO> totalsByDay(Long clientId, Long numberId, LocalDate from, LocalDate to);
+
+    List<UsageReportDTO> totalsByCallType(Long clientId, Long numberId, LocalDate from, LocalDate to);
+
+    List<MonthlyUsageDTO> totalsByMonth(Long clientId, Long numberId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,95 @@
+package com.example.calltrack.Repository;
+
+import com.example.calltrack.DTO.MonthlyUsageDTO;
+import com.example.calltrack.DTO.UsageReportDTO;
+import com.example.calltrack.Entity.UsageDaily;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaFunction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.example.calltrack.Repository.FilterSpecifications.*;
+
+public class UsageDailyRepositoryImpl implements UsageDailyRepositoryCustom {
+    private final EntityManager entityManager;
+
+    public UsageDailyRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<UsageReportDTO> totalsByDay(Long clientId, Long numberId, LocalDate from, LocalDate to) {
+        HibernateCriteriaBuilder cb = criteriaBuilder();
+        CriteriaQuery<UsageReportDTO> query = cb.createQuery(UsageReportDTO.class);
+        Root<UsageDaily> usage = query.from(UsageDaily.class);
+        Path<LocalDate> day = usage.get("id").get("usageDate");
+
+        query.select(cb.construct(UsageReportDTO.class, day, cb.sum(usage.<Long>get("callCount")),
+                cb.sum(usage.<Long>get("durationMinutes")), cb.sum(usage.<Long>get("durationSeconds")),
+                cb.sum(usage.<BigDecimal>get("cost"))));
+        where(query, usage, clientId, numberId, from, to);
+        query.groupBy(day);
+        query.orderBy(cb.asc(day));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<UsageReportDTO> totalsByCallType(Long clientId, Long numberId, LocalDate from, LocalDate to) {
+        HibernateCriteriaBuilder cb = criteriaBuilder();
+        CriteriaQuery<UsageReportDTO> query = cb.createQuery(UsageReportDTO.class);
+        Root<UsageDaily> usage = query.from(UsageDaily.class);
+        Path<String> callType = usage.get("id").get("callType");
+
+        query.select(cb.construct(UsageReportDTO.class, callType, cb.sum(usage.<Long>get("callCount")),
+                cb.sum(usage.<Long>get("durationMinutes")), cb.sum(usage.<Long>get("durationSeconds")),
+                cb.sum(usage.<BigDecimal>get("cost"))));
+        where(query, usage, clientId, numberId, from, to);
+        query.groupBy(callType);
+        query.orderBy(cb.asc(callType));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<MonthlyUsageDTO> totalsByMonth(Long clientId, Long numberId, LocalDate from, LocalDate to) {
+        HibernateCriteriaBuilder cb = criteriaBuilder();
+        CriteriaQuery<MonthlyUsageDTO> query = cb.createQuery(MonthlyUsageDTO.class);
+        Root<UsageDaily> usage = query.from(UsageDaily.class);
+        Path<Long> number = usage.get("id").get("numberId");
+        Path<LocalDate> day = usage.get("id").get("usageDate");
+        Path<String> callType = usage.get("id").get("callType");
+        JpaFunction<Integer> year = cb.year(day);
+        JpaFunction<Integer> month = cb.month(day);
+
+        query.select(cb.construct(MonthlyUsageDTO.class, number, year, month, callType,
+                cb.sum(usage.<Long>get("callCount")), cb.sum(usage.<Long>get("durationMinutes")),
+                cb.sum(usage.<Long>get("durationSeconds")), cb.sum(usage.<BigDecimal>get("cost"))));
+        where(query, usage, clientId, numberId, from, to);
+        query.groupBy(number, year, month, callType);
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private HibernateCriteriaBuilder criteriaBuilder() {
+        return (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+    }
+
+    private void where(CriteriaQuery<?> query, Root<UsageDaily> usage,
+                       Long clientId, Long numberId, LocalDate from, LocalDate to) {
+        Specification<UsageDaily> spec = Specification.allOf(
+                equal("clientId", clientId), equal("id.numberId", numberId), atLeast("id.usageDate", from), atMost("id.usageDate", to));
+        Predicate predicate = spec.toPredicate(usage, query, entityManager.getCriteriaBuilder());
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
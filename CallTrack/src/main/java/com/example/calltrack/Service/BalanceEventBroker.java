@@ -0,0 +1,203 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.BalanceEventDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pushes balance changes and debt transitions to subscribed clients over Server-Sent Events.
+ * <p>
+ * Streams are asynchronous servlet responses, so an idle subscriber holds a socket but no thread.
+ * Publishing only hands the event to a small dispatch pool with a bounded queue and never waits on
+ * a subscriber; when the queue is full the event is dropped, and the client catches up from the
+ * snapshot it gets on reconnect. A periodic comment line keeps proxies from closing idle streams
+ * and weeds out connections that went away without a FIN.
+ */
+@Component
+public class BalanceEventBroker implements DisposableBean, MeterBinder {
+    public static final String BALANCE = "balance";
+    public static final String DEBT = "debt";
+    public static final String DEBT_CLEARED = "debt-cleared";
+
+    private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService heartbeat;
+    private final long timeoutMillis;
+    private final long reconnectMillis;
+    private final int maxConnections;
+
+    public BalanceEventBroker(@Value("${calltrack.events.dispatch-threads:2}") int dispatchThreads,
+                              @Value("${calltrack.events.dispatch-queue:10000}") int dispatchQueue,
+                              @Value("${calltrack.events.max-connections:50000}") int maxConnections,
+                              @Value("${calltrack.events.timeout:PT30M}") Duration timeout,
+                              @Value("${calltrack.events.reconnect:PT5S}") Duration reconnect,
+                              @Value("${calltrack.events.heartbeat:PT25S}") Duration heartbeatInterval) {
+        AtomicInteger counter = new AtomicInteger();
+        this.maxConnections = maxConnections;
+        this.timeoutMillis = timeout.toMillis();
+        this.reconnectMillis = reconnect.toMillis();
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(dispatchQueue), r -> {
+                    Thread thread = new Thread(r, "balance-events-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (r, pool) -> {
+                    dropped.incrementAndGet();
+                    throw new RejectedExecutionException("Balance event queue is full");
+                });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "balance-events-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = heartbeatInterval.toMillis();
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeat, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a stream for the client and sends it the current balance first. The stream is
+     * registered before {@code currentBalance} is read, so no change committed in between is lost.
+     *
+     * @throws ResponseStatusException 503 when the connection limit is reached, or whatever
+     *                                 {@code currentBalance} throws for an unknown client
+     */
+    public SseEmitter subscribe(Long clientId, Supplier<BigDecimal> currentBalance) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event streams");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribers.computeIfAbsent(clientId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+        Runnable remove = () -> unsubscribe(clientId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+
+        BigDecimal balance;
+        try {
+            balance = currentBalance.get();
+        } catch (RuntimeException e) {
+            unsubscribe(clientId, emitter);
+            throw e;
+        }
+        send(clientId, emitter, SseEmitter.event()
+                .name(BALANCE)
+                .reconnectTime(reconnectMillis)
+                .data(event(clientId, balance), MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    /**
+     * Publishes a committed balance change. {@code wasInDebt} is the client's state before the
+     * change; crossing zero in either direction adds a {@value #DEBT} or {@value #DEBT_CLEARED} event.
+     */
+    public void publish(Long clientId, BigDecimal balance, boolean wasInDebt) {
+        Set<SseEmitter> emitters = subscribers.get(clientId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        BalanceEventDTO event = event(clientId, balance);
+        String transition = event.isInDebt() == wasInDebt ? null : event.isInDebt() ? DEBT : DEBT_CLEARED;
+        try {
+            dispatcher.execute(() -> {
+                for (SseEmitter emitter : emitters) {
+                    if (send(clientId, emitter, SseEmitter.event().name(BALANCE).data(event, MediaType.APPLICATION_JSON))
+                            && transition != null) {
+                        send(clientId, emitter, SseEmitter.event().name(transition).data(event, MediaType.APPLICATION_JSON));
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Counted by the rejection handler; subscribers resynchronise on reconnect
+        }
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    private static BalanceEventDTO event(Long clientId, BigDecimal balance) {
+        BigDecimal value = balance == null ? BigDecimal.ZERO : balance;
+        return BalanceEventDTO.builder()
+                .clientId(clientId)
+                .balance(value)
+                .debt(value.signum() < 0 ? value.negate() : BigDecimal.ZERO)
+                .inDebt(value.signum() < 0)
+                .at(LocalDateTime.now())
+                .build();
+    }
+
+    private boolean send(Long clientId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The peer is gone or the stream already completed
+            unsubscribe(clientId, emitter);
+            return false;
+        }
+    }
+
+    private void sendHeartbeat() {
+        subscribers.forEach((clientId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                send(clientId, emitter, SseEmitter.event().comment("ping"));
+            }
+        });
+    }
+
+    private void unsubscribe(Long clientId, SseEmitter emitter) {
+        subscribers.computeIfPresent(clientId, (id, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connections.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("calltrack.events.connections", connections, AtomicInteger::get)
+                .description("Open balance event streams")
+                .register(registry);
+        FunctionCounter.builder("calltrack.events.dropped", dropped, AtomicLong::get)
+                .description("Balance events dropped because the dispatch queue was full")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        subscribers.clear();
+    }
+}
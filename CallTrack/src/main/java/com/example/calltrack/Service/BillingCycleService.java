@@ -0,0 +1,338 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.BillingCycleDTO;
+import com.example.calltrack.DTO.InvoiceDTO;
+import com.example.calltrack.Entity.BillingCycle;
+import com.example.calltrack.Entity.BillingPartition;
+import com.example.calltrack.Entity.BillingPartitionId;
+import com.example.calltrack.Entity.Invoice;
+import com.example.calltrack.Repository.BillingCycleRepository;
+import com.example.calltrack.Repository.BillingRepository;
+import com.example.calltrack.Repository.InvoiceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monthly billing: an invoice per client with the period's call charges and payments and the
+ * balances it opened and closed with. A cycle splits the client ids into {@code partitions} ranges,
+ * billed in parallel on a pool of {@code threads}, {@code chunk-size} clients per transaction. Each
+ * transaction also moves its partition's checkpoint, so a cycle interrupted by a crash or shutdown
+ * resumes from the checkpoints, at startup or when started again, without billing anyone twice.
+ * <p>
+ * Totals come from the daily rollups, and balances are reconstructed backwards from the current
+ * ones, so a month can be billed any time after it ended, archived call history included. Charges
+ * still in the write-behind buffer are in the rollups but not yet in the balances: each chunk reads
+ * the database at a moment the buffer holds all of them and takes them off its clients' balances.
+ */
+@Service
+public class BillingCycleService implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(BillingCycleService.class);
+
+    private final BillingCycleRepository billingCycleRepository;
+    private final BillingRepository billingRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final ChargeAggregator chargeAggregator;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final ExecutorService billingExecutor;
+    private final int partitions;
+    private final int chunkSize;
+    private final boolean resumeOnStartup;
+    private final Counter invoicesIssued;
+    private final Map<LocalDate, Run> runs = new ConcurrentHashMap<>();
+
+    /** This node's work on a cycle; {@code done} completes when every partition it started has. */
+    private static final class Run {
+        final long started = System.nanoTime();
+        final AtomicLong billed = new AtomicLong();
+        volatile CompletableFuture<Void> done;
+        volatile long finished;
+        volatile String error;
+
+        boolean isRunning() {
+            return finished == 0;
+        }
+
+        long elapsedNanos() {
+            return (isRunning() ? System.nanoTime() : finished) - started;
+        }
+    }
+
+    private record Chunk(int billed, boolean last) {
+    }
+
+    public BillingCycleService(BillingCycleRepository billingCycleRepository, BillingRepository billingRepository,
+                               InvoiceRepository invoiceRepository, ChargeAggregator chargeAggregator,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                               @Value("${calltrack.billing.threads:0}") int threads,
+                               @Value("${calltrack.billing.partitions:0}") int partitions,
+                               @Value("${calltrack.billing.chunk-size:1000}") int chunkSize,
+                               @Value("${calltrack.billing.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.billingCycleRepository = billingCycleRepository;
+        this.billingRepository = billingRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.chargeAggregator = chargeAggregator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // The balances and rollups a chunk bills from must be those of the moment its pending charges were read
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.billingExecutor = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread thread = new Thread(r, "billing-cycle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Several partitions per thread, so threads finishing early take over the rest
+        this.partitions = partitions > 0 ? partitions : poolSize * 4;
+        this.chunkSize = chunkSize;
+        this.resumeOnStartup = resumeOnStartup;
+        this.invoicesIssued = Counter.builder("calltrack.billing.invoices")
+                .description("Invoices issued by billing cycles")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (resumeOnStartup) {
+            for (BillingCycle cycle : billingCycleRepository.findAllByCompletedAtIsNull()) {
+                log.info("Resuming billing cycle {}", YearMonth.from(cycle.getPeriodStart()));
+                start(YearMonth.from(cycle.getPeriodStart()));
+            }
+        }
+    }
+
+    /**
+     * Starts billing {@code period} in the background, or resumes its unfinished partitions, and
+     * returns its progress. The period must have ended; a cycle already running here is left alone.
+     */
+    public synchronized BillingCycleDTO start(YearMonth period) {
+        if (period == null || !period.isBefore(YearMonth.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Billing period has not ended");
+        }
+        BillingCycle cycle = openCycle(period);
+        Run running = runs.get(cycle.getPeriodStart());
+        if (cycle.getCompletedAt() != null || running != null && running.isRunning()) {
+            return status(cycle);
+        }
+
+        Run run = new Run();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (BillingPartition partition : billingRepository.partitions(cycle.getCycleId())) {
+            if (partition.getCompletedAt() == null) {
+                tasks.add(CompletableFuture.runAsync(() -> billPartition(cycle, partition.getId().getPartitionNo(), run),
+                        billingExecutor));
+            }
+        }
+        run.done = CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, failure) -> finish(cycle, run, failure));
+        runs.put(cycle.getPeriodStart(), run);
+        return status(cycle);
+    }
+
+    /** Starts or resumes {@code period} like {@link #start} and waits for this node's run to end. */
+    public BillingCycleDTO run(YearMonth period) {
+        BillingCycleDTO started = start(period);
+        Run run = runs.get(started.getPeriodStart());
+        if (run != null) {
+            try {
+                run.done.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return status(period);
+    }
+
+    public BillingCycleDTO status(YearMonth period) {
+        return billingCycleRepository.findByPeriodStart(period.atDay(1))
+                .map(this::status)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Billing cycle not found"));
+    }
+
+    public List<InvoiceDTO> invoicesOf(Long clientId) {
+        return invoiceRepository.findAllByClientIdOrderByPeriodStartDesc(clientId).stream()
+                .map(BillingCycleService::toDto)
+                .toList();
+    }
+
+    private BillingCycle openCycle(YearMonth period) {
+        LocalDate periodStart = period.atDay(1);
+        try {
+            return billingCycleRepository.findByPeriodStart(periodStart)
+                    .orElseGet(() -> transactionTemplate.execute(status -> createCycle(period)));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created it first
+            return billingCycleRepository.findByPeriodStart(periodStart).orElseThrow(() -> e);
+        }
+    }
+
+    /** Splits the client ids known now into equal ranges; clients added later are left to later cycles. */
+    private BillingCycle createCycle(YearMonth period) {
+        long[] ids = billingRepository.clientIdRange();
+        long span = ids == null ? 0 : ids[1] - ids[0] + 1;
+        int count = (int) Math.min(partitions, span);
+        BillingCycle cycle = billingCycleRepository.saveAndFlush(BillingCycle.builder()
+                .periodStart(period.atDay(1))
+                .periodEnd(period.atEndOfMonth())
+                .partitions(count)
+                .startedAt(LocalDateTime.now())
+                .build());
+
+        List<BillingPartition> ranges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long first = ids[0] + span * i / count;
+            long last = ids[0] + span * (i + 1) / count - 1;
+            ranges.add(BillingPartition.builder()
+                    .id(new BillingPartitionId(cycle.getCycleId(), i))
+                    .firstClientId(first)
+                    .lastClientId(last)
+                    .nextClientId(first)
+                    .build());
+        }
+        billingRepository.createPartitions(ranges);
+        return cycle;
+    }
+
+    private void billPartition(BillingCycle cycle, int partitionNo, Run run) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Chunk chunk;
+            try {
+                chunk = chunkTransaction.execute(status -> billChunk(cycle, partitionNo));
+            } catch (ConcurrencyFailureException e) {
+                // Another node moved the checkpoint after this chunk's snapshot; read it again
+                log.debug("Retrying a chunk of billing partition {}", partitionNo, e);
+                continue;
+            }
+            run.billed.addAndGet(chunk.billed());
+            invoicesIssued.increment(chunk.billed());
+            if (chunk.last()) {
+                return;
+            }
+        }
+    }
+
+    /** Bills the clients after the partition's checkpoint, up to {@code chunkSize} ids, and moves it past them. */
+    private Chunk billChunk(BillingCycle cycle, int partitionNo) {
+        Map<Long, Long> pending = chargeAggregator.pendingByClient(billingRepository::takeSnapshot);
+        BillingPartition partition = billingRepository.lockPartition(cycle.getCycleId(), partitionNo);
+        if (partition.getCompletedAt() != null) {
+            return new Chunk(0, true);
+        }
+        long first = partition.getNextClientId();
+        long last = Math.min(partition.getLastClientId(), first + chunkSize - 1);
+        LocalDateTime now = LocalDateTime.now();
+        int billed = billingRepository.billClients(cycle.getCycleId(), cycle.getPeriodStart(), cycle.getPeriodEnd(),
+                first, last, now);
+        Map<Long, BigDecimal> unflushed = new HashMap<>();
+        pending.forEach((clientId, amount) -> {
+            if (clientId >= first && clientId <= last) {
+                unflushed.put(clientId, CompiledTariff.toAmount(amount));
+            }
+        });
+        if (!unflushed.isEmpty()) {
+            billingRepository.deductUnflushed(cycle.getCycleId(), unflushed);
+        }
+        boolean lastChunk = last == partition.getLastClientId();
+        billingRepository.checkpoint(cycle.getCycleId(), partitionNo, last + 1, billed, lastChunk ? now : null);
+        return new Chunk(billed, lastChunk);
+    }
+
+    private void finish(BillingCycle cycle, Run run, Throwable failure) {
+        YearMonth period = YearMonth.from(cycle.getPeriodStart());
+        try {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                run.error = cause.getMessage();
+                log.error("Billing cycle {} stopped after {} clients; start it again to resume", period, run.billed.get(), cause);
+                return;
+            }
+            boolean completed = Boolean.TRUE.equals(transactionTemplate.execute(
+                    status -> billingRepository.completeCycle(cycle.getCycleId(), LocalDateTime.now())));
+            if (!completed) {
+                // Interrupted by shutdown, or partitions left to another node
+                log.info("Billing cycle {} left open after {} clients", period, run.billed.get());
+                return;
+            }
+            log.info("Billed {} clients for {} in {} ms ({} clients/s)", run.billed.get(), period,
+                    run.elapsedNanos() / 1_000_000, Math.round(clientsPerSecond(run)));
+        } finally {
+            run.finished = System.nanoTime();
+        }
+    }
+
+    private BillingCycleDTO status(BillingCycle cycle) {
+        BillingCycle current = billingCycleRepository.findById(cycle.getCycleId()).orElse(cycle);
+        List<BillingPartition> partitions = billingRepository.partitions(cycle.getCycleId());
+        Run run = runs.get(cycle.getPeriodStart());
+        String status = current.getCompletedAt() != null ? "COMPLETED"
+                : run != null && run.isRunning() ? "RUNNING" : "INTERRUPTED";
+        return BillingCycleDTO.builder()
+                .cycleId(current.getCycleId())
+                .periodStart(current.getPeriodStart())
+                .periodEnd(current.getPeriodEnd())
+                .status(status)
+                .partitions(current.getPartitions())
+                .partitionsCompleted((int) partitions.stream().filter(p -> p.getCompletedAt() != null).count())
+                .invoices(partitions.stream().mapToLong(BillingPartition::getInvoices).sum())
+                .startedAt(current.getStartedAt())
+                .completedAt(current.getCompletedAt())
+                .clientsBilled(run == null ? 0 : run.billed.get())
+                .elapsedMillis(run == null ? 0 : run.elapsedNanos() / 1_000_000)
+                .clientsPerSecond(run == null ? 0 : clientsPerSecond(run))
+                .error(run == null ? null : run.error)
+                .build();
+    }
+
+    private static double clientsPerSecond(Run run) {
+        long nanos = run.elapsedNanos();
+        return nanos == 0 ? 0 : run.billed.get() * 1e9 / nanos;
+    }
+
+    private static InvoiceDTO toDto(Invoice invoice) {
+        return InvoiceDTO.builder()
+                .invoiceId(invoice.getInvoiceId())
+                .clientId(invoice.getClientId())
+                .periodStart(invoice.getPeriodStart())
+                .periodEnd(invoice.getPeriodEnd())
+                .openingBalance(invoice.getOpeningBalance())
+                .charges(invoice.getCharges())
+                .payments(invoice.getPayments())
+                .closingBalance(invoice.getClosingBalance())
+                .callCount(invoice.getCallCount())
+                .issuedAt(invoice.getIssuedAt())
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        billingExecutor.shutdownNow();
+    }
+}
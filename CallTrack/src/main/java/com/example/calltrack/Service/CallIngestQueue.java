@@ -0,0 +1,394 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallBatchResultDTO;
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.DTO.IngestQueueStatsDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for call ingestion. Calls are not written on the request threads: they wait in
+ * a bounded in-memory queue drained by a fixed set of writer threads, so ingestion holds at most
+ * {@code writers} connections however fast the switches send, and payments and logins keep theirs.
+ * Single calls queued together are written in one transaction.
+ * <p>
+ * How many writers may write at once follows the write latency (see {@link IngestLimit}). Work is
+ * refused right away with 429 and a {@code Retry-After} of the expected wait once the queue holds
+ * {@code queue-capacity} calls, or as many as the writers get through in {@code max-wait} at the
+ * observed rate (but no fewer than {@code group-size} per writer); work that still waited longer
+ * than {@code max-wait} is refused when it is taken.
+ */
+@Component
+public class CallIngestQueue implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(CallIngestQueue.class);
+
+    private final CallService callService;
+    private final int writers;
+    private final long queueCapacity;
+    private final long maxWaitNanos;
+    private final int groupSize;
+    private final ExecutorService writerPool;
+    private final Counter written;
+    private final Counter shed;
+    private final Counter expired;
+    private final Timer queueWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    // Guarded by lock
+    private final ArrayDeque<Task> queue = new ArrayDeque<>();
+    private final IngestLimit limit;
+    private long queued;
+    private int inFlight;
+    private boolean stopped;
+
+    public CallIngestQueue(CallService callService,
+                           @Value("${calltrack.ingest.writers:4}") int writers,
+                           @Value("${calltrack.ingest.min-concurrency:1}") int minConcurrency,
+                           @Value("${calltrack.ingest.latency-target:PT0.5S}") Duration latencyTarget,
+                           @Value("${calltrack.ingest.queue-capacity:20000}") long queueCapacity,
+                           @Value("${calltrack.ingest.max-wait:PT2S}") Duration maxWait,
+                           @Value("${calltrack.ingest.group-size:500}") int groupSize,
+                           MeterRegistry meterRegistry) {
+        AtomicInteger counter = new AtomicInteger();
+        this.callService = callService;
+        this.writers = writers;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.groupSize = Math.max(groupSize, 1);
+        // A group for every writer is let in whatever rate the last few small writes suggested
+        this.limit = new IngestLimit(minConcurrency, writers, latencyTarget.toNanos(),
+                (long) writers * this.groupSize, System.nanoTime());
+        this.writerPool = Executors.newFixedThreadPool(writers, r -> {
+            Thread thread = new Thread(r, "call-ingest-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.written = Counter.builder("calltrack.ingest.written")
+                .description("Calls taken from the ingestion queue and processed")
+                .register(meterRegistry);
+        this.shed = Counter.builder("calltrack.ingest.shed")
+                .description("Calls refused with 429 because the ingestion queue was over its threshold")
+                .register(meterRegistry);
+        this.expired = Counter.builder("calltrack.ingest.expired")
+                .description("Calls refused with 429 because they waited in the ingestion queue past max-wait")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("calltrack.ingest.wait")
+                .description("Time calls spend in the ingestion queue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("calltrack.ingest.queued", this, ingest -> ingest.getStats().getQueued())
+                .description("Calls waiting in the ingestion queue")
+                .register(meterRegistry);
+        Gauge.builder("calltrack.ingest.threshold", this, ingest -> ingest.getStats().getThreshold())
+                .description("Queued calls past which new ingestion work is refused")
+                .register(meterRegistry);
+        Gauge.builder("calltrack.ingest.limit", this, ingest -> ingest.getStats().getLimit())
+                .description("Ingestion writers allowed to write at once")
+                .register(meterRegistry);
+        Gauge.builder("calltrack.ingest.in-flight", this, ingest -> ingest.getStats().getInFlight())
+                .description("Ingestion writers writing now")
+                .register(meterRegistry);
+        for (int i = 0; i < writers; i++) {
+            writerPool.execute(this::drain);
+        }
+    }
+
+    /** Queues one call; completes with what {@link CallService#addCall} answers, or 429 when overloaded. */
+    public CompletableFuture<ResponseEntity<CallResponseDTO>> addCall(CallRequestDTO record) {
+        Single task = new Single(record);
+        long retryAfter = offer(task);
+        return retryAfter == 0 ? task.response : CompletableFuture.completedFuture(overloaded(retryAfter, null));
+    }
+
+    /**
+     * Writes a CDR stream through the queue in chunks of {@value CallService#INGEST_CHUNK_SIZE}, each
+     * committed on its own; the next chunk is read while the previous one is written. A refused
+     * chunk ends the upload with 429 and the outcome so far: the first {@code accepted + rejected}
+     * records are done, and the rest may be sent again after {@code Retry-After}.
+     */
+    public ResponseEntity<CallBatchResultDTO> addCalls(Iterator<CallRequestDTO> records) {
+        CallBatchResultDTO result = new CallBatchResultDTO();
+        Chunk previous = null;
+        while (records.hasNext()) {
+            List<CallRequestDTO> next = new ArrayList<>(CallService.INGEST_CHUNK_SIZE);
+            while (next.size() < CallService.INGEST_CHUNK_SIZE && records.hasNext()) {
+                next.add(records.next());
+            }
+            long retryAfter = previous == null ? 0 : await(previous);
+            if (retryAfter == 0) {
+                previous = new Chunk(next, result);
+                retryAfter = offer(previous);
+            }
+            if (retryAfter > 0) {
+                return overloaded(retryAfter, result);
+            }
+        }
+        long retryAfter = previous == null ? 0 : await(previous);
+        return retryAfter == 0 ? ResponseEntity.ok(result) : overloaded(retryAfter, result);
+    }
+
+    public IngestQueueStatsDTO getStats() {
+        lock.lock();
+        try {
+            return IngestQueueStatsDTO.builder()
+                    .writers(writers)
+                    .limit(limit.limit())
+                    .inFlight(inFlight)
+                    .queued(queued)
+                    .threshold(threshold())
+                    .queueCapacity(queueCapacity)
+                    .written((long) written.count())
+                    .shed((long) shed.count())
+                    .expired((long) expired.count())
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Queues the task and returns 0, or refuses it and returns the seconds to retry after. */
+    private long offer(Task task) {
+        lock.lock();
+        try {
+            // Work larger than the threshold still goes through an empty queue
+            if (!stopped && (queue.isEmpty() || queued + task.size() <= threshold())) {
+                queue.add(task);
+                queued += task.size();
+                ready.signal();
+                return 0;
+            }
+            shed.increment(task.size());
+            return retryAfterSeconds();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long threshold() {
+        return Math.min(queueCapacity, limit.callsWithin(maxWaitNanos));
+    }
+
+    private long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(limit.expectedWaitNanos(queued) / 1e9));
+    }
+
+    /** Runs on each writer thread: takes a chunk, or up to group-size single calls, while the limit allows. */
+    private void drain() {
+        while (true) {
+            List<Task> taken = new ArrayList<>();
+            long retryAfter;
+            boolean saturated;
+            lock.lock();
+            try {
+                while (!stopped && (queue.isEmpty() || inFlight >= limit.limit())) {
+                    ready.await();
+                }
+                if (stopped) {
+                    return;
+                }
+                take(taken);
+                inFlight++;
+                saturated = inFlight >= limit.limit();
+                retryAfter = retryAfterSeconds();
+                if (!queue.isEmpty() && !saturated) {
+                    ready.signal();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            long startedAt = System.nanoTime();
+            List<Task> work = new ArrayList<>(taken.size());
+            for (Task task : taken) {
+                long waited = startedAt - task.queuedAt;
+                queueWait.record(waited, TimeUnit.NANOSECONDS);
+                if (waited >= maxWaitNanos) {
+                    expired.increment(task.size());
+                    task.refuse(retryAfter);
+                } else {
+                    work.add(task);
+                }
+            }
+            int calls = work.stream().mapToInt(Task::size).sum();
+            write(work);
+            long latency = System.nanoTime() - startedAt;
+            written.increment(calls);
+
+            lock.lock();
+            try {
+                inFlight--;
+                boolean raised = calls > 0 && limit.onWrite(startedAt, latency, calls, saturated);
+                ready.signal();
+                if (raised) {
+                    ready.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void take(List<Task> taken) {
+        Task first = queue.poll();
+        taken.add(first);
+        queued -= first.size();
+        while (first instanceof Single && taken.size() < groupSize && queue.peek() instanceof Single next) {
+            queue.poll();
+            taken.add(next);
+            queued--;
+        }
+    }
+
+    private void write(List<Task> work) {
+        if (work.isEmpty()) {
+            return;
+        }
+        if (work.get(0) instanceof Chunk chunk) {
+            try {
+                callService.addChunk(chunk.records, chunk.result);
+                chunk.done.complete(0L);
+            } catch (RuntimeException e) {
+                chunk.done.completeExceptionally(e);
+            }
+            return;
+        }
+
+        List<CallRequestDTO> records = new ArrayList<>(work.size());
+        for (Task task : work) {
+            records.add(((Single) task).record);
+        }
+        try {
+            List<ResponseEntity<CallResponseDTO>> responses = callService.addCallGroup(records);
+            for (int i = 0; i < work.size(); i++) {
+                ((Single) work.get(i)).response.complete(responses.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (work.size() == 1) {
+                ((Single) work.get(0)).response.completeExceptionally(e);
+                return;
+            }
+            // One failing call rolls back the group: write them one by one, so only that one fails
+            log.warn("Writing a group of {} calls failed, writing them one by one", work.size(), e);
+            for (Task task : work) {
+                Single single = (Single) task;
+                try {
+                    single.response.complete(callService.addCall(single.record));
+                } catch (RuntimeException callFailure) {
+                    single.response.completeExceptionally(callFailure);
+                }
+            }
+        }
+    }
+
+    /** Waits for a chunk to be written; returns 0, or the seconds to retry after if it was refused. */
+    private static long await(Chunk chunk) {
+        try {
+            return chunk.done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> ResponseEntity<T> overloaded(long retryAfterSeconds, T body) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(body);
+    }
+
+    @Override
+    public void destroy() {
+        List<Task> pending;
+        lock.lock();
+        try {
+            stopped = true;
+            pending = new ArrayList<>(queue);
+            queue.clear();
+            queued = 0;
+            ready.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        pending.forEach(task -> task.refuse(1));
+        writerPool.shutdown();
+    }
+
+    private abstract static class Task {
+        final long queuedAt = System.nanoTime();
+
+        abstract int size();
+
+        abstract void refuse(long retryAfterSeconds);
+    }
+
+    private static final class Single extends Task {
+        final CallRequestDTO record;
+        final CompletableFuture<ResponseEntity<CallResponseDTO>> response = new CompletableFuture<>();
+
+        Single(CallRequestDTO record) {
+            this.record = record;
+        }
+
+        @Override
+        int size() {
+            return 1;
+        }
+
+        @Override
+        void refuse(long retryAfterSeconds) {
+            response.complete(overloaded(retryAfterSeconds, null));
+        }
+    }
+
+    private static final class Chunk extends Task {
+        final List<CallRequestDTO> records;
+        final CallBatchResultDTO result;
+        // 0 once written, or the seconds to retry after if refused
+        final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        Chunk(List<CallRequestDTO> records, CallBatchResultDTO result) {
+            this.records = records;
+            this.result = result;
+        }
+
+        @Override
+        int size() {
+            return records.size();
+        }
+
+        @Override
+        void refuse(long retryAfterSeconds) {
+            done.complete(retryAfterSeconds);
+        }
+    }
+}
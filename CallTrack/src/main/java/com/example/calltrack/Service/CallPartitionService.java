@@ -0,0 +1,161 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallPartitionsDTO;
+import com.example.calltrack.Repository.CallPartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the monthly partitions of {@code call_record} rolling: partitions for the current and the
+ * next {@code months-ahead} months exist before calls arrive for them, and partitions older than
+ * {@code retention-months} are detached into the archive schema, so inserts and recent-history
+ * queries only touch current partitions. Detached months are then exported to the
+ * {@link CdrArchiveService} files and dropped from the database. Runs at startup and then periodically; does nothing when
+ * {@code call_record} is not partitioned (H2 in tests).
+ */
+@Service
+public class CallPartitionService implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(CallPartitionService.class);
+
+    private final CallPartitionRepository callPartitionRepository;
+    private final CdrArchiveService cdrArchiveService;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "call-partitions");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean partitioned;
+
+    public CallPartitionService(CallPartitionRepository callPartitionRepository, CdrArchiveService cdrArchiveService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${calltrack.call-partitions.months-ahead:3}") int monthsAhead,
+                                @Value("${calltrack.call-partitions.retention-months:0}") int retentionMonths,
+                                @Value("${calltrack.call-partitions.check-interval:PT6H}") Duration checkInterval) {
+        this.callPartitionRepository = callPartitionRepository;
+        this.cdrArchiveService = cdrArchiveService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.checkInterval = checkInterval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        partitioned = callPartitionRepository.isPartitioned();
+        if (partitioned) {
+            long millis = checkInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::maintainQuietly, 0, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Creates the missing upcoming partitions and archives the expired ones, one transaction each,
+     * then exports the archived months to files.
+     */
+    public synchronized CallPartitionsDTO maintain() {
+        List<String> created = new ArrayList<>();
+        List<String> archived = new ArrayList<>();
+        if (!partitioned) {
+            return CallPartitionsDTO.builder().partitioned(false).created(created).archived(archived).exported(List.of()).build();
+        }
+
+        YearMonth current = YearMonth.now();
+        List<YearMonth> attached = callPartitionRepository.attachedMonths();
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            if (!attached.contains(month)) {
+                YearMonth target = month;
+                transactionTemplate.executeWithoutResult(status -> callPartitionRepository.createPartition(target));
+                created.add(CallPartitionRepository.partitionName(target));
+                log.info("Created call partition {}", CallPartitionRepository.partitionName(target));
+            }
+        }
+        if (retentionMonths > 0) {
+            YearMonth oldestKept = current.minusMonths(retentionMonths);
+            for (YearMonth month : attached) {
+                if (month.isBefore(oldestKept)) {
+                    String table = transactionTemplate.execute(status -> callPartitionRepository.archivePartition(month));
+                    archived.add(table);
+                    log.info("Archived call partition {}", table);
+                }
+            }
+        }
+
+        List<String> exported = cdrArchiveService.exportArchivedPartitions();
+
+        return CallPartitionsDTO.builder()
+                .partitioned(true)
+                .retainedFrom(retainedFrom())
+                .created(created)
+                .archived(archived)
+                .exported(exported)
+                .build();
+    }
+
+    /**
+     * The first day whose calls are still in {@code call_record}, or {@code null} when nothing has
+     * been archived. Calls before it were moved to the archive schema or the archive files.
+     */
+    public LocalDate retainedFrom() {
+        if (!partitioned) {
+            return null;
+        }
+        YearMonth newest = Stream.concat(callPartitionRepository.archivedMonths().stream(), cdrArchiveService.months().stream())
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        return newest == null ? null : newest.plusMonths(1).atDay(1);
+    }
+
+    /** Months whose calls were exported to the archive files, oldest first. */
+    public List<YearMonth> exportedMonths() {
+        return partitioned ? cdrArchiveService.months() : List.of();
+    }
+
+    /**
+     * Months detached into the archive schema and not exported yet, while an export runs or after one
+     * failed. Their calls are neither in {@code call_record} nor in the files.
+     */
+    public List<YearMonth> unexportedMonths() {
+        if (!partitioned) {
+            return List.of();
+        }
+        List<YearMonth> archived = callPartitionRepository.archivedMonths();
+        // Listed after the schema: a month exported in between has its file and is left out
+        List<YearMonth> exported = cdrArchiveService.months();
+        return archived.stream().filter(month -> !exported.contains(month)).toList();
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            // Partitions are created months ahead, so the next run has plenty of time to retry
+            log.error("Call partition maintenance failed", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -1,72 +1,324 @@
 package com.example.calltrack.Service;
 
+import com.example.calltrack.DTO.CallBatchResultDTO;
+import com.example.calltrack.DTO.CallFilterDTO;
 import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.DTO.PhoneRatingDTO;
 import com.example.calltrack.Entity.Call;
 import com.example.calltrack.Repository.CallRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import com.example.calltrack.Entity.Call;
 import com.example.calltrack.Entity.PhoneNumber;
 import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Entity.UsageDaily;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
-import java.util.Comparator;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.example.calltrack.Repository.CallSpecifications.*;
 
 @Service
 public class CallService {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int INGEST_CHUNK_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final CallRepository callRepository;
-    private final PhoneNumberService phoneNumberService;
+    private final RatingCache ratingCache;
+    private final RatingEngine ratingEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ChargeAggregator chargeAggregator;
+    private final RollupService rollupService;
+    private final ClientSummaryService clientSummaryService;
+    private final Counter callsRated;
 
-    public CallService(CallRepository callRepository, PhoneNumberService phoneNumberService) {
+    public CallService(CallRepository callRepository, RatingCache ratingCache, RatingEngine ratingEngine,
+                       PlatformTransactionManager transactionManager, EntityManager entityManager,
+                       ChargeAggregator chargeAggregator, RollupService rollupService,
+                       ClientSummaryService clientSummaryService, MeterRegistry meterRegistry) {
         this.callRepository = callRepository;
-        this.phoneNumberService = phoneNumberService;
+        this.ratingCache = ratingCache;
+        this.ratingEngine = ratingEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.chargeAggregator = chargeAggregator;
+        this.rollupService = rollupService;
+        this.clientSummaryService = clientSummaryService;
+        this.callsRated = Counter.builder("calltrack.calls.rated")
+                .description("Calls rated and recorded")
+                .register(meterRegistry);
     }
 
-    public List<Call> getCalls() {
-        List<Call> calls = callRepository.findAll();
-        calls.sort(Comparator.comparing(Call::getStartedAt).reversed());
-        return calls;
+    /**
+     * One page of the call log, newest first. Filtering, ordering and the limit are applied in SQL
+     * and rows are projected into DTOs by a single query; the cursor of the following page is
+     * returned in the {@value #NEXT_CURSOR_HEADER} header. No calls give 204 No Content, as before
+     * pagination.
+     */
+    @ReplicaRead
+    public ResponseEntity<List<CallResponseDTO>> getCalls(CallFilterDTO filter) {
+        int limit = filter.getLimit() == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(filter.getLimit(), 1), MAX_PAGE_SIZE);
+
+        Long numberId = null;
+        if (filter.getPhone() != null && !filter.getPhone().isBlank()) {
+            PhoneRatingDTO rating = ratingCache.get(filter.getPhone().trim());
+            if (rating == null) {
+                return ResponseEntity.noContent().build();
+            }
+            numberId = rating.getNumberId();
+        }
+
+        Specification<Call> spec = Specification.allOf(
+                numberId(numberId),
+                callType(filter.getCallType()),
+                startedFrom(filter.getFrom() == null ? null : filter.getFrom().atStartOfDay()),
+                startedBefore(filter.getTo() == null ? null : filter.getTo().plusDays(1).atStartOfDay()));
+
+        if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+            String[] cursor = decodeCursor(filter.getCursor());
+            spec = spec.and(after(LocalDateTime.parse(cursor[0]), Long.parseLong(cursor[1])));
+        }
+
+        List<CallResponseDTO> calls = callRepository.findViews(spec, limit + 1);
+
+        if (calls.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        if (calls.size() <= limit) {
+            return ResponseEntity.ok(calls);
+        }
+
+        List<CallResponseDTO> page = calls.subList(0, limit);
+        CallResponseDTO last = page.get(limit - 1);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, encodeCursor(last))
+                .body(page);
     }
 
-    @Transactional // Добавляем транзакцию
-    public ResponseEntity<Call> addCall(CallRequestDTO callRequestDTO) {
-        String phoneNumberStr = callRequestDTO.getPhoneNumber();
+    private static String encodeCursor(CallResponseDTO call) {
+        String raw = call.getStartedAt() + "|" + call.getCallId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(cursor);
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
 
-        // 1. Получаем номер телефона ОДИН раз
-        PhoneNumber existingPhoneNumber = phoneNumberService.getByPhone(phoneNumberStr);
+    @Timed(value = "calltrack.call.add", description = "Rating and recording a single call", histogram = true)
+    @Transactional // Добавляем транзакцию
+    public ResponseEntity<CallResponseDTO> addCall(CallRequestDTO callRequestDTO) {
+        // 1. Номер и тариф берём из кэша тарификации, без обращения к БД
+        PhoneRatingDTO rating = ratingCache.get(callRequestDTO.getPhoneNumber());
 
-        if (existingPhoneNumber == null) {
+        if (rating == null) {
             return ResponseEntity.notFound().build();
         }
 
-        // 2. Получаем тариф ОДИН раз из уже загруженного объекта
-        // Убедитесь, что у сущности PhoneNumber есть метод getTarif()
-        Tarif tariff = existingPhoneNumber.getTarif();
-
-        if (tariff == null) {
+        // 2. Без тарифа или без времени и длительности звонок не тарифицируется
+        CompiledTariff tariff = rating.getTariffId() == null ? null : ratingEngine.tariff(rating.getTariffId());
+        if (tariff == null || !isComplete(callRequestDTO)) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        // 3. Рассчитываем стоимость ОДИН раз
-        BigDecimal cost = tariff.getPricePerMinute()
-                .multiply(BigDecimal.valueOf(callRequestDTO.getDurationMinutes()));
+        // 3-4. Рассчитываем стоимость и сохраняем звонок
+        Call currentCall = buildCall(rating, tariff, callRequestDTO);
+
+        callRepository.saveAndFlush(currentCall);
+        rollupService.recordUsage(List.of(RollupService.usageOf(rating.getClientId(), rating.getNumberId(), currentCall)));
 
-        // 4. Создаем объект и сохраняем его
-        Call currentCall = Call.builder()
-                .phoneNumber(existingPhoneNumber) // Используем переменную
-                .startedAt(callRequestDTO.getStartDate().atStartOfDay())
+        // 5. Списываем стоимость с баланса номера и клиента после коммита, пакетами
+        chargeAggregator.charge(currentCall.getCallId(), rating.getClientId(), rating.getNumberId(),
+                CompiledTariff.toMinor(currentCall.getCost()));
+        clientSummaryService.invalidate(rating.getClientId());
+        TransactionCallbacks.afterCommit(callsRated::increment);
+
+        return new ResponseEntity<>(toResponse(currentCall, rating), HttpStatus.CREATED);
+    }
+
+    /**
+     * Bulk ingestion of CDRs. Records are consumed lazily in chunks of {@value #INGEST_CHUNK_SIZE}:
+     * every chunk resolves its numbers with one query, is written with batched inserts and is
+     * committed on its own, so memory stays bounded for arbitrarily long streams. Accepted calls are
+     * added to the daily rollups in the same transaction and charged through the
+     * {@link ChargeAggregator} when their chunk commits.
+     */
+    @Timed(value = "calltrack.call.add-batch", description = "Bulk ingestion of a CDR stream")
+    public CallBatchResultDTO addCalls(Iterator<CallRequestDTO> records) {
+        CallBatchResultDTO result = new CallBatchResultDTO();
+        List<CallRequestDTO> chunk = new ArrayList<>(INGEST_CHUNK_SIZE);
+        while (records.hasNext()) {
+            chunk.add(records.next());
+            if (chunk.size() == INGEST_CHUNK_SIZE) {
+                addChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            addChunk(chunk, result);
+        }
+        return result;
+    }
+
+    /** Records one chunk of a bulk upload in its own transaction and adds the outcome to {@code result}. */
+    public void addChunk(List<CallRequestDTO> chunk, CallBatchResultDTO result) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Call[] calls = ingestChunk(chunk, new HashMap<>(), result::reject);
+            result.accept((int) Arrays.stream(calls).filter(Objects::nonNull).count());
+        });
+    }
+
+    /**
+     * Rates and records the calls of several single-call requests in one transaction and answers
+     * each of them as {@link #addCall} would, so a burst of them costs one commit rather than one each.
+     */
+    @Timed(value = "calltrack.call.add-group", description = "Rating and recording single calls in one transaction")
+    public List<ResponseEntity<CallResponseDTO>> addCallGroup(List<CallRequestDTO> records) {
+        return transactionTemplate.execute(status -> {
+            Map<String, PhoneRatingDTO> ratings = new HashMap<>();
+            Call[] calls = ingestChunk(records, ratings, reason -> {
+            });
+            List<ResponseEntity<CallResponseDTO>> responses = new ArrayList<>(records.size());
+            for (int i = 0; i < calls.length; i++) {
+                PhoneRatingDTO rating = ratings.get(records.get(i).getPhoneNumber());
+                if (calls[i] != null) {
+                    responses.add(new ResponseEntity<>(toResponse(calls[i], rating), HttpStatus.CREATED));
+                } else if (rating == null) {
+                    responses.add(ResponseEntity.notFound().build());
+                } else {
+                    responses.add(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+                }
+            }
+            return responses;
+        });
+    }
+
+    /**
+     * Rates and records the chunk within the current transaction. The result is aligned with the
+     * chunk, {@code null} where a record was rejected; {@code ratings} receives the numbers found.
+     */
+    private Call[] ingestChunk(List<CallRequestDTO> chunk, Map<String, PhoneRatingDTO> ratings, Consumer<String> rejected) {
+        Set<String> phones = new HashSet<>();
+        for (CallRequestDTO record : chunk) {
+            if (record.getPhoneNumber() != null) {
+                phones.add(record.getPhoneNumber());
+            }
+        }
+        ratings.putAll(ratingCache.getAll(phones));
+
+        Call[] accepted = new Call[chunk.size()];
+        List<Call> calls = new ArrayList<>(chunk.size());
+        List<PhoneRatingDTO> callRatings = new ArrayList<>(chunk.size());
+        List<UsageDaily> usage = new ArrayList<>(chunk.size());
+        Set<Long> clients = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            CallRequestDTO record = chunk.get(i);
+            PhoneRatingDTO rating = ratings.get(record.getPhoneNumber());
+            CompiledTariff tariff = rating == null || rating.getTariffId() == null ? null : ratingEngine.tariff(rating.getTariffId());
+            if (rating == null) {
+                rejected.accept("Phone number not found: " + record.getPhoneNumber());
+            } else if (tariff == null) {
+                rejected.accept("No tariff for phone number: " + record.getPhoneNumber());
+            } else if (!isComplete(record)) {
+                rejected.accept("Incomplete call record for phone number: " + record.getPhoneNumber());
+            } else {
+                Call call = buildCall(rating, tariff, record);
+                accepted[i] = call;
+                calls.add(call);
+                callRatings.add(rating);
+                usage.add(RollupService.usageOf(rating.getClientId(), rating.getNumberId(), call));
+                clients.add(rating.getClientId());
+            }
+        }
+
+        callRepository.saveAll(calls);
+        for (int i = 0; i < calls.size(); i++) {
+            PhoneRatingDTO rating = callRatings.get(i);
+            chargeAggregator.charge(calls.get(i).getCallId(), rating.getClientId(), rating.getNumberId(),
+                    CompiledTariff.toMinor(calls.get(i).getCost()));
+        }
+        rollupService.recordUsage(usage);
+        clientSummaryService.invalidateAll(clients);
+        int count = calls.size();
+        TransactionCallbacks.afterCommit(() -> callsRated.increment(count));
+        entityManager.flush();
+        entityManager.clear();
+        return accepted;
+    }
+
+    /** Associations are set as references, so building the call does not load number or tariff. */
+    private Call buildCall(PhoneRatingDTO rating, CompiledTariff tariff, CallRequestDTO callRequestDTO) {
+        LocalDateTime startedAt = callRequestDTO.getStartedAt() != null
+                ? callRequestDTO.getStartedAt()
+                : callRequestDTO.getStartDate().atStartOfDay();
+        int durationSeconds = callRequestDTO.getDurationSeconds() != null
+                ? callRequestDTO.getDurationSeconds()
+                : callRequestDTO.getDurationMinutes() * 60;
+
+        long cost = tariff.cost(callRequestDTO.getCallType(), startedAt.toLocalTime().toSecondOfDay(), durationSeconds);
+
+        return Call.builder()
+                .phoneNumber(entityManager.getReference(PhoneNumber.class, rating.getNumberId()))
+                .startedAt(startedAt)
                 .callType(callRequestDTO.getCallType())
-                .tarif(tariff) // Используем переменную
-                .cost(cost)    // Используем переменную
-                .durationMinutes(callRequestDTO.getDurationMinutes())
+                .tarif(entityManager.getReference(Tarif.class, rating.getTariffId()))
+                .cost(CompiledTariff.toAmount(cost))
+                .durationMinutes((durationSeconds + 59) / 60)
+                .durationSeconds(durationSeconds)
                 .build();
+    }
 
-        callRepository.saveAndFlush(currentCall);
+    private static boolean isComplete(CallRequestDTO callRequestDTO) {
+        return (callRequestDTO.getStartedAt() != null || callRequestDTO.getStartDate() != null)
+                && (callRequestDTO.getDurationSeconds() != null || callRequestDTO.getDurationMinutes() != null);
+    }
 
-        return new ResponseEntity<>(currentCall, HttpStatus.CREATED);
+    private static CallResponseDTO toResponse(Call call, PhoneRatingDTO rating) {
+        return CallResponseDTO.builder()
+                .callId(call.getCallId())
+                .phoneNumber(rating.getPhone())
+                .startedAt(call.getStartedAt())
+                .callType(call.getCallType())
+                .tariffId(rating.getTariffId())
+                .cost(call.getCost())
+                .durationMinutes(call.getDurationMinutes())
+                .durationSeconds(call.getDurationSeconds())
+                .build();
     }
 
 }
@@ -0,0 +1,450 @@
+package com.example.calltrack.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable columnar file of archived calls. Rows are stored in blocks; every block keeps each
+ * column (number, client, start, type, seconds, minutes, cost) as its own deflated run of
+ * delta/zig-zag varints, so similar values sit together and compress well. The footer holds the
+ * call type dictionary and, per block, the min/max of number, client and start time plus the
+ * position of every column.
+ * <p>
+ * A reader maps the blocks read-only and aggregates them in parallel, skipping blocks whose
+ * min/max cannot match the filter. Writers should add rows ordered by number and start time,
+ * which keeps the block ranges narrow; any order is still read correctly.
+ */
+final class CdrArchiveFile {
+    static final String SUFFIX = ".cdr";
+
+    private static final int MAGIC = 0x43445241; // "CDRA"
+    private static final int VERSION = 1;
+    private static final int TRAILER_SIZE = 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int COLUMNS = 7;
+    private static final int NUMBER = 0;
+    private static final int CLIENT = 1;
+    private static final int STARTED = 2;
+    private static final int TYPE = 3;
+    private static final int SECONDS = 4;
+    private static final int MINUTES = 5;
+    private static final int COST = 6;
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    enum Grouping { DAY, MONTH }
+
+    /** Rows to aggregate; {@code null} fields do not filter, {@code from} and {@code to} are inclusive days. */
+    record Filter(Long numberId, Long clientId, LocalDate from, LocalDate to) {
+    }
+
+    /** Totals of one number, client, day or month and call type; cost is in minor units. */
+    record Usage(long numberId, long clientId, LocalDate period, String callType,
+                 long calls, long durationSeconds, long durationMinutes, long cost) {
+    }
+
+    private record Block(int rows, long minNumber, long maxNumber, long minClient, long maxClient,
+                         long minStarted, long maxStarted, long[] offsets, int[] lengths, int[] rawLengths) {
+    }
+
+    private record Key(long numberId, long clientId, long periodDay, int type) {
+    }
+
+    private final Path file;
+    private final String[] callTypes;
+    private final List<Block> blocks;
+    private final MappedByteBuffer[] data;
+    private final long rows;
+
+    private CdrArchiveFile(Path file, String[] callTypes, List<Block> blocks, MappedByteBuffer[] data, long rows) {
+        this.file = file;
+        this.callTypes = callTypes;
+        this.blocks = blocks;
+        this.data = data;
+        this.rows = rows;
+    }
+
+    /** Maps the blocks of an archive file; the mappings stay valid after the file channel is closed. */
+    static CdrArchiveFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < TRAILER_SIZE) {
+                throw new IOException("Not a call archive: " + file);
+            }
+            ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - TRAILER_SIZE, TRAILER_SIZE);
+            long rows = trailer.getLong();
+            long footerOffset = trailer.getLong();
+            int version = trailer.getInt();
+            if (trailer.getInt() != MAGIC || version != VERSION) {
+                throw new IOException("Not a call archive: " + file);
+            }
+
+            ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset, size - TRAILER_SIZE - footerOffset);
+            String[] callTypes = new String[footer.getInt()];
+            for (int i = 0; i < callTypes.length; i++) {
+                byte[] bytes = new byte[footer.getShort() & 0xFFFF];
+                footer.get(bytes);
+                callTypes[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int blockCount = footer.getInt();
+            List<Block> blocks = new ArrayList<>(blockCount);
+            MappedByteBuffer[] data = new MappedByteBuffer[blockCount];
+            for (int b = 0; b < blockCount; b++) {
+                int blockRows = footer.getInt();
+                long minNumber = footer.getLong();
+                long maxNumber = footer.getLong();
+                long minClient = footer.getLong();
+                long maxClient = footer.getLong();
+                long minStarted = footer.getLong();
+                long maxStarted = footer.getLong();
+                long[] offsets = new long[COLUMNS];
+                int[] lengths = new int[COLUMNS];
+                int[] rawLengths = new int[COLUMNS];
+                for (int c = 0; c < COLUMNS; c++) {
+                    offsets[c] = footer.getLong();
+                    lengths[c] = footer.getInt();
+                    rawLengths[c] = footer.getInt();
+                }
+                Block block = new Block(blockRows, minNumber, maxNumber, minClient, maxClient, minStarted, maxStarted,
+                        offsets, lengths, rawLengths);
+                blocks.add(block);
+                // Columns of a block are written back to back
+                data[b] = channel.map(FileChannel.MapMode.READ_ONLY, offsets[0],
+                        offsets[COLUMNS - 1] + lengths[COLUMNS - 1] - offsets[0]);
+            }
+            return new CdrArchiveFile(file, callTypes, blocks, data, rows);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    int blocks() {
+        return blocks.size();
+    }
+
+    /**
+     * Sums the matching rows per number, client, period and call type, one task per block. The
+     * future completes once every block is scanned, so callers can scan several files at once.
+     */
+    CompletableFuture<List<Usage>> aggregate(Filter filter, Grouping grouping, Executor executor) {
+        long from = filter.from() == null ? Long.MIN_VALUE : epochSecond(filter.from().atStartOfDay());
+        long to = filter.to() == null ? Long.MAX_VALUE : epochSecond(filter.to().plusDays(1).atStartOfDay()) - 1;
+
+        List<CompletableFuture<Map<Key, long[]>>> tasks = new ArrayList<>();
+        for (int b = 0; b < blocks.size(); b++) {
+            Block block = blocks.get(b);
+            if (block.maxStarted() < from || block.minStarted() > to
+                    || filter.numberId() != null && (filter.numberId() < block.minNumber() || filter.numberId() > block.maxNumber())
+                    || filter.clientId() != null && (filter.clientId() < block.minClient() || filter.clientId() > block.maxClient())) {
+                continue;
+            }
+            int index = b;
+            tasks.add(CompletableFuture.supplyAsync(() -> scan(index, filter, from, to, grouping), executor));
+        }
+
+        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<Key, long[]> totals = new HashMap<>();
+            for (CompletableFuture<Map<Key, long[]>> task : tasks) {
+                task.join().forEach((key, sums) -> totals.merge(key, sums, CdrArchiveFile::add));
+            }
+            List<Usage> result = new ArrayList<>(totals.size());
+            totals.forEach((key, sums) -> result.add(new Usage(key.numberId(), key.clientId(), LocalDate.ofEpochDay(key.periodDay()),
+                    callTypes[key.type()], sums[0], sums[1], sums[2], sums[3])));
+            return result;
+        });
+    }
+
+    private Map<Key, long[]> scan(int index, Filter filter, long from, long to, Grouping grouping) {
+        Block block = blocks.get(index);
+        long[] numbers = column(index, NUMBER, true);
+        long[] clients = column(index, CLIENT, true);
+        long[] started = column(index, STARTED, true);
+        long[] types = column(index, TYPE, false);
+        long[] seconds = column(index, SECONDS, false);
+        long[] minutes = column(index, MINUTES, false);
+        long[] costs = column(index, COST, false);
+
+        Map<Key, long[]> totals = new HashMap<>();
+        long lastDay = Long.MIN_VALUE;
+        long lastPeriod = 0;
+        for (int i = 0; i < block.rows(); i++) {
+            if (started[i] < from || started[i] > to
+                    || filter.numberId() != null && numbers[i] != filter.numberId()
+                    || filter.clientId() != null && clients[i] != filter.clientId()) {
+                continue;
+            }
+            long day = Math.floorDiv(started[i], SECONDS_PER_DAY);
+            if (day != lastDay) {
+                lastDay = day;
+                lastPeriod = grouping == Grouping.DAY ? day : LocalDate.ofEpochDay(day).withDayOfMonth(1).toEpochDay();
+            }
+            long[] sums = totals.computeIfAbsent(new Key(numbers[i], clients[i], lastPeriod, (int) types[i]), k -> new long[4]);
+            sums[0]++;
+            sums[1] += seconds[i];
+            sums[2] += minutes[i];
+            sums[3] += costs[i];
+        }
+        return totals;
+    }
+
+    /** Inflates and decodes one column of a block; delta columns are running sums of zig-zag varints. */
+    private long[] column(int index, int column, boolean delta) {
+        Block block = blocks.get(index);
+        ByteBuffer compressed = data[index].slice((int) (block.offsets()[column] - block.offsets()[0]), block.lengths()[column]);
+        byte[] raw = new byte[block.rawLengths()[column]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int read = 0;
+            while (read < raw.length) {
+                int n = inflater.inflate(raw, read, raw.length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new DataFormatException("Column is shorter than recorded");
+                }
+                read += n;
+            }
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Corrupt block " + index + " in " + file, e));
+        } finally {
+            inflater.end();
+        }
+
+        long[] values = new long[block.rows()];
+        int position = 0;
+        long previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = raw[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (delta) {
+                previous += (value >>> 1) ^ -(value & 1);
+                values[i] = previous;
+            } else {
+                values[i] = value;
+            }
+        }
+        return values;
+    }
+
+    private static long[] add(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+        }
+        return a;
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Writes an archive file. Rows go to a temporary file that replaces {@code target} only on
+     * {@link #finish()}, so a reader never sees a partial archive; closing without finishing
+     * discards it.
+     */
+    static final class Writer implements AutoCloseable {
+        private final Path target;
+        private final Path temp;
+        private final DataOutputStream out;
+        private final int blockRows;
+        private final Map<String, Integer> callTypes = new LinkedHashMap<>();
+        private final List<Block> blocks = new ArrayList<>();
+        private final VarintBuffer[] columns = new VarintBuffer[COLUMNS];
+        private final Deflater deflater = new Deflater();
+        private long position;
+        private long rows;
+        private boolean finished;
+
+        // Current block
+        private int blockSize;
+        private long lastNumber;
+        private long lastClient;
+        private long lastStarted;
+        private long minNumber;
+        private long maxNumber;
+        private long minClient;
+        private long maxClient;
+        private long minStarted;
+        private long maxStarted;
+
+        Writer(Path target, int blockRows) throws IOException {
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16));
+            this.blockRows = blockRows;
+            for (int c = 0; c < COLUMNS; c++) {
+                columns[c] = new VarintBuffer();
+            }
+            startBlock();
+        }
+
+        /** Adds a call; {@code cost} is in minor units. */
+        void add(long numberId, long clientId, LocalDateTime startedAt, String callType,
+                 int durationSeconds, int durationMinutes, long cost) throws IOException {
+            long started = epochSecond(startedAt);
+            int type = callTypes.computeIfAbsent(callType == null ? "" : callType, t -> callTypes.size());
+
+            columns[NUMBER].putZigZag(numberId - lastNumber);
+            columns[CLIENT].putZigZag(clientId - lastClient);
+            columns[STARTED].putZigZag(started - lastStarted);
+            columns[TYPE].put(type);
+            columns[SECONDS].put(durationSeconds);
+            columns[MINUTES].put(durationMinutes);
+            columns[COST].put(cost);
+            lastNumber = numberId;
+            lastClient = clientId;
+            lastStarted = started;
+            minNumber = Math.min(minNumber, numberId);
+            maxNumber = Math.max(maxNumber, numberId);
+            minClient = Math.min(minClient, clientId);
+            maxClient = Math.max(maxClient, clientId);
+            minStarted = Math.min(minStarted, started);
+            maxStarted = Math.max(maxStarted, started);
+            rows++;
+            if (++blockSize == blockRows) {
+                writeBlock();
+            }
+        }
+
+        /** Completes the file and moves it into place; returns the number of rows written. */
+        long finish() throws IOException {
+            if (blockSize > 0) {
+                writeBlock();
+            }
+            long footerOffset = position;
+            out.writeInt(callTypes.size());
+            for (String callType : callTypes.keySet()) {
+                byte[] bytes = callType.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(blocks.size());
+            for (Block block : blocks) {
+                out.writeInt(block.rows());
+                out.writeLong(block.minNumber());
+                out.writeLong(block.maxNumber());
+                out.writeLong(block.minClient());
+                out.writeLong(block.maxClient());
+                out.writeLong(block.minStarted());
+                out.writeLong(block.maxStarted());
+                for (int c = 0; c < COLUMNS; c++) {
+                    out.writeLong(block.offsets()[c]);
+                    out.writeInt(block.lengths()[c]);
+                    out.writeInt(block.rawLengths()[c]);
+                }
+            }
+            out.writeLong(rows);
+            out.writeLong(footerOffset);
+            out.writeInt(VERSION);
+            out.writeInt(MAGIC);
+            out.close();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return rows;
+        }
+
+        private void writeBlock() throws IOException {
+            long[] offsets = new long[COLUMNS];
+            int[] lengths = new int[COLUMNS];
+            int[] rawLengths = new int[COLUMNS];
+            byte[] chunk = new byte[1 << 16];
+            for (int c = 0; c < COLUMNS; c++) {
+                offsets[c] = position;
+                rawLengths[c] = columns[c].size;
+                deflater.reset();
+                deflater.setInput(columns[c].bytes, 0, columns[c].size);
+                deflater.finish();
+                int length = 0;
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(chunk);
+                    out.write(chunk, 0, n);
+                    length += n;
+                }
+                lengths[c] = length;
+                position += length;
+                columns[c].size = 0;
+            }
+            blocks.add(new Block(blockSize, minNumber, maxNumber, minClient, maxClient, minStarted, maxStarted,
+                    offsets, lengths, rawLengths));
+            startBlock();
+        }
+
+        private void startBlock() {
+            blockSize = 0;
+            lastNumber = 0;
+            lastClient = 0;
+            lastStarted = 0;
+            minNumber = Long.MAX_VALUE;
+            maxNumber = Long.MIN_VALUE;
+            minClient = Long.MAX_VALUE;
+            maxClient = Long.MIN_VALUE;
+            minStarted = Long.MAX_VALUE;
+            maxStarted = Long.MIN_VALUE;
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            if (!finished) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static final class VarintBuffer {
+        private byte[] bytes = new byte[1 << 12];
+        private int size;
+
+        void putZigZag(long value) {
+            put((value << 1) ^ (value >> 63));
+        }
+
+        void put(long value) {
+            if (size + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.Repository.CallPartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Moves archived months of calls out of PostgreSQL into {@link CdrArchiveFile}s, one file per
+ * month, and answers aggregations over them. A month leaves the {@code call_archive} schema only
+ * after its file is complete and holds as many rows as the table.
+ */
+@Service
+public class CdrArchiveService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(CdrArchiveService.class);
+    private static final String PREFIX = "calls-";
+    private static final Pattern NAME = Pattern.compile(PREFIX + "(\\d{6})" + Pattern.quote(CdrArchiveFile.SUFFIX));
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final CallPartitionRepository callPartitionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path directory;
+    private final int blockRows;
+    private final ExecutorService scanExecutor;
+    private final Map<YearMonth, CdrArchiveFile> files = new ConcurrentHashMap<>();
+
+    public CdrArchiveService(CallPartitionRepository callPartitionRepository, PlatformTransactionManager transactionManager,
+                             @Value("${calltrack.archive.dir:data/cdr-archive}") Path directory,
+                             @Value("${calltrack.archive.block-rows:65536}") int blockRows,
+                             @Value("${calltrack.archive.scan-threads:0}") int scanThreads) throws IOException {
+        this.callPartitionRepository = callPartitionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.directory = Files.createDirectories(directory);
+        this.blockRows = blockRows;
+        AtomicInteger counter = new AtomicInteger();
+        this.scanExecutor = Executors.newFixedThreadPool(scanThreads > 0 ? scanThreads : Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "cdr-archive-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Months with an archive file, oldest first. */
+    public List<YearMonth> months() {
+        try (Stream<Path> list = Files.list(directory)) {
+            return list.map(file -> NAME.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> YearMonth.parse(matcher.group(1), MONTH))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Writes every month still in the {@code call_archive} schema to its file and drops the table. */
+    public synchronized List<String> exportArchivedPartitions() {
+        List<String> exported = new ArrayList<>();
+        for (YearMonth month : callPartitionRepository.archivedMonths()) {
+            try {
+                exported.add(export(month).getFileName().toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return exported;
+    }
+
+    private Path export(YearMonth month) throws IOException {
+        Path target = directory.resolve(PREFIX + month.format(MONTH) + CdrArchiveFile.SUFFIX);
+        long expected;
+        try (CdrArchiveFile.Writer writer = new CdrArchiveFile.Writer(target, blockRows)) {
+            expected = readOnlyTransaction.execute(status -> {
+                callPartitionRepository.streamArchived(month, rs -> {
+                    int minutes = rs.getInt("duration_minutes");
+                    int seconds = rs.getObject("duration_seconds") != null ? rs.getInt("duration_seconds") : minutes * 60;
+                    BigDecimal cost = rs.getBigDecimal("cost");
+                    try {
+                        writer.add(rs.getLong("number_id"), rs.getLong("client_id"), rs.getTimestamp("started_at").toLocalDateTime(),
+                                rs.getString("call_type"), seconds, minutes, cost == null ? 0 : CompiledTariff.toMinor(cost));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return callPartitionRepository.countArchived(month);
+            });
+            long written = writer.finish();
+            if (written != expected) {
+                Files.delete(target);
+                throw new IllegalStateException("Archive of " + month + " has " + written + " calls, expected " + expected);
+            }
+        }
+        files.remove(month);
+        callPartitionRepository.dropArchived(month);
+        log.info("Exported {} calls of {} to {}", expected, month, target);
+        return target;
+    }
+
+    /** Totals of the archived calls matching the filter, from the files of the months it covers. */
+    List<CdrArchiveFile.Usage> aggregate(CdrArchiveFile.Filter filter, CdrArchiveFile.Grouping grouping) {
+        List<CompletableFuture<List<CdrArchiveFile.Usage>>> scans = new ArrayList<>();
+        for (YearMonth month : months()) {
+            if (filter.from() != null && month.atEndOfMonth().isBefore(filter.from())
+                    || filter.to() != null && month.atDay(1).isAfter(filter.to())) {
+                continue;
+            }
+            scans.add(file(month).aggregate(filter, grouping, scanExecutor));
+        }
+
+        // Months never share a day or a month, so their rows are simply concatenated
+        List<CdrArchiveFile.Usage> usage = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<CdrArchiveFile.Usage>> scan : scans) {
+                usage.addAll(scan.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return usage;
+    }
+
+    private CdrArchiveFile file(YearMonth month) {
+        return files.computeIfAbsent(month, m -> {
+            try {
+                return CdrArchiveFile.open(directory.resolve(PREFIX + m.format(MONTH) + CdrArchiveFile.SUFFIX));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        scanExecutor.shutdownNow();
+    }
+}
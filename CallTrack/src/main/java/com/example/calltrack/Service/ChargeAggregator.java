@@ -0,0 +1,401 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.Entity.ChargeFlush;
+import com.example.calltrack.Repository.BalanceRepository;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ChargeFlushRepository;
+import com.example.calltrack.Service.ChargeJournal.Charge;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind charging of calls. Call costs are summed in memory per number and per client and
+ * written to the balances in one coalesced transaction every flush interval, or sooner once
+ * {@code flush-size} charges are pending, so a busy line costs one balance update per window
+ * rather than one per call.
+ * <p>
+ * The charges of a transaction are appended to a local {@link ChargeJournal} just before it commits,
+ * and forced to disk unless {@code journal-fsync} is off; if they cannot be journaled the calls are
+ * not recorded either. A flush rotates the journal and records the rotated segments in
+ * {@code charge_flush} together with the balance updates; on startup segments without such a record
+ * are replayed, skipping charges whose call never committed, so a crash loses no charges and applies
+ * none twice. With {@code journal-fsync=false} an operating system crash or power loss can still lose
+ * the charges of the last few seconds of calls, though a crash of the application alone cannot.
+ */
+@Component
+public class ChargeAggregator implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ChargeAggregator.class);
+    private static final int RECOVERY_BATCH = 1000;
+
+    private final BalanceRepository balanceRepository;
+    private final CallRepository callRepository;
+    private final ChargeFlushRepository chargeFlushRepository;
+    private final DebtorIndex debtorIndex;
+    private final ClientSummaryService clientSummaryService;
+    private final ClusterInvalidation clusterInvalidation;
+    private final Counter revenueCharged;
+    private final TransactionTemplate transactionTemplate;
+    private final ChargeJournal journal;
+    private final Duration flushInterval;
+    private final int flushSize;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "charge-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Held for reading from journaling a transaction's charges until they are pending, so the
+    // segment a flush rotates out holds no charge that is missing from the sums it writes
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    // Guarded by this
+    private Map<Long, Long> byNumber = new HashMap<>();
+    private Map<Long, Long> byClient = new HashMap<>();
+    private int pending;
+    private final List<String> unflushedSegments = new ArrayList<>();
+
+    // Segments whose files are gone; their charge_flush rows are dropped by the next flush
+    private final List<String> appliedSegments = new ArrayList<>();
+
+    public ChargeAggregator(BalanceRepository balanceRepository, CallRepository callRepository,
+                            ChargeFlushRepository chargeFlushRepository,
+                            DebtorIndex debtorIndex, ClientSummaryService clientSummaryService,
+                            ClusterInvalidation clusterInvalidation,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${calltrack.charging.journal-dir:data/charge-journal}") Path journalDir,
+                            @Value("${calltrack.charging.journal-fsync:true}") boolean journalFsync,
+                            @Value("${calltrack.charging.flush-interval:PT1S}") Duration flushInterval,
+                            @Value("${calltrack.charging.flush-size:10000}") int flushSize,
+                            MeterRegistry meterRegistry) throws IOException {
+        this.balanceRepository = balanceRepository;
+        this.callRepository = callRepository;
+        this.chargeFlushRepository = chargeFlushRepository;
+        this.debtorIndex = debtorIndex;
+        this.clientSummaryService = clientSummaryService;
+        this.clusterInvalidation = clusterInvalidation;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = new ChargeJournal(journalDir, journalFsync);
+        this.flushInterval = flushInterval;
+        this.flushSize = flushSize;
+        this.revenueCharged = Counter.builder("calltrack.revenue.charged")
+                .description("Call charges written to the balances, in currency units")
+                .register(meterRegistry);
+        Gauge.builder("calltrack.charges.pending", this, ChargeAggregator::pending)
+                .description("Charges recorded but not yet flushed to the balances")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        recover();
+        long millis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Charges {@code amount} minor units for the call to the number and its client. The charge is
+     * journaled as the surrounding transaction (the one recording the call) commits, failing the
+     * commit if it cannot be, and is pending for the next flush once the transaction has committed.
+     */
+    public void charge(Long callId, Long clientId, Long numberId, long amount) {
+        if (amount == 0) {
+            return;
+        }
+        Charge charge = new Charge(callId, clientId, numberId, amount);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            journal(List.of(charge));
+            try {
+                record(List.of(charge));
+            } finally {
+                rotationLock.readLock().unlock();
+            }
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionCharges charges && charges.owner() == this) {
+                charges.add(charge);
+                return;
+            }
+        }
+        TransactionCharges charges = new TransactionCharges();
+        charges.add(charge);
+        TransactionSynchronizationManager.registerSynchronization(charges);
+    }
+
+    /** Appends the charges to the journal and returns holding the rotation lock for reading. */
+    private void journal(List<Charge> charges) {
+        rotationLock.readLock().lock();
+        boolean appended = false;
+        try {
+            journal.append(charges);
+            appended = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not journal call charges", e);
+        } finally {
+            if (!appended) {
+                rotationLock.readLock().unlock();
+            }
+        }
+    }
+
+    private synchronized void record(List<Charge> charges) {
+        for (Charge charge : charges) {
+            add(charge.clientId(), charge.numberId(), charge.amount());
+        }
+        if (pending >= flushSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void add(long clientId, long numberId, long amount) {
+        byNumber.merge(numberId, amount, Long::sum);
+        byClient.merge(clientId, amount, Long::sum);
+        pending++;
+    }
+
+    /** Number of charges recorded since the last flush. */
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /**
+     * Runs {@code snapshot} at a moment when every committed charge is either in the balances or
+     * pending: no flush is under way and no transaction is between its commit and its charges being
+     * recorded. Returns the amounts then pending per client, in minor units, which the balances seen
+     * by a repeatable-read transaction whose snapshot {@code snapshot} takes do not include yet.
+     */
+    public Map<Long, Long> pendingByClient(Runnable snapshot) {
+        flushLock.lock();
+        try {
+            rotationLock.writeLock().lock();
+            try {
+                snapshot.run();
+                synchronized (this) {
+                    return new HashMap<>(byClient);
+                }
+            } finally {
+                rotationLock.writeLock().unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes everything charged so far to the balances; a failed write is kept for the next flush.
+     * Once the write has committed, the charges are never queued again: a failure to update the
+     * caches afterwards is logged, not retried.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Long> numbers;
+            Map<Long, Long> clients;
+            List<String> segments;
+            int charges;
+            rotationLock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    flushRequested.set(false);
+                    String segment = journal.rotate();
+                    if (segment != null) {
+                        unflushedSegments.add(segment);
+                    }
+                    if (unflushedSegments.isEmpty() && pending == 0) {
+                        return;
+                    }
+                    numbers = byNumber;
+                    clients = byClient;
+                    charges = pending;
+                    byNumber = new HashMap<>();
+                    byClient = new HashMap<>();
+                    pending = 0;
+                    segments = List.copyOf(unflushedSegments);
+                }
+            } finally {
+                rotationLock.writeLock().unlock();
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(numbers, clients, segments));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    numbers.forEach((id, amount) -> byNumber.merge(id, amount, Long::sum));
+                    clients.forEach((id, amount) -> byClient.merge(id, amount, Long::sum));
+                    pending += charges;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                unflushedSegments.removeAll(segments);
+            }
+            for (String segment : segments) {
+                journal.delete(segment);
+                appliedSegments.add(segment);
+            }
+            written(numbers, clients);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(Map<Long, Long> numbers, Map<Long, Long> clients, List<String> segments) {
+        Map<Long, BigDecimal> numberAmounts = new HashMap<>(numbers.size());
+        numbers.forEach((id, amount) -> numberAmounts.put(id, CompiledTariff.toAmount(-amount)));
+        balanceRepository.addToPhoneNumbers(numberAmounts);
+
+        clients.forEach((id, amount) -> balanceRepository.addToClient(id, CompiledTariff.toAmount(-amount)));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ChargeFlush> flushes = new ArrayList<>(segments.size());
+        for (String segment : segments) {
+            flushes.add(ChargeFlush.builder().segment(segment).flushedAt(now).build());
+        }
+        chargeFlushRepository.saveAll(flushes);
+        if (!appliedSegments.isEmpty()) {
+            chargeFlushRepository.deleteAllByIdInBatch(appliedSegments);
+            TransactionCallbacks.afterCommit(appliedSegments::clear);
+        }
+    }
+
+    /** Side effects of a committed flush: the debtor index, the caches of this and other nodes, revenue. */
+    private void written(Map<Long, Long> numbers, Map<Long, Long> clients) {
+        try {
+            debtorIndex.onBalancesChanged(clients.keySet());
+            clientSummaryService.invalidateAll(clients.keySet());
+            clusterInvalidation.clientsChanged(clients.keySet());
+            clusterInvalidation.numbersChanged(numbers.keySet());
+        } catch (RuntimeException e) {
+            log.warn("Charges flushed, but the cached balances of {} clients could not be refreshed", clients.size(), e);
+        }
+        long charged = clients.values().stream().mapToLong(Long::longValue).sum();
+        revenueCharged.increment(CompiledTariff.toAmount(charged).doubleValue());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Charge flush failed, will retry", e);
+        }
+    }
+
+    /** Loads the segments a previous run did not get to flush and applies them. */
+    void recover() {
+        flushLock.lock();
+        try {
+            for (String segment : journal.segments()) {
+                if (chargeFlushRepository.existsById(segment)) {
+                    journal.delete(segment);
+                    appliedSegments.add(segment);
+                    continue;
+                }
+                List<Charge> charges = new ArrayList<>();
+                journal.read(segment, charges::add);
+                List<Charge> committed = committed(charges);
+                synchronized (this) {
+                    committed.forEach(charge -> add(charge.clientId(), charge.numberId(), charge.amount()));
+                    unflushedSegments.add(segment);
+                }
+                log.info("Replaying unflushed charge journal segment {}: {} charges, {} of calls that were not committed",
+                        segment, committed.size(), charges.size() - committed.size());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            flushLock.unlock();
+        }
+        flush();
+    }
+
+    /** The charges whose call is in {@code call_record}, i.e. whose transaction committed. */
+    private List<Charge> committed(List<Charge> charges) {
+        List<Charge> committed = new ArrayList<>(charges.size());
+        for (int from = 0; from < charges.size(); from += RECOVERY_BATCH) {
+            List<Charge> batch = charges.subList(from, Math.min(from + RECOVERY_BATCH, charges.size()));
+            Set<Long> calls = new HashSet<>(callRepository.findExistingIds(batch.stream().map(Charge::callId).toList()));
+            for (Charge charge : batch) {
+                if (calls.contains(charge.callId())) {
+                    committed.add(charge);
+                }
+            }
+        }
+        return committed;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        flusher.shutdown();
+        try {
+            flush();
+        } finally {
+            journal.close();
+        }
+    }
+
+    /** The charges of one transaction, journaled with one write as it commits. */
+    private final class TransactionCharges implements TransactionSynchronization {
+        private final List<Charge> charges = new ArrayList<>();
+        private boolean journaled;
+
+        ChargeAggregator owner() {
+            return ChargeAggregator.this;
+        }
+
+        void add(Charge charge) {
+            charges.add(charge);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            journal(charges);
+            journaled = true;
+        }
+
+        @Override
+        public void afterCommit() {
+            record(charges);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (journaled) {
+                rotationLock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.calltrack.Service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local log of charges that are not yet in the database. Each record is four longs
+ * (call id, client id, number id, amount in minor units). The aggregator rotates to a new segment on every
+ * flush and deletes a segment once its charges are committed, so the files on disk at startup are
+ * exactly what a crash left unflushed. A torn record at the end of a segment is ignored.
+ */
+final class ChargeJournal implements AutoCloseable {
+    private static final String PREFIX = "charges-";
+    private static final String SUFFIX = ".journal";
+    private static final int RECORD_SIZE = 4 * Long.BYTES;
+
+    record Charge(long callId, long clientId, long numberId, long amount) {
+    }
+
+    private final Path directory;
+    private final boolean fsync;
+    private FileChannel current;
+    private String currentSegment;
+    private long sequence;
+
+    ChargeJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.fsync = fsync;
+    }
+
+    /** Segments currently on disk, oldest first. */
+    List<String> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /** Appends the charges with one write, forced to disk before returning if {@code fsync} is set. */
+    synchronized void append(List<Charge> charges) throws IOException {
+        if (current == null) {
+            currentSegment = String.format("%s%019d-%06d%s", PREFIX, System.currentTimeMillis(), sequence++ % 1_000_000, SUFFIX);
+            current = FileChannel.open(directory.resolve(currentSegment),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        ByteBuffer records = ByteBuffer.allocate(charges.size() * RECORD_SIZE);
+        for (Charge charge : charges) {
+            records.putLong(charge.callId()).putLong(charge.clientId()).putLong(charge.numberId()).putLong(charge.amount());
+        }
+        records.flip();
+        while (records.hasRemaining()) {
+            current.write(records);
+        }
+        if (fsync) {
+            current.force(false);
+        }
+    }
+
+    /** Closes the segment being written and returns its name, or {@code null} if nothing was appended. */
+    synchronized String rotate() throws IOException {
+        if (current == null) {
+            return null;
+        }
+        String segment = currentSegment;
+        current.force(false);
+        current.close();
+        current = null;
+        currentSegment = null;
+        return segment;
+    }
+
+    void read(String segment, Consumer<Charge> handler) throws IOException {
+        try (InputStream file = Files.newInputStream(directory.resolve(segment));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            byte[] buffer = new byte[RECORD_SIZE];
+            ByteBuffer view = ByteBuffer.wrap(buffer);
+            while (true) {
+                try {
+                    in.readFully(buffer);
+                } catch (EOFException e) {
+                    return;
+                }
+                handler.accept(new Charge(view.getLong(0), view.getLong(Long.BYTES),
+                        view.getLong(2 * Long.BYTES), view.getLong(3 * Long.BYTES)));
+            }
+        }
+    }
+
+    void delete(String segment) throws IOException {
+        Files.deleteIfExists(directory.resolve(segment));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        rotate();
+    }
+}
@@ -1,14 +1,19 @@
 package com.example.calltrack.Service;
 
 import com.example.calltrack.DTO.ClientRequestDTO;
+import com.example.calltrack.DTO.DebtorDTO;
+import com.example.calltrack.DTO.LoginResponseDTO;
+import com.example.calltrack.DTO.TokenClaimsDTO;
 import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Repository.BalanceRepository;
 import com.example.calltrack.Repository.ClientRepository;
 import com.example.calltrack.Repository.PhoneNumberRepository;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -16,18 +21,29 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class ClientService {
 
     private final ClientRepository clientRepository;
-    @Autowired
-    private PasswordEncoder passwordEncoder;
+    private final BalanceRepository balanceRepository;
+    private final DebtorIndex debtorIndex;
+    private final PasswordHasher passwordHasher;
+    private final TokenService tokenService;
 
     public ClientService(PhoneNumberRepository phoneNumberRepository,
-                         ClientRepository clientRepository) {
+                         ClientRepository clientRepository,
+                         BalanceRepository balanceRepository,
+                         DebtorIndex debtorIndex,
+                         PasswordHasher passwordHasher,
+                         TokenService tokenService) {
         this.clientRepository = clientRepository;
+        this.balanceRepository = balanceRepository;
+        this.debtorIndex = debtorIndex;
+        this.passwordHasher = passwordHasher;
+        this.tokenService = tokenService;
     }
 
     public Optional<Client> findClientById(Long client_id){
@@ -35,21 +51,32 @@ public class ClientService {
     }
 
     public Client getClientByEmail(String email) {
-        System.out.println(clientRepository.findByEmail(email));
         return clientRepository.findByEmail(email);
     }
 
+    /**
+     * Hashes the password on the {@link PasswordHasher} pool, which bounds how many BCrypt runs share
+     * the CPUs, and saves the client on the calling thread, within its transaction if it has one. No
+     * transaction is held while the hash is computed, and the pool threads never wait on the database.
+     */
     public ResponseEntity<String> addNewClient(ClientRequestDTO clientDTO) {
         if (getClientByEmail(clientDTO.getEmail()) != null)
             return ResponseEntity
                     .status(HttpStatus.CONFLICT)
                     .body("Client already exists");
 
+        String password;
+        try {
+            password = passwordHasher.encode(clientDTO.getPassword()).join();
+        } catch (RejectedExecutionException e) {
+            return overloaded();
+        }
+
         Client client = Client.builder()
                 .fullName(clientDTO.getFullName())
                 .birthDate(clientDTO.getBirthDate())
                 .email(clientDTO.getEmail())
-                .password(passwordEncoder.encode(clientDTO.getPassword()))
+                .password(password)
                 .balance(BigDecimal.ZERO)
                 .status("USER")
                 .allowedCreditMinutes(0)
@@ -63,45 +90,78 @@ public class ClientService {
                 .build();
     }
 
-    public ResponseEntity<?> loginClient(ClientRequestDTO clientRequestDTO) {
+    /**
+     * Verifies the password on the {@link PasswordHasher} pool and answers with a signed token that
+     * later requests present instead of logging in again. A saturated pool answers 503 at once.
+     */
+    @Timed(value = "calltrack.client.login", description = "Login including password verification", histogram = true)
+    public CompletableFuture<ResponseEntity<?>> loginClient(ClientRequestDTO clientRequestDTO) {
         Client findingClient = clientRepository.findByEmail(clientRequestDTO.getEmail());
-        if (findingClient == null) {
-            System.out.println("Client not found" +  clientRequestDTO.getEmail());
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (findingClient == null || clientRequestDTO.getPassword() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        CompletableFuture<Boolean> matches;
+        try {
+            matches = passwordHasher.matches(clientRequestDTO.getPassword(), findingClient.getPassword());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(overloaded());
         }
-        else if(passwordEncoder.matches(clientRequestDTO.getPassword(), findingClient.getPassword())){
-            return ResponseEntity.ok(Client.builder()
+
+        return matches.thenApply(ok -> {
+            if (!ok) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body("Some think wrong!");
+            }
+            TokenClaimsDTO claims = tokenService.newClaims(findingClient.getClientId(), findingClient.getStatus());
+            return ResponseEntity.ok(LoginResponseDTO.builder()
                     .clientId(findingClient.getClientId())
                     .fullName(findingClient.getFullName())
                     .email(findingClient.getEmail())
                     .balance(findingClient.getBalance())
                     .status(findingClient.getStatus())
+                    .token(tokenService.issue(claims))
+                    .expiresAt(claims.getExpiresAt())
                     .build());
-        }
-        System.out.println("Wrong password");
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                .body("Some think wrong!");
+        });
     }
 
+    private static <T> ResponseEntity<T> overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    @ReplicaRead(client = "id")
     public BigDecimal getBalanceAfter(Long id) {
         return clientRepository.findById(id).orElseThrow(()-> new ResponseStatusException(HttpStatus.NOT_FOUND)).getBalance();
     }
 
+    /** Atomically adds {@code amount} to the client balance and returns the balance after the change. */
     @Transactional
-    public void updatePhoneBalance(Long client_id, BigDecimal amount) {
-        Client client = clientRepository.findById(client_id)
-                .orElseThrow(() -> new RuntimeException("Client not found with ID: " + client_id));
+    public BigDecimal updatePhoneBalance(Long client_id, BigDecimal amount) {
+        BigDecimal balance = balanceRepository.addToClient(client_id, amount)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found with ID: " + client_id));
 
-        client.setBalance(client.getBalance().add(amount));
+        debtorIndex.onBalanceChanged(client_id);
+        return balance;
     }
 
-    public List<Client> getDebtsClients() {
-        return clientRepository.findAll().stream()
-                .filter(c -> c.getBalance().compareTo(BigDecimal.ZERO) > 0)
-                .collect(Collectors.toList());
+    /** Clients with a negative balance owing at least {@code minDebt}, largest debt first. */
+    @ReplicaRead
+    public List<DebtorDTO> getDebtsClients(BigDecimal minDebt, int page, int size) {
+        if (debtorIndex.isLoaded()) {
+            return debtorIndex.page(minDebt, page, size);
+        }
+        return clientRepository.findDebtors(minDebt.negate(), PageRequest.of(page, size));
     }
 
+    @ReplicaRead(client = "id")
     public Boolean checkDebtClient(Long id) {
+        if (debtorIndex.isLoaded()) {
+            return debtorIndex.isDebtor(id);
+        }
+
         Optional<Client> clientOpt = clientRepository.findById(id);
 
         if (clientOpt.isPresent()) {
@@ -0,0 +1,171 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CacheStatsDTO;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.DTO.ClientSummaryDTO;
+import com.example.calltrack.DTO.PaymentViewDTO;
+import com.example.calltrack.DTO.PhoneNumberViewDTO;
+import com.example.calltrack.DTO.UsageReportDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.UsageDailyRepository;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Builds the client dashboard from five indexed queries (client, numbers with tariffs, latest
+ * payments, latest calls and this month's usage rollup) that run concurrently on a small pool, so
+ * the response takes about as long as the slowest of them.
+ * <p>
+ * Summaries are cached per client for a few seconds. Payments, recorded calls and charge flushes
+ * drop the client's entry once they commit; other changes (numbers, tariffs) show up when the
+ * entry expires.
+ */
+@Service
+public class ClientSummaryService implements DisposableBean, MeterBinder {
+    private final ClientRepository clientRepository;
+    private final PhoneNumberRepository phoneNumberRepository;
+    private final PaymentsRepository paymentsRepository;
+    private final CallRepository callRepository;
+    private final UsageDailyRepository usageDailyRepository;
+    private final ExecutorService queryExecutor;
+    private final AsyncLoadingCache<Long, ClientSummaryDTO> cache;
+    private final int recentItems;
+
+    public ClientSummaryService(ClientRepository clientRepository, PhoneNumberRepository phoneNumberRepository,
+                                PaymentsRepository paymentsRepository, CallRepository callRepository,
+                                UsageDailyRepository usageDailyRepository,
+                                @Value("${calltrack.summary.query-threads:8}") int queryThreads,
+                                @Value("${calltrack.summary.recent-items:10}") int recentItems,
+                                @Value("${calltrack.summary.cache-maximum-size:10000}") long maximumSize,
+                                @Value("${calltrack.summary.cache-expire-after-write:PT5S}") Duration expireAfterWrite) {
+        this.clientRepository = clientRepository;
+        this.phoneNumberRepository = phoneNumberRepository;
+        this.paymentsRepository = paymentsRepository;
+        this.callRepository = callRepository;
+        this.usageDailyRepository = usageDailyRepository;
+        this.recentItems = recentItems;
+        this.queryExecutor = Executors.newFixedThreadPool(queryThreads, r -> {
+            Thread thread = new Thread(r, "client-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync((clientId, executor) -> load(clientId));
+    }
+
+    /**
+     * The client's summary. Concurrent requests for the same client share one load; an unknown
+     * client completes the future with a 404 {@link ResponseStatusException}.
+     */
+    public CompletableFuture<ClientSummaryDTO> getSummary(Long clientId) {
+        return cache.get(clientId);
+    }
+
+    /** Drops the client's summary once the current transaction commits. */
+    public void invalidate(Long clientId) {
+        TransactionCallbacks.afterCommit(() -> cache.synchronous().invalidate(clientId));
+    }
+
+    public void invalidateAll(Collection<Long> clientIds) {
+        if (!clientIds.isEmpty()) {
+            Set<Long> ids = Set.copyOf(clientIds);
+            TransactionCallbacks.afterCommit(() -> cache.synchronous().invalidateAll(ids));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private CompletableFuture<ClientSummaryDTO> load(Long clientId) {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        PageRequest recent = PageRequest.of(0, recentItems);
+
+        CompletableFuture<Client> client = query(() -> clientRepository.findById(clientId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Client not found")));
+        CompletableFuture<List<PhoneNumberViewDTO>> numbers = query(() -> phoneNumberRepository.findViewsByClientId(clientId));
+        CompletableFuture<List<PaymentViewDTO>> payments = query(() -> paymentsRepository.findViewsByClientId(clientId, recent));
+        CompletableFuture<List<CallResponseDTO>> calls = query(() -> callRepository.findRecentViewsByClientId(clientId, recent));
+        CompletableFuture<List<UsageReportDTO>> usage = query(() ->
+                usageDailyRepository.totalsByCallType(clientId, null, month, month.plusMonths(1).minusDays(1)));
+
+        return CompletableFuture.allOf(client, numbers, payments, calls, usage).thenApply(ignored -> {
+            Client c = client.join();
+            BigDecimal balance = c.getBalance() == null ? BigDecimal.ZERO : c.getBalance();
+            return ClientSummaryDTO.builder()
+                    .clientId(c.getClientId())
+                    .fullName(c.getFullName())
+                    .email(c.getEmail())
+                    .status(c.getStatus())
+                    .balance(balance)
+                    .debt(balance.signum() < 0 ? balance.negate() : BigDecimal.ZERO)
+                    .allowedCreditMinutes(c.getAllowedCreditMinutes())
+                    .numbers(numbers.join())
+                    .recentPayments(payments.join())
+                    .recentCalls(calls.join())
+                    .month(month)
+                    .monthUsage(usage.join())
+                    .generatedAt(LocalDateTime.now())
+                    .build();
+        });
+    }
+
+    private <T> CompletableFuture<T> query(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, queryExecutor);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "client-summary");
+        new ExecutorServiceMetrics(queryExecutor, "client-summary", Tags.empty()).bindTo(registry);
+    }
+
+    public CacheStatsDTO getStats() {
+        CacheStats stats = cache.synchronous().stats();
+        return CacheStatsDTO.builder()
+                .name("client-summary")
+                .size(cache.synchronous().estimatedSize())
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .loads(stats.loadCount())
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        queryExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Repository.InvalidationChannel;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the in-process caches of several application nodes coherent over the
+ * {@link InvalidationChannel}. Writes name what they changed (a client, a number's balance, a
+ * registered or re-tariffed phone, the tariff catalogue); after commit the names are collected for
+ * one batch window, de-duplicated and sent as a few compact notifications, so a burst of writes
+ * costs one notification per window rather than one per write.
+ * <p>
+ * Every node drops the affected rating, summary and second-level cache entries for what the others
+ * send and re-reads the balances of its debtor index; its own writes were already applied locally.
+ * After the listening connection was lost everything is dropped, since notifications sent in
+ * between are gone. Without PostgreSQL there is nobody to tell and writes are not collected.
+ * <p>
+ * A notification is the sending node's id followed by sections: {@code c} client ids, {@code n}
+ * number ids, {@code p} URL-encoded phones, {@code t} the tariff catalogue and {@code *} everything,
+ * e.g. {@code 3f9a01bc c12,40 n17 p%2B375290000001}.
+ */
+@Component
+public class ClusterInvalidation implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ClusterInvalidation.class);
+
+    /** Changes of one batch window, or of one notification. */
+    record Batch(Set<Long> clients, Set<Long> numbers, Set<String> phones, boolean tariffs, boolean all) {
+        boolean isEmpty() {
+            return clients.isEmpty() && numbers.isEmpty() && phones.isEmpty() && !tariffs && !all;
+        }
+
+        int keys() {
+            return all ? 1 : clients.size() + numbers.size() + phones.size() + (tariffs ? 1 : 0);
+        }
+    }
+
+    /** A received notification. */
+    record Message(String node, Batch batch) {
+    }
+
+    private final InvalidationChannel channel;
+    private final RatingCache ratingCache;
+    private final ClientSummaryService clientSummaryService;
+    private final DebtorIndex debtorIndex;
+    private final ObjectProvider<TariffCatalog> tariffCatalog;
+    private final SessionFactory sessionFactory;
+    private final String nodeId;
+    private final boolean active;
+    private final Duration batchWindow;
+    private final int maxKeys;
+    private final Counter keysPublished;
+    private final Counter keysApplied;
+    private final Counter notificationsSent;
+    private final Counter notificationsReceived;
+    private final Counter resyncs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cache-invalidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private Set<Long> clients = new HashSet<>();
+    private Set<Long> numbers = new HashSet<>();
+    private Set<String> phones = new HashSet<>();
+    private boolean tariffs;
+    private boolean all;
+
+    public ClusterInvalidation(InvalidationChannel channel, RatingCache ratingCache,
+                               ClientSummaryService clientSummaryService, DebtorIndex debtorIndex,
+                               ObjectProvider<TariffCatalog> tariffCatalog, EntityManagerFactory entityManagerFactory,
+                               MeterRegistry meterRegistry,
+                               @Value("${calltrack.cache-invalidation.enabled:true}") boolean enabled,
+                               @Value("${calltrack.cache-invalidation.node-id:}") String nodeId,
+                               @Value("${calltrack.cache-invalidation.batch-window:PT0.1S}") Duration batchWindow,
+                               @Value("${calltrack.cache-invalidation.max-keys:50000}") int maxKeys) {
+        this.channel = channel;
+        this.ratingCache = ratingCache;
+        this.clientSummaryService = clientSummaryService;
+        this.debtorIndex = debtorIndex;
+        this.tariffCatalog = tariffCatalog;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.nodeId = nodeId.isBlank() ? "%08x".formatted(ThreadLocalRandom.current().nextInt()) : nodeId.trim();
+        this.active = enabled && channel.isAvailable();
+        this.batchWindow = batchWindow;
+        this.maxKeys = maxKeys;
+        this.keysPublished = keyCounter(meterRegistry, "published");
+        this.keysApplied = keyCounter(meterRegistry, "applied");
+        this.notificationsSent = notificationCounter(meterRegistry, "sent");
+        this.notificationsReceived = notificationCounter(meterRegistry, "received");
+        this.resyncs = Counter.builder("calltrack.cache.invalidation.resyncs")
+                .description("Times every cache was dropped because invalidations may have been missed")
+                .register(meterRegistry);
+    }
+
+    private static Counter keyCounter(MeterRegistry registry, String direction) {
+        return Counter.builder("calltrack.cache.invalidation.keys")
+                .description("Invalidated keys after coalescing, sent to or applied from other nodes")
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    private static Counter notificationCounter(MeterRegistry registry, String direction) {
+        return Counter.builder("calltrack.cache.invalidation.notifications")
+                .description("Invalidation notifications exchanged with other nodes")
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!active) {
+            return;
+        }
+        channel.listen(this::receive, this::resync);
+        long millis = batchWindow.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+        log.info("Exchanging cache invalidations as node {}", nodeId);
+    }
+
+    /** The client's balance, numbers or details changed. */
+    public void clientChanged(Long clientId) {
+        if (active && clientId != null) {
+            clientsChanged(List.of(clientId));
+        }
+    }
+
+    public void clientsChanged(Collection<Long> clientIds) {
+        if (active && !clientIds.isEmpty()) {
+            List<Long> ids = List.copyOf(clientIds);
+            TransactionCallbacks.afterCommit(() -> enqueue(ids, List.of(), List.of()));
+        }
+    }
+
+    /** The number's balance changed. */
+    public void numberChanged(Long numberId) {
+        if (active && numberId != null) {
+            numbersChanged(List.of(numberId));
+        }
+    }
+
+    public void numbersChanged(Collection<Long> numberIds) {
+        if (active && !numberIds.isEmpty()) {
+            List<Long> ids = List.copyOf(numberIds);
+            TransactionCallbacks.afterCommit(() -> enqueue(List.of(), ids, List.of()));
+        }
+    }
+
+    /** The number was registered, deleted or moved to another tariff. */
+    public void phoneChanged(Long numberId, String phone) {
+        if (active && phone != null) {
+            List<Long> ids = numberId == null ? List.of() : List.of(numberId);
+            TransactionCallbacks.afterCommit(() -> enqueue(List.of(), ids, List.of(phone)));
+        }
+    }
+
+    /** The tariff catalogue changed. */
+    public void tariffsChanged() {
+        if (active) {
+            TransactionCallbacks.afterCommit(() -> {
+                synchronized (this) {
+                    tariffs = true;
+                }
+            });
+        }
+    }
+
+    private synchronized void enqueue(Collection<Long> clientIds, Collection<Long> numberIds, Collection<String> changedPhones) {
+        if (all) {
+            return;
+        }
+        clients.addAll(clientIds);
+        numbers.addAll(numberIds);
+        phones.addAll(changedPhones);
+        if (clients.size() + numbers.size() + phones.size() > maxKeys) {
+            // Cheaper for everyone to start over than to send and apply that many keys
+            all = true;
+            clients = new HashSet<>();
+            numbers = new HashSet<>();
+            phones = new HashSet<>();
+        }
+    }
+
+    /** Sends what was collected since the last call; a failed send is retried with the next one. */
+    public void flush() {
+        Batch batch;
+        synchronized (this) {
+            batch = new Batch(clients, numbers, phones, tariffs, all);
+            if (batch.isEmpty()) {
+                return;
+            }
+            clients = new HashSet<>();
+            numbers = new HashSet<>();
+            phones = new HashSet<>();
+            tariffs = false;
+            all = false;
+        }
+        List<String> payloads = encode(nodeId, batch, InvalidationChannel.MAX_PAYLOAD_BYTES);
+        try {
+            channel.publish(payloads);
+            keysPublished.increment(batch.keys());
+            notificationsSent.increment(payloads.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not send {} cache invalidations, will retry", batch.keys(), e);
+            synchronized (this) {
+                tariffs |= batch.tariffs();
+                all |= batch.all();
+            }
+            enqueue(batch.clients(), batch.numbers(), batch.phones());
+        }
+    }
+
+    /** Applies a notification from another node; the node's own are ignored. */
+    void receive(String payload) {
+        Message message = decode(payload);
+        if (message == null || message.node().equals(nodeId)) {
+            return;
+        }
+        notificationsReceived.increment();
+        Batch batch = message.batch();
+        keysApplied.increment(batch.keys());
+        if (batch.all()) {
+            dropAll();
+            return;
+        }
+        Cache cache = sessionFactory.getCache();
+        if (!batch.phones().isEmpty()) {
+            batch.phones().forEach(ratingCache::invalidate);
+            // Registrations and deletions change which id a phone resolves to and a client's number list
+            cache.evictNaturalIdData(PhoneNumber.class);
+            cache.evictQueryRegion(PhoneNumberRepository.NUMBERS_BY_CLIENT_REGION);
+        }
+        batch.numbers().forEach(id -> cache.evictEntityData(PhoneNumber.class, id));
+        if (!batch.clients().isEmpty()) {
+            batch.clients().forEach(id -> cache.evictEntityData(Client.class, id));
+            clientSummaryService.invalidateAll(batch.clients());
+            debtorIndex.refresh(batch.clients());
+        }
+        if (batch.tariffs()) {
+            tariffCatalog.getObject().refresh();
+        }
+    }
+
+    private void resync() {
+        resyncs.increment();
+        dropAll();
+    }
+
+    private void dropAll() {
+        ratingCache.invalidateAll();
+        clientSummaryService.invalidateAll();
+        sessionFactory.getCache().evictAllRegions();
+        debtorIndex.reload();
+        tariffCatalog.getObject().refresh();
+    }
+
+    /** Splits the batch into payloads of at most {@code maxBytes}, each starting with the node id. */
+    static List<String> encode(String node, Batch batch, int maxBytes) {
+        Encoder encoder = new Encoder(node, maxBytes);
+        if (batch.all()) {
+            encoder.add('*', "");
+            return encoder.payloads();
+        }
+        if (batch.tariffs()) {
+            encoder.add('t', "");
+        }
+        batch.clients().forEach(id -> encoder.add('c', id.toString()));
+        batch.numbers().forEach(id -> encoder.add('n', id.toString()));
+        batch.phones().forEach(phone -> encoder.add('p', URLEncoder.encode(phone, StandardCharsets.UTF_8)));
+        return encoder.payloads();
+    }
+
+    /** The notification's node and changes, or {@code null} if it is not one. */
+    static Message decode(String payload) {
+        if (payload == null || payload.isBlank()) {
+            return null;
+        }
+        String[] sections = payload.split(" ");
+        Set<Long> clientIds = new HashSet<>();
+        Set<Long> numberIds = new HashSet<>();
+        Set<String> changedPhones = new HashSet<>();
+        boolean changedTariffs = false;
+        boolean everything = false;
+        try {
+            for (int i = 1; i < sections.length; i++) {
+                String section = sections[i];
+                if (section.isEmpty()) {
+                    continue;
+                }
+                String[] values = section.substring(1).split(",");
+                switch (section.charAt(0)) {
+                    case '*' -> everything = true;
+                    case 't' -> changedTariffs = true;
+                    case 'c' -> addIds(values, clientIds);
+                    case 'n' -> addIds(values, numberIds);
+                    case 'p' -> {
+                        for (String value : values) {
+                            changedPhones.add(URLDecoder.decode(value, StandardCharsets.UTF_8));
+                        }
+                    }
+                    default -> {
+                        // Written by a newer node; what this one caches is covered by the known sections
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed cache invalidation {}", payload);
+            return null;
+        }
+        return new Message(sections[0], new Batch(clientIds, numberIds, changedPhones, changedTariffs, everything));
+    }
+
+    private static void addIds(String[] values, Set<Long> ids) {
+        for (String value : values) {
+            ids.add(Long.parseLong(value));
+        }
+    }
+
+    /** Appends values to the current section of the current payload, starting a new payload when full. */
+    private static final class Encoder {
+        private final String node;
+        private final int maxBytes;
+        private final List<String> payloads = new ArrayList<>();
+        private StringBuilder current;
+        private char section;
+
+        private Encoder(String node, int maxBytes) {
+            this.node = node;
+            this.maxBytes = maxBytes;
+            this.current = new StringBuilder(node);
+        }
+
+        /** Values are ASCII after encoding, so characters are bytes. */
+        private void add(char kind, String value) {
+            boolean sameSection = section == kind && !value.isEmpty();
+            int needed = sameSection ? 1 + value.length() : 2 + value.length();
+            if (current.length() + needed > maxBytes && current.length() > node.length()) {
+                payloads.add(current.toString());
+                current = new StringBuilder(node);
+                sameSection = false;
+            }
+            if (sameSection) {
+                current.append(',');
+            } else {
+                current.append(' ').append(kind);
+                section = kind;
+            }
+            current.append(value);
+        }
+
+        private List<String> payloads() {
+            if (current.length() > node.length()) {
+                payloads.add(current.toString());
+                current = new StringBuilder(node);
+            }
+            return payloads;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (active) {
+            flush();
+        }
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Entity.TarifRate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * A tariff flattened into primitive rate tables. All amounts are in minor currency units
+ * (kopecks) per minute, so rating a call is plain {@code long} arithmetic with no allocation.
+ * Instances are immutable and shared between threads.
+ */
+public final class CompiledTariff {
+    static final int MINOR_DIGITS = 2;
+    private static final int SECONDS_PER_MINUTE = 60;
+
+    private final long tariffId;
+    private final int incrementSeconds;
+    private final boolean hasPeakWindow;
+    private final int peakStart;
+    private final int peakEnd;
+    private final long defaultPeakRate;
+    private final long defaultOffPeakRate;
+    private final String[] callTypes;
+    private final long[] peakRates;
+    private final long[] offPeakRates;
+
+    private CompiledTariff(long tariffId, int incrementSeconds, boolean hasPeakWindow, int peakStart, int peakEnd,
+                           long defaultPeakRate, long defaultOffPeakRate,
+                           String[] callTypes, long[] peakRates, long[] offPeakRates) {
+        this.tariffId = tariffId;
+        this.incrementSeconds = incrementSeconds;
+        this.hasPeakWindow = hasPeakWindow;
+        this.peakStart = peakStart;
+        this.peakEnd = peakEnd;
+        this.defaultPeakRate = defaultPeakRate;
+        this.defaultOffPeakRate = defaultOffPeakRate;
+        this.callTypes = callTypes;
+        this.peakRates = peakRates;
+        this.offPeakRates = offPeakRates;
+    }
+
+    public static CompiledTariff compile(Tarif tarif, List<TarifRate> rates) {
+        long peak = toMinor(tarif.getPricePerMinute());
+        long offPeak = tarif.getOffPeakPricePerMinute() == null ? peak : toMinor(tarif.getOffPeakPricePerMinute());
+
+        String[] callTypes = new String[rates.size()];
+        long[] peakRates = new long[rates.size()];
+        long[] offPeakRates = new long[rates.size()];
+        for (int i = 0; i < rates.size(); i++) {
+            TarifRate rate = rates.get(i);
+            callTypes[i] = rate.getCallType();
+            peakRates[i] = toMinor(rate.getPricePerMinute());
+            offPeakRates[i] = rate.getOffPeakPricePerMinute() == null ? peakRates[i] : toMinor(rate.getOffPeakPricePerMinute());
+        }
+
+        LocalTime start = tarif.getPeakStart();
+        LocalTime end = tarif.getPeakEnd();
+        boolean hasPeakWindow = start != null && end != null && !start.equals(end);
+        Integer increment = tarif.getBillingIncrementSeconds();
+
+        return new CompiledTariff(
+                tarif.getTariffId(),
+                increment == null || increment <= 0 ? SECONDS_PER_MINUTE : increment,
+                hasPeakWindow,
+                hasPeakWindow ? start.toSecondOfDay() : 0,
+                hasPeakWindow ? end.toSecondOfDay() : 0,
+                peak, offPeak, callTypes, peakRates, offPeakRates);
+    }
+
+    public long getTariffId() {
+        return tariffId;
+    }
+
+    /**
+     * Cost of a call in minor units. The band is chosen by the start time; the duration is
+     * rounded up to whole billing increments and the result rounded half-up to a minor unit.
+     */
+    public long cost(String callType, int startSecondOfDay, long durationSeconds) {
+        if (durationSeconds <= 0) {
+            return 0;
+        }
+        long billedSeconds = (durationSeconds + incrementSeconds - 1) / incrementSeconds * incrementSeconds;
+        long rate = ratePerMinute(callType, startSecondOfDay);
+        return (billedSeconds * rate + SECONDS_PER_MINUTE / 2) / SECONDS_PER_MINUTE;
+    }
+
+    /** Rate in minor units per minute for a call type starting at the given second of the day. */
+    public long ratePerMinute(String callType, int startSecondOfDay) {
+        boolean offPeak = hasPeakWindow && !inPeak(startSecondOfDay);
+        for (int i = 0; i < callTypes.length; i++) {
+            if (callTypes[i].equals(callType)) {
+                return offPeak ? offPeakRates[i] : peakRates[i];
+            }
+        }
+        return offPeak ? defaultOffPeakRate : defaultPeakRate;
+    }
+
+    private boolean inPeak(int secondOfDay) {
+        // A window such as 22:00-07:00 wraps around midnight
+        return peakStart < peakEnd
+                ? secondOfDay >= peakStart && secondOfDay < peakEnd
+                : secondOfDay >= peakStart || secondOfDay < peakEnd;
+    }
+
+    public static BigDecimal toAmount(long minor) {
+        return BigDecimal.valueOf(minor, MINOR_DIGITS);
+    }
+
+    static long toMinor(BigDecimal amount) {
+        return amount.setScale(MINOR_DIGITS, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.DebtorDTO;
+import com.example.calltrack.Repository.ClientRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory set of clients with a negative balance, ordered by debt. It is loaded once from the
+ * indexed debtor query before the application starts serving, then kept current by the balance
+ * changes of payments and charges, so debtor checks and the debtor report never scan {@code client}.
+ */
+@Component
+public class DebtorIndex implements SmartInitializingSingleton, MeterBinder {
+    private static final Comparator<DebtorDTO> BY_DEBT = Comparator.comparing(DebtorDTO::getDebt).reversed()
+            .thenComparing(DebtorDTO::getClientId);
+    private static final int STRIPES = 64;
+    private static final int REFRESH_BATCH = 1000;
+
+    private final ClientRepository clientRepository;
+    private final BalanceEventBroker balanceEventBroker;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<Long, DebtorDTO> byClient = new ConcurrentHashMap<>();
+    private final NavigableSet<DebtorDTO> byDebt = new ConcurrentSkipListSet<>(BY_DEBT);
+    private final Lock[] stripes = new Lock[STRIPES];
+    private volatile boolean loaded;
+
+    public DebtorIndex(ClientRepository clientRepository, BalanceEventBroker balanceEventBroker,
+                       PlatformTransactionManager transactionManager) {
+        this.clientRepository = clientRepository;
+        this.balanceEventBroker = balanceEventBroker;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    public void reload() {
+        loaded = false;
+        byClient.clear();
+        byDebt.clear();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<DebtorDTO> debtors = clientRepository.streamDebtors()) {
+                debtors.forEach(debtor -> {
+                    byClient.put(debtor.getClientId(), debtor);
+                    byDebt.add(debtor);
+                });
+            }
+        });
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean isDebtor(Long clientId) {
+        return byClient.containsKey(clientId);
+    }
+
+    public int size() {
+        return byClient.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("calltrack.debtors", this, DebtorIndex::size)
+                .description("Clients with a negative balance")
+                .register(registry);
+    }
+
+    /** One page of debtors owing at least {@code minDebt}, largest debt first. */
+    public List<DebtorDTO> page(BigDecimal minDebt, int page, int size) {
+        List<DebtorDTO> result = new ArrayList<>(size);
+        long skip = (long) page * size;
+        for (Iterator<DebtorDTO> it = byDebt.iterator(); it.hasNext() && result.size() < size; ) {
+            DebtorDTO debtor = it.next();
+            if (debtor.getDebt().compareTo(minDebt) < 0) {
+                break;
+            }
+            if (skip > 0) {
+                skip--;
+            } else {
+                result.add(debtor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Re-reads a client's balance once the surrounding transaction commits and pushes it to the
+     * client's event streams, flagging the change if it moved the client into or out of debt.
+     */
+    public void onBalanceChanged(Long clientId) {
+        TransactionCallbacks.afterCommit(() -> refresh(List.of(clientId)));
+    }
+
+    /** As {@link #onBalanceChanged(Long)}, with one query for all the clients of the transaction. */
+    public void onBalancesChanged(Collection<Long> clientIds) {
+        List<Long> changed = List.copyOf(clientIds);
+        TransactionCallbacks.afterCommit(() -> refresh(changed));
+    }
+
+    /**
+     * Re-reads the committed balances of the clients, e.g. after a local write or a change made by
+     * another application node. The read and the update run under the clients' stripe locks: of two
+     * refreshes of a client, the one that reads second sees every commit the first one saw, so a
+     * refresh that ran late can never replace a newer balance with an older one.
+     */
+    public void refresh(Collection<Long> clientIds) {
+        if (clientIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(clientIds);
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH) {
+            refreshBatch(ids.subList(from, Math.min(from + REFRESH_BATCH, ids.size())));
+        }
+    }
+
+    private void refreshBatch(List<Long> clientIds) {
+        int[] held = clientIds.stream().mapToInt(DebtorIndex::stripe).distinct().sorted().toArray();
+        for (int stripe : held) {
+            stripes[stripe].lock();
+        }
+        try {
+            Map<Long, DebtorDTO> current = new HashMap<>();
+            for (DebtorDTO client : clientRepository.findDebtorsByIdIn(clientIds)) {
+                current.put(client.getClientId(), client);
+            }
+            clientIds.forEach(id -> apply(id, current.get(id)));
+        } finally {
+            for (int i = held.length - 1; i >= 0; i--) {
+                stripes[held[i]].unlock();
+            }
+        }
+    }
+
+    private static int stripe(Long clientId) {
+        return Long.hashCode(clientId) & (STRIPES - 1);
+    }
+
+    /** Called under the client's stripe lock, so the two views change together. */
+    private void apply(Long clientId, DebtorDTO client) {
+        BigDecimal balance = client == null || client.getDebt() == null ? null : client.getDebt().negate();
+        boolean inDebt = balance != null && balance.signum() < 0;
+        DebtorDTO previous = inDebt ? byClient.put(clientId, client) : byClient.remove(clientId);
+        if (previous != null) {
+            byDebt.remove(previous);
+        }
+        if (inDebt) {
+            byDebt.add(client);
+        }
+        balanceEventBroker.publish(clientId, balance, previous != null);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallExportDTO;
+import com.example.calltrack.DTO.CallFilterDTO;
+import com.example.calltrack.DTO.PaymentExportDTO;
+import com.example.calltrack.DTO.PaymentFilterDTO;
+import com.example.calltrack.DTO.PhoneRatingDTO;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams call and payment history to the client row by row. Rows come from a forward-only
+ * cursor as flat DTOs and are written as soon as they are read, so memory use does not grow
+ * with the size of the export.
+ */
+@Service
+public class ExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CALL_HEADER = "call_id,started_at,phone_number,call_type,duration_minutes,cost";
+    private static final String PAYMENT_HEADER = "payment_id,client_id,phone_number,amount,payment_method,balance_after,created_at";
+
+    private final CallRepository callRepository;
+    private final PaymentsRepository paymentsRepository;
+    private final RatingCache ratingCache;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(CallRepository callRepository, PaymentsRepository paymentsRepository,
+                         RatingCache ratingCache, ObjectMapper objectMapper) {
+        this.callRepository = callRepository;
+        this.paymentsRepository = paymentsRepository;
+        this.ratingCache = ratingCache;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportCalls(CallFilterDTO filter, ExportFormat format, boolean gzip, HttpServletResponse response) throws IOException {
+        Long numberId = null;
+        if (filter.getPhone() != null && !filter.getPhone().isBlank()) {
+            // Unknown numbers yield an empty export rather than an unfiltered one
+            PhoneRatingDTO rating = ratingCache.get(filter.getPhone().trim());
+            numberId = rating == null ? -1L : rating.getNumberId();
+        }
+        String callType = filter.getCallType() == null || filter.getCallType().isBlank() ? null : filter.getCallType();
+
+        OutputStream out = open(response, "calls", format, gzip);
+        try (Stream<CallExportDTO> rows = callRepository.streamForExport(
+                numberId, callType, startOf(filter.getFrom()), endOf(filter.getTo()))) {
+            writeCalls(rows, format, out);
+        }
+        close(out, gzip);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportPayments(PaymentFilterDTO filter, ExportFormat format, boolean gzip, HttpServletResponse response) throws IOException {
+        String phone = filter.getPhone() == null || filter.getPhone().isBlank() ? null : filter.getPhone().trim();
+
+        OutputStream out = open(response, "payments", format, gzip);
+        try (Stream<PaymentExportDTO> rows = paymentsRepository.streamForExport(
+                filter.getClientId(), phone, startOf(filter.getFrom()), endOf(filter.getTo()))) {
+            writePayments(rows, format, out);
+        }
+        close(out, gzip);
+    }
+
+    public void writeCalls(Stream<CallExportDTO> rows, ExportFormat format, OutputStream out) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writeNdjson(rows, CallExportDTO.class, out);
+            return;
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(CALL_HEADER);
+        writer.write('\n');
+        for (Iterator<CallExportDTO> it = rows.iterator(); it.hasNext(); ) {
+            CallExportDTO row = it.next();
+            writeValue(writer, row.getCallId());
+            writer.write(',');
+            writeValue(writer, row.getStartedAt());
+            writer.write(',');
+            writeText(writer, row.getPhoneNumber());
+            writer.write(',');
+            writeText(writer, row.getCallType());
+            writer.write(',');
+            writeValue(writer, row.getDurationMinutes());
+            writer.write(',');
+            writeValue(writer, row.getCost() == null ? null : row.getCost().toPlainString());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    public void writePayments(Stream<PaymentExportDTO> rows, ExportFormat format, OutputStream out) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writeNdjson(rows, PaymentExportDTO.class, out);
+            return;
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(PAYMENT_HEADER);
+        writer.write('\n');
+        for (Iterator<PaymentExportDTO> it = rows.iterator(); it.hasNext(); ) {
+            PaymentExportDTO row = it.next();
+            writeValue(writer, row.getPaymentId());
+            writer.write(',');
+            writeValue(writer, row.getClientId());
+            writer.write(',');
+            writeText(writer, row.getPhoneNumber());
+            writer.write(',');
+            writeValue(writer, row.getAmount() == null ? null : row.getAmount().toPlainString());
+            writer.write(',');
+            writeText(writer, row.getPaymentMethod());
+            writer.write(',');
+            writeValue(writer, row.getBalanceAfter() == null ? null : row.getBalanceAfter().toPlainString());
+            writer.write(',');
+            writeValue(writer, row.getCreatedAt());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private <T> void writeNdjson(Stream<T> rows, Class<T> type, OutputStream out) throws IOException {
+        ObjectWriter rowWriter = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(new OutputStreamWriter(out, StandardCharsets.UTF_8))
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+        for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+            rowWriter.writeValue(generator, it.next());
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private static OutputStream open(HttpServletResponse response, String name, ExportFormat format, boolean gzip) throws IOException {
+        String fileName = name + "." + format.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        OutputStream out = response.getOutputStream();
+        return gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+
+    private static void close(OutputStream out, boolean gzip) throws IOException {
+        if (gzip) {
+            ((GZIPOutputStream) out).finish();
+        }
+        out.flush();
+    }
+
+    private static LocalDateTime startOf(LocalDate from) {
+        return from == null ? null : from.atStartOfDay();
+    }
+
+    private static LocalDateTime endOf(LocalDate to) {
+        return to == null ? null : to.plusDays(1).atStartOfDay();
+    }
+
+    private static void writeValue(Writer writer, Object value) throws IOException {
+        if (value != null) {
+            writer.write(value.toString());
+        }
+    }
+
+    private static void writeText(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
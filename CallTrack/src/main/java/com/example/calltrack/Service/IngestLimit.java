@@ -0,0 +1,72 @@
+package com.example.calltrack.Service;
+
+/**
+ * How many call ingestion writers may write at once, adapted to the write latency: it grows by one
+ * after a fast write that found the limit in full use and shrinks by a quarter after one slower than
+ * the target, at most once per round of writes. Also tells how long queued calls will wait at the
+ * observed write rate, though never fewer than a floor of calls: after a quiet spell the rate comes
+ * from writes of a call or two, whose fixed cost per transaction overstates the time a full group
+ * takes per call. Not thread-safe; {@link CallIngestQueue} guards it with its lock.
+ */
+final class IngestLimit {
+    private static final double DECREASE = 0.75;
+    private static final double SMOOTHING = 0.1;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final long minCalls;
+    private int limit;
+    private long lastDecrease;
+    // Moving average of the write time per call; 0 until the first write
+    private double callNanos;
+
+    IngestLimit(int minLimit, int maxLimit, long latencyTargetNanos, long minCalls, long now) {
+        this.minLimit = Math.max(1, Math.min(minLimit, maxLimit));
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.minCalls = minCalls;
+        this.limit = maxLimit;
+        this.lastDecrease = now;
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * Takes the latency of a write of {@code calls} calls started at {@code startedAt};
+     * {@code saturated} tells whether all allowed writers were busy when it started. Only writes
+     * started after the last decrease may decrease the limit again, since earlier ones do not
+     * show its effect yet. Returns whether the limit went up.
+     */
+    boolean onWrite(long startedAt, long latencyNanos, int calls, boolean saturated) {
+        double sample = (double) latencyNanos / Math.max(calls, 1);
+        callNanos = callNanos == 0 ? sample : callNanos + SMOOTHING * (sample - callNanos);
+        if (latencyNanos > latencyTargetNanos) {
+            if (startedAt - lastDecrease > 0) {
+                limit = Math.max(minLimit, (int) (limit * DECREASE));
+                lastDecrease = startedAt + latencyNanos;
+            }
+            return false;
+        }
+        if (saturated && limit < maxLimit) {
+            limit++;
+            return true;
+        }
+        return false;
+    }
+
+    /** Nanoseconds until {@code queued} calls are written at the observed rate; 0 before any write. */
+    long expectedWaitNanos(long queued) {
+        return (long) (queued * callNanos / limit);
+    }
+
+    /**
+     * How many queued calls are written within {@code nanos} at the observed rate, and at least the
+     * floor; unbounded before any write.
+     */
+    long callsWithin(long nanos) {
+        return callNanos == 0 ? Long.MAX_VALUE : Math.max(minCalls, (long) (nanos * (double) limit / callNanos));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.ExecutorStatsDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs BCrypt on a fixed pool sized to the CPUs with a short bounded queue, off the request
+ * threads. When the queue is full the work is refused right away with a
+ * {@link RejectedExecutionException}, so a login storm is shed instead of starving other endpoints.
+ */
+@Component
+public class PasswordHasher implements DisposableBean, MeterBinder {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${calltrack.auth.bcrypt-threads:0}") int threads,
+                          @Value("${calltrack.auth.bcrypt-queue:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.passwordEncoder = passwordEncoder;
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (r, pool) -> {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("Password hashing queue is full");
+                });
+    }
+
+    /** @throws RejectedExecutionException if the pool is saturated */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return CompletableFuture.supplyAsync(() -> passwordEncoder.matches(rawPassword, encodedPassword), executor);
+    }
+
+    /** @throws RejectedExecutionException if the pool is saturated */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), executor);
+    }
+
+    public ExecutorStatsDTO getStats() {
+        return ExecutorStatsDTO.builder()
+                .name("bcrypt")
+                .threads(executor.getPoolSize())
+                .active(executor.getActiveCount())
+                .queued(executor.getQueue().size())
+                .queueCapacity(queueCapacity)
+                .completed(executor.getCompletedTaskCount())
+                .rejected(rejected.get())
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "bcrypt", Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("calltrack.bcrypt.rejected", rejected, AtomicLong::get)
+                .description("Password hashing requests refused because the queue was full")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
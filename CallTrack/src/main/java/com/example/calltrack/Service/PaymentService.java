@@ -1,15 +1,20 @@
 package com.example.calltrack.Service;
 
 import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.DTO.PaymentViewDTO;
 import com.example.calltrack.Entity.Client;
 import com.example.calltrack.Entity.Payment;
 import com.example.calltrack.Repository.PaymentsRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 
@@ -19,45 +24,67 @@ public class PaymentService {
     private final PaymentsRepository paymentsRepository;
     private final PhoneNumberService phoneNumberService;
     private final ClientService clientService;
+    private final EntityManager entityManager;
+    private final RollupService rollupService;
+    private final ClientSummaryService clientSummaryService;
+    private final ReadYourWrites readYourWrites;
+    private final ClusterInvalidation clusterInvalidation;
 
-
-    public PaymentService(PaymentsRepository paymentsRepository, PhoneNumberService phoneNumberService, ClientService clientService) {
+    public PaymentService(PaymentsRepository paymentsRepository, PhoneNumberService phoneNumberService, ClientService clientService,
+                          EntityManager entityManager, RollupService rollupService, ClientSummaryService clientSummaryService,
+                          ReadYourWrites readYourWrites, ClusterInvalidation clusterInvalidation) {
         this.paymentsRepository = paymentsRepository;
         this.phoneNumberService = phoneNumberService;
         this.clientService = clientService;
+        this.entityManager = entityManager;
+        this.rollupService = rollupService;
+        this.clientSummaryService = clientSummaryService;
+        this.readYourWrites = readYourWrites;
+        this.clusterInvalidation = clusterInvalidation;
     }
 
+    @Timed(value = "calltrack.payment.add", description = "Recording a payment", histogram = true)
     @Transactional
     public ResponseEntity<String> addPaymentsOnNumber(PaymentRequestDTO paymentRequestDTO) {
 
-        phoneNumberService.updatePhoneNumberBalance(paymentRequestDTO.getPhoneId(), paymentRequestDTO.getAmount());
-        clientService.updatePhoneBalance(paymentRequestDTO.getClientId(), paymentRequestDTO.getAmount());
+        if (paymentRequestDTO.getAmount() == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Amount is required");
+        }
 
-        Client client = clientService.findClientById(paymentRequestDTO.getClientId())
-                .orElseThrow(() -> new RuntimeException("Client not found after update"));
+        // Both balances change in single UPDATE ... RETURNING statements, so concurrent payments to the
+        // same account are applied one after another by the database instead of overwriting each other.
+        String phone = phoneNumberService.updatePhoneNumberBalance(paymentRequestDTO.getPhoneId(), paymentRequestDTO.getAmount());
+        BigDecimal balanceAfter = clientService.updatePhoneBalance(paymentRequestDTO.getClientId(), paymentRequestDTO.getAmount());
 
         Payment payment = Payment.builder()
-                .client(client)
+                .client(entityManager.getReference(Client.class, paymentRequestDTO.getClientId()))
                 .amount(paymentRequestDTO.getAmount())
-                .balanceAfter(client.getBalance())
+                .balanceAfter(balanceAfter)
                 .createdAt(LocalDateTime.now())
                 .paymentMethod(paymentRequestDTO.getPaymentType())
-                .phone_number(phoneNumberService.getPhoneNumberById(paymentRequestDTO.getPhoneId()))
+                .phone_number(phone)
                 .build();
 
         paymentsRepository.save(payment);
+        rollupService.recordPayment(paymentRequestDTO.getClientId(), phone, payment.getCreatedAt(), payment.getAmount());
+        clientSummaryService.invalidate(paymentRequestDTO.getClientId());
+        readYourWrites.pin(paymentRequestDTO.getClientId());
+        clusterInvalidation.clientChanged(paymentRequestDTO.getClientId());
+        clusterInvalidation.numberChanged(paymentRequestDTO.getPhoneId());
 
         return ResponseEntity.ok("Add phone number successfully");
     }
 
 
-    public List<Payment> getPaymentsByClientId(Long clientId) {
-        List<Payment> payments =  paymentsRepository.findAllByClient_ClientId(clientId);
-        payments.sort(Comparator.comparing(Payment::getCreatedAt).reversed());
-        return payments;
+    /** The client's latest {@code limit} payments, newest first, read as DTOs in one query. */
+    @ReplicaRead(client = "clientId")
+    public List<PaymentViewDTO> getPaymentsByClientId(Long clientId, int limit) {
+        return paymentsRepository.findViewsByClientId(clientId, PageRequest.of(0, limit));
     }
 
-    public List<Payment> getAllPayments() {
-        return paymentsRepository.findAll();
+    /** The latest {@code limit} payments of all clients, newest first. */
+    @ReplicaRead
+    public List<PaymentViewDTO> getRecentPayments(int limit) {
+        return paymentsRepository.findRecentViews(PageRequest.of(0, limit));
     }
 }
@@ -1,29 +1,40 @@
 package com.example.calltrack.Service;
 
 import com.example.calltrack.DTO.PhoneNumberRequestDTO;
+import com.example.calltrack.DTO.PhoneNumberViewDTO;
 import com.example.calltrack.Entity.Client;
 import com.example.calltrack.Entity.PhoneNumber;
 import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.BalanceRepository;
 import com.example.calltrack.Repository.PhoneNumberRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class PhoneNumberService {
     private final PhoneNumberRepository phoneNumberRepository;
     private final ClientService clientService;
-
-    public PhoneNumberService(PhoneNumberRepository phoneNumberRepository, ClientService clientService) {
+    private final TarifService tarifService;
+    private final RatingCache ratingCache;
+    private final BalanceRepository balanceRepository;
+    private final ClusterInvalidation clusterInvalidation;
+
+    public PhoneNumberService(PhoneNumberRepository phoneNumberRepository, ClientService clientService,
+                              TarifService tarifService, RatingCache ratingCache,
+                              BalanceRepository balanceRepository, ClusterInvalidation clusterInvalidation) {
         this.phoneNumberRepository = phoneNumberRepository;
+        this.balanceRepository = balanceRepository;
         this.clientService = clientService;
+        this.tarifService = tarifService;
+        this.ratingCache = ratingCache;
+        this.clusterInvalidation = clusterInvalidation;
     }
 
     public ResponseEntity<List<PhoneNumber>> getAll() {
@@ -34,21 +45,16 @@ public class PhoneNumberService {
         return ResponseEntity.ok(phoneNumberRepository.findAllByClient(client));
     }
 
-    public ResponseEntity<List<PhoneNumber>> getByClientId(Long clientId) {
-        List<PhoneNumber> numbers = phoneNumberRepository.findAllByClient_ClientId(clientId);
-        numbers.sort(Comparator.comparing(PhoneNumber::getNumberId));
-        return ResponseEntity.ok(numbers);
+    public ResponseEntity<List<PhoneNumberViewDTO>> getByClientId(Long clientId) {
+        return ResponseEntity.ok(phoneNumberRepository.findViewsByClientId(clientId));
     }
 
     public List<PhoneNumber> findByClientId(Long clientId) {
         return phoneNumberRepository.findAllByClient_ClientId(clientId);
     }
 
-    public Optional<Client> findClientByPhone(String phone) {
-        return phoneNumberRepository.findByPhone(phone)
-                .map(PhoneNumber::getClient);
-    }
-
+    /** Moves the number's balance to another number of the client in the same transaction that deletes it. */
+    @Transactional
     public ResponseEntity<String> deletePhoneNumber(Long phoneNumberId) {
 
         PhoneNumber phone = phoneNumberRepository.findById(phoneNumberId)
@@ -69,9 +75,13 @@ public class PhoneNumberService {
                     receiver.getNumberBalance().add(phone.getNumberBalance())
             );
             phoneNumberRepository.save(receiver);
+            clusterInvalidation.numberChanged(receiver.getNumberId());
         }
 
         phoneNumberRepository.delete(phone);
+        ratingCache.invalidate(phone.getPhone());
+        clusterInvalidation.phoneChanged(phone.getNumberId(), phone.getPhone());
+        clusterInvalidation.clientChanged(phone.getClient().getClientId());
 
         return ResponseEntity.ok("Phone number deleted successfully");
     }
@@ -84,37 +94,61 @@ public class PhoneNumberService {
         Client client = clientService.findClientById(phoneNumberRequestDTO.getClientId())
                 .orElseThrow(() -> new RuntimeException("Client not found"));
 
+        Tarif tarif = null;
+        if (phoneNumberRequestDTO.getTariffId() != null) {
+            tarif = tarifService.findById(phoneNumberRequestDTO.getTariffId()).orElse(null);
+            if (tarif == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Tariff not found");
+            }
+        }
+
         boolean isPrimary = findByClientId(client.getClientId()).isEmpty();
 
-        phoneNumberRepository.save(PhoneNumber.builder()
+        PhoneNumber registered = phoneNumberRepository.save(PhoneNumber.builder()
                 .phone(phoneNumberRequestDTO.getPhone())
                 .isPrimary(isPrimary)
                 .client(client)
+                .tarif(tarif)
                 .numberBalance(BigDecimal.ZERO)
                 .numberName(phoneNumberRequestDTO.getNumberName())
                 .activatedAt(LocalDateTime.now())
                 .build());
+        ratingCache.invalidate(phoneNumberRequestDTO.getPhone());
+        clusterInvalidation.phoneChanged(registered.getNumberId(), registered.getPhone());
+        clusterInvalidation.clientChanged(client.getClientId());
 
         return ResponseEntity.ok("Phone number registered successfully");
     }
 
     @Transactional
-    public void updatePhoneNumberBalance(Long phone_id, BigDecimal amount) {
-        PhoneNumber current_phone = phoneNumberRepository.findById(phone_id)
-                .orElseThrow(() -> new RuntimeException("Phone number not found with ID: " + phone_id));
+    public ResponseEntity<String> changeTarif(Long phoneNumberId, Long tariffId) {
+        PhoneNumber phone = phoneNumberRepository.findById(phoneNumberId).orElse(null);
+        if (phone == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Tarif tarif = tarifService.findById(tariffId).orElse(null);
+        if (tarif == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Tariff not found");
+        }
 
-        current_phone.setNumberBalance(
-                current_phone.getNumberBalance().add(amount)
-        );
+        phone.setTarif(tarif);
+        ratingCache.invalidate(phone.getPhone());
+        clusterInvalidation.phoneChanged(phone.getNumberId(), phone.getPhone());
+
+        return ResponseEntity.ok("Tariff changed successfully");
+    }
+
+    /** Atomically adds {@code amount} to the number balance and returns the phone number it belongs to. */
+    @Transactional
+    public String updatePhoneNumberBalance(Long phone_id, BigDecimal amount) {
+        return balanceRepository.addToPhoneNumber(phone_id, amount)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Phone number not found with ID: " + phone_id));
     }
 
     public PhoneNumber getByPhone(String phone) {
         return  phoneNumberRepository.findByPhone(phone).orElseThrow();
     }
 
-    public Tarif getTarifByNumber(String number) {
-        return phoneNumberRepository.findByPhone(number).get().getTarif();
-    }
     public PhoneNumber getByPhoneId(Long phone_id) {
         return phoneNumberRepository.findById(phone_id).orElseThrow();
     }
@@ -0,0 +1,96 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CacheStatsDTO;
+import com.example.calltrack.DTO.PhoneRatingDTO;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded phone → rating data cache for the call hot path. Entries carry only the number id and
+ * the tariff rate, so rating a call needs neither the {@code PhoneNumber} graph nor a DB read
+ * once the number is warm. Unknown numbers are not cached.
+ */
+@Component
+public class RatingCache implements MeterBinder {
+    private final PhoneNumberRepository phoneNumberRepository;
+    private final LoadingCache<String, PhoneRatingDTO> cache;
+
+    public RatingCache(PhoneNumberRepository phoneNumberRepository,
+                       @Value("${calltrack.rating-cache.maximum-size:100000}") long maximumSize,
+                       @Value("${calltrack.rating-cache.expire-after-write:PT10M}") Duration expireAfterWrite) {
+        this.phoneNumberRepository = phoneNumberRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public PhoneRatingDTO load(String phone) {
+                        return phoneNumberRepository.findRatingByPhone(phone).orElse(null);
+                    }
+
+                    @Override
+                    public Map<String, PhoneRatingDTO> loadAll(Set<? extends String> phones) {
+                        Map<String, PhoneRatingDTO> ratings = new HashMap<>();
+                        for (PhoneRatingDTO rating : phoneNumberRepository.findRatingsByPhoneIn(phones)) {
+                            ratings.put(rating.getPhone(), rating);
+                        }
+                        return ratings;
+                    }
+                });
+    }
+
+    /** Rating data of the number, or {@code null} if it is not registered. */
+    public PhoneRatingDTO get(String phone) {
+        return phone == null ? null : cache.get(phone);
+    }
+
+    /** Rating data of several numbers; misses are loaded together with one query. */
+    public Map<String, PhoneRatingDTO> getAll(Collection<String> phones) {
+        return cache.getAll(phones);
+    }
+
+    /**
+     * Drops the entry of a number. Inside a transaction this happens after commit, so a
+     * concurrent lookup cannot re-cache the state that is being replaced.
+     */
+    public void invalidate(String phone) {
+        TransactionCallbacks.afterCommit(() -> cache.invalidate(phone));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "rating");
+    }
+
+    public CacheStatsDTO getStats() {
+        CacheStats stats = cache.stats();
+        return CacheStatsDTO.builder()
+                .name("rating")
+                .size(cache.estimatedSize())
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .loads(stats.loadCount())
+                .build();
+    }
+}
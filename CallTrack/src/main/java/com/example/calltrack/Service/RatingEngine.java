@@ -0,0 +1,21 @@
+package com.example.calltrack.Service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Rating-side view of the {@link TariffCatalog}: every tariff is compiled once per catalogue
+ * snapshot, so the rating hot path is a map lookup plus {@link CompiledTariff#cost}.
+ */
+@Component
+public class RatingEngine {
+    private final TariffCatalog tariffCatalog;
+
+    public RatingEngine(TariffCatalog tariffCatalog) {
+        this.tariffCatalog = tariffCatalog;
+    }
+
+    /** Compiled form of the tariff, or {@code null} if it does not exist. */
+    public CompiledTariff tariff(Long tariffId) {
+        return tariffId == null ? null : tariffCatalog.compiled(tariffId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.calltrack.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Clients that wrote recently, whose {@link ReplicaRead} reads go to the primary until every
+ * usable replica has caught up. The window has to cover the staleness budget plus one health
+ * check interval, which is the longest a replica in use can be behind.
+ */
+@Component
+public class ReadYourWrites {
+    private final Cache<Long, Boolean> pinned;
+
+    public ReadYourWrites(@Value("${calltrack.replicas.read-your-writes:PT10S}") Duration window) {
+        this.pinned = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(1_000_000)
+                .build();
+    }
+
+    /** Pins the client to the primary once the current transaction commits. */
+    public void pin(Long clientId) {
+        if (clientId != null) {
+            TransactionCallbacks.afterCommit(() -> pinned.put(clientId, Boolean.TRUE));
+        }
+    }
+
+    public boolean isPinned(Long clientId) {
+        return clientId != null && pinned.getIfPresent(clientId) != null;
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.DiscrepancyDTO;
+import com.example.calltrack.DTO.ReconciliationReportDTO;
+import com.example.calltrack.Repository.BillingRepository;
+import com.example.calltrack.Repository.ReconciliationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that every client's balance agrees with the sum of its number balances and with its
+ * payments less its call charges, which are written by separate code paths. The client ids are
+ * split into {@code shards} ranges scanned in parallel on {@code threads} connections, each as one
+ * repeatable-read transaction streaming the four sources through the
+ * {@link ReconciliationRepository} merge join, so memory stays flat however many clients there are.
+ * <p>
+ * Charges are written behind and other writes go on during the scan, so what it flags is re-read
+ * afterwards and only what still disagrees is reported. The latest run's report is kept in memory,
+ * up to {@code max-report-rows} rows.
+ */
+@Service
+public class ReconciliationService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+    private static final int RECHECK_BATCH = 1000;
+    private static final Comparator<DiscrepancyDTO> REPORT_ORDER =
+            Comparator.comparing(DiscrepancyDTO::getClientId).thenComparing(DiscrepancyDTO::getKind);
+
+    private enum Kind {NUMBERS, LEDGER, UNKNOWN_CLIENT}
+
+    private final ReconciliationRepository reconciliationRepository;
+    private final BillingRepository billingRepository;
+    private final ChargeAggregator chargeAggregator;
+    private final TransactionTemplate snapshotTransaction;
+    private final ExecutorService scanExecutor;
+    private final int shards;
+    private final int fetchSize;
+    private final int maxReportRows;
+    private volatile Run latest;
+
+    private final class Run {
+        final long started = System.nanoTime();
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final int shardCount;
+        final AtomicInteger shardsCompleted = new AtomicInteger();
+        final AtomicLong scanned = new AtomicLong();
+        final AtomicLong flagged = new AtomicLong();
+        final AtomicInteger kept = new AtomicInteger();
+        final Queue<DiscrepancyDTO> candidates = new ConcurrentLinkedQueue<>();
+        volatile boolean truncated;
+        volatile List<DiscrepancyDTO> confirmed;
+        volatile LocalDateTime completedAt;
+        volatile long finished;
+        volatile String error;
+        CompletableFuture<Void> done;
+
+        Run(int shardCount) {
+            this.shardCount = shardCount;
+        }
+
+        void flag(List<DiscrepancyDTO> found) {
+            for (DiscrepancyDTO discrepancy : found) {
+                flagged.incrementAndGet();
+                if (kept.incrementAndGet() <= maxReportRows) {
+                    candidates.add(discrepancy);
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        long elapsedNanos() {
+            return (finished == 0 ? System.nanoTime() : finished) - started;
+        }
+    }
+
+    public ReconciliationService(ReconciliationRepository reconciliationRepository, BillingRepository billingRepository,
+                                 ChargeAggregator chargeAggregator, PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${calltrack.reconciliation.threads:4}") int threads,
+                                 @Value("${calltrack.reconciliation.shards:0}") int shards,
+                                 @Value("${calltrack.reconciliation.fetch-size:10000}") int fetchSize,
+                                 @Value("${calltrack.reconciliation.max-report-rows:10000}") int maxReportRows) {
+        this.reconciliationRepository = reconciliationRepository;
+        this.billingRepository = billingRepository;
+        this.chargeAggregator = chargeAggregator;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.scanExecutor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Several shards per thread, so threads finishing early take over the rest
+        this.shards = shards > 0 ? shards : threads * 4;
+        this.fetchSize = fetchSize;
+        this.maxReportRows = maxReportRows;
+        Gauge.builder("calltrack.reconciliation.discrepancies", this, ReconciliationService::lastDiscrepancies)
+                .description("Balance discrepancies reported by the latest reconciliation")
+                .register(meterRegistry);
+    }
+
+    /** Starts a reconciliation in the background unless one is running; returns its progress. */
+    public synchronized ReconciliationReportDTO start() {
+        Run current = latest;
+        if (current != null && current.finished == 0) {
+            return report(current);
+        }
+        // Charges still in the write-behind buffer are in the rollups but not yet in the balances
+        chargeAggregator.flush();
+        long[] ids = billingRepository.clientIdRange();
+        long span = ids == null ? 0 : ids[1] - ids[0] + 1;
+        int count = (int) Math.min(shards, span);
+        Run run = new Run(count);
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // The outer shards reach past the client ids, to the rows of clients that do not exist
+            long first = i == 0 ? Long.MIN_VALUE : ids[0] + span * i / count;
+            long last = i == count - 1 ? Long.MAX_VALUE - 1 : ids[0] + span * (i + 1) / count - 1;
+            tasks.add(CompletableFuture.runAsync(() -> scanShard(run, first, last), scanExecutor));
+        }
+        run.done = CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                .thenRunAsync(() -> recheck(run), scanExecutor)
+                .whenComplete((ignored, failure) -> finish(run, failure));
+        latest = run;
+        return report(run);
+    }
+
+    /** Runs a reconciliation like {@link #start} and waits for its report. */
+    public ReconciliationReportDTO run() {
+        start();
+        Run run = latest;
+        try {
+            run.done.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return report(run);
+    }
+
+    public ReconciliationReportDTO report() {
+        Run run = latest;
+        if (run == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No reconciliation has run");
+        }
+        return report(run);
+    }
+
+    /**
+     * The latest completed run's discrepancies in client order, optionally of one kind, starting
+     * after {@code afterClientId}.
+     */
+    public List<DiscrepancyDTO> discrepancies(String kind, Long afterClientId, int limit) {
+        Run run = latest;
+        List<DiscrepancyDTO> confirmed = run == null ? null : run.confirmed;
+        if (confirmed == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No reconciliation has completed");
+        }
+        String wanted = kind == null ? null : parseKind(kind).name();
+        return confirmed.stream()
+                .filter(discrepancy -> afterClientId == null || discrepancy.getClientId() > afterClientId)
+                .filter(discrepancy -> wanted == null || wanted.equals(discrepancy.getKind()))
+                .limit(limit)
+                .toList();
+    }
+
+    /** What disagrees in one client's ledger. */
+    static List<DiscrepancyDTO> check(ReconciliationRepository.Ledger ledger) {
+        if (!ledger.clientExists()) {
+            return List.of(discrepancy(ledger, Kind.UNKNOWN_CLIENT, null));
+        }
+        List<DiscrepancyDTO> found = new ArrayList<>(2);
+        if (ledger.balance().compareTo(ledger.numberBalance()) != 0) {
+            found.add(discrepancy(ledger, Kind.NUMBERS, ledger.balance().subtract(ledger.numberBalance())));
+        }
+        if (ledger.balance().compareTo(ledger.payments().subtract(ledger.charges())) != 0) {
+            found.add(discrepancy(ledger, Kind.LEDGER,
+                    ledger.balance().subtract(ledger.payments()).add(ledger.charges())));
+        }
+        return found;
+    }
+
+    private void scanShard(Run run, long firstClientId, long lastClientId) {
+        long scanned = snapshotTransaction.execute(status -> reconciliationRepository.scan(firstClientId, lastClientId,
+                fetchSize, ledger -> run.flag(check(ledger))));
+        run.scanned.addAndGet(scanned);
+        run.shardsCompleted.incrementAndGet();
+    }
+
+    /** Re-reads the flagged clients and keeps what still disagrees in the same way. */
+    private void recheck(Run run) {
+        chargeAggregator.flush();
+        Set<String> flagged = new LinkedHashSet<>();
+        Set<Long> clientIds = new LinkedHashSet<>();
+        for (DiscrepancyDTO candidate : run.candidates) {
+            flagged.add(candidate.getClientId() + ":" + candidate.getKind());
+            clientIds.add(candidate.getClientId());
+        }
+        List<Long> ids = List.copyOf(clientIds);
+        Queue<DiscrepancyDTO> confirmed = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < ids.size(); i += RECHECK_BATCH) {
+            List<Long> batch = ids.subList(i, Math.min(i + RECHECK_BATCH, ids.size()));
+            snapshotTransaction.executeWithoutResult(status -> reconciliationRepository.scan(batch, ledger -> {
+                for (DiscrepancyDTO discrepancy : check(ledger)) {
+                    if (flagged.contains(discrepancy.getClientId() + ":" + discrepancy.getKind())) {
+                        confirmed.add(discrepancy);
+                    }
+                }
+            }));
+        }
+        run.confirmed = confirmed.stream().sorted(REPORT_ORDER).toList();
+    }
+
+    private void finish(Run run, Throwable failure) {
+        run.completedAt = LocalDateTime.now();
+        if (failure != null) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            run.error = cause.getMessage();
+            run.finished = System.nanoTime();
+            log.error("Reconciliation failed after {} clients", run.scanned.get(), cause);
+            return;
+        }
+        run.finished = System.nanoTime();
+        log.info("Reconciled {} clients in {} ms ({} clients/s): {} flagged, {} discrepancies", run.scanned.get(),
+                run.elapsedNanos() / 1_000_000, Math.round(clientsPerSecond(run)), run.flagged.get(), run.confirmed.size());
+    }
+
+    private ReconciliationReportDTO report(Run run) {
+        List<DiscrepancyDTO> confirmed = run.confirmed;
+        String status = run.error != null ? "FAILED" : run.finished == 0 ? "RUNNING" : "COMPLETED";
+        return ReconciliationReportDTO.builder()
+                .status(status)
+                .startedAt(run.startedAt)
+                .completedAt(run.completedAt)
+                .shards(run.shardCount)
+                .shardsCompleted(run.shardsCompleted.get())
+                .clientsScanned(run.scanned.get())
+                .elapsedMillis(run.elapsedNanos() / 1_000_000)
+                .clientsPerSecond(clientsPerSecond(run))
+                .flagged(run.flagged.get())
+                .discrepancies(confirmed == null ? 0 : confirmed.size())
+                .byKind(confirmed == null ? Map.of() : confirmed.stream()
+                        .collect(Collectors.groupingBy(DiscrepancyDTO::getKind, TreeMap::new, Collectors.counting())))
+                .truncated(run.truncated)
+                .error(run.error)
+                .build();
+    }
+
+    private double lastDiscrepancies() {
+        Run run = latest;
+        List<DiscrepancyDTO> confirmed = run == null ? null : run.confirmed;
+        return confirmed == null ? Double.NaN : confirmed.size();
+    }
+
+    private static double clientsPerSecond(Run run) {
+        long nanos = run.elapsedNanos();
+        return nanos == 0 ? 0 : run.scanned.get() * 1e9 / nanos;
+    }
+
+    private static Kind parseKind(String kind) {
+        try {
+            return Kind.valueOf(kind.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown discrepancy kind: " + kind);
+        }
+    }
+
+    private static DiscrepancyDTO discrepancy(ReconciliationRepository.Ledger ledger, Kind kind, BigDecimal difference) {
+        return DiscrepancyDTO.builder()
+                .clientId(ledger.clientId())
+                .kind(kind.name())
+                .clientBalance(ledger.clientExists() ? ledger.balance() : null)
+                .numbers(ledger.numbers())
+                .numberBalance(ledger.numberBalance())
+                .payments(ledger.payments())
+                .charges(ledger.charges())
+                .difference(difference)
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        scanExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.calltrack.Service;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A read-only transaction that may be served by a read replica when replicas are configured
+ * ({@code calltrack.replicas.urls}). The whole method reads from one server, so its queries see one
+ * consistent state. {@link #client()} names the parameter holding the client whose data is read;
+ * a client that has just written reads from the primary instead (see {@link ReadYourWrites}).
+ * Without it the authenticated client is used.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface ReplicaRead {
+
+    /** Name of the {@code Long} parameter carrying the client id, if any. */
+    String client() default "";
+}
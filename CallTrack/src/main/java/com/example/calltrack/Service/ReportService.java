@@ -0,0 +1,145 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.MonthlyUsageDTO;
+import com.example.calltrack.DTO.PaymentReportDTO;
+import com.example.calltrack.DTO.PhoneRatingDTO;
+import com.example.calltrack.DTO.ReportFilterDTO;
+import com.example.calltrack.DTO.UsageReportDTO;
+import com.example.calltrack.Repository.PaymentDailyRepository;
+import com.example.calltrack.Repository.UsageDailyRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregate reports served from the daily rollups instead of the raw call and payment rows. The
+ * monthly usage report reads months archived out of the database from the archive files.
+ */
+@Service
+public class ReportService {
+    private final UsageDailyRepository usageDailyRepository;
+    private final PaymentDailyRepository paymentDailyRepository;
+    private static final Comparator<MonthlyUsageDTO> BY_MONTH = Comparator.comparing(MonthlyUsageDTO::getMonth)
+            .thenComparing(MonthlyUsageDTO::getNumberId)
+            .thenComparing(MonthlyUsageDTO::getCallType);
+
+    private final RatingCache ratingCache;
+    private final CallPartitionService callPartitionService;
+    private final CdrArchiveService cdrArchiveService;
+
+    public ReportService(UsageDailyRepository usageDailyRepository, PaymentDailyRepository paymentDailyRepository,
+                         RatingCache ratingCache, CallPartitionService callPartitionService,
+                         CdrArchiveService cdrArchiveService) {
+        this.usageDailyRepository = usageDailyRepository;
+        this.paymentDailyRepository = paymentDailyRepository;
+        this.ratingCache = ratingCache;
+        this.callPartitionService = callPartitionService;
+        this.cdrArchiveService = cdrArchiveService;
+    }
+
+    @Transactional(readOnly = true)
+    public List<UsageReportDTO> usageByDay(ReportFilterDTO filter) {
+        if (hasPhone(filter)) {
+            PhoneRatingDTO rating = ratingCache.get(filter.getPhone().trim());
+            return rating == null ? List.of()
+                    : usageDailyRepository.totalsByDay(filter.getClientId(), rating.getNumberId(), filter.getFrom(), filter.getTo());
+        }
+        return usageDailyRepository.totalsByDay(filter.getClientId(), null, filter.getFrom(), filter.getTo());
+    }
+
+    @Transactional(readOnly = true)
+    public List<UsageReportDTO> usageByCallType(ReportFilterDTO filter) {
+        if (hasPhone(filter)) {
+            PhoneRatingDTO rating = ratingCache.get(filter.getPhone().trim());
+            return rating == null ? List.of()
+                    : usageDailyRepository.totalsByCallType(filter.getClientId(), rating.getNumberId(), filter.getFrom(), filter.getTo());
+        }
+        return usageDailyRepository.totalsByCallType(filter.getClientId(), null, filter.getFrom(), filter.getTo());
+    }
+
+    /**
+     * Call totals per number, month and call type. Months exported to the archive files are scanned
+     * there and every other day, including months detached but not exported yet, is read from the
+     * rollups, which survive archiving; archiving is by whole month, so every row comes from exactly
+     * one of them.
+     */
+    @Transactional(readOnly = true)
+    public List<MonthlyUsageDTO> usageByMonth(ReportFilterDTO filter) {
+        Long numberId = null;
+        if (hasPhone(filter)) {
+            PhoneRatingDTO rating = ratingCache.get(filter.getPhone().trim());
+            if (rating == null) {
+                return List.of();
+            }
+            numberId = rating.getNumberId();
+        }
+
+        List<MonthlyUsageDTO> usage = new ArrayList<>();
+        LocalDate from = filter.getFrom();
+        LocalDate to = filter.getTo();
+        List<YearMonth> exported = callPartitionService.exportedMonths();
+        if (!exported.isEmpty()) {
+            // Up to the newest month listed, so a month exported meanwhile is not also read from the rollups
+            LocalDate lastExported = exported.get(exported.size() - 1).atEndOfMonth();
+            usage.addAll(archivedUsage(new CdrArchiveFile.Filter(numberId, filter.getClientId(), from,
+                    to != null && to.isBefore(lastExported) ? to : lastExported)));
+        }
+
+        LocalDate start = from;
+        for (YearMonth month : exported) {
+            LocalDate first = month.atDay(1);
+            if (start == null || start.isBefore(first)) {
+                LocalDate end = first.minusDays(1);
+                usage.addAll(rolledUpUsage(filter.getClientId(), numberId, start, to != null && to.isBefore(end) ? to : end));
+            }
+            LocalDate next = month.plusMonths(1).atDay(1);
+            if (start == null || start.isBefore(next)) {
+                start = next;
+            }
+        }
+        usage.addAll(rolledUpUsage(filter.getClientId(), numberId, start, to));
+        usage.sort(BY_MONTH);
+        return usage;
+    }
+
+    private List<MonthlyUsageDTO> rolledUpUsage(Long clientId, Long numberId, LocalDate from, LocalDate to) {
+        return from != null && to != null && to.isBefore(from) ? List.of()
+                : usageDailyRepository.totalsByMonth(clientId, numberId, from, to);
+    }
+
+    private List<MonthlyUsageDTO> archivedUsage(CdrArchiveFile.Filter filter) {
+        // The archive keeps the client of every call, so a number that changed hands yields one row per client
+        Map<List<Object>, MonthlyUsageDTO> byNumber = new LinkedHashMap<>();
+        for (CdrArchiveFile.Usage row : cdrArchiveService.aggregate(filter, CdrArchiveFile.Grouping.MONTH)) {
+            MonthlyUsageDTO total = byNumber.computeIfAbsent(List.of(row.numberId(), row.period(), row.callType()),
+                    key -> MonthlyUsageDTO.builder()
+                            .numberId(row.numberId())
+                            .month(row.period())
+                            .callType(row.callType())
+                            .cost(CompiledTariff.toAmount(0))
+                            .build());
+            total.setCalls(total.getCalls() + row.calls());
+            total.setDurationMinutes(total.getDurationMinutes() + row.durationMinutes());
+            total.setDurationSeconds(total.getDurationSeconds() + row.durationSeconds());
+            total.setCost(total.getCost().add(CompiledTariff.toAmount(row.cost())));
+        }
+        return new ArrayList<>(byNumber.values());
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentReportDTO> paymentsByDay(ReportFilterDTO filter) {
+        String phone = hasPhone(filter) ? filter.getPhone().trim() : null;
+        return paymentDailyRepository.totalsByDay(filter.getClientId(), phone, filter.getFrom(), filter.getTo());
+    }
+
+    private static boolean hasPhone(ReportFilterDTO filter) {
+        return filter.getPhone() != null && !filter.getPhone().isBlank();
+    }
+}
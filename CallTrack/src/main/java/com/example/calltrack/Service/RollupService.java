@@ -0,0 +1,193 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.RollupRebuildDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.UsageDaily;
+import com.example.calltrack.Entity.UsageDailyId;
+import com.example.calltrack.Repository.RollupRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Maintains the {@code usage_daily} and {@code payment_daily} rollups. Calls and payments add to
+ * their day's totals inside the transaction that records them, so the rollups commit (or roll back)
+ * together with the raw rows. {@link #rebuild} regenerates whole days from history, one day per
+ * task on a bounded pool.
+ */
+@Service
+public class RollupService implements DisposableBean {
+    private static final Comparator<UsageDailyId> KEY_ORDER = Comparator.comparing(UsageDailyId::getNumberId)
+            .thenComparing(UsageDailyId::getUsageDate)
+            .thenComparing(UsageDailyId::getCallType);
+    private static final int MAX_REBUILD_DAYS = 3660;
+
+    private final RollupRepository rollupRepository;
+    private final CallPartitionService callPartitionService;
+    private final CdrArchiveService cdrArchiveService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService rebuildExecutor;
+
+    public RollupService(RollupRepository rollupRepository, CallPartitionService callPartitionService,
+                         CdrArchiveService cdrArchiveService, PlatformTransactionManager transactionManager,
+                         @Value("${calltrack.rollup.rebuild-threads:4}") int rebuildThreads) {
+        this.rollupRepository = rollupRepository;
+        this.callPartitionService = callPartitionService;
+        this.cdrArchiveService = cdrArchiveService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildExecutor = Executors.newFixedThreadPool(rebuildThreads, r -> {
+            Thread thread = new Thread(r, "rollup-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** The rollup contribution of a single call. */
+    public static UsageDaily usageOf(Long clientId, Long numberId, Call call) {
+        int seconds = call.getDurationSeconds() != null ? call.getDurationSeconds() : call.getDurationMinutes() * 60;
+        return UsageDaily.builder()
+                .id(new UsageDailyId(numberId, call.getStartedAt().toLocalDate(),
+                        call.getCallType() == null ? "" : call.getCallType()))
+                .clientId(clientId)
+                .callCount(1)
+                .durationSeconds(seconds)
+                .durationMinutes(call.getDurationMinutes() == null ? 0 : call.getDurationMinutes())
+                .cost(call.getCost() == null ? BigDecimal.ZERO : call.getCost())
+                .build();
+    }
+
+    /**
+     * Adds calls to their daily rows within the current transaction. Contributions to the same row
+     * are merged first and rows are written in key order, so concurrent batches lock rows in the
+     * same sequence.
+     */
+    public void recordUsage(Collection<UsageDaily> usage) {
+        if (usage.isEmpty()) {
+            return;
+        }
+        Map<UsageDailyId, UsageDaily> merged = new TreeMap<>(KEY_ORDER);
+        for (UsageDaily row : usage) {
+            merged.merge(row.getId(), row, (a, b) -> UsageDaily.builder()
+                    .id(a.getId())
+                    .clientId(a.getClientId())
+                    .callCount(a.getCallCount() + b.getCallCount())
+                    .durationSeconds(a.getDurationSeconds() + b.getDurationSeconds())
+                    .durationMinutes(a.getDurationMinutes() + b.getDurationMinutes())
+                    .cost(a.getCost().add(b.getCost()))
+                    .build());
+        }
+        rollupRepository.addUsage(merged.values());
+    }
+
+    public void recordPayment(Long clientId, String phone, LocalDateTime createdAt, BigDecimal amount) {
+        rollupRepository.addPayment(clientId, phone, createdAt.toLocalDate(), amount);
+    }
+
+    /**
+     * Regenerates the rollups of the days {@code from..to} (inclusive) from {@code call_record} and
+     * {@code payment}. Every day is rebuilt in its own transaction in parallel. Calls recorded for a
+     * day while it is being rebuilt may be counted twice, so rebuild closed days. Call rollups of
+     * months exported to the archive files are recomputed from the files instead. Months detached from
+     * {@code call_record} but not exported yet are refused: their rollups are all that is left.
+     */
+    public RollupRebuildDTO rebuild(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid date range");
+        }
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_REBUILD_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Date range is too long");
+        }
+        for (YearMonth month : callPartitionService.unexportedMonths()) {
+            if (!month.atEndOfMonth().isBefore(from) && !month.atDay(1).isAfter(to)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Calls of " + month + " are archived but not exported yet");
+            }
+        }
+
+        long started = System.nanoTime();
+        List<YearMonth> exported = callPartitionService.exportedMonths();
+        long usageRows = 0;
+        for (YearMonth month : exported) {
+            LocalDate first = month.atDay(1);
+            LocalDate last = month.atEndOfMonth();
+            if (!last.isBefore(from) && !first.isAfter(to)) {
+                usageRows += rebuildUsageFromArchive(from.isAfter(first) ? from : first, to.isBefore(last) ? to : last);
+            }
+        }
+
+        List<CompletableFuture<long[]>> tasks = new ArrayList<>(days);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDate current = day;
+            boolean live = !exported.contains(YearMonth.from(current));
+            tasks.add(CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> new long[]{
+                    live ? rollupRepository.rebuildUsage(current, current.plusDays(1)) : 0,
+                    rollupRepository.rebuildPayments(current, current.plusDays(1))
+            }), rebuildExecutor));
+        }
+
+        long paymentRows = 0;
+        try {
+            for (CompletableFuture<long[]> task : tasks) {
+                long[] rows = task.join();
+                usageRows += rows[0];
+                paymentRows += rows[1];
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        return RollupRebuildDTO.builder()
+                .from(from)
+                .to(to)
+                .days(days)
+                .usageRows(usageRows)
+                .paymentRows(paymentRows)
+                .elapsedMillis((System.nanoTime() - started) / 1_000_000)
+                .build();
+    }
+
+    private long rebuildUsageFromArchive(LocalDate from, LocalDate to) {
+        List<UsageDaily> usage = cdrArchiveService.aggregate(new CdrArchiveFile.Filter(null, null, from, to), CdrArchiveFile.Grouping.DAY)
+                .stream()
+                .map(row -> UsageDaily.builder()
+                        .id(new UsageDailyId(row.numberId(), row.period(), row.callType()))
+                        .clientId(row.clientId())
+                        .callCount(row.calls())
+                        .durationSeconds(row.durationSeconds())
+                        .durationMinutes(row.durationMinutes())
+                        .cost(CompiledTariff.toAmount(row.cost()))
+                        .build())
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.deleteUsage(from, to.plusDays(1));
+            recordUsage(usage);
+        });
+        return usage.size();
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CacheStatsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hit ratios of the Hibernate second-level cache regions (entities, natural ids and queries) from
+ * Hibernate's statistics. The same counters are exported as {@code hibernate.second.level.cache.*}
+ * metrics.
+ */
+@Component
+public class SecondLevelCacheStats {
+    private final Statistics statistics;
+
+    public SecondLevelCacheStats(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public List<CacheStatsDTO> getStats() {
+        String[] regions = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+        List<CacheStatsDTO> stats = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            CacheRegionStatistics regionStats = statistics.getCacheRegionStatistics(region);
+            if (regionStats == null) {
+                continue;
+            }
+            long hits = regionStats.getHitCount();
+            long misses = regionStats.getMissCount();
+            stats.add(CacheStatsDTO.builder()
+                    .name("l2:" + region)
+                    .size(Math.max(regionStats.getElementCountInMemory(), 0))
+                    .hits(hits)
+                    .misses(misses)
+                    .hitRate(hits + misses == 0 ? 0 : (double) hits / (hits + misses))
+                    .loads(regionStats.getPutCount())
+                    .build());
+        }
+        return stats;
+    }
+}
@@ -5,16 +5,29 @@ import com.example.calltrack.Repository.TarifRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class TarifService {
 
     private final TarifRepository tarifRepository;
-    public TarifService(TarifRepository tarifRepository) {
+    private final TariffCatalog tariffCatalog;
+    public TarifService(TarifRepository tarifRepository, TariffCatalog tariffCatalog) {
         this.tarifRepository = tarifRepository;
+        this.tariffCatalog = tariffCatalog;
     }
 
     public List<Tarif> findAll() {
-        return tarifRepository.findAll();
+        return tariffCatalog.snapshot().tariffs();
+    }
+
+    /** The catalogue snapshot, whose serialized form and ETag back the tariff endpoint. */
+    public TariffCatalog.Snapshot catalogue() {
+        return tariffCatalog.snapshot();
+    }
+
+    @ReplicaRead
+    public Optional<Tarif> findById(Long tariffId) {
+        return tarifRepository.findById(tariffId);
     }
 }
@@ -0,0 +1,191 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Entity.TarifRate;
+import com.example.calltrack.Repository.TarifRateRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole tariff catalogue as one immutable snapshot: the tariffs, their serialized JSON with a
+ * content hash for HTTP validation, and the compiled rate tables used for rating. The catalogue is
+ * re-read periodically and on {@link #refresh()}; the snapshot is only replaced when the content
+ * hash differs, so readers never see a half-built catalogue and an unchanged catalogue keeps its ETag.
+ * Loads read the table past the second-level cache, and a changed catalogue evicts the cached
+ * {@link Tarif} entities, which are read-only to Hibernate, and tells the other nodes to re-read it.
+ */
+@Component
+public class TariffCatalog implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(TariffCatalog.class);
+
+    /**
+     * Immutable view of the catalogue; {@code etag} is a strong validator of {@code json}. Tariffs
+     * without a price are listed but cannot be compiled, and are kept in {@code unrated}.
+     */
+    public record Snapshot(List<Tarif> tariffs, Map<Long, CompiledTariff> compiled, Set<Long> unrated,
+                           byte[] json, String etag) {
+
+        boolean contains(Long tariffId) {
+            return compiled.containsKey(tariffId) || unrated.contains(tariffId);
+        }
+    }
+
+    private final TarifRepository tarifRepository;
+    private final TarifRateRepository tarifRateRepository;
+    private final ObjectMapper objectMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ClusterInvalidation clusterInvalidation;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration refreshInterval;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "tariff-catalog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Snapshot snapshot;
+
+    public TariffCatalog(TarifRepository tarifRepository, TarifRateRepository tarifRateRepository,
+                         ObjectMapper objectMapper, EntityManagerFactory entityManagerFactory,
+                         ClusterInvalidation clusterInvalidation,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${calltrack.tariffs.refresh-interval:PT1M}") Duration refreshInterval) {
+        this.tarifRepository = tarifRepository;
+        this.tarifRateRepository = tarifRateRepository;
+        this.objectMapper = objectMapper;
+        this.entityManagerFactory = entityManagerFactory;
+        this.clusterInvalidation = clusterInvalidation;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.refreshInterval = refreshInterval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long millis = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Current snapshot, loaded on first use. */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    /** Compiled form of the tariff, or {@code null} if it is in neither the snapshot nor the database. */
+    public CompiledTariff compiled(Long tariffId) {
+        Snapshot current = snapshot();
+        if (current.contains(tariffId)) {
+            return current.compiled().get(tariffId);
+        }
+        // Numbers reference tariffs by foreign key, so a miss means a tariff added since the last load
+        return refresh(tariffId).compiled().get(tariffId);
+    }
+
+    /** Re-reads the catalogue and publishes it if anything changed; returns the current snapshot. */
+    public synchronized Snapshot refresh() {
+        Snapshot loaded = load();
+        Snapshot current = snapshot;
+        if (current == null || !current.etag().equals(loaded.etag())) {
+            snapshot = loaded;
+            if (current != null) {
+                entityManagerFactory.getCache().evict(Tarif.class);
+                clusterInvalidation.tariffsChanged();
+            }
+            log.info("Loaded tariff catalogue {} with {} tariffs", loaded.etag(), loaded.tariffs().size());
+            return loaded;
+        }
+        return current;
+    }
+
+    private synchronized Snapshot refresh(Long tariffId) {
+        // Another thread may have loaded it while this one waited for the lock
+        Snapshot current = snapshot;
+        return current != null && current.contains(tariffId) ? current : refresh();
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Tariff catalogue refresh failed, keeping the previous snapshot", e);
+        }
+    }
+
+    private Snapshot load() {
+        return readOnlyTransaction.execute(status -> {
+            List<Tarif> tariffs = new ArrayList<>(tarifRepository.findAllFromTable());
+            tariffs.sort(Comparator.comparing(Tarif::getTariffId));
+            Map<Long, List<TarifRate>> rates = new HashMap<>();
+            List<TarifRate> allRates = new ArrayList<>(tarifRateRepository.findAll());
+            allRates.sort(Comparator.comparing(TarifRate::getRateId));
+            for (TarifRate rate : allRates) {
+                rates.computeIfAbsent(rate.getTarif().getTariffId(), id -> new ArrayList<>()).add(rate);
+            }
+
+            Map<Long, CompiledTariff> compiled = new HashMap<>();
+            Set<Long> unrated = new HashSet<>();
+            for (Tarif tarif : tariffs) {
+                List<TarifRate> tariffRates = rates.getOrDefault(tarif.getTariffId(), List.of());
+                if (tarif.getPricePerMinute() == null) {
+                    unrated.add(tarif.getTariffId());
+                } else {
+                    compiled.put(tarif.getTariffId(), CompiledTariff.compile(tarif, tariffRates));
+                }
+            }
+
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(tariffs);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Cannot serialize the tariff catalogue", e);
+            }
+            return new Snapshot(List.copyOf(tariffs), Map.copyOf(compiled), Set.copyOf(unrated), json, digest(json, allRates));
+        });
+    }
+
+    /** Hash of the published JSON and of the call-type rates, which only the rating path sees. */
+    private static String digest(byte[] json, List<TarifRate> rates) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(json);
+            for (TarifRate rate : rates) {
+                sha.update((rate.getTarif().getTariffId() + "|" + rate.getCallType() + "|" + rate.getPricePerMinute()
+                        + "|" + rate.getOffPeakPricePerMinute() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(sha.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
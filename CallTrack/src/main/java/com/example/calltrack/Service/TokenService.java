@@ -0,0 +1,106 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.TokenClaimsDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Stateless session tokens: {@code base64url(clientId:status:expiresAt).base64url(HMAC-SHA256)}.
+ * Verifying one is a single HMAC over a few dozen bytes, with no database lookup and no BCrypt.
+ * The secret ({@code calltrack.auth.token-secret}) must be set, and be the same on every node: a
+ * token issued by one node is presented to any other, and must survive restarts.
+ */
+@Component
+public class TokenService {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public TokenService(@Value("${calltrack.auth.token-secret:}") String secret,
+                        @Value("${calltrack.auth.token-ttl:PT12H}") Duration ttl) {
+        this(secret, ttl, Clock.systemUTC());
+    }
+
+    TokenService(String secret, Duration ttl, Clock clock) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("calltrack.auth.token-secret (CALLTRACK_TOKEN_SECRET) is not set; "
+                    + "every node needs the same secret to verify the tokens the others issue");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public TokenClaimsDTO newClaims(Long clientId, String status) {
+        return new TokenClaimsDTO(clientId, status, clock.instant().plus(ttl));
+    }
+
+    public String issue(TokenClaimsDTO claims) {
+        String payload = claims.getClientId() + ":" + (claims.getStatus() == null ? "" : claims.getStatus())
+                + ":" + claims.getExpiresAt().getEpochSecond();
+        String encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + ENCODER.encodeToString(sign(encoded));
+    }
+
+    /** The claims of a token with a valid signature that has not expired. */
+    public Optional<TokenClaimsDTO> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+        try {
+            String encoded = token.substring(0, dot);
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(encoded))) {
+                return Optional.empty();
+            }
+            String[] parts = new String(DECODER.decode(encoded), StandardCharsets.UTF_8).split(":", -1);
+            if (parts.length != 3) {
+                return Optional.empty();
+            }
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(parts[2]));
+            if (!clock.instant().isBefore(expiresAt)) {
+                return Optional.empty();
+            }
+            return Optional.of(new TokenClaimsDTO(Long.parseLong(parts[0]), parts[1].isEmpty() ? null : parts[1], expiresAt));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String encodedPayload) {
+        return macs.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+}
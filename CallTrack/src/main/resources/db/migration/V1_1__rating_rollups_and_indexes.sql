@@ -0,0 +1,81 @@
+-- Everything added on top of the V1 schema before call_record was partitioned: query indexes,
+-- per-call-type and peak tariff pricing, durations in seconds, sequence-allocated call ids, the daily
+-- usage and payment rollups and the charge journal flush log. The rollups are filled from the calls
+-- and payments already recorded, so reports cover the history of an upgraded database.
+
+-- Call ids are allocated 50 at a time from a sequence rather than one by one from an identity column
+ALTER TABLE call_record ALTER COLUMN call_id DROP IDENTITY;
+CREATE SEQUENCE call_record_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('call_record_seq', GREATEST(1, COALESCE((SELECT max(call_id) FROM call_record), 0)));
+
+-- Null for calls recorded before; readers fall back to duration_minutes
+ALTER TABLE call_record ADD COLUMN duration_seconds integer;
+
+ALTER TABLE tariff ADD COLUMN off_peak_price_per_minute numeric(38, 2);
+ALTER TABLE tariff ADD COLUMN peak_start time(6);
+ALTER TABLE tariff ADD COLUMN peak_end time(6);
+ALTER TABLE tariff ADD COLUMN billing_increment_seconds integer;
+
+CREATE TABLE tariff_rate (
+    rate_id                   bigint GENERATED BY DEFAULT AS IDENTITY,
+    tariff_id                 bigint NOT NULL,
+    call_type                 varchar(255) NOT NULL,
+    price_per_minute          numeric(38, 2) NOT NULL,
+    off_peak_price_per_minute numeric(38, 2),
+    PRIMARY KEY (rate_id),
+    UNIQUE (tariff_id, call_type)
+);
+
+CREATE TABLE usage_daily (
+    number_id        bigint NOT NULL,
+    usage_date       date NOT NULL,
+    call_type        varchar(255) NOT NULL,
+    client_id        bigint NOT NULL,
+    call_count       bigint NOT NULL,
+    duration_seconds bigint NOT NULL,
+    duration_minutes bigint NOT NULL,
+    cost             numeric(38, 2) NOT NULL,
+    PRIMARY KEY (usage_date, number_id, call_type)
+);
+
+CREATE TABLE payment_daily (
+    client_id     bigint NOT NULL,
+    phone         varchar(255) NOT NULL,
+    payment_date  date NOT NULL,
+    payment_count bigint NOT NULL,
+    amount        numeric(38, 2) NOT NULL,
+    PRIMARY KEY (payment_date, client_id, phone)
+);
+
+CREATE TABLE charge_flush (
+    segment    varchar(100) NOT NULL,
+    flushed_at timestamp(6) NOT NULL,
+    PRIMARY KEY (segment)
+);
+
+ALTER TABLE tariff_rate ADD CONSTRAINT fk_tariff_rate_tariff FOREIGN KEY (tariff_id) REFERENCES tariff;
+
+-- The call_record indexes are created by V2, which rebuilds the table
+CREATE INDEX idx_client_balance ON client (balance, client_id);
+CREATE INDEX idx_payment_created_at ON payment (created_at, payment_id);
+CREATE INDEX idx_payment_client_created_at ON payment (client_id, created_at);
+
+-- Same rows as RollupService.rebuild over the whole history
+INSERT INTO usage_daily (number_id, usage_date, call_type, client_id, call_count, duration_seconds, duration_minutes, cost)
+SELECT c.number_id, CAST(c.started_at AS DATE), COALESCE(c.call_type, ''), p.client_id, COUNT(*),
+       SUM(COALESCE(c.duration_seconds, c.duration_minutes * 60, 0)),
+       SUM(COALESCE(c.duration_minutes, 0)),
+       SUM(COALESCE(c.cost, 0))
+FROM call_record c
+JOIN phone_number p ON p.number_id = c.number_id
+WHERE c.started_at IS NOT NULL
+GROUP BY c.number_id, CAST(c.started_at AS DATE), COALESCE(c.call_type, ''), p.client_id;
+
+INSERT INTO payment_daily (client_id, phone, payment_date, payment_count, amount)
+SELECT client_id, phone_number, CAST(created_at AS DATE), COUNT(*), SUM(amount)
+FROM payment
+GROUP BY client_id, phone_number, CAST(created_at AS DATE);
+
+CREATE INDEX idx_payment_daily_date ON payment_daily (payment_date);
+CREATE INDEX idx_usage_daily_client_date ON usage_daily (client_id, usage_date);
+CREATE INDEX idx_usage_daily_date ON usage_daily (usage_date);
@@ -0,0 +1,71 @@
+-- Schema as created by ddl-auto=update before migrations were introduced, with the names Hibernate
+-- generated for its constraints. Existing databases are baselined at this version; later additions
+-- are in V1_1 onwards.
+
+CREATE TABLE client (
+    client_id              bigint GENERATED BY DEFAULT AS IDENTITY,
+    allowed_credit_minutes integer,
+    balance                numeric(38, 2),
+    birth_date             date,
+    created_at             timestamp(6),
+    email                  varchar(255),
+    full_name              varchar(255) NOT NULL,
+    password               varchar(255),
+    status                 varchar(255),
+    PRIMARY KEY (client_id)
+);
+
+CREATE TABLE tariff (
+    tariff_id        bigint GENERATED BY DEFAULT AS IDENTITY,
+    currency         varchar(255),
+    end_date         varchar(255),
+    price_per_minute numeric(38, 2),
+    start_date       varchar(255),
+    tariff_name      varchar(255),
+    tariff_type      varchar(255),
+    PRIMARY KEY (tariff_id)
+);
+
+CREATE TABLE phone_number (
+    number_id      bigint GENERATED BY DEFAULT AS IDENTITY,
+    activated_at   timestamp(6),
+    is_primary     boolean,
+    number_balance numeric(38, 2),
+    number_name    varchar(255),
+    phone          varchar(255) NOT NULL,
+    client_id      bigint NOT NULL,
+    tarif_id       bigint,
+    PRIMARY KEY (number_id)
+);
+
+CREATE TABLE call_record (
+    call_id          bigint GENERATED BY DEFAULT AS IDENTITY,
+    call_type        varchar(255),
+    cost             numeric(38, 2),
+    duration_minutes integer,
+    started_at       timestamp(6),
+    number_id        bigint NOT NULL,
+    tariff_id        bigint,
+    PRIMARY KEY (call_id)
+);
+
+CREATE TABLE payment (
+    payment_id     bigint GENERATED BY DEFAULT AS IDENTITY,
+    amount         numeric(38, 2) NOT NULL,
+    balance_after  numeric(38, 2),
+    created_at     timestamp(6) NOT NULL,
+    payment_method varchar(255),
+    phone_number   varchar(255) NOT NULL,
+    client_id      bigint NOT NULL,
+    PRIMARY KEY (payment_id)
+);
+
+ALTER TABLE client ADD CONSTRAINT UKbfgjs3fem0hmjhvih80158x29 UNIQUE (email);
+ALTER TABLE client ADD CONSTRAINT UK3o4oeusb8krdo2xcs2ln87hey UNIQUE (password);
+ALTER TABLE phone_number ADD CONSTRAINT UKrkvmwwiro3ax74f20olt0u6n1 UNIQUE (phone);
+
+ALTER TABLE call_record ADD CONSTRAINT FK9mupll2qy8rrfh5rllve3pvdt FOREIGN KEY (number_id) REFERENCES phone_number;
+ALTER TABLE call_record ADD CONSTRAINT FKpdtw53xvkmykhmvxjjtpk5jwb FOREIGN KEY (tariff_id) REFERENCES tariff;
+ALTER TABLE payment ADD CONSTRAINT FK3fpanu7q9tijfio491vu0fd0r FOREIGN KEY (client_id) REFERENCES client;
+ALTER TABLE phone_number ADD CONSTRAINT FKkidesb3pyab44og7c42blvxbg FOREIGN KEY (client_id) REFERENCES client;
+ALTER TABLE phone_number ADD CONSTRAINT FK2lcjeniktl2mfdwc47anjvscm FOREIGN KEY (tarif_id) REFERENCES tariff;
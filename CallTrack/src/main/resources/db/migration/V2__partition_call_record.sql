@@ -0,0 +1,64 @@
+-- call_record becomes a table range-partitioned by month of started_at (partitions call_record_pYYYYMM).
+-- Later months are created ahead of time and expired months detached into call_archive by
+-- CallPartitionService; rows outside every monthly partition land in call_record_default.
+--
+-- The calls are copied in the migration's single transaction, and call_record is locked against
+-- writes from the copy until the commit (about 12 s per million calls on a local PostgreSQL 16).
+-- Stop call ingestion for the upgrade to this version.
+
+CREATE SCHEMA IF NOT EXISTS call_archive;
+
+CREATE TABLE call_record_new (
+    call_id          bigint NOT NULL,
+    number_id        bigint NOT NULL,
+    started_at       timestamp(6) NOT NULL,
+    call_type        varchar(255),
+    tariff_id        bigint,
+    cost             numeric(38, 2),
+    duration_minutes integer,
+    duration_seconds integer
+) PARTITION BY RANGE (started_at);
+
+CREATE TABLE call_record_default PARTITION OF call_record_new DEFAULT;
+
+-- One partition per month from the oldest recorded call through three months ahead
+DO $$
+DECLARE
+    month date := date_trunc('month', LEAST(COALESCE((SELECT min(started_at) FROM call_record), now()), now()));
+    last  date := date_trunc('month', GREATEST(COALESCE((SELECT max(started_at) FROM call_record), now()), now()))
+                  + interval '3 months';
+BEGIN
+    WHILE month <= last LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF call_record_new FOR VALUES FROM (%L) TO (%L)',
+                       'call_record_p' || to_char(month, 'YYYYMM'), month, (month + interval '1 month')::date);
+        month := (month + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO call_record_new (call_id, number_id, started_at, call_type, tariff_id, cost, duration_minutes, duration_seconds)
+SELECT call_id, number_id, started_at, call_type, tariff_id, cost, duration_minutes, duration_seconds
+FROM call_record
+WHERE started_at IS NOT NULL;
+
+-- Calls without a start time cannot be placed in a partition; keep them aside instead of dropping them
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM call_record WHERE started_at IS NULL) THEN
+        CREATE TABLE call_archive.call_record_undated AS SELECT * FROM call_record WHERE started_at IS NULL;
+    END IF;
+END $$;
+
+DROP TABLE call_record;
+ALTER TABLE call_record_new RENAME TO call_record;
+
+-- The partition key has to be part of the primary key
+ALTER TABLE call_record ADD CONSTRAINT call_record_pkey PRIMARY KEY (call_id, started_at);
+CREATE INDEX idx_call_record_started_at ON call_record (started_at DESC, call_id DESC);
+CREATE INDEX idx_call_record_number_started_at ON call_record (number_id, started_at DESC, call_id DESC);
+CREATE INDEX idx_call_record_type_started_at ON call_record (call_type, started_at DESC, call_id DESC);
+ALTER TABLE call_record ADD CONSTRAINT fk_call_record_number FOREIGN KEY (number_id) REFERENCES phone_number;
+ALTER TABLE call_record ADD CONSTRAINT fk_call_record_tariff FOREIGN KEY (tariff_id) REFERENCES tariff;
+
+-- Identifiers must stay unique across partitions, which the primary key no longer enforces on its own
+SELECT setval('call_record_seq', GREATEST((SELECT last_value FROM call_record_seq),
+                                          COALESCE((SELECT max(call_id) FROM call_record), 0)));
@@ -0,0 +1,49 @@
+-- Monthly billing cycles. A cycle splits the client ids into partitions that are billed in parallel;
+-- each partition keeps the next client id to bill, committed together with the invoices before it,
+-- so an interrupted cycle resumes where every partition stopped.
+
+CREATE TABLE billing_cycle (
+    cycle_id     bigint GENERATED BY DEFAULT AS IDENTITY,
+    period_start date NOT NULL,
+    period_end   date NOT NULL,
+    partitions   integer NOT NULL,
+    started_at   timestamp(6) NOT NULL,
+    completed_at timestamp(6),
+    PRIMARY KEY (cycle_id),
+    CONSTRAINT uk_billing_cycle_period UNIQUE (period_start)
+);
+
+CREATE TABLE billing_partition (
+    cycle_id        bigint NOT NULL,
+    partition_no    integer NOT NULL,
+    first_client_id bigint NOT NULL,
+    last_client_id  bigint NOT NULL,
+    next_client_id  bigint NOT NULL,
+    invoices        bigint NOT NULL,
+    completed_at    timestamp(6),
+    PRIMARY KEY (cycle_id, partition_no)
+);
+
+CREATE TABLE invoice (
+    invoice_id      bigint GENERATED BY DEFAULT AS IDENTITY,
+    cycle_id        bigint NOT NULL,
+    client_id       bigint NOT NULL,
+    period_start    date NOT NULL,
+    period_end      date NOT NULL,
+    opening_balance numeric(38, 2) NOT NULL,
+    charges         numeric(38, 2) NOT NULL,
+    payments        numeric(38, 2) NOT NULL,
+    closing_balance numeric(38, 2) NOT NULL,
+    call_count      bigint NOT NULL,
+    issued_at       timestamp(6) NOT NULL,
+    PRIMARY KEY (invoice_id),
+    CONSTRAINT uk_invoice_cycle_client UNIQUE (cycle_id, client_id)
+);
+
+CREATE INDEX idx_invoice_client ON invoice (client_id, period_start);
+-- Per-client range scans of the billing job; usage_daily already has (client_id, usage_date)
+CREATE INDEX idx_payment_daily_client_date ON payment_daily (client_id, payment_date);
+
+ALTER TABLE billing_partition ADD CONSTRAINT fk_billing_partition_cycle FOREIGN KEY (cycle_id) REFERENCES billing_cycle;
+ALTER TABLE invoice ADD CONSTRAINT fk_invoice_cycle FOREIGN KEY (cycle_id) REFERENCES billing_cycle;
+ALTER TABLE invoice ADD CONSTRAINT fk_invoice_client FOREIGN KEY (client_id) REFERENCES client;
@@ -0,0 +1,2 @@
+-- Numbers of a client in client_id order: the reconciliation scan and the per-client number lists
+CREATE INDEX idx_phone_number_client ON phone_number (client_id);
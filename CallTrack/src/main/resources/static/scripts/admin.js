@@ -33,8 +33,8 @@
             const payload = {
                 phoneNumber: formData.get("msisdn"),
                 callType: formData.get("type"),
-                durationMinutes: parseInt(formData.get("duration")),
-                startDate: formData.get("timestamp").split("T")[0],
+                durationSeconds: Math.round(parseFloat(formData.get("duration")) * 60),
+                startedAt: formData.get("timestamp"),
                 comment: formData.get("note")
             };
         
@@ -65,7 +65,7 @@
     
         const tr = document.createElement("tr");
         tr.innerHTML = `
-            <td>${call.phoneNumber.phone ?? "-"}</td>
+            <td>${call.phoneNumber?.phone ?? call.phoneNumber ?? "-"}</td>
             <td>${call.callType ?? call.type ?? "-"}</td>
             <td>${call.durationMinutes ?? "-"}</td>
             <td>${call.cost ?? "-"}</td>
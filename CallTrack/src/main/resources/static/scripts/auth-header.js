@@ -1,6 +1,22 @@
 (() => {
     const STORAGE_KEYS = ['clientId', 'clientData', 'clientEmail', 'authToken'];
 
+    // Токен входа прикладывается к запросам к API, чтобы сервер узнавал клиента без повторного входа
+    const nativeFetch = window.fetch.bind(window);
+    window.fetch = (input, init = {}) => {
+        const token = localStorage.getItem('authToken');
+        const url = typeof input === 'string' ? input : input.url;
+        if (!token || !url.startsWith('/api/')) {
+            return nativeFetch(input, init);
+        }
+
+        const headers = new Headers(init.headers || (typeof input === 'string' ? undefined : input.headers));
+        if (!headers.has('Authorization')) {
+            headers.set('Authorization', `Bearer ${token}`);
+        }
+        return nativeFetch(input, { ...init, headers });
+    };
+
     function initAuthHeader() {
         const navRight = document.querySelector('.site-header .nav .right');
         if (!navRight) {
@@ -40,6 +40,40 @@ class DashboardManager {
         this.setupEventListeners();
         this.bindModalEvents();
         this.loadDashboardData();
+        this.subscribeToEvents();
+    }
+
+    subscribeToEvents() {
+        // Баланс и задолженность приходят с сервера (SSE), без периодических запросов
+        if (!window.EventSource) {
+            return;
+        }
+
+        this.events = new EventSource(`/api/v1/clients/${this.clientId}/events`);
+        this.events.addEventListener('balance', (event) => {
+            const data = JSON.parse(event.data);
+            if (this.userData) {
+                this.userData.balance = data.balance;
+                localStorage.setItem('clientData', JSON.stringify(this.userData));
+                this.renderUserData();
+            }
+            this.syncDebtModal(data);
+        });
+        // При обрыве EventSource переподключается сам и получает текущий баланс первым событием
+    }
+
+    syncDebtModal(data) {
+        if (!this.debtModal) {
+            return;
+        }
+        const hidden = this.debtModal.classList.contains('hidden');
+        if (data.inDebt && hidden) {
+            this.currentDebt = data;
+            this.showDebtModal(data.debt);
+        } else if (!data.inDebt && !hidden) {
+            this.currentDebt = null;
+            this.debtModal.classList.add('hidden');
+        }
     }
 
     getClientDataFromStorage() {
@@ -119,7 +153,14 @@ class DashboardManager {
 
     async loadDashboardData() {
         try {
-            // Сначала проверяем задолженность
+            // Вся сводка клиента одним запросом
+            const summary = await this.loadSummary();
+            if (summary) {
+                this.applySummary(summary);
+                return;
+            }
+
+            // Сводка недоступна - собираем данные отдельными запросами
             await this.checkDebt();
             
             // Загружаем данные параллельно
@@ -134,6 +175,46 @@ class DashboardManager {
         }
     }
 
+    async loadSummary() {
+        const clientId = this.clientId || this.clientData?.clientId;
+        if (!clientId) {
+            return null;
+        }
+
+        try {
+            const response = await fetch(`/api/v1/clients/${clientId}/summary`, {
+                method: 'GET',
+                headers: { 'Content-Type': 'application/json' }
+            });
+            return response.ok ? await response.json() : null;
+        } catch (error) {
+            console.error('Ошибка загрузки сводки клиента:', error);
+            return null;
+        }
+    }
+
+    applySummary(summary) {
+        this.userData = {
+            id: summary.clientId,
+            clientId: summary.clientId,
+            fullName: summary.fullName,
+            email: summary.email,
+            balance: summary.balance || 0,
+            status: summary.status
+        };
+        localStorage.setItem('clientData', JSON.stringify(this.userData));
+        this.renderUserData();
+        this.renderPhoneNumbers(summary.numbers || []);
+        this.renderTransactions((summary.recentPayments || []).map(t => this.formatTransaction(t)));
+
+        if (summary.debt > 0) {
+            this.currentDebt = summary;
+            this.showDebtModal(summary.debt);
+        } else if (this.debtModal) {
+            this.debtModal.classList.add('hidden');
+        }
+    }
+
     async checkDebt() {
         try {
             const clientId = this.clientId || this.clientData?.clientId;
@@ -1013,6 +1094,9 @@ class DashboardManager {
     }
 
     handleLogout() {
+        if (this.events) {
+            this.events.close();
+        }
         localStorage.removeItem('clientId');
         localStorage.removeItem('clientData');
         localStorage.removeItem('clientEmail');
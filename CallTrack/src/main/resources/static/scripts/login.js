@@ -136,6 +136,9 @@ class LoginManager {
                 if (response.client) {
                     localStorage.setItem('clientId', response.client.clientId);
                     localStorage.setItem('clientData', JSON.stringify(response.client));
+                    if (response.token) {
+                        localStorage.setItem('authToken', response.token);
+                    }
                     if (response.client.email) {
                         localStorage.setItem('clientEmail', response.client.email);
                     }
@@ -220,6 +223,8 @@ class LoginManager {
                     errorMessage = responseData.message || responseData.error || 'Некорректные данные. Проверьте формат введенных данных (используйте email).';
                 } else if (response.status === 404) {
                     errorMessage = 'Endpoint не найден. Проверьте конфигурацию сервера. Убедитесь, что endpoint /api/v1/auth/login или /login существует.';
+                } else if (response.status === 503) {
+                    errorMessage = 'Сервер перегружен. Повторите вход через несколько секунд.';
                 } else if (response.status === 500) {
                     errorMessage = 'Ошибка сервера. Попробуйте позже.';
                 } else {
@@ -240,6 +245,7 @@ class LoginManager {
                             balance: responseData.balance,
                             status: responseData.status
                         },
+                        token: responseData.token,
                         message: 'Вход выполнен успешно'
                     };
                 } else if (responseData && Object.keys(responseData).length > 0) {
@@ -268,6 +274,7 @@ class LoginManager {
                             balance: responseData.balance,
                             status: responseData.status
                         },
+                        token: responseData.token,
                         message: 'Вход выполнен успешно'
                     };
                 }
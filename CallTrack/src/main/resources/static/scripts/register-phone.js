@@ -130,6 +130,7 @@ class PhoneRegistrationManager {
             phone: formattedNumber,
             numberName: this.phoneNameInput.value.trim() || null,
             clientId: this.clientId,
+            tariffId: this.tariffSelect.value ? Number(this.tariffSelect.value) : null,
         };
 
         const response = await fetch('/api/v1/registerNewPhone', {
@@ -0,0 +1,79 @@
+class DebtorsReportManager {
+    constructor() {
+        this.page = 0;
+        this.pageSize = 20;
+
+        this.tableBody = document.getElementById('debtorsTableBody');
+        this.minDebtInput = document.getElementById('minDebt');
+        this.prevBtn = document.getElementById('prevPage');
+        this.nextBtn = document.getElementById('nextPage');
+
+        this.init();
+    }
+
+    init() {
+        this.minDebtInput.addEventListener('change', () => {
+            this.page = 0;
+            this.loadPage();
+        });
+
+        this.prevBtn.addEventListener('click', () => {
+            if (this.page > 0) {
+                this.page--;
+                this.loadPage();
+            }
+        });
+
+        this.nextBtn.addEventListener('click', () => {
+            this.page++;
+            this.loadPage();
+        });
+
+        this.loadPage();
+    }
+
+    async loadPage() {
+        const params = new URLSearchParams({ page: this.page, size: this.pageSize });
+        const minDebt = this.minDebtInput.value;
+        if (minDebt) params.set('minDebt', minDebt);
+
+        let debtors = [];
+        try {
+            // Список уже отсортирован сервером по сумме долга
+            const response = await fetch(`/api/v1/clients/debts?${params.toString()}`);
+            if (!response.ok) {
+                throw new Error('Не удалось загрузить должников');
+            }
+            debtors = await response.json();
+            this.renderDebtors(debtors);
+        } catch (error) {
+            console.error('Ошибка загрузки должников:', error);
+            this.renderMessage('Не удалось загрузить должников');
+        }
+
+        this.prevBtn.disabled = this.page === 0;
+        this.nextBtn.disabled = debtors.length < this.pageSize;
+    }
+
+    renderDebtors(debtors) {
+        if (!debtors.length) {
+            this.renderMessage('Должников нет');
+            return;
+        }
+
+        this.tableBody.innerHTML = debtors.map(debtor => `
+            <tr>
+                <td>${debtor.fullName ?? debtor.email ?? debtor.clientId}</td>
+                <td>${Number(debtor.debt).toFixed(2)}</td>
+                <td>${debtor.allowedCreditMinutes ?? 0}</td>
+                <td><button class="action-button">Отправить уведомление</button></td>
+            </tr>
+        `).join('');
+    }
+
+    renderMessage(message) {
+        this.tableBody.innerHTML = `<tr><td colspan="4">${message}</td></tr>`;
+    }
+}
+
+document.addEventListener('DOMContentLoaded', () => new DebtorsReportManager());
@@ -0,0 +1,157 @@
+class ReportsCallsManager {
+    constructor() {
+        this.pageSize = 20;
+        this.cursors = [null]; // Курсор каждой открытой страницы, последний — текущая
+        this.nextCursor = null;
+
+        this.tableBody = document.getElementById('callsTableBody');
+        this.summary = document.getElementById('callsSummary');
+        this.prevBtn = document.getElementById('prevPage');
+        this.nextBtn = document.getElementById('nextPage');
+
+        this.init();
+    }
+
+    init() {
+        ['phoneFilter', 'dateFilter', 'typeFilter'].forEach(id => {
+            document.getElementById(id).addEventListener('change', () => this.reset());
+        });
+
+        this.prevBtn.addEventListener('click', () => {
+            if (this.cursors.length > 1) {
+                this.cursors.pop();
+                this.loadPage();
+            }
+        });
+
+        this.nextBtn.addEventListener('click', () => {
+            if (this.nextCursor) {
+                this.cursors.push(this.nextCursor);
+                this.loadPage();
+            }
+        });
+
+        document.getElementById('exportCsv').addEventListener('click', () => this.exportCsv());
+
+        this.loadPage();
+        this.loadSummary();
+    }
+
+    exportCsv() {
+        // Выгрузка идёт потоком с сервера по тем же фильтрам, без курсора и лимита
+        const params = new URLSearchParams(this.buildQuery());
+        params.delete('cursor');
+        params.delete('limit');
+        params.set('format', 'csv');
+        window.location.href = `/api/v1/calls/export?${params.toString()}`;
+    }
+
+    reset() {
+        this.cursors = [null];
+        this.loadPage();
+        this.loadSummary();
+    }
+
+    async loadSummary() {
+        // Итоги за период берутся из суточных агрегатов, а не суммируются по строкам звонков
+        const params = new URLSearchParams(this.buildQuery());
+        ['cursor', 'limit', 'callType'].forEach(key => params.delete(key));
+        const callType = document.getElementById('typeFilter').value;
+
+        try {
+            const response = await fetch(`/api/v1/reports/usage/call-types?${params.toString()}`);
+            if (!response.ok) {
+                throw new Error('Не удалось загрузить итоги');
+            }
+
+            const rows = (await response.json()).filter(row => !callType || row.callType === callType);
+            const total = rows.reduce((sum, row) => ({
+                calls: sum.calls + row.calls,
+                minutes: sum.minutes + row.durationMinutes,
+                cost: sum.cost + Number(row.cost)
+            }), { calls: 0, minutes: 0, cost: 0 });
+
+            this.summary.textContent =
+                `Итого: ${total.calls} звонков, ${total.minutes} мин, ${total.cost.toFixed(2)} руб`;
+        } catch (error) {
+            console.error('Ошибка загрузки итогов:', error);
+            this.summary.textContent = '';
+        }
+    }
+
+    buildQuery() {
+        const params = new URLSearchParams({ limit: this.pageSize });
+
+        const phone = document.getElementById('phoneFilter').value.trim();
+        if (phone) params.set('phone', phone);
+
+        const callType = document.getElementById('typeFilter').value;
+        if (callType) params.set('callType', callType);
+
+        const month = document.getElementById('dateFilter').value;
+        if (month) {
+            const [year, m] = month.split('-').map(Number);
+            const lastDay = new Date(year, m, 0).getDate();
+            params.set('from', `${month}-01`);
+            params.set('to', `${month}-${String(lastDay).padStart(2, '0')}`);
+        }
+
+        const cursor = this.cursors[this.cursors.length - 1];
+        if (cursor) params.set('cursor', cursor);
+
+        return params.toString();
+    }
+
+    async loadPage() {
+        try {
+            // Сервер отдаёт только текущую страницу, курсор следующей приходит в заголовке
+            const response = await fetch(`/api/v1/calls?${this.buildQuery()}`);
+            if (!response.ok) {
+                throw new Error('Не удалось загрузить звонки');
+            }
+
+            this.nextCursor = response.headers.get('X-Next-Cursor');
+            // 204: звонков по фильтру нет
+            this.renderCalls(response.status === 204 ? [] : await response.json());
+        } catch (error) {
+            console.error('Ошибка загрузки звонков:', error);
+            this.nextCursor = null;
+            this.renderMessage('Не удалось загрузить звонки');
+        }
+
+        this.prevBtn.disabled = this.cursors.length <= 1;
+        this.nextBtn.disabled = !this.nextCursor;
+    }
+
+    renderCalls(calls) {
+        if (!calls.length) {
+            this.renderMessage('Звонков нет');
+            return;
+        }
+
+        this.tableBody.innerHTML = calls.map(call => `
+            <tr>
+                <td>${this.formatDate(call.startedAt)}</td>
+                <td>${this.formatType(call.callType)}</td>
+                <td>${call.durationMinutes ?? '-'}</td>
+                <td>${call.cost != null ? Number(call.cost).toFixed(2) : '-'}</td>
+            </tr>
+        `).join('');
+    }
+
+    renderMessage(message) {
+        this.tableBody.innerHTML = `<tr><td colspan="4">${message}</td></tr>`;
+    }
+
+    formatDate(dateString) {
+        if (!dateString) return '-';
+        return new Date(dateString).toLocaleDateString('ru-RU');
+    }
+
+    formatType(type) {
+        const types = { local: 'Местный', international: 'Международный' };
+        return types[type] || type || '-';
+    }
+}
+
+document.addEventListener('DOMContentLoaded', () => new ReportsCallsManager());
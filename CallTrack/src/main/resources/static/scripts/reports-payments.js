@@ -46,68 +46,18 @@ class ReportsPaymentsManager {
         }
     }
 
-    async exportReports() {
-        try {
-            // Используем отфильтрованные транзакции для экспорта
-            if (this.filteredTransactions.length === 0) {
-                this.showError('Нет данных для экспорта');
-                return;
-            }
+    exportReports() {
+        // Выгрузка формируется сервером потоком по текущим фильтрам
+        const clientId = this.clientId || this.clientData?.clientId;
+        const params = new URLSearchParams({ format: 'csv', clientId });
 
-            // Форматируем транзакции для экспорта
-            const transactions = this.filteredTransactions.map(t => this.formatTransaction(t));
-            
-            // Формируем CSV
-            this.exportToCSV(transactions);
-        } catch (error) {
-            console.error('Ошибка экспорта:', error);
-            this.showError('Не удалось экспортировать отчеты');
+        if (this.filters.dateFrom) params.set('from', this.filters.dateFrom);
+        if (this.filters.dateTo) params.set('to', this.filters.dateTo);
+        if (this.filters.phoneFilter && this.filters.phoneFilter.trim()) {
+            params.set('phone', this.filters.phoneFilter.trim());
         }
-    }
 
-    exportToCSV(transactions) {
-        // Заголовки CSV
-        const headers = ['Номер телефона', 'Дата операции', 'Сумма', 'Способ оплаты'];
-        
-        // Формируем строки данных
-        const rows = transactions.map(t => {
-            const transaction = this.formatTransaction(t);
-            return [
-                transaction.phone_number,
-                transaction.date,
-                transaction.amount.toFixed(2),
-                transaction.paymentMethod
-            ];
-        });
-
-        // Создаем CSV содержимое
-        const csvContent = [
-            headers.join(','),
-            ...rows.map(row => row.map(cell => `"${String(cell).replace(/"/g, '""')}"`).join(','))
-        ].join('\n');
-
-        // Добавляем BOM для корректного отображения кириллицы в Excel
-        const BOM = '\uFEFF';
-        const blob = new Blob([BOM + csvContent], { type: 'text/csv;charset=utf-8;' });
-        
-        // Создаем ссылку для скачивания
-        const link = document.createElement('a');
-        const url = URL.createObjectURL(blob);
-        link.setAttribute('href', url);
-        
-        // Формируем имя файла с датой
-        const today = new Date().toISOString().split('T')[0];
-        const dateFrom = this.filters.dateFrom ? this.filters.dateFrom.replace(/-/g, '') : 'all';
-        const dateTo = this.filters.dateTo ? this.filters.dateTo.replace(/-/g, '') : 'all';
-        const fileName = `payments_report_${dateFrom}_${dateTo}_${today}.csv`;
-        link.setAttribute('download', fileName);
-        
-        link.style.visibility = 'hidden';
-        document.body.appendChild(link);
-        link.click();
-        document.body.removeChild(link);
-        
-        URL.revokeObjectURL(url);
+        window.location.href = `/api/v1/payments/export?${params.toString()}`;
     }
 
     handleLogout() {
@@ -0,0 +1,139 @@
+package com.example.calltrack.Config;
+
+import com.example.calltrack.Service.ReadYourWrites;
+import com.example.calltrack.Service.ReplicaRead;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Routing over two in-memory databases that report which server answered. */
+class ReplicaRoutingDataSourceTests {
+
+    private final AtomicReference<Duration> replicaLag = new AtomicReference<>(Duration.ZERO);
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofMinutes(1));
+    private ReplicaRoutingDataSource routing;
+    private Reads reads;
+
+    /** Stand-in for a service; its transaction is opened by hand, as there is no interceptor here. */
+    public static class Reads {
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate readOnly;
+        private final TransactionTemplate readWrite;
+
+        Reads(DataSource dataSource) {
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.readOnly = new TransactionTemplate(transactionManager);
+            this.readOnly.setReadOnly(true);
+            this.readWrite = new TransactionTemplate(transactionManager);
+        }
+
+        @ReplicaRead(client = "clientId")
+        public String server(Long clientId) {
+            return readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM server", String.class));
+        }
+
+        @ReplicaRead
+        public String serverInWriteTransaction() {
+            return readWrite.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM server", String.class));
+        }
+
+        public String serverWithoutReplicaRead() {
+            return readOnly.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM server", String.class));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", database("replica"));
+        routing = new ReplicaRoutingDataSource(database("primary"), replicas, replica -> {
+            Duration lag = replicaLag.get();
+            if (lag == null) {
+                throw new IllegalStateException("connection refused");
+            }
+            return lag;
+        }, Duration.ofSeconds(5), readYourWrites);
+        routing.checkReplicas();
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Reads(new LazyConnectionDataSourceProxy(routing)));
+        factory.addAspect(new ReplicaReadAspect());
+        reads = factory.getProxy();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        routing.destroy();
+    }
+
+    @Test
+    void replicaReadsInReadOnlyTransactionsGoToTheReplica() {
+        assertThat(reads.server(1L)).isEqualTo("replica");
+        assertThat(reads.serverWithoutReplicaRead()).isEqualTo("primary");
+        assertThat(reads.serverInWriteTransaction()).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingOrUnreachableReplicasAreSkippedUntilTheyRecover() {
+        replicaLag.set(Duration.ofSeconds(30));
+        routing.checkReplicas();
+        assertThat(reads.server(1L)).isEqualTo("primary");
+
+        replicaLag.set(null);
+        routing.checkReplicas();
+        assertThat(reads.server(1L)).isEqualTo("primary");
+
+        replicaLag.set(Duration.ofSeconds(2));
+        routing.checkReplicas();
+        assertThat(reads.server(1L)).isEqualTo("replica");
+    }
+
+    @Test
+    void clientReadsItsOwnWritesFromThePrimary() {
+        readYourWrites.pin(7L);
+
+        assertThat(reads.server(7L)).isEqualTo("primary");
+        assertThat(reads.server(8L)).isEqualTo("replica");
+    }
+
+    @Test
+    void replicaRefusingConnectionsFallsBackToThePrimary() throws Exception {
+        JdbcDataSource missing = new JdbcDataSource();
+        missing.setURL("jdbc:h2:mem:replica_missing;IFEXISTS=TRUE");
+        routing.destroy();
+        routing = new ReplicaRoutingDataSource(database("primary"), Map.of("replica-1", missing),
+                replica -> Duration.ZERO, Duration.ofSeconds(5), readYourWrites);
+        routing.checkReplicas();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Reads(new LazyConnectionDataSourceProxy(routing)));
+        factory.addAspect(new ReplicaReadAspect());
+        reads = factory.getProxy();
+
+        assertThat(reads.server(1L)).isEqualTo("primary");
+        // Marked down by the failed connection, so the next read does not try it again
+        assertThat(reads.server(1L)).isEqualTo("primary");
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS server (name varchar(16))");
+        jdbcTemplate.update("DELETE FROM server");
+        jdbcTemplate.update("INSERT INTO server VALUES (?)", name);
+        return dataSource;
+    }
+}
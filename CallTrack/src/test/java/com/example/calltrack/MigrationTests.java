@@ -0,0 +1,117 @@
+package com.example.calltrack;
+
+import com.example.calltrack.DTO.PaymentReportDTO;
+import com.example.calltrack.DTO.ReportFilterDTO;
+import com.example.calltrack.DTO.UsageReportDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Service.ReportService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Upgrades a database created by {@code ddl-auto=update} before the migrations existed: the schema of
+ * V1 with calls and payments in it and no Flyway history, migrated with the production settings.
+ * Needs {@code postgres.url}, as {@link PostgresTest}; the database is emptied first.
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.datasource.url=${postgres.url}",
+        "spring.datasource.username=${postgres.user:postgres}",
+        "spring.datasource.password=${postgres.password:postgres}",
+        "spring.flyway.enabled=true",
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=1",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "calltrack.charging.journal-dir=target/charge-journal-postgres"
+})
+@Import(MigrationTests.PreMigrationDatabase.class)
+@DirtiesContext
+class MigrationTests {
+    private static final LocalDateTime DAY = LocalDate.of(2025, 9, 1).atStartOfDay();
+
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+
+    @Test
+    void baselinesTheExistingSchemaAndMigratesItsData() {
+        assertThat(jdbc.queryForList("SELECT version FROM flyway_schema_history WHERE type = 'BASELINE'", String.class))
+                .containsExactly("1");
+
+        assertThat(reportService.usageByDay(new ReportFilterDTO()))
+                .extracting(UsageReportDTO::getDay, UsageReportDTO::getCalls, UsageReportDTO::getDurationSeconds,
+                        UsageReportDTO::getCost)
+                .containsExactly(tuple(LocalDate.of(2025, 9, 1), 2L, 300L, new BigDecimal("2.50")),
+                        tuple(LocalDate.of(2025, 10, 15), 1L, 240L, new BigDecimal("4.00")));
+        assertThat(reportService.paymentsByDay(new ReportFilterDTO()))
+                .extracting(PaymentReportDTO::getDay, PaymentReportDTO::getPayments, PaymentReportDTO::getAmount)
+                .containsExactly(tuple(LocalDate.of(2025, 9, 1), 2L, new BigDecimal("15.00")));
+
+        assertThat(jdbc.queryForList("SELECT tableoid::regclass::text FROM call_record ORDER BY call_id", String.class))
+                .containsExactly("call_record_p202509", "call_record_p202509", "call_record_p202510");
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM call_archive.call_record_undated", Long.class))
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void allocatesCallIdsAfterTheExistingOnes() {
+        Call call = callRepository.save(Call.builder().phoneNumber(phoneNumberRepository.findById(1L).orElseThrow())
+                .startedAt(DAY).callType("local").durationMinutes(1).durationSeconds(60).cost(BigDecimal.ONE).build());
+
+        assertThat(call.getCallId()).isGreaterThan(4L);
+    }
+
+    /** Replaces Flyway's migrate-on-startup with: empty the database, create the V1 schema and data, migrate. */
+    @TestConfiguration(proxyBeanMethods = false)
+    static class PreMigrationDatabase {
+
+        @Bean
+        FlywayMigrationStrategy upgradeFromDdlAuto() {
+            return (Flyway flyway) -> {
+                DataSource dataSource = flyway.getConfiguration().getDataSource();
+                JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+                jdbc.execute("DROP SCHEMA IF EXISTS call_archive CASCADE");
+                jdbc.execute("DROP SCHEMA public CASCADE");
+                jdbc.execute("CREATE SCHEMA public");
+                new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline.sql")).execute(dataSource);
+
+                jdbc.update("INSERT INTO client (full_name, email, balance) VALUES ('Old Client', 'old@test.by', 10)");
+                jdbc.update("INSERT INTO tariff (tariff_name, price_per_minute) VALUES ('Basic', 0.50)");
+                jdbc.update("INSERT INTO phone_number (phone, client_id, tarif_id, number_balance) VALUES ('+375290000030', 1, 1, 0)");
+                // Durations in minutes only, as recorded before duration_seconds; the last one never started
+                jdbc.update("INSERT INTO call_record (number_id, tariff_id, call_type, started_at, duration_minutes, cost) VALUES "
+                        + "(1, 1, 'local', '2025-09-01 10:00', 3, 1.50), (1, 1, 'local', '2025-09-01 18:00', 2, 1.00), "
+                        + "(1, 1, 'international', '2025-10-15 12:00', 4, 4.00), (1, 1, 'local', NULL, 1, 0.50)");
+                jdbc.update("INSERT INTO payment (client_id, phone_number, amount, payment_method, created_at) VALUES "
+                        + "(1, '+375290000030', 10, 'card', '2025-09-01 09:00'), (1, '+375290000030', 5, 'cash', '2025-09-01 20:00')");
+                flyway.migrate();
+            };
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.calltrack;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a Spring Boot test on PostgreSQL with the Flyway migrations and {@code ddl-auto=validate},
+ * as in production, instead of on H2 with a schema generated from the entities. The database given
+ * by {@code postgres.url} is emptied first; without it the test is skipped.
+ * <p>
+ * Run with {@code mvn test -Dpostgres.url=jdbc:postgresql://localhost:5432/calltrack_test
+ * [-Dpostgres.user=postgres -Dpostgres.password=postgres]}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.datasource.url=${postgres.url}",
+        "spring.datasource.username=${postgres.user:postgres}",
+        "spring.datasource.password=${postgres.password:postgres}",
+        "spring.flyway.enabled=true",
+        "spring.flyway.schemas=public,call_archive",
+        "spring.flyway.clean-disabled=false",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "calltrack.charging.journal-dir=target/charge-journal-postgres",
+        "calltrack.archive.dir=target/cdr-archive-postgres"
+})
+@Import(PostgresTest.CleanMigration.class)
+public @interface PostgresTest {
+
+    @TestConfiguration(proxyBeanMethods = false)
+    class CleanMigration {
+
+        @Bean
+        FlywayMigrationStrategy cleanMigrate() {
+            return (Flyway flyway) -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+}
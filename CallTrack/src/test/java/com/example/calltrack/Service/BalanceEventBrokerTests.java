@@ -0,0 +1,124 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.Controller.ClientController;
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class BalanceEventBrokerTests {
+
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private BalanceEventBroker balanceEventBroker;
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private ChargeAggregator chargeAggregator;
+    @Autowired
+    private RatingCache ratingCache;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+
+    private MockMvc mockMvc;
+    private Client client;
+    private PhoneNumber number;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        mockMvc = MockMvcBuilders.standaloneSetup(clientController).build();
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Базовый").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        client = clientRepository.save(Client.builder()
+                .fullName("Events Client")
+                .email("events@test.by")
+                .balance(BigDecimal.ZERO)
+                .build());
+        number = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000400").numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        chargeAggregator.flush();
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+    }
+
+    @Test
+    void pushesBalanceChangesAndDebtTransitions() throws Exception {
+        int before = balanceEventBroker.getConnections();
+        MockHttpServletResponse stream = mockMvc.perform(get("/api/v1/clients/{id}/events", client.getClientId()))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        assertThat(balanceEventBroker.getConnections()).isEqualTo(before + 1);
+        awaitContent(stream, content -> content.contains("event:balance"));
+        assertThat(stream.getContentAsString()).contains("\"inDebt\":false").doesNotContain("event:debt");
+
+        callService.addCall(CallRequestDTO.builder().phoneNumber("+375290000400").callType("local")
+                .durationMinutes(8).startDate(LocalDate.now()).build());
+        chargeAggregator.flush();
+        awaitContent(stream, content -> content.contains("event:debt\n"));
+        assertThat(stream.getContentAsString()).contains("\"balance\":-2.00", "\"inDebt\":true");
+
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(number.getNumberId(), new BigDecimal("5.00"), "card", client.getClientId()));
+        awaitContent(stream, content -> content.contains("event:debt-cleared"));
+        assertThat(stream.getContentAsString()).contains("\"balance\":3.00", "\"inDebt\":false");
+    }
+
+    @Test
+    void unknownClientIsNotFound() throws Exception {
+        int before = balanceEventBroker.getConnections();
+        mockMvc.perform(get("/api/v1/clients/{id}/events", -1L))
+                .andExpect(status().isNotFound());
+        assertThat(balanceEventBroker.getConnections()).isEqualTo(before);
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.test(response.getContentAsString())) {
+            assertThat(System.currentTimeMillis()).as("event stream: %s", response.getContentAsString()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.BillingCycleDTO;
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.InvoiceDTO;
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.Entity.BillingPartition;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.Invoice;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.BillingRepository;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.InvoiceRepository;
+import com.example.calltrack.Repository.PaymentDailyRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.example.calltrack.Repository.UsageDailyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class BillingCycleServiceTests {
+    private static final YearMonth SEPTEMBER = YearMonth.of(2025, 9);
+    private static final LocalDateTime LONG_AGO = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Autowired
+    private BillingCycleService billingCycleService;
+    @Autowired
+    private BillingRepository billingRepository;
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private UsageDailyRepository usageDailyRepository;
+    @Autowired
+    private PaymentDailyRepository paymentDailyRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private RatingCache ratingCache;
+    @Autowired
+    private ChargeAggregator chargeAggregator;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Client caller;
+    private Client idle;
+    private Client newcomer;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Биллинг").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        caller = clientRepository.save(Client.builder()
+                .fullName("Billed Caller").email("caller@billing.by").balance(BigDecimal.ZERO).createdAt(LONG_AGO).build());
+        idle = clientRepository.save(Client.builder()
+                .fullName("Billed Idle").email("idle@billing.by").balance(new BigDecimal("3.00")).createdAt(LONG_AGO).build());
+        newcomer = clientRepository.save(Client.builder()
+                .fullName("Billed Newcomer").email("newcomer@billing.by").balance(BigDecimal.ZERO)
+                .createdAt(LocalDateTime.now()).build());
+        PhoneNumber number = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(caller).phone("+375290000900").numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+
+        call(LocalDateTime.of(2025, 9, 1, 10, 0), 60);
+        call(LocalDateTime.of(2025, 9, 30, 23, 0), 90);
+        call(LocalDateTime.of(2025, 10, 1, 9, 0), 120);
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(number.getNumberId(), new BigDecimal("5.00"), "card", caller.getClientId()));
+        // As if the first payment had been made in September
+        jdbcTemplate.update("UPDATE payment_daily SET payment_date = ? WHERE client_id = ?",
+                Date.valueOf(LocalDate.of(2025, 9, 15)), caller.getClientId());
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(number.getNumberId(), new BigDecimal("7.50"), "card", caller.getClientId()));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        chargeAggregator.flush();
+        jdbcTemplate.update("DELETE FROM invoice");
+        jdbcTemplate.update("DELETE FROM billing_partition");
+        jdbcTemplate.update("DELETE FROM billing_cycle");
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        usageDailyRepository.deleteAll();
+        paymentDailyRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+    }
+
+    private void call(LocalDateTime startedAt, int seconds) {
+        callService.addCall(CallRequestDTO.builder()
+                .phoneNumber("+375290000900").callType("local").startedAt(startedAt).durationSeconds(seconds).build());
+    }
+
+    @Test
+    void invoicesClientsThatExistedByTheEndOfThePeriod() {
+        BillingCycleDTO cycle = billingCycleService.run(SEPTEMBER);
+
+        assertThat(cycle.getStatus()).isEqualTo("COMPLETED");
+        assertThat(cycle.getPeriodEnd()).isEqualTo(LocalDate.of(2025, 9, 30));
+        assertThat(cycle.getPartitionsCompleted()).isEqualTo(cycle.getPartitions());
+        assertThat(cycle.getInvoices()).isEqualTo(2);
+        assertThat(cycle.getClientsBilled()).isEqualTo(2);
+        // 0 - 0.75 - 0.50 + 5.00 + 7.50 now; October's call and today's payment are taken back out
+        assertThat(billingCycleService.invoicesOf(caller.getClientId())).singleElement().satisfies(invoice -> {
+            assertThat(invoice.getOpeningBalance()).isEqualByComparingTo("0");
+            assertThat(invoice.getCharges()).isEqualByComparingTo("0.75");
+            assertThat(invoice.getPayments()).isEqualByComparingTo("5.00");
+            assertThat(invoice.getClosingBalance()).isEqualByComparingTo("4.25");
+            assertThat(invoice.getCallCount()).isEqualTo(2);
+        });
+        assertThat(billingCycleService.invoicesOf(idle.getClientId()))
+                .extracting(InvoiceDTO::getOpeningBalance, InvoiceDTO::getClosingBalance, InvoiceDTO::getCallCount)
+                .containsExactly(tuple(new BigDecimal("3.00"), new BigDecimal("3.00"), 0L));
+        assertThat(billingCycleService.invoicesOf(newcomer.getClientId())).isEmpty();
+
+        // Completed cycles are not billed again
+        assertThat(billingCycleService.run(SEPTEMBER).getInvoices()).isEqualTo(2);
+        assertThat(invoiceRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void leavesOutChargesNotFlushedToTheBalancesYet() {
+        chargeAggregator.flush();
+        // Charged after the flush, as by a call while a cycle runs: in the rollups, not yet in the balance
+        call(LocalDateTime.of(2025, 10, 2, 9, 0), 240);
+
+        billingCycleService.run(SEPTEMBER);
+
+        assertThat(chargeAggregator.pending()).isEqualTo(1);
+        assertThat(billingCycleService.invoicesOf(caller.getClientId()))
+                .extracting(InvoiceDTO::getOpeningBalance, InvoiceDTO::getClosingBalance)
+                .containsExactly(tuple(new BigDecimal("0.00"), new BigDecimal("4.25")));
+    }
+
+    @Test
+    void interruptedCycleResumesFromItsCheckpoints() {
+        long cycleId = billingCycleService.run(SEPTEMBER).getCycleId();
+        BillingPartition callerPartition = partitionOf(cycleId, caller.getClientId());
+        BillingPartition idlePartition = partitionOf(cycleId, idle.getClientId());
+
+        // A node died after committing the caller's chunk but before the idle client's
+        Invoice idleInvoice = invoiceRepository.findAllByCycleIdOrderByClientId(cycleId).stream()
+                .filter(invoice -> invoice.getClientId().equals(idle.getClientId()))
+                .findFirst().orElseThrow();
+        reopen(cycleId, idlePartition);
+        // Its invoice left behind by mistake makes the resumed partition fail
+        assertThatThrownBy(() -> billingCycleService.run(SEPTEMBER)).isInstanceOf(DataIntegrityViolationException.class);
+        BillingCycleDTO failed = billingCycleService.status(SEPTEMBER);
+        assertThat(failed.getStatus()).isEqualTo("INTERRUPTED");
+        assertThat(failed.getError()).isNotBlank();
+        assertThat(failed.getPartitionsCompleted()).isEqualTo(failed.getPartitions() - 1);
+
+        invoiceRepository.delete(idleInvoice);
+        BillingCycleDTO resumed = billingCycleService.run(SEPTEMBER);
+
+        assertThat(resumed.getStatus()).isEqualTo("COMPLETED");
+        assertThat(resumed.getClientsBilled()).isEqualTo(1);
+        assertThat(resumed.getInvoices()).isEqualTo(2);
+        assertThat(invoiceRepository.findAllByCycleIdOrderByClientId(cycleId))
+                .extracting(Invoice::getClientId)
+                .containsExactly(caller.getClientId(), idle.getClientId());
+        assertThat(partitionOf(cycleId, caller.getClientId()).getCompletedAt()).isEqualTo(callerPartition.getCompletedAt());
+    }
+
+    private BillingPartition partitionOf(long cycleId, long clientId) {
+        return billingRepository.partitions(cycleId).stream()
+                .filter(partition -> partition.getFirstClientId() <= clientId && clientId <= partition.getLastClientId())
+                .findFirst().orElseThrow();
+    }
+
+    private void reopen(long cycleId, BillingPartition partition) {
+        jdbcTemplate.update("""
+                UPDATE billing_partition SET next_client_id = first_client_id, invoices = 0, completed_at = NULL
+                WHERE cycle_id = ? AND partition_no = ?
+                """, cycleId, partition.getId().getPartitionNo());
+        jdbcTemplate.update("UPDATE billing_cycle SET completed_at = NULL WHERE cycle_id = ?", cycleId);
+    }
+}
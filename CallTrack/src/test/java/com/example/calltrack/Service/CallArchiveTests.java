@@ -0,0 +1,130 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.MonthlyUsageDTO;
+import com.example.calltrack.DTO.ReportFilterDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.PostgresTest;
+import com.example.calltrack.Repository.CallPartitionRepository;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentDailyRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.UsageDailyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/** A month moving out of {@code call_record}: detached into the archive schema, then exported to its file. */
+@PostgresTest
+class CallArchiveTests {
+    private static final YearMonth MONTH = YearMonth.now().minusMonths(30);
+
+    @Autowired
+    private RollupService rollupService;
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private CdrArchiveService cdrArchiveService;
+    @Autowired
+    private CallPartitionRepository callPartitionRepository;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private UsageDailyRepository usageDailyRepository;
+    @Autowired
+    private PaymentDailyRepository paymentDailyRepository;
+    @Autowired
+    private RatingCache ratingCache;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Value("${calltrack.archive.dir}")
+    private Path archiveDir;
+
+    private Client client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        removeArchives();
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        usageDailyRepository.deleteAll();
+        paymentDailyRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        ratingCache.invalidateAll();
+
+        client = clientRepository.save(Client.builder()
+                .fullName("Archived Client").email("archive@test.by").balance(BigDecimal.TEN).build());
+        PhoneNumber number = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000040").numberBalance(BigDecimal.ZERO).build());
+        Call call = callRepository.save(Call.builder().phoneNumber(number).startedAt(MONTH.atDay(10).atTime(12, 0))
+                .callType("local").durationMinutes(3).durationSeconds(180).cost(new BigDecimal("1.50")).build());
+        rollupService.recordUsage(List.of(RollupService.usageOf(client.getClientId(), number.getNumberId(), call)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        removeArchives();
+    }
+
+    private void removeArchives() throws IOException {
+        callPartitionRepository.archivedMonths().forEach(callPartitionRepository::dropArchived);
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void keepsTheRollupsOfAMonthThatIsArchivedButNotExported() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            callPartitionRepository.createPartition(MONTH);
+            callPartitionRepository.archivePartition(MONTH);
+        });
+
+        // Its calls are in neither call_record nor a file, so nothing can be rebuilt from them
+        assertThatThrownBy(() -> rollupService.rebuild(MONTH.atDay(1), MONTH.atEndOfMonth()))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(monthlyUsage())
+                .extracting(MonthlyUsageDTO::getMonth, MonthlyUsageDTO::getCalls, MonthlyUsageDTO::getDurationSeconds)
+                .containsExactly(tuple(MONTH.atDay(1), 1L, 180L));
+
+        cdrArchiveService.exportArchivedPartitions();
+
+        assertThat(rollupService.rebuild(MONTH.atDay(1), MONTH.atEndOfMonth()).getUsageRows()).isEqualTo(1);
+        assertThat(monthlyUsage())
+                .extracting(MonthlyUsageDTO::getMonth, MonthlyUsageDTO::getCalls, MonthlyUsageDTO::getDurationSeconds)
+                .containsExactly(tuple(MONTH.atDay(1), 1L, 180L));
+    }
+
+    private List<MonthlyUsageDTO> monthlyUsage() {
+        return reportService.usageByMonth(ReportFilterDTO.builder().clientId(client.getClientId()).build());
+    }
+}
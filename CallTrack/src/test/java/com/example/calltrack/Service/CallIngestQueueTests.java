@@ -0,0 +1,141 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallBatchResultDTO;
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Entity.UsageDaily;
+import com.example.calltrack.Entity.UsageDailyId;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.example.calltrack.Repository.UsageDailyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CallIngestQueueTests {
+    private static final LocalDate DAY = LocalDate.of(2025, 11, 3);
+
+    @Autowired
+    private CallIngestQueue callIngestQueue;
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private UsageDailyRepository usageDailyRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private RatingCache ratingCache;
+
+    @BeforeEach
+    void setUp() {
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        usageDailyRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Очередь").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        Client client = clientRepository.save(Client.builder()
+                .fullName("Queued Caller").email("queue@test.by").balance(BigDecimal.ZERO).build());
+        PhoneNumber number = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000700").numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+        // H2's MERGE, unlike ON CONFLICT on PostgreSQL, fails when concurrent writers insert the same
+        // new rollup row, so the row the queued calls add up in exists beforehand
+        usageDailyRepository.save(UsageDaily.builder().id(new UsageDailyId(number.getNumberId(), DAY, "local"))
+                .clientId(client.getClientId()).cost(BigDecimal.ZERO).build());
+    }
+
+    private static CallRequestDTO call(String phone, Integer minutes) {
+        return CallRequestDTO.builder().phoneNumber(phone).callType("local").durationMinutes(minutes).startDate(DAY).build();
+    }
+
+    @Test
+    void answersEachQueuedCallAsItsOwnRequest() {
+        List<CompletableFuture<ResponseEntity<CallResponseDTO>>> accepted = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            accepted.add(callIngestQueue.addCall(call("+375290000700", 2)));
+        }
+        CompletableFuture<ResponseEntity<CallResponseDTO>> unknown = callIngestQueue.addCall(call("+375299999999", 2));
+        CompletableFuture<ResponseEntity<CallResponseDTO>> incomplete = callIngestQueue.addCall(call("+375290000700", null));
+
+        assertThat(accepted).extracting(CompletableFuture::join).allSatisfy(response -> {
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(response.getBody().getCost()).isEqualByComparingTo("0.50");
+        });
+        assertThat(accepted).extracting(response -> response.join().getBody().getCallId()).doesNotHaveDuplicates();
+        assertThat(unknown.join().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(incomplete.join().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(callRepository.count()).isEqualTo(200);
+        assertThat(usageDailyRepository.findAll()).singleElement()
+                .extracting(UsageDaily::getCallCount).isEqualTo(200L);
+        assertThat(callIngestQueue.getStats().getQueued()).isZero();
+    }
+
+    @Test
+    void writesAStreamChunkByChunk() {
+        List<CallRequestDTO> records = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            records.add(call(i % 500 == 0 ? "+375299999999" : "+375290000700", 1));
+        }
+
+        ResponseEntity<CallBatchResultDTO> response = callIngestQueue.addCalls(records.iterator());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getAccepted()).isEqualTo(2495);
+        assertThat(response.getBody().getRejected()).isEqualTo(5);
+        assertThat(callRepository.count()).isEqualTo(2495);
+    }
+
+    @Test
+    void refusesWorkThatWaitedPastMaxWait() {
+        // Anything queued at all has waited too long
+        CallIngestQueue impatient = new CallIngestQueue(callService, 1, 1, Duration.ofSeconds(1), 100,
+                Duration.ZERO, 500, new SimpleMeterRegistry());
+        try {
+            ResponseEntity<CallResponseDTO> single = impatient.addCall(call("+375290000700", 2)).join();
+            assertThat(single.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(single.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+            ResponseEntity<CallBatchResultDTO> batch = impatient.addCalls(List.of(call("+375290000700", 2)).iterator());
+            assertThat(batch.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(batch.getBody().getAccepted() + batch.getBody().getRejected()).isZero();
+
+            assertThat(impatient.getStats().getExpired()).isEqualTo(2);
+            assertThat(callRepository.count()).isZero();
+        } finally {
+            impatient.destroy();
+        }
+    }
+}
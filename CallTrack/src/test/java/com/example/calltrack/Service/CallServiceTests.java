@@ -0,0 +1,166 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallBatchResultDTO;
+import com.example.calltrack.DTO.CallFilterDTO;
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CallServiceTests {
+
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private PhoneNumberService phoneNumberService;
+    @Autowired
+    private RatingCache ratingCache;
+
+    @BeforeEach
+    void setUp() {
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Базовый").tariffType("standard").pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        Client client = clientRepository.save(Client.builder()
+                .fullName("Test Client")
+                .email("calls@test.by")
+                .balance(BigDecimal.ZERO)
+                .build());
+        PhoneNumber first = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000001").numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+        PhoneNumber second = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000002").numberBalance(BigDecimal.ZERO).build());
+
+        // Several calls share a start time so the cursor has to fall back to call_id
+        LocalDateTime day = LocalDate.of(2025, 9, 1).atStartOfDay();
+        List<Call> calls = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            calls.add(Call.builder()
+                    .phoneNumber(i % 2 == 0 ? first : second)
+                    .startedAt(day.plusDays(i / 3))
+                    .callType(i % 3 == 0 ? "international" : "local")
+                    .cost(BigDecimal.ONE)
+                    .durationMinutes(1)
+                    .build());
+        }
+        callRepository.saveAll(calls);
+    }
+
+    @Test
+    void pagesThroughAllCallsWithoutGapsOrDuplicates() {
+        List<CallResponseDTO> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            ResponseEntity<List<CallResponseDTO>> page = callService.getCalls(CallFilterDTO.builder().limit(7).cursor(cursor).build());
+            assertThat(page.getBody()).hasSizeLessThanOrEqualTo(7);
+            seen.addAll(page.getBody());
+            cursor = page.getHeaders().getFirst(CallService.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(30);
+        assertThat(seen).extracting(CallResponseDTO::getCallId).doesNotHaveDuplicates();
+        for (int i = 1; i < seen.size(); i++) {
+            CallResponseDTO prev = seen.get(i - 1);
+            CallResponseDTO next = seen.get(i);
+            assertThat(prev.getStartedAt()).isAfterOrEqualTo(next.getStartedAt());
+            if (prev.getStartedAt().equals(next.getStartedAt())) {
+                assertThat(prev.getCallId()).isGreaterThan(next.getCallId());
+            }
+        }
+    }
+
+    @Test
+    void appliesPhoneTypeAndDateFilters() {
+        List<CallResponseDTO> calls = callService.getCalls(CallFilterDTO.builder()
+                .phone("+375290000001")
+                .callType("international")
+                .from(LocalDate.of(2025, 9, 3))
+                .to(LocalDate.of(2025, 9, 8))
+                .build()).getBody();
+
+        assertThat(calls).isNotEmpty().allSatisfy(call -> {
+            assertThat(call.getPhoneNumber()).isEqualTo("+375290000001");
+            assertThat(call.getCallType()).isEqualTo("international");
+            assertThat(call.getStartedAt()).isBetween(
+                    LocalDate.of(2025, 9, 3).atStartOfDay(), LocalDate.of(2025, 9, 9).atStartOfDay());
+        });
+
+        assertThat(callService.getCalls(CallFilterDTO.builder().phone("+000").build()).getStatusCode())
+                .isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(callService.getCalls(CallFilterDTO.builder().callType("roaming").build()).getStatusCode())
+                .isEqualTo(HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    void ingestsBatchAndReportsRejectedRecords() {
+        LocalDate day = LocalDate.of(2025, 10, 1);
+        List<CallRequestDTO> records = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            records.add(CallRequestDTO.builder().phoneNumber("+375290000001").callType("local").durationMinutes(4).startDate(day).build());
+        }
+        records.add(CallRequestDTO.builder().phoneNumber("+375290000002").callType("local").durationMinutes(1).startDate(day).build());
+        records.add(CallRequestDTO.builder().phoneNumber("+375299999999").callType("local").durationMinutes(1).startDate(day).build());
+
+        CallBatchResultDTO result = callService.addCalls(records.iterator());
+
+        assertThat(result.getAccepted()).isEqualTo(1500);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(callRepository.count()).isEqualTo(1530);
+        assertThat(callService.getCalls(CallFilterDTO.builder().from(day).limit(1).build()).getBody())
+                .singleElement()
+                .satisfies(call -> assertThat(call.getCost()).isEqualByComparingTo("1.00"));
+    }
+
+    @Test
+    void ratesFromCacheAndPicksUpTariffChange() {
+        CallRequestDTO record = CallRequestDTO.builder().phoneNumber("+375290000001").callType("local").durationMinutes(10).startDate(LocalDate.of(2025, 10, 2)).build();
+        long missesBefore = ratingCache.getStats().getMisses();
+
+        assertThat(callService.addCall(record).getBody().getCost()).isEqualByComparingTo("2.50");
+        assertThat(callService.addCall(record).getBody().getCost()).isEqualByComparingTo("2.50");
+        assertThat(ratingCache.getStats().getMisses() - missesBefore).isEqualTo(1);
+
+        Tarif premium = tarifRepository.save(Tarif.builder().tariffName("Премиум").tariffType("premium").pricePerMinute(new BigDecimal("0.10")).currency("BYN").build());
+        Long numberId = ratingCache.get("+375290000001").getNumberId();
+        phoneNumberService.changeTarif(numberId, premium.getTariffId());
+
+        assertThat(callService.addCall(record).getBody().getCost()).isEqualByComparingTo("1.00");
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.calltrack.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CdrArchiveFileTests {
+
+    private static final String[] TYPES = {"local", "international", "mobile", ""};
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @TempDir
+    Path directory;
+
+    private record Call(long numberId, long clientId, LocalDateTime startedAt, String callType,
+                        int seconds, int minutes, long cost) {
+    }
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void aggregatesLikeAScanOverTheRows() throws IOException {
+        List<Call> calls = randomCalls(5_000);
+        CdrArchiveFile archive = write(calls, 256);
+
+        assertThat(archive.rows()).isEqualTo(calls.size());
+        assertThat(archive.blocks()).isEqualTo(20);
+        assertThat(aggregate(archive, new CdrArchiveFile.Filter(null, null, null, null), CdrArchiveFile.Grouping.MONTH))
+                .isEqualTo(expected(calls, call -> true, CdrArchiveFile.Grouping.MONTH));
+    }
+
+    @Test
+    void filtersByNumberClientAndDays() throws IOException {
+        List<Call> calls = randomCalls(5_000);
+        CdrArchiveFile archive = write(calls, 128);
+        LocalDate from = LocalDate.of(2024, 3, 10);
+        LocalDate to = LocalDate.of(2024, 4, 20);
+
+        assertThat(aggregate(archive, new CdrArchiveFile.Filter(7L, null, from, to), CdrArchiveFile.Grouping.DAY))
+                .isNotEmpty()
+                .isEqualTo(expected(calls, call -> call.numberId() == 7 && inDays(call, from, to), CdrArchiveFile.Grouping.DAY));
+        assertThat(aggregate(archive, new CdrArchiveFile.Filter(null, 3L, null, null), CdrArchiveFile.Grouping.MONTH))
+                .isNotEmpty()
+                .isEqualTo(expected(calls, call -> call.clientId() == 3, CdrArchiveFile.Grouping.MONTH));
+        assertThat(aggregate(archive, new CdrArchiveFile.Filter(999L, null, null, null), CdrArchiveFile.Grouping.DAY))
+                .isEmpty();
+    }
+
+    @Test
+    void compressesBelowTheSizeOfTheRawColumns() throws IOException {
+        List<Call> calls = randomCalls(50_000);
+        CdrArchiveFile archive = write(calls, 65_536);
+
+        // Seven 8-byte columns uncompressed
+        assertThat(Files.size(archive.file())).isLessThan(calls.size() * 7L * Long.BYTES / 8);
+    }
+
+    @Test
+    void unfinishedWriterLeavesNoFile() throws IOException {
+        Path target = directory.resolve("calls-202401.cdr");
+        try (CdrArchiveFile.Writer writer = new CdrArchiveFile.Writer(target, 16)) {
+            writer.add(1, 1, LocalDateTime.of(2024, 1, 1, 10, 0), "local", 60, 1, 25);
+        }
+
+        assertThat(directory).isEmptyDirectory();
+        Files.writeString(target, "not an archive, just some text");
+        assertThatThrownBy(() -> CdrArchiveFile.open(target)).isInstanceOf(IOException.class);
+    }
+
+    private CdrArchiveFile write(List<Call> calls, int blockRows) throws IOException {
+        Path target = directory.resolve("calls.cdr");
+        try (CdrArchiveFile.Writer writer = new CdrArchiveFile.Writer(target, blockRows)) {
+            for (Call call : calls) {
+                writer.add(call.numberId(), call.clientId(), call.startedAt(), call.callType(),
+                        call.seconds(), call.minutes(), call.cost());
+            }
+            writer.finish();
+        }
+        return CdrArchiveFile.open(target);
+    }
+
+    private Map<List<Object>, List<Long>> aggregate(CdrArchiveFile archive, CdrArchiveFile.Filter filter,
+                                                    CdrArchiveFile.Grouping grouping) {
+        Map<List<Object>, List<Long>> totals = new HashMap<>();
+        for (CdrArchiveFile.Usage usage : archive.aggregate(filter, grouping, executor).join()) {
+            totals.put(List.of(usage.numberId(), usage.clientId(), usage.period(), usage.callType()),
+                    List.of(usage.calls(), usage.durationSeconds(), usage.durationMinutes(), usage.cost()));
+        }
+        return totals;
+    }
+
+    private static Map<List<Object>, List<Long>> expected(List<Call> calls, Predicate<Call> filter,
+                                                          CdrArchiveFile.Grouping grouping) {
+        Map<List<Object>, long[]> sums = new HashMap<>();
+        for (Call call : calls) {
+            if (!filter.test(call)) {
+                continue;
+            }
+            LocalDate day = call.startedAt().toLocalDate();
+            LocalDate period = grouping == CdrArchiveFile.Grouping.DAY ? day : day.withDayOfMonth(1);
+            long[] total = sums.computeIfAbsent(List.of(call.numberId(), call.clientId(), period, call.callType()),
+                    key -> new long[4]);
+            total[0]++;
+            total[1] += call.seconds();
+            total[2] += call.minutes();
+            total[3] += call.cost();
+        }
+        Map<List<Object>, List<Long>> totals = new HashMap<>();
+        sums.forEach((key, total) -> totals.put(key, List.of(total[0], total[1], total[2], total[3])));
+        return totals;
+    }
+
+    private static boolean inDays(Call call, LocalDate from, LocalDate to) {
+        LocalDate day = call.startedAt().toLocalDate();
+        return !day.isBefore(from) && !day.isAfter(to);
+    }
+
+    /** Calls of twenty numbers over four months, ordered by number and start time as the export writes them. */
+    private static List<Call> randomCalls(int count) {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 2, 1, 0, 0);
+        List<Call> calls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long numberId = random.nextInt(20) + 1;
+            int seconds = random.nextInt(3_600);
+            calls.add(new Call(numberId, numberId % 5, start.plusSeconds(random.nextInt(120 * 86_400)),
+                    TYPES[random.nextInt(TYPES.length)], seconds, (seconds + 59) / 60, random.nextInt(5_000)));
+        }
+        calls.sort((a, b) -> a.numberId() != b.numberId()
+                ? Long.compare(a.numberId(), b.numberId())
+                : a.startedAt().compareTo(b.startedAt()));
+        return calls;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.ChargeFlush;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ChargeFlushRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.example.calltrack.Service.ChargeJournal.Charge;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest
+class ChargeAggregatorTests {
+
+    @Autowired
+    private ChargeAggregator chargeAggregator;
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private ChargeFlushRepository chargeFlushRepository;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private RatingCache ratingCache;
+    @MockitoSpyBean
+    private DebtorIndex debtorIndex;
+    @Value("${calltrack.charging.journal-dir}")
+    private Path journalDir;
+
+    private Client client;
+    private PhoneNumber phone;
+
+    @BeforeEach
+    void setUp() {
+        chargeAggregator.flush();
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Базовый").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        client = clientRepository.save(Client.builder()
+                .fullName("Busy Line")
+                .email("charges@test.by")
+                .balance(new BigDecimal("10.00"))
+                .build());
+        phone = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000200").numberBalance(new BigDecimal("10.00")).tarif(tarif).build());
+    }
+
+    private BigDecimal clientBalance() {
+        return clientRepository.findById(client.getClientId()).orElseThrow().getBalance();
+    }
+
+    private BigDecimal numberBalance() {
+        return phoneNumberRepository.findById(phone.getNumberId()).orElseThrow().getNumberBalance();
+    }
+
+    @Test
+    void coalescesCallChargesUntilFlush() {
+        for (int i = 0; i < 3; i++) {
+            callService.addCall(CallRequestDTO.builder()
+                    .phoneNumber("+375290000200")
+                    .callType("local")
+                    .startedAt(LocalDateTime.of(2025, 10, 1, 12, i))
+                    .durationSeconds(120)
+                    .build());
+        }
+
+        assertThat(chargeAggregator.pending()).isEqualTo(3);
+        assertThat(clientBalance()).isEqualByComparingTo("10.00");
+
+        chargeAggregator.flush();
+
+        assertThat(chargeAggregator.pending()).isZero();
+        assertThat(clientBalance()).isEqualByComparingTo("8.50");
+        assertThat(numberBalance()).isEqualByComparingTo("8.50");
+    }
+
+    private long savedCall(int minute) {
+        return callRepository.save(Call.builder().phoneNumber(phone).callType("local")
+                .startedAt(LocalDateTime.of(2025, 10, 1, 12, minute)).durationMinutes(1).durationSeconds(60)
+                .cost(BigDecimal.ZERO).build()).getCallId();
+    }
+
+    @Test
+    void replaysOnlySegmentsThatWereNotFlushed() throws Exception {
+        long clientId = client.getClientId();
+        long numberId = phone.getNumberId();
+        long first = savedCall(0);
+        long second = savedCall(1);
+        try (ChargeJournal crashed = new ChargeJournal(journalDir, false)) {
+            crashed.append(List.of(new Charge(first, clientId, numberId, 300), new Charge(second, clientId, numberId, 450)));
+            // Journaled by a transaction that never committed its call
+            crashed.append(List.of(new Charge(second + 1000, clientId, numberId, 5_000)));
+            String unflushed = crashed.rotate();
+
+            crashed.append(List.of(new Charge(first, clientId, numberId, 10_000)));
+            String flushed = crashed.rotate();
+            chargeFlushRepository.save(ChargeFlush.builder().segment(flushed).flushedAt(LocalDateTime.now()).build());
+
+            assertThat(crashed.segments()).contains(unflushed, flushed);
+
+            chargeAggregator.recover();
+
+            assertThat(crashed.segments()).doesNotContain(unflushed, flushed);
+        }
+
+        assertThat(clientBalance()).isEqualByComparingTo("2.50");
+        assertThat(numberBalance()).isEqualByComparingTo("2.50");
+    }
+
+    @Test
+    void journalsEachChargeWithItsCall() throws Exception {
+        callService.addCall(CallRequestDTO.builder()
+                .phoneNumber("+375290000200")
+                .callType("local")
+                .startedAt(LocalDateTime.of(2025, 10, 1, 12, 0))
+                .durationSeconds(120)
+                .build());
+        long callId = callRepository.findAll().get(0).getCallId();
+
+        List<Charge> journaled = new ArrayList<>();
+        try (ChargeJournal journal = new ChargeJournal(journalDir, false)) {
+            for (String segment : journal.segments()) {
+                journal.read(segment, journaled::add);
+            }
+        }
+
+        assertThat(journaled).containsExactly(new Charge(callId, client.getClientId(), phone.getNumberId(), 50));
+    }
+
+    @Test
+    void chargesOnceWhenRefreshingTheCachesAfterTheFlushFails() {
+        callService.addCall(CallRequestDTO.builder()
+                .phoneNumber("+375290000200")
+                .callType("local")
+                .startedAt(LocalDateTime.of(2025, 10, 1, 12, 0))
+                .durationSeconds(120)
+                .build());
+        // The balances are committed; only the debtor re-read after it fails
+        doThrow(new DataAccessResourceFailureException("Connection pool exhausted"))
+                .when(debtorIndex).refresh(anyCollection());
+
+        chargeAggregator.flush();
+        chargeAggregator.flush();
+
+        assertThat(chargeAggregator.pending()).isZero();
+        assertThat(clientBalance()).isEqualByComparingTo("9.50");
+        assertThat(numberBalance()).isEqualByComparingTo("9.50");
+    }
+}
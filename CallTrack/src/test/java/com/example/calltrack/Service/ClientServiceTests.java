@@ -0,0 +1,155 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.ClientRequestDTO;
+import com.example.calltrack.DTO.DebtorDTO;
+import com.example.calltrack.DTO.LoginResponseDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ClientServiceTests {
+
+    @Autowired
+    private ClientService clientService;
+    @Autowired
+    private DebtorIndex debtorIndex;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, Long> ids = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+
+        save("paid", "15.00");
+        save("small", "-5.00");
+        save("large", "-120.00");
+        save("medium", "-40.00");
+        debtorIndex.reload();
+    }
+
+    private void save(String name, String balance) {
+        Client client = clientRepository.save(Client.builder()
+                .fullName(name)
+                .email(name + "@test.by")
+                .balance(new BigDecimal(balance))
+                .build());
+        ids.put(name, client.getClientId());
+    }
+
+    @Test
+    void listsDebtorsByDebtFromIndexAndDatabaseAlike() {
+        assertThat(clientService.getDebtsClients(BigDecimal.ZERO, 0, 10))
+                .extracting(DebtorDTO::getFullName)
+                .containsExactly("large", "medium", "small");
+        assertThat(clientService.getDebtsClients(new BigDecimal("10"), 0, 10))
+                .extracting(DebtorDTO::getFullName)
+                .containsExactly("large", "medium");
+        assertThat(clientService.getDebtsClients(BigDecimal.ZERO, 1, 2))
+                .extracting(DebtorDTO::getFullName)
+                .containsExactly("small");
+
+        assertThat(clientRepository.findDebtors(BigDecimal.ZERO, PageRequest.of(0, 10)))
+                .extracting(DebtorDTO::getFullName)
+                .containsExactly("large", "medium", "small");
+    }
+
+    @Test
+    void loginIssuesTokenThatVerifiesWithoutDatabase() throws Exception {
+        ClientRequestDTO registration = ClientRequestDTO.builder()
+                .fullName("Login Client").email("login@test.by").password("s3cret").build();
+        assertThat(clientService.addNewClient(registration).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<?> login = clientService.loginClient(
+                ClientRequestDTO.builder().email("login@test.by").password("s3cret").build()).get();
+        ResponseEntity<?> wrong = clientService.loginClient(
+                ClientRequestDTO.builder().email("login@test.by").password("guess").build()).get();
+
+        assertThat(wrong.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(login.getStatusCode()).isEqualTo(HttpStatus.OK);
+        LoginResponseDTO body = (LoginResponseDTO) login.getBody();
+        assertThat(tokenService.verify(body.getToken()))
+                .hasValueSatisfying(claims -> {
+                    assertThat(claims.getClientId()).isEqualTo(body.getClientId());
+                    assertThat(claims.getStatus()).isEqualTo("USER");
+                });
+    }
+
+    @Test
+    void tracksBalanceChangesIncrementally() {
+        assertThat(clientService.checkDebtClient(ids.get("medium"))).isTrue();
+
+        clientService.updatePhoneBalance(ids.get("medium"), new BigDecimal("40.00"));
+        clientService.updatePhoneBalance(ids.get("paid"), new BigDecimal("-215.00"));
+        clientService.updatePhoneBalance(ids.get("large"), new BigDecimal("100.00"));
+
+        assertThat(clientService.checkDebtClient(ids.get("medium"))).isFalse();
+        assertThat(clientService.checkDebtClient(ids.get("paid"))).isTrue();
+        assertThat(clientService.getDebtsClients(BigDecimal.ZERO, 0, 10))
+                .extracting(DebtorDTO::getFullName, DebtorDTO::getDebt)
+                .containsExactly(
+                        tuple("paid", new BigDecimal("200.00")),
+                        tuple("large", new BigDecimal("20.00")),
+                        tuple("small", new BigDecimal("5.00")));
+    }
+
+    @Test
+    void aLateBalanceCallbackDoesNotRestoreAnOlderBalance() {
+        Long paid = ids.get("paid");
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // Registered first, so a later payment commits and is applied before this charge's callback runs
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    newTransaction.executeWithoutResult(later -> clientService.updatePhoneBalance(paid, new BigDecimal("30.00")));
+                }
+            });
+            clientService.updatePhoneBalance(paid, new BigDecimal("-25.00"));
+        });
+
+        assertThat(clientRepository.findById(paid).orElseThrow().getBalance()).isEqualByComparingTo("20.00");
+        assertThat(clientService.checkDebtClient(paid)).isFalse();
+        assertThat(clientService.getDebtsClients(BigDecimal.ZERO, 0, 10))
+                .extracting(DebtorDTO::getFullName)
+                .containsExactly("large", "medium", "small");
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.ClientSummaryDTO;
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.DTO.PhoneNumberViewDTO;
+import com.example.calltrack.DTO.UsageReportDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ClientSummaryServiceTests {
+
+    @Autowired
+    private ClientSummaryService clientSummaryService;
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private ChargeAggregator chargeAggregator;
+    @Autowired
+    private RatingCache ratingCache;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+
+    private Client client;
+    private PhoneNumber number;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Базовый").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        client = clientRepository.save(Client.builder()
+                .fullName("Summary Client")
+                .email("summary@test.by")
+                .balance(BigDecimal.ZERO)
+                .build());
+        number = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000300").numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+        phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000301").numberBalance(BigDecimal.ZERO).build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        chargeAggregator.flush();
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+        clientSummaryService.invalidateAll();
+    }
+
+    private ClientSummaryDTO summary() {
+        return clientSummaryService.getSummary(client.getClientId()).join();
+    }
+
+    @Test
+    void assemblesNumbersPaymentsCallsAndMonthUsage() {
+        CallRequestDTO call = CallRequestDTO.builder().phoneNumber("+375290000300").callType("local")
+                .durationMinutes(10).startDate(LocalDate.now()).build();
+        callService.addCall(call);
+        callService.addCall(call);
+        chargeAggregator.flush();
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(number.getNumberId(), new BigDecimal("2.00"), "card", client.getClientId()));
+
+        ClientSummaryDTO summary = summary();
+
+        assertThat(summary.getBalance()).isEqualByComparingTo("-3.00");
+        assertThat(summary.getDebt()).isEqualByComparingTo("3.00");
+        assertThat(summary.getNumbers()).extracting(PhoneNumberViewDTO::getPhone, PhoneNumberViewDTO::getTariffName)
+                .containsExactly(
+                        tuple("+375290000300", "Базовый"),
+                        tuple("+375290000301", null));
+        assertThat(summary.getRecentPayments()).singleElement()
+                .satisfies(payment -> assertThat(payment.getBalanceAfter()).isEqualByComparingTo("-3.00"));
+        assertThat(summary.getRecentCalls()).hasSize(2)
+                .allSatisfy(c -> assertThat(c.getPhoneNumber()).isEqualTo("+375290000300"));
+        assertThat(summary.getMonth()).isEqualTo(LocalDate.now().withDayOfMonth(1));
+        assertThat(summary.getMonthUsage()).singleElement().satisfies(usage -> {
+            assertThat(usage.getCallType()).isEqualTo("local");
+            assertThat(usage.getCalls()).isEqualTo(2);
+            assertThat(usage.getCost()).isEqualByComparingTo("5.00");
+        });
+    }
+
+    @Test
+    void servesFromCacheUntilPaymentOrCall() {
+        ClientSummaryDTO first = summary();
+        assertThat(summary()).isSameAs(first);
+
+        callService.addCall(CallRequestDTO.builder().phoneNumber("+375290000300").callType("local")
+                .durationMinutes(4).startDate(LocalDate.now()).build());
+        ClientSummaryDTO afterCall = summary();
+        assertThat(afterCall).isNotSameAs(first);
+        assertThat(afterCall.getRecentCalls()).hasSize(1);
+        assertThat(afterCall.getMonthUsage()).extracting(UsageReportDTO::getCalls).containsExactly(1L);
+
+        chargeAggregator.flush();
+        assertThat(summary().getBalance()).isEqualByComparingTo("-1.00");
+
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(number.getNumberId(), new BigDecimal("5.00"), "card", client.getClientId()));
+        ClientSummaryDTO afterPayment = summary();
+        assertThat(afterPayment.getBalance()).isEqualByComparingTo("4.00");
+        assertThat(afterPayment.getRecentPayments()).hasSize(1);
+        assertThat(summary()).isSameAs(afterPayment);
+    }
+
+    @Test
+    void unknownClientIsNotFound() {
+        assertThatThrownBy(() -> clientSummaryService.getSummary(-1L).join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+}
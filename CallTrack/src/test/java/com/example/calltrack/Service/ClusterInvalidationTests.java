@@ -0,0 +1,203 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.InvalidationChannel;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Runs on its own database, as the recording channel needs a separate context. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:calltrack_invalidation;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "calltrack.charging.journal-dir=target/charge-journal-invalidation",
+        "calltrack.cache-invalidation.node-id=node-a",
+        "calltrack.cache-invalidation.batch-window=PT1H"
+})
+class ClusterInvalidationTests {
+
+    /** Stands in for PostgreSQL: keeps what would have been sent. */
+    static class RecordingChannel extends InvalidationChannel {
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+
+        RecordingChannel(JdbcTemplate jdbcTemplate, DataSource dataSource) throws MetaDataAccessException {
+            super(jdbcTemplate, dataSource);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public void publish(List<String> payloads) {
+            sent.addAll(payloads);
+        }
+
+        @Override
+        public void listen(Consumer<String> onMessage, Runnable onReconnect) {
+        }
+
+        // Read through a method: the bean is proxied for exception translation
+        List<String> sent() {
+            return sent;
+        }
+    }
+
+    @TestConfiguration
+    static class Channel {
+        @Bean
+        @Primary
+        RecordingChannel recordingChannel(JdbcTemplate jdbcTemplate, DataSource dataSource) throws MetaDataAccessException {
+            return new RecordingChannel(jdbcTemplate, dataSource);
+        }
+    }
+
+    @Autowired
+    private ClusterInvalidation clusterInvalidation;
+    @Autowired
+    private RecordingChannel channel;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private RatingCache ratingCache;
+    @Autowired
+    private DebtorIndex debtorIndex;
+    @Autowired
+    private TariffCatalog tariffCatalog;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Tarif tarif;
+    private Client client;
+    private PhoneNumber number;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        tarif = tarifRepository.save(Tarif.builder().tariffName("Кластер").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        client = clientRepository.save(Client.builder()
+                .fullName("Clustered Client")
+                .email("cluster@test.by")
+                .balance(BigDecimal.ZERO)
+                .build());
+        number = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000800").numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+        clusterInvalidation.flush();
+        channel.sent().clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+    }
+
+    @Test
+    void encodesIntoPayloadsUnderTheLimit() {
+        ClusterInvalidation.Batch batch = new ClusterInvalidation.Batch(
+                Set.of(1L, 22L, 333L, 4444L, 55555L), Set.of(6L, 77L), Set.of("+375 29, 1", "+375290000001"), true, false);
+
+        List<String> payloads = ClusterInvalidation.encode("node-a", batch, 24);
+
+        assertThat(payloads).hasSizeGreaterThan(1).allSatisfy(payload -> {
+            assertThat(payload.length()).isLessThanOrEqualTo(24);
+            assertThat(payload).startsWith("node-a ");
+        });
+        ClusterInvalidation.Batch decoded = payloads.stream()
+                .map(ClusterInvalidation::decode)
+                .map(ClusterInvalidation.Message::batch)
+                .reduce((a, b) -> new ClusterInvalidation.Batch(union(a.clients(), b.clients()), union(a.numbers(), b.numbers()),
+                        union(a.phones(), b.phones()), a.tariffs() || b.tariffs(), a.all() || b.all()))
+                .orElseThrow();
+        assertThat(decoded).isEqualTo(batch);
+        assertThat(ClusterInvalidation.decode("node-b x1 c7").batch().clients()).containsExactly(7L);
+        assertThat(ClusterInvalidation.decode("node-b cX")).isNull();
+    }
+
+    @Test
+    void writesOfOneWindowAreSentAsOneNotification() {
+        for (int i = 0; i < 50; i++) {
+            paymentService.addPaymentsOnNumber(new PaymentRequestDTO(number.getNumberId(), BigDecimal.ONE, "card", client.getClientId()));
+        }
+        assertThat(channel.sent()).isEmpty();
+
+        clusterInvalidation.flush();
+
+        assertThat(channel.sent()).containsExactly("node-a c%d n%d".formatted(client.getClientId(), number.getNumberId()));
+        clusterInvalidation.flush();
+        assertThat(channel.sent()).hasSize(1);
+    }
+
+    @Test
+    void changesFromAnotherNodeAreReadFresh() {
+        Tarif other = tarifRepository.save(Tarif.builder().tariffName("Другой").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.10")).currency("BYN").build());
+        assertThat(clientRepository.findById(client.getClientId()).orElseThrow().getBalance()).isEqualByComparingTo("0");
+        assertThat(phoneNumberRepository.findByPhone("+375290000800").orElseThrow().getNumberBalance()).isEqualByComparingTo("0");
+        assertThat(ratingCache.get("+375290000800").getTariffId()).isEqualTo(tarif.getTariffId());
+        assertThat(debtorIndex.isDebtor(client.getClientId())).isFalse();
+
+        // What another node wrote, behind this node's caches
+        jdbcTemplate.update("UPDATE client SET balance = -5 WHERE client_id = ?", client.getClientId());
+        jdbcTemplate.update("UPDATE phone_number SET number_balance = -5, tarif_id = ? WHERE number_id = ?",
+                other.getTariffId(), number.getNumberId());
+        jdbcTemplate.update("UPDATE tariff SET price_per_minute = 0.50 WHERE tariff_id = ?", tarif.getTariffId());
+        String changes = " c%d n%d p%%2B375290000800 t".formatted(client.getClientId(), number.getNumberId());
+
+        clusterInvalidation.receive("node-a" + changes);
+        assertThat(clientRepository.findById(client.getClientId()).orElseThrow().getBalance()).isEqualByComparingTo("0");
+
+        clusterInvalidation.receive("node-b" + changes);
+        assertThat(clientRepository.findById(client.getClientId()).orElseThrow().getBalance()).isEqualByComparingTo("-5");
+        assertThat(phoneNumberRepository.findByPhone("+375290000800").orElseThrow().getNumberBalance()).isEqualByComparingTo("-5");
+        assertThat(ratingCache.get("+375290000800").getTariffId()).isEqualTo(other.getTariffId());
+        assertThat(debtorIndex.isDebtor(client.getClientId())).isTrue();
+        assertThat(tariffCatalog.compiled(tarif.getTariffId()).cost("local", 0, 60)).isEqualTo(50);
+        assertThat(entityManagerFactory.getCache().contains(Tarif.class, tarif.getTariffId())).isFalse();
+    }
+
+    private static <T> Set<T> union(Set<T> a, Set<T> b) {
+        Set<T> union = new HashSet<>(a);
+        union.addAll(b);
+        return union;
+    }
+}
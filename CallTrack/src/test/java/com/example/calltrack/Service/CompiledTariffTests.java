@@ -0,0 +1,73 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Entity.TarifRate;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledTariffTests {
+
+    private static final int NINE_AM = LocalTime.of(9, 0).toSecondOfDay();
+    private static final int TEN_PM = LocalTime.of(22, 0).toSecondOfDay();
+
+    @Test
+    void flatTariffBillsWholeMinutes() {
+        CompiledTariff tariff = CompiledTariff.compile(Tarif.builder()
+                .tariffId(1L).pricePerMinute(new BigDecimal("0.25")).build(), List.of());
+
+        assertThat(tariff.cost("local", NINE_AM, 600)).isEqualTo(250);
+        assertThat(tariff.cost("local", NINE_AM, 61)).isEqualTo(50);
+        assertThat(tariff.cost("local", NINE_AM, 0)).isZero();
+    }
+
+    @Test
+    void perSecondIncrementsRoundHalfUpToMinorUnits() {
+        CompiledTariff tariff = CompiledTariff.compile(Tarif.builder()
+                .tariffId(1L).pricePerMinute(new BigDecimal("0.25")).billingIncrementSeconds(1).build(), List.of());
+
+        // 90 s at 25 kopecks/min = 37.5 kopecks
+        assertThat(tariff.cost("local", NINE_AM, 90)).isEqualTo(38);
+    }
+
+    @Test
+    void appliesPeakBandsAndCallTypeRates() {
+        Tarif tarif = Tarif.builder()
+                .tariffId(1L)
+                .pricePerMinute(new BigDecimal("0.20"))
+                .offPeakPricePerMinute(new BigDecimal("0.10"))
+                .peakStart(LocalTime.of(8, 0))
+                .peakEnd(LocalTime.of(20, 0))
+                .build();
+        TarifRate international = TarifRate.builder()
+                .callType("international")
+                .pricePerMinute(new BigDecimal("1.50"))
+                .offPeakPricePerMinute(new BigDecimal("1.00"))
+                .build();
+        CompiledTariff tariff = CompiledTariff.compile(tarif, List.of(international));
+
+        assertThat(tariff.ratePerMinute("local", NINE_AM)).isEqualTo(20);
+        assertThat(tariff.ratePerMinute("local", TEN_PM)).isEqualTo(10);
+        assertThat(tariff.ratePerMinute("international", NINE_AM)).isEqualTo(150);
+        assertThat(tariff.ratePerMinute("international", TEN_PM)).isEqualTo(100);
+        assertThat(tariff.ratePerMinute(null, NINE_AM)).isEqualTo(20);
+    }
+
+    @Test
+    void peakWindowMayWrapMidnight() {
+        CompiledTariff tariff = CompiledTariff.compile(Tarif.builder()
+                .tariffId(1L)
+                .pricePerMinute(new BigDecimal("0.30"))
+                .offPeakPricePerMinute(new BigDecimal("0.05"))
+                .peakStart(LocalTime.of(21, 0))
+                .peakEnd(LocalTime.of(7, 0))
+                .build(), List.of());
+
+        assertThat(tariff.ratePerMinute("local", TEN_PM)).isEqualTo(30);
+        assertThat(tariff.ratePerMinute("local", NINE_AM)).isEqualTo(5);
+    }
+}
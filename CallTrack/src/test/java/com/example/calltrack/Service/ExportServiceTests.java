@@ -0,0 +1,114 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallFilterDTO;
+import com.example.calltrack.DTO.PaymentFilterDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.Payment;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ExportServiceTests {
+
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private RatingCache ratingCache;
+
+    @BeforeEach
+    void setUp() {
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        ratingCache.invalidateAll();
+
+        Client client = clientRepository.save(Client.builder()
+                .fullName("Export Client")
+                .email("export@test.by")
+                .balance(BigDecimal.TEN)
+                .build());
+        PhoneNumber number = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000010").numberBalance(BigDecimal.ZERO).build());
+
+        LocalDateTime day = LocalDate.of(2025, 9, 1).atStartOfDay();
+        callRepository.save(Call.builder().phoneNumber(number).startedAt(day)
+                .callType("local").durationMinutes(3).cost(new BigDecimal("1.50")).build());
+        callRepository.save(Call.builder().phoneNumber(number).startedAt(day.plusMonths(1))
+                .callType("international, roaming").durationMinutes(2).cost(new BigDecimal("4.00")).build());
+        paymentsRepository.save(Payment.builder().client(client).amount(BigDecimal.TEN)
+                .paymentMethod("card").balanceAfter(BigDecimal.TEN).createdAt(day)
+                .phone_number("+375290000010").build());
+    }
+
+    @Test
+    void exportsCallsAsCsvWithinDateRange() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportService.exportCalls(CallFilterDTO.builder()
+                .from(LocalDate.of(2025, 9, 1)).to(LocalDate.of(2025, 9, 30)).build(), ExportFormat.CSV, false, response);
+
+        String[] lines = response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("call_id,started_at");
+        assertThat(lines[1]).endsWith(",2025-09-01T00:00,+375290000010,local,3,1.50");
+    }
+
+    @Test
+    void quotesCsvFieldsAndSupportsGzip() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportService.exportCalls(new CallFilterDTO(), ExportFormat.CSV, true, response);
+
+        assertThat(response.getContentType()).isEqualTo("application/gzip");
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))
+                .readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(csv).contains("\"international, roaming\"");
+    }
+
+    @Test
+    void quotesCsvFieldsWithCarriageReturns() throws Exception {
+        paymentsRepository.save(Payment.builder().client(clientRepository.findAll().get(0)).amount(BigDecimal.ONE)
+                .paymentMethod("card\rterminal").balanceAfter(BigDecimal.TEN)
+                .createdAt(LocalDate.of(2025, 9, 2).atStartOfDay()).phone_number("+375290000010").build());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportService.exportPayments(new PaymentFilterDTO(), ExportFormat.CSV, false, response);
+
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).contains(",\"card\rterminal\",");
+    }
+
+    @Test
+    void exportsPaymentsAsNdjson() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportService.exportPayments(PaymentFilterDTO.builder().phone("+375290000010").build(),
+                ExportFormat.NDJSON, false, response);
+
+        String[] lines = response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(1);
+        assertThat(lines[0]).contains("\"paymentMethod\":\"card\"", "\"createdAt\":\"2025-09-01T00:00:00\"");
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.calltrack.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestLimitTests {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void slowWritesCutTheLimitOncePerRound() {
+        IngestLimit limit = new IngestLimit(2, 8, 100 * MS, 0, 0);
+
+        limit.onWrite(10 * MS, 200 * MS, 1000, true);
+        assertThat(limit.limit()).isEqualTo(6);
+        // Started before the cut took effect: says nothing about the new limit
+        limit.onWrite(20 * MS, 300 * MS, 1000, true);
+        assertThat(limit.limit()).isEqualTo(6);
+
+        limit.onWrite(250 * MS, 200 * MS, 1000, true);
+        assertThat(limit.limit()).isEqualTo(4);
+        limit.onWrite(500 * MS, 200 * MS, 1000, true);
+        limit.onWrite(750 * MS, 200 * MS, 1000, true);
+        limit.onWrite(1000 * MS, 200 * MS, 1000, true);
+        assertThat(limit.limit()).isEqualTo(2);
+    }
+
+    @Test
+    void fastWritesRaiseTheLimitOnlyWhileItIsInFullUse() {
+        IngestLimit limit = new IngestLimit(1, 4, 100 * MS, 0, 0);
+        limit.onWrite(10 * MS, 200 * MS, 1000, true);
+        assertThat(limit.limit()).isEqualTo(3);
+
+        assertThat(limit.onWrite(300 * MS, 50 * MS, 1000, false)).isFalse();
+        assertThat(limit.limit()).isEqualTo(3);
+        assertThat(limit.onWrite(400 * MS, 50 * MS, 1000, true)).isTrue();
+        assertThat(limit.onWrite(500 * MS, 50 * MS, 1000, true)).isFalse();
+        assertThat(limit.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void estimatesTheWaitFromTheObservedRate() {
+        IngestLimit limit = new IngestLimit(1, 4, 100 * MS, 0, 0);
+        assertThat(limit.expectedWaitNanos(1000)).isZero();
+        assertThat(limit.callsWithin(1000 * MS)).isEqualTo(Long.MAX_VALUE);
+
+        // 1 ms per call on each of 4 writers
+        limit.onWrite(10 * MS, 10 * MS, 10, false);
+
+        assertThat(limit.expectedWaitNanos(400)).isEqualTo(100 * MS);
+        assertThat(limit.callsWithin(1000 * MS)).isEqualTo(4000);
+    }
+
+    @Test
+    void keepsTheFloorWhenOnlySmallWritesWereSeen() {
+        IngestLimit limit = new IngestLimit(1, 4, 100 * MS, 2000, 0);
+
+        // A lone call after a quiet spell: 20 ms for one call would let in 400 calls in 2 s
+        limit.onWrite(10 * MS, 20 * MS, 1, false);
+        assertThat(limit.callsWithin(2000 * MS)).isEqualTo(2000);
+
+        // Full groups at 0.1 ms per call bring the observed rate back above the floor
+        for (int i = 0; i < 50; i++) {
+            limit.onWrite((100 + i) * MS, 50 * MS, 500, false);
+        }
+        assertThat(limit.callsWithin(2000 * MS)).isGreaterThan(2000);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Runs on its own database and journal, since the Prometheus registry needs a separate context. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:calltrack_metrics;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "calltrack.charging.journal-dir=target/charge-journal-metrics"
+})
+@AutoConfigureObservability
+@AutoConfigureMockMvc
+class MetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private ChargeAggregator chargeAggregator;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+
+    private Client client;
+    private PhoneNumber number;
+
+    @BeforeEach
+    void setUp() {
+        chargeAggregator.flush();
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Базовый").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        client = clientRepository.save(Client.builder().fullName("Metrics Client").email("metrics@test.by")
+                .balance(BigDecimal.ZERO).build());
+        number = phoneNumberRepository.save(PhoneNumber.builder().client(client).phone("+375290000400")
+                .numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+    }
+
+    /** {@code @Timed} timers are tagged by class, method and exception; this sums all of them. */
+    private long timerCount(String name) {
+        return meterRegistry.find(name).timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    @Test
+    void countsRatedCallsAndChargedRevenue() {
+        double rated = meterRegistry.counter("calltrack.calls.rated").count();
+        double revenue = meterRegistry.counter("calltrack.revenue.charged").count();
+        long timed = timerCount("calltrack.call.add");
+
+        CallRequestDTO call = CallRequestDTO.builder().phoneNumber("+375290000400").callType("local")
+                .durationMinutes(10).startDate(LocalDate.of(2025, 9, 1)).build();
+        callService.addCall(call);
+        callService.addCall(call);
+        assertThat(meterRegistry.get("calltrack.charges.pending").gauge().value()).isEqualTo(2);
+        chargeAggregator.flush();
+
+        assertThat(meterRegistry.counter("calltrack.calls.rated").count() - rated).isEqualTo(2);
+        assertThat(meterRegistry.counter("calltrack.revenue.charged").count() - revenue).isEqualTo(5.0);
+        assertThat(timerCount("calltrack.call.add") - timed).isEqualTo(2);
+        assertThat(meterRegistry.get("calltrack.charges.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void exposesPrometheusScrape() throws Exception {
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(number.getNumberId(), BigDecimal.TEN, "card", client.getClientId()));
+        mockMvc.perform(get("/api/v1/clients/debts")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape).contains(
+                "http_server_requests_seconds_bucket",
+                "calltrack_payment_add_seconds_bucket",
+                "spring_data_repository_invocations_seconds_bucket",
+                "hibernate_query_executions_total",
+                "hikaricp_connections_pending",
+                "cache_gets_total{cache=\"rating\"",
+                "executor_queued_tasks{name=\"bcrypt\"",
+                "calltrack_debtors");
+    }
+}
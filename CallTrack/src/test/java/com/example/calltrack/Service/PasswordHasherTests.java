@@ -0,0 +1,57 @@
+package com.example.calltrack.Service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHasherTests {
+
+    /** Blocks every hash until released, so the test controls how full the pool is. */
+    private static class GatedEncoder implements PasswordEncoder {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+
+    @Test
+    void shedsWorkBeyondThreadsAndQueue() throws Exception {
+        GatedEncoder encoder = new GatedEncoder();
+        PasswordHasher hasher = new PasswordHasher(encoder, 1, 2);
+        try {
+            CompletableFuture<Boolean> running = hasher.matches("a", "hash:a");
+            CompletableFuture<Boolean> queued1 = hasher.matches("b", "hash:x");
+            CompletableFuture<String> queued2 = hasher.encode("c");
+
+            assertThatThrownBy(() -> hasher.matches("d", "hash:d")).isInstanceOf(RejectedExecutionException.class);
+            assertThat(hasher.getStats().getRejected()).isEqualTo(1);
+            assertThat(hasher.getStats().getQueued()).isEqualTo(2);
+
+            encoder.release.countDown();
+            assertThat(running.get()).isTrue();
+            assertThat(queued1.get()).isFalse();
+            assertThat(queued2.get()).isEqualTo("hash:c");
+            assertThat(hasher.matches("e", "hash:e").get()).isTrue();
+        } finally {
+            hasher.destroy();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.Payment;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class PaymentServiceTests {
+    private static final int PAYMENTS = 4000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private Client client;
+    private PhoneNumber phone;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        client = clientRepository.save(Client.builder()
+                .fullName("Hot Account")
+                .email("payments@test.by")
+                .balance(new BigDecimal("-100.00"))
+                .build());
+        phone = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000100").numberBalance(BigDecimal.ZERO).build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+    }
+
+    private PaymentRequestDTO payment(String amount) {
+        return new PaymentRequestDTO(phone.getNumberId(), new BigDecimal(amount), "card", client.getClientId());
+    }
+
+    @Test
+    void recordsBalanceReturnedByTheUpdate() {
+        paymentService.addPaymentsOnNumber(payment("30.50"));
+        paymentService.addPaymentsOnNumber(payment("100.00"));
+
+        assertThat(paymentsRepository.findAllByClient_ClientId(client.getClientId()))
+                .extracting(Payment::getBalanceAfter, Payment::getPhone_number)
+                .containsExactlyInAnyOrder(
+                        tuple(new BigDecimal("-69.50"), "+375290000100"),
+                        tuple(new BigDecimal("30.50"), "+375290000100"));
+    }
+
+    @Test
+    void rollsBackWhenClientIsMissing() {
+        PaymentRequestDTO request = new PaymentRequestDTO(phone.getNumberId(), BigDecimal.TEN, "card", -1L);
+
+        assertThatThrownBy(() -> paymentService.addPaymentsOnNumber(request))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        assertThat(phoneNumberRepository.findById(phone.getNumberId()).orElseThrow().getNumberBalance())
+                .isEqualByComparingTo("0");
+    }
+
+    @Test
+    void concurrentPaymentsToOneClientLoseNoUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>(PAYMENTS);
+        long started = System.nanoTime();
+        try {
+            for (int i = 0; i < PAYMENTS; i++) {
+                futures.add(executor.submit(() -> paymentService.addPaymentsOnNumber(payment("1.25"))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%d payments on %d threads: %.2f s, %.0f payments/s%n",
+                PAYMENTS, THREADS, seconds, PAYMENTS / seconds);
+
+        BigDecimal expected = new BigDecimal("-100.00").add(new BigDecimal("1.25").multiply(BigDecimal.valueOf(PAYMENTS)));
+        assertThat(clientRepository.findById(client.getClientId()).orElseThrow().getBalance()).isEqualByComparingTo(expected);
+        assertThat(phoneNumberRepository.findById(phone.getNumberId()).orElseThrow().getNumberBalance())
+                .isEqualByComparingTo(new BigDecimal("1.25").multiply(BigDecimal.valueOf(PAYMENTS)));
+
+        // Every payment saw a distinct running balance, ending at the final one
+        List<BigDecimal> balances = paymentsRepository.findAllByClient_ClientId(client.getClientId()).stream()
+                .map(Payment::getBalanceAfter)
+                .toList();
+        assertThat(balances).hasSize(PAYMENTS).doesNotHaveDuplicates();
+        assertThat(balances.stream().max(BigDecimal::compareTo).orElseThrow()).isEqualByComparingTo(expected);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallFilterDTO;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.DTO.ClientSummaryDTO;
+import com.example.calltrack.DTO.MonthlyUsageDTO;
+import com.example.calltrack.DTO.PaymentFilterDTO;
+import com.example.calltrack.DTO.PaymentReportDTO;
+import com.example.calltrack.DTO.PhoneNumberViewDTO;
+import com.example.calltrack.DTO.ReportFilterDTO;
+import com.example.calltrack.DTO.UsageReportDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.Payment;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.PostgresTest;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentDailyRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.UsageDailyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Queries with optional filters, which H2 accepts in forms PostgreSQL rejects: exports, reports and
+ * the client summary built from them.
+ */
+@PostgresTest
+class PostgresQueryTests {
+    private static final LocalDateTime DAY = LocalDate.of(2025, 9, 1).atStartOfDay();
+
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private RollupService rollupService;
+    @Autowired
+    private ClientSummaryService clientSummaryService;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private UsageDailyRepository usageDailyRepository;
+    @Autowired
+    private PaymentDailyRepository paymentDailyRepository;
+    @Autowired
+    private RatingCache ratingCache;
+
+    private Client client;
+    private PhoneNumber number;
+
+    @BeforeEach
+    void setUp() {
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        usageDailyRepository.deleteAll();
+        paymentDailyRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        ratingCache.invalidateAll();
+        clientSummaryService.invalidateAll();
+
+        client = clientRepository.save(Client.builder()
+                .fullName("Postgres Client").email("postgres@test.by").balance(BigDecimal.TEN).build());
+        number = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000020").numberBalance(BigDecimal.ZERO).build());
+        Call local = callRepository.save(Call.builder().phoneNumber(number).startedAt(DAY)
+                .callType("local").durationMinutes(3).durationSeconds(180).cost(new BigDecimal("1.50")).build());
+        Call international = callRepository.save(Call.builder().phoneNumber(number).startedAt(DAY.plusDays(1))
+                .callType("international").durationMinutes(2).durationSeconds(120).cost(new BigDecimal("4.00")).build());
+        rollupService.recordUsage(List.of(
+                RollupService.usageOf(client.getClientId(), number.getNumberId(), local),
+                RollupService.usageOf(client.getClientId(), number.getNumberId(), international)));
+        paymentsRepository.save(Payment.builder().client(client).amount(BigDecimal.TEN)
+                .paymentMethod("card").balanceAfter(BigDecimal.TEN).createdAt(DAY)
+                .phone_number("+375290000020").build());
+        rollupService.recordPayment(client.getClientId(), "+375290000020", DAY, BigDecimal.TEN);
+    }
+
+    @Test
+    void exportsCallsWithAndWithoutFilters() throws Exception {
+        assertThat(exportCalls(new CallFilterDTO())).hasSize(3);
+        String[] filtered = exportCalls(CallFilterDTO.builder().phone("+375290000020").callType("international")
+                .from(LocalDate.of(2025, 9, 1)).to(LocalDate.of(2025, 9, 30)).build());
+        assertThat(filtered).hasSize(2);
+        assertThat(filtered[1]).endsWith(",international,2,4.00");
+    }
+
+    @Test
+    void exportsPaymentsWithAndWithoutFilters() throws Exception {
+        assertThat(exportPayments(new PaymentFilterDTO())).hasSize(2);
+        assertThat(exportPayments(PaymentFilterDTO.builder().phone("+375290000020")
+                .from(LocalDate.of(2025, 9, 2)).build())).hasSize(1);
+    }
+
+    @Test
+    void reportsUsageWithAndWithoutFilters() {
+        assertThat(reportService.usageByDay(new ReportFilterDTO()))
+                .extracting(UsageReportDTO::getDay, UsageReportDTO::getCalls)
+                .containsExactly(tuple(LocalDate.of(2025, 9, 1), 1L), tuple(LocalDate.of(2025, 9, 2), 1L));
+        assertThat(reportService.usageByDay(ReportFilterDTO.builder().phone("+375290000020")
+                .from(LocalDate.of(2025, 9, 2)).to(LocalDate.of(2025, 9, 30)).build()))
+                .extracting(UsageReportDTO::getDay)
+                .containsExactly(LocalDate.of(2025, 9, 2));
+        assertThat(reportService.usageByCallType(ReportFilterDTO.builder().clientId(client.getClientId())
+                .from(LocalDate.of(2025, 9, 1)).build()))
+                .extracting(UsageReportDTO::getCallType, UsageReportDTO::getDurationSeconds)
+                .containsExactly(tuple("international", 120L), tuple("local", 180L));
+        assertThat(reportService.usageByMonth(ReportFilterDTO.builder().to(LocalDate.of(2025, 9, 30)).build()))
+                .extracting(MonthlyUsageDTO::getMonth, MonthlyUsageDTO::getCallType)
+                .containsExactlyInAnyOrder(tuple(LocalDate.of(2025, 9, 1), "international"), tuple(LocalDate.of(2025, 9, 1), "local"));
+    }
+
+    @Test
+    void reportsPaymentsWithAndWithoutFilters() {
+        assertThat(reportService.paymentsByDay(new ReportFilterDTO()))
+                .extracting(PaymentReportDTO::getDay, PaymentReportDTO::getPayments)
+                .containsExactly(tuple(LocalDate.of(2025, 9, 1), 1L));
+        assertThat(reportService.paymentsByDay(ReportFilterDTO.builder().phone("+375290000020")
+                .from(LocalDate.of(2025, 9, 2)).build())).isEmpty();
+    }
+
+    @Test
+    void summarisesAClient() {
+        // The summary totals the current month
+        rollupService.recordUsage(List.of(RollupService.usageOf(client.getClientId(), number.getNumberId(),
+                Call.builder().startedAt(LocalDate.now().atStartOfDay()).callType("local")
+                        .durationMinutes(5).durationSeconds(300).cost(new BigDecimal("2.50")).build())));
+
+        ClientSummaryDTO summary = clientSummaryService.getSummary(client.getClientId()).join();
+
+        assertThat(summary.getNumbers()).extracting(PhoneNumberViewDTO::getPhone).containsExactly("+375290000020");
+        assertThat(summary.getRecentCalls()).extracting(CallResponseDTO::getCallType)
+                .containsExactly("international", "local");
+        assertThat(summary.getRecentPayments()).hasSize(1);
+        assertThat(summary.getMonthUsage())
+                .extracting(UsageReportDTO::getCallType, UsageReportDTO::getDurationSeconds)
+                .containsExactly(tuple("local", 300L));
+    }
+
+    private String[] exportCalls(CallFilterDTO filter) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportService.exportCalls(filter, ExportFormat.CSV, false, response);
+        return response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+    }
+
+    private String[] exportPayments(PaymentFilterDTO filter) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        exportService.exportPayments(filter, ExportFormat.CSV, false, response);
+        return response.getContentAsString(StandardCharsets.UTF_8).split("\n");
+    }
+}
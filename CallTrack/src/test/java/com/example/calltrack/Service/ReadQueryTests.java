@@ -0,0 +1,158 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.Controller.CallController;
+import com.example.calltrack.Controller.ClientController;
+import com.example.calltrack.Controller.PhoneNumberController;
+import com.example.calltrack.DTO.CallFilterDTO;
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.DTO.PaymentViewDTO;
+import com.example.calltrack.DTO.PhoneNumberViewDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.Payment;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every list endpoint has to be served by a single join query, however many rows and distinct
+ * clients, numbers and tariffs it returns, and must not serialize any entity state.
+ */
+@SpringBootTest
+class ReadQueryTests {
+    private static final int CLIENTS = 5;
+    private static final int CALLS_PER_NUMBER = 4;
+
+    @Autowired
+    private CallController callController;
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private PhoneNumberController phoneNumberController;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+    private Client firstClient;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        LocalDateTime day = LocalDate.of(2025, 9, 1).atStartOfDay();
+        List<Call> calls = new ArrayList<>();
+        List<Payment> payments = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Тариф " + c).tariffType("standard")
+                    .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+            Client client = clientRepository.save(Client.builder()
+                    .fullName("Client " + c)
+                    .email("read" + c + "@test.by")
+                    .password("secret-hash-" + c)
+                    .balance(BigDecimal.ZERO)
+                    .build());
+            if (firstClient == null) {
+                firstClient = client;
+            }
+            for (int n = 0; n < 2; n++) {
+                PhoneNumber number = phoneNumberRepository.save(PhoneNumber.builder()
+                        .client(client).phone("+3752900" + c + "000" + n).numberBalance(BigDecimal.ZERO)
+                        .tarif(n == 0 ? tarif : null).build());
+                for (int i = 0; i < CALLS_PER_NUMBER; i++) {
+                    calls.add(Call.builder().phoneNumber(number).tarif(tarif).startedAt(day.plusHours(i))
+                            .callType("local").cost(BigDecimal.ONE).durationMinutes(1).build());
+                }
+                payments.add(Payment.builder().client(client).phone_number(number.getPhone())
+                        .amount(BigDecimal.TEN).paymentMethod("card").balanceAfter(BigDecimal.TEN)
+                        .createdAt(day.plusDays(n)).build());
+            }
+        }
+        callRepository.saveAll(calls);
+        paymentsRepository.saveAll(payments);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+    }
+
+    /** Runs an endpoint and asserts it issued exactly one statement. */
+    private <T> T inOneStatement(Supplier<T> endpoint) {
+        statistics.clear();
+        T result = endpoint.get();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        return result;
+    }
+
+    @Test
+    void callsAreOneQuery() throws Exception {
+        List<CallResponseDTO> calls = inOneStatement(() -> callController.getCalls(new CallFilterDTO()).getBody());
+
+        assertThat(calls).hasSize(CLIENTS * 2 * CALLS_PER_NUMBER);
+        assertThat(calls).allSatisfy(call -> assertThat(call.getPhoneNumber()).startsWith("+3752900"));
+        assertThat(objectMapper.writeValueAsString(calls)).doesNotContain("password", "secret-hash");
+    }
+
+    @Test
+    void recentPaymentsAreOneQuery() throws Exception {
+        List<PaymentViewDTO> all = inOneStatement(() -> clientController.getAllPayments(100).getBody());
+        List<PaymentViewDTO> ofClient = inOneStatement(
+                () -> clientController.getRecentPayments(firstClient.getClientId(), 100).getBody());
+
+        assertThat(all).hasSize(CLIENTS * 2);
+        assertThat(ofClient).hasSize(2).allSatisfy(payment ->
+                assertThat(payment.getClientId()).isEqualTo(firstClient.getClientId()));
+        assertThat(objectMapper.writeValueAsString(all)).doesNotContain("password", "secret-hash")
+                .contains("\"phone_number\"");
+    }
+
+    @Test
+    void phoneNumbersOfClientAreOneQuery() throws Exception {
+        List<PhoneNumberViewDTO> numbers = inOneStatement(
+                () -> phoneNumberController.getPhoneNumber(firstClient.getClientId()).getBody());
+
+        assertThat(numbers).hasSize(2);
+        assertThat(numbers).extracting(PhoneNumberViewDTO::getTariffName).containsExactlyInAnyOrder("Тариф 0", null);
+        assertThat(objectMapper.writeValueAsString(numbers)).doesNotContain("password", "secret-hash");
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.DiscrepancyDTO;
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.DTO.ReconciliationReportDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentDailyRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.example.calltrack.Repository.UsageDailyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ReconciliationServiceTests {
+    private static final long MISSING_CLIENT_ID = 999_999_999L;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private PhoneNumberService phoneNumberService;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private UsageDailyRepository usageDailyRepository;
+    @Autowired
+    private PaymentDailyRepository paymentDailyRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private RatingCache ratingCache;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Client consistent;
+    private Client numberless;
+    private Client opened;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Сверка").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+
+        // Paid on one number, called from the other, then the paid number deleted: its balance moves along
+        consistent = client("consistent@recon.by", BigDecimal.ZERO);
+        PhoneNumber paid = number(consistent, "+375290001001", tarif, BigDecimal.ZERO);
+        number(consistent, "+375290001002", tarif, BigDecimal.ZERO);
+        pay(consistent, paid, "10.00");
+        callService.addCall(CallRequestDTO.builder().phoneNumber("+375290001002").callType("local")
+                .startedAt(LocalDateTime.of(2025, 9, 1, 10, 0)).durationSeconds(60).build());
+        phoneNumberService.deletePhoneNumber(paid.getNumberId());
+
+        // Its only number deleted, the balance is no longer held by any number
+        numberless = client("numberless@recon.by", BigDecimal.ZERO);
+        PhoneNumber only = number(numberless, "+375290001003", tarif, BigDecimal.ZERO);
+        pay(numberless, only, "5.00");
+        phoneNumberService.deletePhoneNumber(only.getNumberId());
+
+        // Opened with a balance that no payment accounts for
+        opened = client("opened@recon.by", new BigDecimal("3.00"));
+        number(opened, "+375290001004", tarif, new BigDecimal("3.00"));
+
+        jdbcTemplate.update("""
+                INSERT INTO usage_daily (number_id, usage_date, call_type, client_id, call_count, duration_seconds, duration_minutes, cost)
+                VALUES (1, ?, 'local', ?, 1, 60, 1, 0.25)
+                """, Date.valueOf(LocalDate.of(2025, 9, 1)), MISSING_CLIENT_ID);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        usageDailyRepository.deleteAll();
+        paymentDailyRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+    }
+
+    private Client client(String email, BigDecimal balance) {
+        return clientRepository.save(Client.builder().fullName(email).email(email).balance(balance).build());
+    }
+
+    private PhoneNumber number(Client client, String phone, Tarif tarif, BigDecimal balance) {
+        return phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone(phone).numberBalance(balance).tarif(tarif).build());
+    }
+
+    private void pay(Client client, PhoneNumber number, String amount) {
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(number.getNumberId(), new BigDecimal(amount), "card", client.getClientId()));
+    }
+
+    @Test
+    void reportsEachKindOfDisagreement() {
+        ReconciliationReportDTO report = reconciliationService.run();
+
+        assertThat(report.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getShardsCompleted()).isEqualTo(report.getShards());
+        assertThat(report.getClientsScanned()).isEqualTo(4);
+        assertThat(report.getFlagged()).isEqualTo(3);
+        assertThat(report.getByKind()).isEqualTo(Map.of("LEDGER", 1L, "NUMBERS", 1L, "UNKNOWN_CLIENT", 1L));
+        assertThat(report.isTruncated()).isFalse();
+        assertThat(reconciliationService.discrepancies(null, null, 100))
+                .extracting(DiscrepancyDTO::getClientId, DiscrepancyDTO::getKind, DiscrepancyDTO::getDifference)
+                .containsExactly(
+                        tuple(numberless.getClientId(), "NUMBERS", new BigDecimal("5.00")),
+                        tuple(opened.getClientId(), "LEDGER", new BigDecimal("3.00")),
+                        tuple(MISSING_CLIENT_ID, "UNKNOWN_CLIENT", null));
+    }
+
+    @Test
+    void reportIsPagedAndFilteredByKind() {
+        reconciliationService.run();
+
+        assertThat(reconciliationService.discrepancies("numbers", null, 100))
+                .extracting(DiscrepancyDTO::getClientId)
+                .containsExactly(numberless.getClientId());
+        assertThat(reconciliationService.discrepancies(null, numberless.getClientId(), 1))
+                .extracting(DiscrepancyDTO::getClientId)
+                .containsExactly(opened.getClientId());
+        assertThatThrownBy(() -> reconciliationService.discrepancies("balance", null, 100))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void fixedDisagreementsAreGoneFromTheNextReport() {
+        reconciliationService.run();
+
+        jdbcTemplate.update("UPDATE client SET balance = 0 WHERE client_id = ?", numberless.getClientId());
+        jdbcTemplate.update("UPDATE phone_number SET number_balance = 0 WHERE client_id = ?", opened.getClientId());
+        jdbcTemplate.update("UPDATE client SET balance = 0 WHERE client_id = ?", opened.getClientId());
+        jdbcTemplate.update("DELETE FROM usage_daily WHERE client_id = ?", MISSING_CLIENT_ID);
+
+        // Zeroed without the payment going away: the ledger no longer agrees
+        assertThat(reconciliationService.run().getByKind()).isEqualTo(Map.of("LEDGER", 1L));
+        assertThat(reconciliationService.discrepancies(null, null, 100))
+                .extracting(DiscrepancyDTO::getClientId, DiscrepancyDTO::getDifference)
+                .containsExactly(tuple(numberless.getClientId(), new BigDecimal("-5.00")));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.PaymentReportDTO;
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.DTO.ReportFilterDTO;
+import com.example.calltrack.DTO.RollupRebuildDTO;
+import com.example.calltrack.DTO.UsageReportDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentDailyRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.example.calltrack.Repository.UsageDailyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class ReportServiceTests {
+
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private RollupService rollupService;
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private UsageDailyRepository usageDailyRepository;
+    @Autowired
+    private PaymentDailyRepository paymentDailyRepository;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private RatingCache ratingCache;
+
+    private Client client;
+    private PhoneNumber first;
+
+    @BeforeEach
+    void setUp() {
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        usageDailyRepository.deleteAll();
+        paymentDailyRepository.deleteAll();
+        ratingCache.invalidateAll();
+
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Базовый").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        client = clientRepository.save(Client.builder()
+                .fullName("Report Client")
+                .email("reports@test.by")
+                .balance(BigDecimal.ZERO)
+                .build());
+        first = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000301").numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+        phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000302").numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+
+        call("+375290000301", "local", LocalDateTime.of(2025, 9, 1, 10, 0), 60);
+        call("+375290000301", "local", LocalDateTime.of(2025, 9, 1, 11, 0), 90);
+        call("+375290000301", "international", LocalDateTime.of(2025, 9, 2, 9, 0), 120);
+        callService.addCalls(List.of(
+                CallRequestDTO.builder().phoneNumber("+375290000302").callType("local")
+                        .startedAt(LocalDateTime.of(2025, 9, 2, 12, 0)).durationSeconds(30).build(),
+                CallRequestDTO.builder().phoneNumber("+375290000302").callType("local")
+                        .startedAt(LocalDateTime.of(2025, 9, 2, 13, 0)).durationSeconds(30).build()).iterator());
+
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(first.getNumberId(), new BigDecimal("5.00"), "card", client.getClientId()));
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(first.getNumberId(), new BigDecimal("7.50"), "card", client.getClientId()));
+    }
+
+    private void call(String phone, String type, LocalDateTime startedAt, int seconds) {
+        callService.addCall(CallRequestDTO.builder()
+                .phoneNumber(phone).callType(type).startedAt(startedAt).durationSeconds(seconds).build());
+    }
+
+    @Test
+    void aggregatesCallsAsTheyAreRecorded() {
+        ReportFilterDTO all = ReportFilterDTO.builder().clientId(client.getClientId()).build();
+
+        assertThat(reportService.usageByDay(all))
+                .extracting(UsageReportDTO::getDay, UsageReportDTO::getCalls, UsageReportDTO::getDurationMinutes, UsageReportDTO::getCost)
+                .containsExactly(
+                        tuple(LocalDate.of(2025, 9, 1), 2L, 3L, new BigDecimal("0.75")),
+                        tuple(LocalDate.of(2025, 9, 2), 3L, 4L, new BigDecimal("1.00")));
+
+        assertThat(reportService.usageByCallType(ReportFilterDTO.builder().phone("+375290000301").build()))
+                .extracting(UsageReportDTO::getCallType, UsageReportDTO::getCalls, UsageReportDTO::getDurationSeconds)
+                .containsExactly(tuple("international", 1L, 120L), tuple("local", 2L, 150L));
+
+        assertThat(reportService.usageByDay(ReportFilterDTO.builder().from(LocalDate.of(2025, 9, 2)).build()))
+                .extracting(UsageReportDTO::getDay)
+                .containsExactly(LocalDate.of(2025, 9, 2));
+    }
+
+    @Test
+    void aggregatesPaymentsAsTheyAreMade() {
+        List<PaymentReportDTO> payments = reportService.paymentsByDay(
+                ReportFilterDTO.builder().phone("+375290000301").build());
+
+        assertThat(payments).singleElement().satisfies(day -> {
+            assertThat(day.getDay()).isEqualTo(LocalDate.now());
+            assertThat(day.getPayments()).isEqualTo(2);
+            assertThat(day.getAmount()).isEqualByComparingTo("12.50");
+        });
+    }
+
+    @Test
+    void rebuildReproducesIncrementalTotals() {
+        ReportFilterDTO all = ReportFilterDTO.builder().build();
+        List<UsageReportDTO> usage = reportService.usageByDay(all);
+        List<PaymentReportDTO> payments = reportService.paymentsByDay(all);
+
+        usageDailyRepository.deleteAll();
+        paymentDailyRepository.deleteAll();
+
+        RollupRebuildDTO september = rollupService.rebuild(LocalDate.of(2025, 8, 25), LocalDate.of(2025, 9, 5));
+        RollupRebuildDTO today = rollupService.rebuild(LocalDate.now(), LocalDate.now());
+
+        assertThat(september.getDays()).isEqualTo(12);
+        assertThat(september.getUsageRows()).isEqualTo(3);
+        assertThat(today.getPaymentRows()).isEqualTo(1);
+        assertThat(reportService.usageByDay(all)).isEqualTo(usage);
+        assertThat(reportService.paymentsByDay(all)).usingRecursiveFieldByFieldElementComparatorIgnoringFields("amount")
+                .isEqualTo(payments);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class SecondLevelCacheTests {
+
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private SecondLevelCacheStats secondLevelCacheStats;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Client client;
+    private PhoneNumber number;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Кэш").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        client = clientRepository.save(Client.builder()
+                .fullName("Cached Client")
+                .email("cached@test.by")
+                .balance(BigDecimal.ZERO)
+                .build());
+        number = phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000700").numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedLookupsRunNoStatements() {
+        clientRepository.findById(client.getClientId()).orElseThrow();
+        clientRepository.findByEmail("cached@test.by");
+        phoneNumberRepository.findByPhone("+375290000700").orElseThrow();
+        phoneNumberRepository.findAllByClient_ClientId(client.getClientId());
+
+        assertThat(statements(() -> clientRepository.findById(client.getClientId()).orElseThrow()).getFullName())
+                .isEqualTo("Cached Client");
+        assertThat(statements(() -> clientRepository.findByEmail("cached@test.by")).getClientId())
+                .isEqualTo(client.getClientId());
+        assertThat(statements(() -> phoneNumberRepository.findByPhone("+375290000700").orElseThrow()).getNumberId())
+                .isEqualTo(number.getNumberId());
+        assertThat(statements(() -> phoneNumberRepository.findAllByClient_ClientId(client.getClientId())))
+                .hasSize(1);
+        assertThat(secondLevelCacheStats.getStats())
+                .anySatisfy(stats -> {
+                    assertThat(stats.getName()).isEqualTo("l2:client");
+                    assertThat(stats.getHits()).isPositive();
+                });
+    }
+
+    @Test
+    void balanceChangedOutsideHibernateIsReadFresh() {
+        assertThat(clientRepository.findById(client.getClientId()).orElseThrow().getBalance()).isEqualByComparingTo("0");
+        assertThat(phoneNumberRepository.findByPhone("+375290000700").orElseThrow().getNumberBalance()).isEqualByComparingTo("0");
+
+        paymentService.addPaymentsOnNumber(new PaymentRequestDTO(number.getNumberId(), new BigDecimal("3.00"), "card", client.getClientId()));
+
+        assertThat(clientRepository.findById(client.getClientId()).orElseThrow().getBalance()).isEqualByComparingTo("3.00");
+        assertThat(clientRepository.findByEmail("cached@test.by").getBalance()).isEqualByComparingTo("3.00");
+        assertThat(phoneNumberRepository.findByPhone("+375290000700").orElseThrow().getNumberBalance()).isEqualByComparingTo("3.00");
+    }
+
+    @Test
+    void numberListOfAClientSeesNewNumbers() {
+        assertThat(phoneNumberRepository.findAllByClient_ClientId(client.getClientId())).hasSize(1);
+
+        phoneNumberRepository.save(PhoneNumber.builder()
+                .client(client).phone("+375290000701").numberBalance(BigDecimal.ZERO).build());
+
+        assertThat(phoneNumberRepository.findAllByClient_ClientId(client.getClientId())).hasSize(2);
+    }
+
+    /** Runs the lookup and checks that it was answered without touching the database. */
+    private <T> T statements(Supplier<T> lookup) {
+        long before = statistics.getPrepareStatementCount();
+        T result = lookup.get();
+        assertThat(statistics.getPrepareStatementCount() - before).isZero();
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.Controller.TarifController;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.TarifRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class TariffCatalogTests {
+
+    @Autowired
+    private TarifController tarifController;
+    @Autowired
+    private TariffCatalog tariffCatalog;
+    @Autowired
+    private RatingEngine ratingEngine;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(tarifController).build();
+    }
+
+    @Test
+    void revalidationWithTheCurrentETagIsNotModifiedWithoutQueries() throws Exception {
+        tarifRepository.save(tarif("Catalogue " + System.nanoTime(), "1.00"));
+        tariffCatalog.refresh();
+
+        MvcResult first = mockMvc.perform(get("/api/v1/tariffs"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, must-revalidate, public"))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"").doesNotStartWith("W/");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/v1/tariffs").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // Re-reading an unchanged catalogue keeps the snapshot and its validator
+        assertThat(tariffCatalog.refresh().etag()).isEqualTo(tariffCatalog.snapshot().etag());
+        mockMvc.perform(get("/api/v1/tariffs").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void changedTariffsGetANewETagAndNewRates() throws Exception {
+        Tarif tarif = tarifRepository.save(tarif("Changing " + System.nanoTime(), "1.00"));
+        tariffCatalog.refresh();
+        String etag = mockMvc.perform(get("/api/v1/tariffs")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(ratingEngine.tariff(tarif.getTariffId()).cost("local", 0, 60)).isEqualTo(100);
+
+        // Tariffs are read-only entities, so a price change arrives behind Hibernate's back
+        jdbcTemplate.update("UPDATE tariff SET price_per_minute = 2.50 WHERE tariff_id = ?", tarif.getTariffId());
+        tariffCatalog.refresh();
+
+        mockMvc.perform(get("/api/v1/tariffs").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("2.5")));
+        assertThat(ratingEngine.tariff(tarif.getTariffId()).cost("local", 0, 60)).isEqualTo(250);
+    }
+
+    @Test
+    void tariffAddedSinceTheLastLoadIsRated() {
+        tariffCatalog.refresh();
+        Tarif added = tarifRepository.save(tarif("Added " + System.nanoTime(), "0.40"));
+        Tarif unpriced = tarifRepository.save(tarif("Unpriced " + System.nanoTime(), null));
+
+        assertThat(ratingEngine.tariff(added.getTariffId()).cost("local", 0, 120)).isEqualTo(80);
+        assertThat(ratingEngine.tariff(unpriced.getTariffId())).isNull();
+        assertThat(tariffCatalog.snapshot().tariffs()).extracting(Tarif::getTariffId)
+                .contains(added.getTariffId(), unpriced.getTariffId());
+        assertThat(ratingEngine.tariff(Long.MAX_VALUE)).isNull();
+    }
+
+    private static Tarif tarif(String name, String price) {
+        return Tarif.builder()
+                .tariffName(name)
+                .tariffType("basic")
+                .pricePerMinute(price == null ? null : new BigDecimal(price))
+                .currency("RUB")
+                .build();
+    }
+}
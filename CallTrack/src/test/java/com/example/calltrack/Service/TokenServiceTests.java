@@ -0,0 +1,55 @@
+package com.example.calltrack.Service;
+
+import com.example.calltrack.DTO.TokenClaimsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenServiceTests {
+    private static final Instant NOW = Instant.parse("2025-10-01T12:00:00Z");
+
+    private final TokenService tokens = new TokenService("test-secret", Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void verifiesIssuedToken() {
+        String token = tokens.issue(tokens.newClaims(42L, "ADMIN"));
+
+        assertThat(tokens.verify(token)).contains(new TokenClaimsDTO(42L, "ADMIN", NOW.plus(Duration.ofHours(1))));
+    }
+
+    @Test
+    void rejectsTamperedForeignAndMalformedTokens() {
+        String token = tokens.issue(tokens.newClaims(42L, "USER"));
+        String forged = tokens.issue(new TokenClaimsDTO(43L, "ADMIN", NOW.plusSeconds(60))).split("\\.")[0]
+                + "." + token.split("\\.")[1];
+        TokenService other = new TokenService("other-secret", Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertThat(tokens.verify(forged)).isEmpty();
+        assertThat(other.verify(token)).isEmpty();
+        assertThat(tokens.verify("not-a-token")).isEmpty();
+        assertThat(tokens.verify("a.b.c")).isEmpty();
+        assertThat(tokens.verify("%%%.###")).isEmpty();
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = tokens.issue(tokens.newClaims(42L, "USER"));
+        TokenService later = new TokenService("test-secret", Duration.ofHours(1),
+                Clock.fixed(NOW.plus(Duration.ofHours(1)), ZoneOffset.UTC));
+
+        assertThat(later.verify(token)).isEmpty();
+    }
+
+    @Test
+    void refusesToStartWithoutASecret() {
+        assertThatThrownBy(() -> new TokenService(" ", Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("calltrack.auth.token-secret");
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.calltrack.benchmark;
+
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PaymentsRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.example.calltrack.Service.ChargeAggregator;
+import com.example.calltrack.Service.ClientSummaryService;
+import com.example.calltrack.Service.DebtorIndex;
+import com.example.calltrack.Service.PasswordHasher;
+import com.example.calltrack.Service.RatingCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sustained throughput and latency of the REST API. The application is booted on a random port
+ * against the in-memory H2 database of the tests, seeded with clients, numbers and tariffs, and
+ * driven through real HTTP by {@code benchmark.concurrency} workers issuing a weighted mix of
+ * calls, payments, logins, call log pages and debtor reports. After a warmup the requests of
+ * {@code benchmark.duration} are recorded; throughput and p50/p99/p999 latency per endpoint are
+ * printed and written to {@code target/loadtest/report.json}.
+ * <p>
+ * Workers run on virtual threads when the JVM has them (Java 21+) and on platform threads otherwise.
+ * Run with {@code mvn test -Dtest=ApiLoadBenchmark -Dbenchmark=true [-Dbenchmark.concurrency=64]
+ * [-Dbenchmark.duration=PT30S] [-Dbenchmark.warmup=PT5S] [-Dbenchmark.clients=2000]
+ * [-Dbenchmark.mix=call:60,payment:20,login:2,calls:13,debts:5]}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ApiLoadBenchmark {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 64);
+    private static final Duration DURATION = Duration.parse(System.getProperty("benchmark.duration", "PT30S"));
+    private static final Duration WARMUP = Duration.parse(System.getProperty("benchmark.warmup", "PT5S"));
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 2000);
+    private static final int LOGIN_CLIENTS = 50;
+    private static final int NUMBERS_PER_CLIENT = 2;
+    private static final String MIX = System.getProperty("benchmark.mix", "call:60,payment:20,login:2,calls:13,debts:5");
+    private static final Path REPORT = Path.of("target", "loadtest", "report.json");
+
+    private enum Endpoint {
+        CALL("call"), PAYMENT("payment"), LOGIN("login"), CALLS("calls"), DEBTS("debts");
+
+        private final String key;
+
+        Endpoint(String key) {
+            this.key = key;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PaymentsRepository paymentsRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private RatingCache ratingCache;
+    @Autowired
+    private DebtorIndex debtorIndex;
+    @Autowired
+    private ChargeAggregator chargeAggregator;
+    @Autowired
+    private ClientSummaryService clientSummaryService;
+    @Autowired
+    private PasswordHasher passwordHasher;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<long[]> numbers = new ArrayList<>(); // {clientId, numberId}
+    private final List<String> phones = new ArrayList<>();
+    private final List<String> logins = new ArrayList<>();
+    private Endpoint[] weightedMix;
+    private HttpClient http;
+
+    @BeforeEach
+    void seed() {
+        chargeAggregator.flush();
+        callRepository.deleteAll();
+        paymentsRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+        clientSummaryService.invalidateAll();
+
+        List<Tarif> tarifs = tarifRepository.saveAll(List.of(
+                Tarif.builder().tariffName("Базовый").tariffType("standard").pricePerMinute(new BigDecimal("0.25")).currency("BYN").build(),
+                Tarif.builder().tariffName("Безлимит").tariffType("unlimited").pricePerMinute(new BigDecimal("0.05")).currency("BYN").build(),
+                Tarif.builder().tariffName("Премиум").tariffType("premium").pricePerMinute(new BigDecimal("0.10")).currency("BYN").build()));
+
+        List<Client> clients = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            String email = "load" + i + "@test.by";
+            clients.add(Client.builder()
+                    .fullName("Load Client " + i)
+                    .email(email)
+                    .password(i < LOGIN_CLIENTS ? passwordHasher.encode("password" + i).join() : null)
+                    .balance(BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(-5000, 5000), 2))
+                    .status("USER")
+                    .allowedCreditMinutes(0)
+                    .build());
+            if (i < LOGIN_CLIENTS) {
+                logins.add("{\"email\":\"" + email + "\",\"password\":\"password" + i + "\"}");
+            }
+        }
+        clientRepository.saveAll(clients);
+
+        List<PhoneNumber> phoneNumbers = new ArrayList<>(CLIENTS * NUMBERS_PER_CLIENT);
+        for (int i = 0; i < CLIENTS; i++) {
+            for (int n = 0; n < NUMBERS_PER_CLIENT; n++) {
+                phoneNumbers.add(PhoneNumber.builder()
+                        .client(clients.get(i))
+                        .phone("+37544" + (1_000_000 + i * NUMBERS_PER_CLIENT + n))
+                        .numberBalance(BigDecimal.ZERO)
+                        .tarif(tarifs.get((i + n) % tarifs.size()))
+                        .build());
+            }
+        }
+        for (PhoneNumber number : phoneNumberRepository.saveAll(phoneNumbers)) {
+            numbers.add(new long[]{number.getClient().getClientId(), number.getNumberId()});
+            phones.add(number.getPhone());
+        }
+        debtorIndex.reload();
+
+        weightedMix = parseMix(MIX);
+        http = HttpClient.newBuilder().executor(workerExecutor()).connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    private static Endpoint[] parseMix(String mix) {
+        List<Endpoint> weighted = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] keyWeight = part.trim().split(":");
+            Endpoint endpoint = Arrays.stream(Endpoint.values())
+                    .filter(e -> e.key.equals(keyWeight[0]))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown endpoint in benchmark.mix: " + keyWeight[0]));
+            for (int i = Integer.parseInt(keyWeight[1]); i > 0; i--) {
+                weighted.add(endpoint);
+            }
+        }
+        return weighted.toArray(new Endpoint[0]);
+    }
+
+    /** One virtual thread per task on Java 21+, a cached platform pool before that. */
+    private static ExecutorService workerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    @Test
+    void sustainedMixedLoad() throws Exception {
+        try (Workers workers = new Workers(workerExecutor())) {
+            run(workers.service, WARMUP);
+            Map<Endpoint, Samples> samples = run(workers.service, DURATION);
+            Map<String, Object> report = report(samples);
+
+            Files.createDirectories(REPORT.getParent());
+            objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT.toFile(), report);
+
+            long failed = samples.values().stream().mapToLong(s -> s.failures).sum();
+            assertThat(failed).as("requests failed with an error other than 503").isZero();
+        }
+    }
+
+    /** Runs the mix for {@code duration} and returns the samples recorded by all workers. */
+    private Map<Endpoint, Samples> run(ExecutorService executor, Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<CompletableFuture<Map<Endpoint, Samples>>> workers = new ArrayList<>(CONCURRENCY);
+        for (int w = 0; w < CONCURRENCY; w++) {
+            workers.add(CompletableFuture.supplyAsync(() -> work(deadline), executor));
+        }
+
+        Map<Endpoint, Samples> merged = new EnumMap<>(Endpoint.class);
+        for (CompletableFuture<Map<Endpoint, Samples>> worker : workers) {
+            worker.join().forEach((endpoint, s) -> merged.computeIfAbsent(endpoint, e -> new Samples()).addAll(s));
+        }
+        merged.values().forEach(s -> s.seconds = duration.toNanos() / 1e9);
+        return merged;
+    }
+
+    private Map<Endpoint, Samples> work(long deadline) {
+        Map<Endpoint, Samples> samples = new EnumMap<>(Endpoint.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Endpoint endpoint = weightedMix[random.nextInt(weightedMix.length)];
+            HttpRequest request = request(endpoint, random);
+            Samples s = samples.computeIfAbsent(endpoint, e -> new Samples());
+            long started = System.nanoTime();
+            try {
+                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                s.record(System.nanoTime() - started, response.statusCode());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                s.record(System.nanoTime() - started, -1);
+            }
+        }
+        return samples;
+    }
+
+    private HttpRequest request(Endpoint endpoint, ThreadLocalRandom random) {
+        int number = random.nextInt(numbers.size());
+        return switch (endpoint) {
+            case CALL -> post("/api/v1/reg/call", "{\"phoneNumber\":\"" + phones.get(number) + "\",\"callType\":\""
+                    + (random.nextInt(10) == 0 ? "international" : "local") + "\",\"durationSeconds\":"
+                    + random.nextInt(5, 1800) + ",\"startDate\":\"" + LocalDate.now().minusDays(random.nextInt(30)) + "\"}");
+            case PAYMENT -> post("/api/v1/payments", "{\"phoneId\":" + numbers.get(number)[1] + ",\"clientId\":"
+                    + numbers.get(number)[0] + ",\"amount\":" + random.nextInt(1, 50) + ",\"paymentType\":\"card\"}");
+            case LOGIN -> post("/api/v1/auth/login", logins.get(random.nextInt(logins.size())));
+            case CALLS -> get("/api/v1/calls?limit=50" + (random.nextBoolean() ? "&phone=" + phones.get(number).replace("+", "%2B") : ""));
+            case DEBTS -> get("/api/v1/clients/debts?minDebt=" + random.nextInt(0, 40) + "&size=50");
+        };
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private Map<String, Object> report(Map<Endpoint, Samples> samples) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.printf("%n%-8s %9s %9s %9s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "rejected", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Endpoint, Samples> entry : samples.entrySet()) {
+            Samples s = entry.getValue();
+            long[] sorted = Arrays.copyOf(s.latencies, s.count);
+            Arrays.sort(sorted);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", s.count);
+            row.put("throughput", s.count / s.seconds);
+            row.put("rejected", s.rejected);
+            row.put("failures", s.failures);
+            row.put("p50Millis", percentile(sorted, 0.50));
+            row.put("p99Millis", percentile(sorted, 0.99));
+            row.put("p999Millis", percentile(sorted, 0.999));
+            row.put("maxMillis", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+            endpoints.put(entry.getKey().key, row);
+            System.out.printf("%-8s %9d %9.1f %9d %10.2f %10.2f %10.2f %10.2f%n", entry.getKey().key, s.count,
+                    row.get("throughput"), s.rejected, row.get("p50Millis"), row.get("p99Millis"), row.get("p999Millis"),
+                    row.get("maxMillis"));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("concurrency", CONCURRENCY);
+        report.put("durationSeconds", DURATION.toSeconds());
+        report.put("clients", CLIENTS);
+        report.put("mix", MIX);
+        report.put("virtualThreads", Runtime.version().feature() >= 21);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    /** Latencies and outcomes of one endpoint, recorded by a single worker or merged afterwards. */
+    private static final class Samples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long rejected;
+        private long failures;
+        private double seconds;
+
+        void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (status == 503 || status == 429) {
+                rejected++;
+            } else if (status < 200 || status >= 300) {
+                failures++;
+            }
+        }
+
+        void addAll(Samples other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, count + other.count);
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            rejected += other.rejected;
+            failures += other.failures;
+        }
+    }
+
+    /** Shuts the worker executor down when the run ends. */
+    private static final class Workers implements AutoCloseable {
+        private final ExecutorService service;
+
+        Workers(ExecutorService service) {
+            this.service = service;
+        }
+
+        @Override
+        public void close() {
+            service.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.calltrack.benchmark;
+
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.CallRepository;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.example.calltrack.Service.CallService;
+import com.example.calltrack.Service.RatingCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Throughput of the single-call endpoint path against bulk ingestion on the same data set.
+ * <p>
+ * Run with {@code mvn test -Dtest=CallIngestionBenchmark -Dbenchmark=true [-Dbenchmark.calls=20000]}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CallIngestionBenchmark {
+
+    private static final int CALLS = Integer.getInteger("benchmark.calls", 20_000);
+    private static final int NUMBERS = 200;
+
+    @Autowired
+    private CallService callService;
+    @Autowired
+    private CallRepository callRepository;
+    @Autowired
+    private PhoneNumberRepository phoneNumberRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private TarifRepository tarifRepository;
+    @Autowired
+    private RatingCache ratingCache;
+
+    private final List<CallRequestDTO> records = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        callRepository.deleteAll();
+        phoneNumberRepository.deleteAll();
+        clientRepository.deleteAll();
+        tarifRepository.deleteAll();
+        ratingCache.invalidateAll();
+
+        Tarif tarif = tarifRepository.save(Tarif.builder().tariffName("Базовый").tariffType("standard").pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        Client client = clientRepository.save(Client.builder()
+                .fullName("Benchmark Client").email("bench@test.by").balance(BigDecimal.ZERO).build());
+        List<PhoneNumber> numbers = new ArrayList<>();
+        for (int i = 0; i < NUMBERS; i++) {
+            numbers.add(PhoneNumber.builder().client(client).phone("+37533" + (1_000_000 + i))
+                    .numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+        }
+        phoneNumberRepository.saveAll(numbers);
+
+        LocalDate day = LocalDate.of(2025, 9, 1);
+        for (int i = 0; i < CALLS; i++) {
+            records.add(CallRequestDTO.builder()
+                    .phoneNumber("+37533" + (1_000_000 + i % NUMBERS))
+                    .callType(i % 5 == 0 ? "international" : "local")
+                    .durationMinutes(1 + i % 30)
+                    .startDate(day.plusDays(i % 30))
+                    .build());
+        }
+    }
+
+    @Test
+    void singleVersusBulk() {
+        long start = System.nanoTime();
+        for (CallRequestDTO record : records) {
+            callService.addCall(record);
+        }
+        report("single", System.nanoTime() - start);
+
+        callRepository.deleteAllInBatch();
+
+        start = System.nanoTime();
+        callService.addCalls(records.iterator());
+        report("bulk", System.nanoTime() - start);
+    }
+
+    private static void report(String path, long nanos) {
+        System.out.printf("%-6s %,d calls in %.2f s -> %,.0f calls/s%n", path, CALLS, nanos / 1e9, CALLS / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.calltrack.benchmark;
+
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Entity.TarifRate;
+import com.example.calltrack.Service.CompiledTariff;
+import com.example.calltrack.Service.RollupService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-memory part of recording a call: rating the request, building the {@code Call} entity
+ * the way {@code CallService.buildCall} does and deriving its rollup contribution. Together with
+ * {@link PersistenceBenchmark#addCall} this separates CPU cost from database cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CallMappingBenchmark {
+    private static final int CALLS = 1024;
+
+    private CompiledTariff tariff;
+    private PhoneNumber number;
+    private Tarif tarif;
+    private CallRequestDTO[] requests;
+
+    @Setup
+    public void setUp() {
+        tarif = Tarif.builder()
+                .tariffId(1L)
+                .pricePerMinute(new BigDecimal("0.25"))
+                .offPeakPricePerMinute(new BigDecimal("0.10"))
+                .peakStart(LocalTime.of(8, 0))
+                .peakEnd(LocalTime.of(20, 0))
+                .billingIncrementSeconds(1)
+                .build();
+        tariff = CompiledTariff.compile(tarif,
+                List.of(TarifRate.builder().callType("international").pricePerMinute(new BigDecimal("1.50")).build()));
+        number = PhoneNumber.builder().numberId(1L).phone("+375331000000").build();
+
+        LocalDateTime start = LocalDateTime.of(2025, 9, 1, 0, 0);
+        requests = new CallRequestDTO[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            requests[i] = CallRequestDTO.builder()
+                    .phoneNumber(number.getPhone())
+                    .callType(i % 5 == 0 ? "international" : "local")
+                    .startedAt(start.plusSeconds((i * 7919L) % 86_400))
+                    .durationSeconds(5 + (i * 31) % 3600)
+                    .build();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public void rateAndBuild(Blackhole bh) {
+        for (CallRequestDTO request : requests) {
+            LocalDateTime startedAt = request.getStartedAt();
+            int durationSeconds = request.getDurationSeconds();
+            long cost = tariff.cost(request.getCallType(), startedAt.toLocalTime().toSecondOfDay(), durationSeconds);
+            Call call = Call.builder()
+                    .phoneNumber(number)
+                    .startedAt(startedAt)
+                    .callType(request.getCallType())
+                    .tarif(tarif)
+                    .cost(CompiledTariff.toAmount(cost))
+                    .durationMinutes((durationSeconds + 59) / 60)
+                    .durationSeconds(durationSeconds)
+                    .build();
+            bh.consume(RollupService.usageOf(1L, number.getNumberId(), call));
+        }
+    }
+}
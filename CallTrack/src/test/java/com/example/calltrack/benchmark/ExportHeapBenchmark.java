@@ -0,0 +1,100 @@
+package com.example.calltrack.benchmark;
+
+import com.example.calltrack.DTO.CallExportDTO;
+import com.example.calltrack.Service.ExportFormat;
+import com.example.calltrack.Service.ExportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap usage of a large export. Rows are generated lazily, the same way the JDBC cursor hands
+ * them over, and written to a discarding sink, so the peak heap reflects the writer alone.
+ * <p>
+ * Run with {@code mvn test -Dtest=ExportHeapBenchmark -Dbenchmark=true [-Dbenchmark.rows=10000000]}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExportHeapBenchmark {
+
+    private static final long ROWS = Long.getLong("benchmark.rows", 10_000_000L);
+
+    private final ExportService exportService = new ExportService(null, null, null,
+            new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    @Test
+    void csvExportKeepsHeapFlat() throws Exception {
+        run(ExportFormat.CSV);
+    }
+
+    @Test
+    void ndjsonExportKeepsHeapFlat() throws Exception {
+        run(ExportFormat.NDJSON);
+    }
+
+    private void run(ExportFormat format) throws Exception {
+        System.gc();
+        long baseline = usedHeap();
+        resetPeaks();
+
+        CountingSink sink = new CountingSink();
+        long start = System.nanoTime();
+        exportService.writeCalls(rows(ROWS), format, sink);
+        long elapsed = System.nanoTime() - start;
+
+        long peak = peakHeap();
+        System.out.printf("%s export: %,d rows, %,d MB written in %.1f s, heap baseline %,d MB, peak %,d MB%n",
+                format, ROWS, sink.bytes >> 20, elapsed / 1e9, baseline >> 20, peak >> 20);
+
+        // A materialised list of 10M rows alone would need well over a gigabyte
+        assertThat(peak - baseline).isLessThan(256L << 20);
+    }
+
+    private static Stream<CallExportDTO> rows(long count) {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        BigDecimal cost = new BigDecimal("0.35");
+        return LongStream.range(0, count).mapToObj(i -> new CallExportDTO(
+                i, start.plusSeconds(i), "+37529" + (1_000_000 + i % 1_000_000), i % 3 == 0 ? "international" : "local",
+                (int) (i % 60), cost));
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void resetPeaks() {
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long peakHeap() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+
+    private static final class CountingSink extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.calltrack.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the JMH benchmarks of this package and writes the results as JSON to
+ * {@code target/jmh/results.json}, so runs can be kept and compared over time.
+ * <p>
+ * Run with {@code mvn test -Dtest=JmhBenchmarks -Dbenchmark=true}. {@code -Dbenchmark.include=<regex>}
+ * picks benchmarks, {@code -Dbenchmark.args="..."} passes JMH command line options (e.g.
+ * {@code "-f 1 -wi 1 -i 3 -p clients=100000"}).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JmhBenchmarks {
+
+    private static final Path RESULTS = Path.of("target", "jmh", "results.json");
+
+    @Test
+    void run() throws Exception {
+        Files.createDirectories(RESULTS.getParent());
+        String args = System.getProperty("benchmark.args", "").trim();
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args.isEmpty() ? new String[0] : args.split("\\s+")))
+                .include(System.getProperty("benchmark.include", JmhBenchmarks.class.getPackageName() + "\\."))
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTS.toString())
+                .build();
+
+        assertThat(new Runner(options).run()).isNotEmpty();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.calltrack.benchmark;
+
+import com.example.calltrack.CallTrackApplication;
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.DebtorDTO;
+import com.example.calltrack.DTO.PhoneRatingDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.example.calltrack.Service.CallService;
+import com.example.calltrack.Service.ClientService;
+import com.example.calltrack.Service.DebtorIndex;
+import com.example.calltrack.Service.PhoneNumberService;
+import com.example.calltrack.Service.RatingCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database-backed hot paths on the in-memory H2 database in PostgreSQL mode that the tests use:
+ * recording a call, looking a number up, and the debtor report over {@code clients} clients
+ * (a quarter of them in debt) from the in-memory index and from the indexed query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    private static final int NUMBERS = 1000;
+    private static final BigDecimal MIN_DEBT = new BigDecimal("50");
+
+    @Param("1000000")
+    private int clients;
+
+    private ConfigurableApplicationContext context;
+    private CallService callService;
+    private ClientService clientService;
+    private PhoneNumberService phoneNumberService;
+    private ClientRepository clientRepository;
+    private PhoneNumberRepository phoneNumberRepository;
+    private RatingCache ratingCache;
+    private String[] phones;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(CallTrackApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:calltrack_bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "calltrack.charging.journal-dir=target/jmh/charge-journal",
+                        "logging.level.root=WARN")
+                .run();
+        callService = context.getBean(CallService.class);
+        clientService = context.getBean(ClientService.class);
+        phoneNumberService = context.getBean(PhoneNumberService.class);
+        clientRepository = context.getBean(ClientRepository.class);
+        phoneNumberRepository = context.getBean(PhoneNumberRepository.class);
+        ratingCache = context.getBean(RatingCache.class);
+
+        seedClients(context.getBean(JdbcTemplate.class));
+        Tarif tarif = context.getBean(TarifRepository.class).save(Tarif.builder().tariffName("Базовый")
+                .tariffType("standard").pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        Client owner = clientRepository.save(Client.builder().fullName("Benchmark Owner")
+                .email("owner@bench.by").balance(BigDecimal.ZERO).build());
+        List<PhoneNumber> numbers = new ArrayList<>(NUMBERS);
+        phones = new String[NUMBERS];
+        for (int i = 0; i < NUMBERS; i++) {
+            phones[i] = "+37533" + (1_000_000 + i);
+            numbers.add(PhoneNumber.builder().client(owner).phone(phones[i]).numberBalance(BigDecimal.ZERO).tarif(tarif).build());
+        }
+        phoneNumberRepository.saveAll(numbers);
+        context.getBean(DebtorIndex.class).reload();
+        ratingCache.getAll(List.of(phones));
+    }
+
+    private void seedClients(JdbcTemplate jdbcTemplate) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 0, 0));
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < clients; i++) {
+            BigDecimal balance = i % 4 == 0 ? BigDecimal.valueOf(-(i % 20_000), 2) : BigDecimal.valueOf(i % 10_000, 2);
+            batch.add(new Object[]{"Client " + i, "client" + i + "@bench.by", balance, "USER", 0, createdAt});
+            if (batch.size() == 10_000 || i == clients - 1) {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO client (full_name, email, balance, status, allowed_credit_minutes, created_at)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private String randomPhone() {
+        return phones[ThreadLocalRandom.current().nextInt(NUMBERS)];
+    }
+
+    @Benchmark
+    public Object addCall() {
+        return callService.addCall(CallRequestDTO.builder()
+                .phoneNumber(randomPhone())
+                .callType("local")
+                .durationMinutes(3)
+                .startDate(LocalDate.of(2025, 9, 1))
+                .build());
+    }
+
+    @Benchmark
+    public PhoneRatingDTO lookupCached() {
+        return ratingCache.get(randomPhone());
+    }
+
+    @Benchmark
+    public PhoneRatingDTO lookupProjection() {
+        return phoneNumberRepository.findRatingByPhone(randomPhone()).orElseThrow();
+    }
+
+    @Benchmark
+    public PhoneNumber lookupEntity() {
+        return phoneNumberService.getByPhone(randomPhone());
+    }
+
+    @Benchmark
+    public List<DebtorDTO> debtorsFromIndex() {
+        return clientService.getDebtsClients(MIN_DEBT, 10, 50);
+    }
+
+    @Benchmark
+    public List<DebtorDTO> debtorsFromQuery() {
+        return clientRepository.findDebtors(MIN_DEBT.negate(), PageRequest.of(10, 50));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.calltrack.benchmark;
+
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Entity.TarifRate;
+import com.example.calltrack.Service.CompiledTariff;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled long-based rating against the former {@code pricePerMinute.multiply(minutes)} path.
+ * Run {@link #main} with the test classpath; add {@code -prof gc} to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RatingBenchmark {
+    private static final int CALLS = 1024;
+
+    private BigDecimal pricePerMinute;
+    private CompiledTariff tariff;
+    private String[] callTypes;
+    private int[] startSeconds;
+    private int[] durationsSeconds;
+
+    @Setup
+    public void setUp() {
+        pricePerMinute = new BigDecimal("0.25");
+        tariff = CompiledTariff.compile(Tarif.builder()
+                        .tariffId(1L)
+                        .pricePerMinute(pricePerMinute)
+                        .offPeakPricePerMinute(new BigDecimal("0.10"))
+                        .peakStart(LocalTime.of(8, 0))
+                        .peakEnd(LocalTime.of(20, 0))
+                        .billingIncrementSeconds(1)
+                        .build(),
+                List.of(TarifRate.builder().callType("international").pricePerMinute(new BigDecimal("1.50")).build()));
+
+        callTypes = new String[CALLS];
+        startSeconds = new int[CALLS];
+        durationsSeconds = new int[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            callTypes[i] = i % 5 == 0 ? "international" : "local";
+            startSeconds[i] = (i * 7919) % 86_400;
+            durationsSeconds[i] = 5 + (i * 31) % 3600;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public void bigDecimal(Blackhole bh) {
+        for (int i = 0; i < CALLS; i++) {
+            bh.consume(pricePerMinute.multiply(BigDecimal.valueOf((durationsSeconds[i] + 59) / 60)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public void compiled(Blackhole bh) {
+        for (int i = 0; i < CALLS; i++) {
+            bh.consume(tariff.cost(callTypes[i], startSeconds[i], durationsSeconds[i]));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RatingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
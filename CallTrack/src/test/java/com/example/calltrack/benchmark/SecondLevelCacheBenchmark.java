@@ -0,0 +1,201 @@
+package com.example.calltrack.benchmark;
+
+import com.example.calltrack.CallTrackApplication;
+import com.example.calltrack.DTO.CallRequestDTO;
+import com.example.calltrack.DTO.PaymentRequestDTO;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.example.calltrack.Repository.ClientRepository;
+import com.example.calltrack.Repository.PhoneNumberRepository;
+import com.example.calltrack.Repository.TarifRepository;
+import com.example.calltrack.Service.CallService;
+import com.example.calltrack.Service.PaymentService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths with the Hibernate second-level cache on and off, over {@code clients} clients with one
+ * number each, few enough for the warmup to fill the cache. Besides the time per operation, the
+ * {@code statements} and {@code operations} counters give the SQL statements Hibernate prepared
+ * per operation (their ratio), background charge flushes included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SecondLevelCacheBenchmark {
+
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    @Param("1000")
+    private int clients;
+
+    private ConfigurableApplicationContext context;
+    private CallService callService;
+    private PaymentService paymentService;
+    private ClientRepository clientRepository;
+    private PhoneNumberRepository phoneNumberRepository;
+    private Statistics statistics;
+    private long[] clientIds;
+    private long[] numberIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+        public long statements;
+        public long operations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            operations = 0;
+        }
+
+        void record(long count) {
+            statements += count;
+            operations++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(CallTrackApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:calltrack_l2_bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "calltrack.charging.journal-dir=target/jmh/charge-journal",
+                        "logging.level.root=WARN")
+                // Arguments, as default properties lose to application.properties
+                .run("--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache);
+        callService = context.getBean(CallService.class);
+        paymentService = context.getBean(PaymentService.class);
+        clientRepository = context.getBean(ClientRepository.class);
+        phoneNumberRepository = context.getBean(PhoneNumberRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        Tarif tarif = context.getBean(TarifRepository.class).save(Tarif.builder().tariffName("Базовый")
+                .tariffType("standard").pricePerMinute(new BigDecimal("0.25")).currency("BYN").build());
+        seed(context.getBean(JdbcTemplate.class), tarif.getTariffId());
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate, long tariffId) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 0, 0));
+        List<Object[]> batch = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            batch.add(new Object[]{"Client " + i, email(i), BigDecimal.ZERO, "USER", 0, createdAt});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO client (full_name, email, balance, status, allowed_credit_minutes, created_at)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, batch);
+        jdbcTemplate.update("""
+                INSERT INTO phone_number (client_id, phone, number_balance, tarif_id)
+                SELECT client_id, '+37544' || (1000000 + CAST(SUBSTRING(email, 7, POSITION('@' IN email) - 7) AS int)), 0, ?
+                FROM client
+                """, tariffId);
+        clientIds = jdbcTemplate.queryForList("SELECT client_id FROM client ORDER BY email", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        numberIds = jdbcTemplate.queryForList("""
+                SELECT n.number_id FROM phone_number n JOIN client c ON c.client_id = n.client_id ORDER BY c.email
+                """, Long.class).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static String email(int i) {
+        return "client" + i + "@bench.by";
+    }
+
+    private static String phone(int i) {
+        return "+37544" + (1_000_000 + i);
+    }
+
+    private int random() {
+        return ThreadLocalRandom.current().nextInt(clients);
+    }
+
+    @Benchmark
+    public Object addCall(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        Object result = callService.addCall(CallRequestDTO.builder()
+                .phoneNumber(phone(random()))
+                .callType("local")
+                .durationMinutes(3)
+                .startDate(LocalDate.of(2025, 9, 1))
+                .build());
+        counter.record(statistics.getPrepareStatementCount() - before);
+        return result;
+    }
+
+    @Benchmark
+    public Object addPayment(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        // Ids are ordered by email, so the same index is a client and its number
+        int i = random();
+        Object result = paymentService.addPaymentsOnNumber(
+                new PaymentRequestDTO(numberIds[i], BigDecimal.ONE, "card", clientIds[i]));
+        counter.record(statistics.getPrepareStatementCount() - before);
+        return result;
+    }
+
+    @Benchmark
+    public Client clientById(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        Client client = clientRepository.findById(clientIds[random()]).orElseThrow();
+        counter.record(statistics.getPrepareStatementCount() - before);
+        return client;
+    }
+
+    @Benchmark
+    public Client clientByEmail(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        Client client = clientRepository.findByEmail(email(random()));
+        counter.record(statistics.getPrepareStatementCount() - before);
+        return client;
+    }
+
+    @Benchmark
+    public PhoneNumber numberById(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        PhoneNumber number = phoneNumberRepository.findById(numberIds[random()]).orElseThrow();
+        counter.record(statistics.getPrepareStatementCount() - before);
+        return number;
+    }
+
+    @Benchmark
+    public PhoneNumber numberByPhone(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        PhoneNumber number = phoneNumberRepository.findByPhone(phone(random())).orElseThrow();
+        counter.record(statistics.getPrepareStatementCount() - before);
+        return number;
+    }
+
+    @Benchmark
+    public List<PhoneNumber> numbersOfClient(Statements counter) {
+        long before = statistics.getPrepareStatementCount();
+        List<PhoneNumber> numbers = phoneNumberRepository.findAllByClient_ClientId(clientIds[random()]);
+        counter.record(statistics.getPrepareStatementCount() - before);
+        return numbers;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.calltrack.benchmark;
+
+import com.example.calltrack.DTO.CallResponseDTO;
+import com.example.calltrack.DTO.PaymentViewDTO;
+import com.example.calltrack.Entity.Call;
+import com.example.calltrack.Entity.Client;
+import com.example.calltrack.Entity.Payment;
+import com.example.calltrack.Entity.PhoneNumber;
+import com.example.calltrack.Entity.Tarif;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a page of the call log and of the payment list: the former entity
+ * graphs (call → number → client, tariff) against the projections the endpoints return now.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"50", "500"})
+    private int rows;
+
+    private ObjectWriter writer;
+    private List<Call> calls;
+    private List<CallResponseDTO> callViews;
+    private List<Payment> payments;
+    private List<PaymentViewDTO> paymentViews;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writer();
+
+        Tarif tarif = Tarif.builder().tariffId(1L).tariffName("Базовый").tariffType("standard")
+                .pricePerMinute(new BigDecimal("0.25")).currency("BYN").build();
+        Client client = Client.builder().clientId(1L).fullName("Benchmark Client").email("bench@test.by")
+                .password("$2a$10$abcdefghijklmnopqrstuv").balance(new BigDecimal("-12.50")).status("USER")
+                .allowedCreditMinutes(0).createdAt(LocalDateTime.of(2025, 1, 1, 0, 0)).build();
+        PhoneNumber number = PhoneNumber.builder().numberId(1L).client(client).phone("+375331000000")
+                .numberBalance(BigDecimal.ZERO).tarif(tarif).build();
+
+        LocalDateTime start = LocalDateTime.of(2025, 9, 1, 8, 0);
+        calls = new ArrayList<>(rows);
+        callViews = new ArrayList<>(rows);
+        payments = new ArrayList<>(rows);
+        paymentViews = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Call call = Call.builder().callId((long) i).phoneNumber(number).tarif(tarif)
+                    .startedAt(start.plusMinutes(i)).callType(i % 5 == 0 ? "international" : "local")
+                    .cost(new BigDecimal("1.25")).durationMinutes(5).durationSeconds(290).build();
+            calls.add(call);
+            callViews.add(new CallResponseDTO(call.getCallId(), number.getPhone(), call.getStartedAt(), call.getCallType(),
+                    tarif.getTariffId(), call.getCost(), call.getDurationMinutes(), call.getDurationSeconds()));
+
+            Payment payment = Payment.builder().id((long) i).client(client).phone_number(number.getPhone())
+                    .amount(BigDecimal.TEN).paymentMethod("card").balanceAfter(BigDecimal.TEN)
+                    .createdAt(start.plusHours(i)).build();
+            payments.add(payment);
+            paymentViews.add(new PaymentViewDTO(payment.getId(), client.getClientId(), payment.getPhone_number(),
+                    payment.getAmount(), payment.getPaymentMethod(), payment.getBalanceAfter(), payment.getCreatedAt()));
+        }
+    }
+
+    @Benchmark
+    public byte[] callEntities() throws IOException {
+        return writer.writeValueAsBytes(calls);
+    }
+
+    @Benchmark
+    public byte[] callViews() throws IOException {
+        return writer.writeValueAsBytes(callViews);
+    }
+
+    @Benchmark
+    public byte[] paymentEntities() throws IOException {
+        return writer.writeValueAsBytes(payments);
+    }
+
+    @Benchmark
+    public byte[] paymentViews() throws IOException {
+        return writer.writeValueAsBytes(paymentViews);
+    }
+}